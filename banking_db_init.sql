@@ -4,6 +4,21 @@ CREATE DATABASE banking_db;
 
 USE banking_db;
 
+-- schema versions applied, see banking_db_migration_v*.sql
+CREATE TABLE schema_version (
+    version INT UNSIGNED PRIMARY KEY,
+    description VARCHAR(255) NOT NULL,
+    applied_at DATETIME NOT NULL
+);
+
+INSERT INTO schema_version (version, description, applied_at) VALUES
+    (1, 'initial schema', NOW()),
+    (2, 'per-record password hash parameters', NOW()),
+    (3, 'transfer recipients', NOW()),
+    (4, 'transaction history indexes', NOW()),
+    (5, 'transaction journal checkpoint', NOW()),
+    (6, 'balance snapshots', NOW());
+
 -- customers
 CREATE TABLE customer (
     id SERIAL PRIMARY KEY,
@@ -13,6 +28,8 @@ CREATE TABLE customer (
     age INT UNSIGNED NOT NULL,
     salt VARBINARY(16) NOT NULL, -- Salt for password hashing 
     hashed_password VARBINARY(64) NOT NULL, -- SHA512 hash
+    hash_algorithm VARCHAR(32) NOT NULL DEFAULT 'PBKDF2WithHmacSHA512', -- algorithm used for hashed_password
+    hash_iterations INT UNSIGNED NOT NULL DEFAULT 1000, -- PBKDF2 iteration count used for hashed_password
     registered_at DATETIME NOT NULL
 );
 
@@ -55,11 +72,37 @@ CREATE TABLE transaction (
     account_id BIGINT UNSIGNED NOT NULL, -- FK to account
     type_id INT UNSIGNED NOT NULL, -- FK to transaction_type
     amount DECIMAL(18,9) UNSIGNED NOT NULL,
-    -- to be added: recipient
+    recipient_account_id BIGINT UNSIGNED NULL, -- FK to account, transfers only
     executed_at DATETIME NOT NULL,
     
+    -- Covering indexes for the history of an account, newest first: sent and
+    -- received. They also serve the foreign keys on their first column.
+    INDEX idx_transaction_account_history (account_id, executed_at, id, type_id, amount, recipient_account_id),
+    INDEX idx_transaction_recipient_history (recipient_account_id, executed_at, id, account_id, type_id, amount),
+
     FOREIGN KEY (account_id) REFERENCES account(id),
-    FOREIGN KEY (type_id) REFERENCES transaction_type(id)
+    FOREIGN KEY (type_id) REFERENCES transaction_type(id),
+    FOREIGN KEY (recipient_account_id) REFERENCES account(id)
+);
+
+-- how far the transaction journal has been applied: a single row, moved in
+-- the same transaction as the changes it covers
+CREATE TABLE journal_checkpoint (
+    id INT UNSIGNED PRIMARY KEY,
+    drained_position BIGINT UNSIGNED NOT NULL -- journal bytes applied
 );
 
+INSERT INTO journal_checkpoint (id, drained_position) VALUES
+    (1, 0);
 
+-- balance of each account at set times, so that a past balance is found from
+-- the nearest snapshot and the transactions since; the key serves lookups of
+-- the nearest one on either side
+CREATE TABLE balance_snapshot (
+    account_id BIGINT UNSIGNED NOT NULL, -- FK to account
+    taken_at DATETIME NOT NULL, -- after transactions executed before, none at or after
+    balance DECIMAL(18,9) UNSIGNED NOT NULL,
+
+    PRIMARY KEY (account_id, taken_at),
+    FOREIGN KEY (account_id) REFERENCES account(id)
+);
@@ -0,0 +1,21 @@
+-- Migration v2: per-record password hash parameters.
+-- Apply to databases created before v2. Existing hashes were produced with
+-- PBKDF2WithHmacSHA512 at 1000 iterations, which the column defaults record.
+
+USE banking_db;
+
+CREATE TABLE IF NOT EXISTS schema_version (
+    version INT UNSIGNED PRIMARY KEY,
+    description VARCHAR(255) NOT NULL,
+    applied_at DATETIME NOT NULL
+);
+
+INSERT IGNORE INTO schema_version (version, description, applied_at) VALUES
+    (1, 'initial schema', NOW());
+
+ALTER TABLE customer
+    ADD COLUMN hash_algorithm VARCHAR(32) NOT NULL DEFAULT 'PBKDF2WithHmacSHA512' AFTER hashed_password,
+    ADD COLUMN hash_iterations INT UNSIGNED NOT NULL DEFAULT 1000 AFTER hash_algorithm;
+
+INSERT INTO schema_version (version, description, applied_at) VALUES
+    (2, 'per-record password hash parameters', NOW());
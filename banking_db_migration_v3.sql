@@ -0,0 +1,12 @@
+-- Migration v3: transfer recipients.
+-- Apply to databases at v2. A transfer is recorded as one transaction row on
+-- the debited account, of type 'transfer', naming the credited account.
+
+USE banking_db;
+
+ALTER TABLE transaction
+    ADD COLUMN recipient_account_id BIGINT UNSIGNED NULL AFTER amount,
+    ADD FOREIGN KEY (recipient_account_id) REFERENCES account(id);
+
+INSERT INTO schema_version (version, description, applied_at) VALUES
+    (3, 'transfer recipients', NOW());
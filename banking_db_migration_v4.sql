@@ -0,0 +1,20 @@
+-- Migration v4: transaction history indexes.
+-- Apply to databases at v3. The history of an account is paged newest first
+-- by (executed_at, id), over the transactions it sent and those it received.
+-- Each direction gets an index holding every column the history reads, so a
+-- page is served from the index alone. Both lead with a foreign key column,
+-- so MySQL silently drops the single-column indexes it had created for those
+-- foreign keys: they must not be dropped here as well.
+--
+-- On a large table, run this during low traffic: InnoDB builds the indexes
+-- online, but the build still reads the whole table.
+
+USE banking_db;
+
+ALTER TABLE transaction
+    ADD INDEX idx_transaction_account_history (account_id, executed_at, id, type_id, amount, recipient_account_id),
+    ADD INDEX idx_transaction_recipient_history (recipient_account_id, executed_at, id, account_id, type_id, amount),
+    ALGORITHM=INPLACE, LOCK=NONE;
+
+INSERT INTO schema_version (version, description, applied_at) VALUES
+    (4, 'transaction history indexes', NOW());
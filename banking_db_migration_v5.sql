@@ -0,0 +1,22 @@
+-- Migration v5: transaction journal checkpoint.
+-- Apply to databases at v4. Deposits and withdrawals can be committed to a
+-- write-ahead journal file, and applied to the database in batches. This
+-- single row records how far the journal has been applied; it is moved in
+-- the same transaction as the changes it covers, so a restart replays
+-- exactly the changes that had not been applied.
+--
+-- Start the application with an empty or missing journal file after this
+-- migration: the checkpoint starts at the beginning of the journal.
+
+USE banking_db;
+
+CREATE TABLE journal_checkpoint (
+    id INT UNSIGNED PRIMARY KEY,
+    drained_position BIGINT UNSIGNED NOT NULL -- journal bytes applied
+);
+
+INSERT INTO journal_checkpoint (id, drained_position) VALUES
+    (1, 0);
+
+INSERT INTO schema_version (version, description, applied_at) VALUES
+    (5, 'transaction journal checkpoint', NOW());
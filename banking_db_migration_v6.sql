@@ -0,0 +1,20 @@
+-- Migration v6: balance snapshots.
+-- Apply to databases at v5. Balances are recorded periodically for every
+-- account, so that the balance of an account at a past time is found from
+-- the nearest snapshot and the transactions since, instead of its whole
+-- history. The table starts empty: past balances are computed from the
+-- current ones until the first snapshot is taken.
+
+USE banking_db;
+
+CREATE TABLE balance_snapshot (
+    account_id BIGINT UNSIGNED NOT NULL, -- FK to account
+    taken_at DATETIME NOT NULL, -- after transactions executed before, none at or after
+    balance DECIMAL(18,9) UNSIGNED NOT NULL,
+
+    PRIMARY KEY (account_id, taken_at),
+    FOREIGN KEY (account_id) REFERENCES account(id)
+);
+
+INSERT INTO schema_version (version, description, applied_at) VALUES
+    (6, 'balance snapshots', NOW());
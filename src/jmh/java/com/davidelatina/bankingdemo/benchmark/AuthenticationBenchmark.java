@@ -0,0 +1,80 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.dao.CustomerDAO;
+import com.davidelatina.bankingdemo.model.service.CustomerCache;
+import com.davidelatina.bankingdemo.model.service.CustomerService;
+import com.davidelatina.bankingdemo.model.service.PasswordHashingEngine;
+
+/**
+ * End-to-end cost of {@link CustomerService#authenticateUser(String, char[])}
+ * against the embedded database: credential lookup plus one password hash at
+ * the default iteration count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+  private static final String USERNAME = "benchuser";
+  private static final char[] PASSWORD = "correct horse battery staple".toCharArray();
+  private static final char[] WRONG_PASSWORD = "incorrect horse battery staple".toCharArray();
+
+  private EmbeddedDatabase database;
+  private PasswordHashingEngine hashingEngine;
+  private CustomerService customerService;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, SQLException {
+    database = new EmbeddedDatabase(64);
+    database.loadDemoData();
+
+    hashingEngine = new PasswordHashingEngine();
+    customerService = new CustomerService(
+        new CustomerDAO(database.getPool()), new SecureRandom(), new CustomerCache(), hashingEngine);
+    customerService.createNewCustomer(USERNAME, PASSWORD.clone(), "Bench", "User", 30);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    hashingEngine.close();
+    database.close();
+  }
+
+  // authenticateUser clears the password array, hence the copies
+
+  @Benchmark
+  public boolean correctPassword() throws SQLException {
+    return customerService.authenticateUser(USERNAME, PASSWORD.clone());
+  }
+
+  @Benchmark
+  public boolean wrongPassword() throws SQLException {
+    return customerService.authenticateUser(USERNAME, WRONG_PASSWORD.clone());
+  }
+
+  @Benchmark
+  public boolean unknownUser() throws SQLException {
+    return customerService.authenticateUser("nosuchuser", PASSWORD.clone());
+  }
+}
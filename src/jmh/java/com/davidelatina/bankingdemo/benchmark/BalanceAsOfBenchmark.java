@@ -0,0 +1,97 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.dao.AccountDAO;
+import com.davidelatina.bankingdemo.model.entity.Money;
+import com.davidelatina.bankingdemo.model.service.BalanceSnapshotJob;
+import com.davidelatina.bankingdemo.model.service.SnapshotConfig;
+
+/**
+ * {@link AccountDAO#getBalanceAsOf} halfway through the history of an
+ * account, at several table sizes: computed back from the current balance,
+ * against forward from a snapshot taken up to a month earlier.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BalanceAsOfBenchmark {
+
+  private static final int ACCOUNTS = 100;
+  private static final long ACCOUNT_ID = 1;
+  // First transaction of EmbeddedDatabase#addTransactions; one per minute
+  private static final LocalDateTime HISTORY_START = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+  @Param({ "100000", "1000000" })
+  int tableSize;
+
+  @Param({ "none", "monthly" })
+  String snapshots;
+
+  private EmbeddedDatabase database;
+  private AccountDAO accountDAO;
+  private LocalDateTime asOf;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, SQLException {
+    database = new EmbeddedDatabase(64);
+    database.loadDemoData();
+    database.addTransactions(tableSize, ACCOUNTS);
+    accountDAO = new AccountDAO(database.getPool());
+
+    // The demo accounts are opened at load time: backdate them before their
+    // history
+    try (Connection conn = database.getPool().getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement("UPDATE account SET created_at = ?")) {
+      stmt.setObject(1, HISTORY_START.minusDays(1));
+      stmt.executeUpdate();
+    }
+
+    LocalDateTime historyEnd = HISTORY_START.plusMinutes(tableSize);
+    // Halfway, and about halfway through a month
+    asOf = HISTORY_START.plusMinutes(tableSize / 2).withDayOfMonth(16);
+
+    if (snapshots.equals("monthly")) {
+      try (BalanceSnapshotJob job = new BalanceSnapshotJob(accountDAO, new SnapshotConfig(
+          Duration.ofDays(1), Duration.ZERO, SnapshotConfig.DEFAULT_CHUNK_SIZE, SnapshotConfig.DEFAULT_THREADS))) {
+
+        for (LocalDateTime takenAt = HISTORY_START; takenAt.isBefore(historyEnd); takenAt = takenAt.plusMonths(1)) {
+          job.run(takenAt);
+        }
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    database.close();
+  }
+
+  @Benchmark
+  public Money balanceAsOf() throws SQLException {
+    return accountDAO.getBalanceAsOf(ACCOUNT_ID, asOf).orElseThrow();
+  }
+}
@@ -0,0 +1,45 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes the results as JSON, so that they can be
+ * compared from build to build.
+ * <p>
+ * Arguments, if any, are regular expressions selecting the benchmarks to
+ * run; by default all of them run. The result file is
+ * {@code target/jmh-result.json} unless the {@code benchmark.resultFile}
+ * system property names another. The {@code benchmark.profilers} system
+ * property may list JMH profilers to attach, separated by commas, e.g.
+ * {@code gc} to measure allocation.
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws RunnerException {
+    OptionsBuilder builder = new OptionsBuilder();
+
+    if (args.length == 0) {
+      builder.include("com\\.davidelatina\\.bankingdemo\\..*Benchmark");
+    }
+    for (String pattern : args) {
+      builder.include(pattern);
+    }
+    for (String profiler : System.getProperty("benchmark.profilers", "").split(",")) {
+      if (!profiler.isBlank()) {
+        builder.addProfiler(profiler.strip());
+      }
+    }
+
+    Options options = builder
+        .resultFormat(ResultFormatType.JSON)
+        .result(System.getProperty("benchmark.resultFile", "target/jmh-result.json"))
+        .jvmArgsAppend("-Dbenchmark.sqlDir=" + System.getProperty("benchmark.sqlDir", "."))
+        .build();
+
+    new Runner(options).run();
+  }
+}
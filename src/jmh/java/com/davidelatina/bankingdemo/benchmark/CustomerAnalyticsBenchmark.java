@@ -0,0 +1,103 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.dao.CustomerDAO;
+import com.davidelatina.bankingdemo.model.service.CustomerAnalytics;
+import com.davidelatina.bankingdemo.model.service.CustomerTable;
+
+/**
+ * The auditor's customer analytics (age buckets, registrations per month,
+ * name initials): computed by {@link CustomerAnalytics} over a loaded
+ * {@link CustomerTable} on the common pool and on a single thread, against
+ * one {@code GROUP BY} query per aggregate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CustomerAnalyticsBenchmark {
+
+  private static final String[] AGGREGATE_SQL = {
+      "SELECT FLOOR(age / 10) * 10, COUNT(*) FROM customer GROUP BY FLOOR(age / 10) * 10",
+      "SELECT YEAR(registered_at), MONTH(registered_at), COUNT(*) FROM customer"
+          + " GROUP BY YEAR(registered_at), MONTH(registered_at)",
+      "SELECT UPPER(LEFT(first_name, 1)), COUNT(*) FROM customer GROUP BY UPPER(LEFT(first_name, 1))",
+      "SELECT UPPER(LEFT(last_name, 1)), COUNT(*) FROM customer GROUP BY UPPER(LEFT(last_name, 1))"
+  };
+
+  @Param({ "100000", "1000000" })
+  int tableSize;
+
+  private EmbeddedDatabase database;
+  private CustomerTable table;
+  private ForkJoinPool singleThread;
+  private CustomerAnalytics parallel;
+  private CustomerAnalytics sequential;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, SQLException {
+    database = new EmbeddedDatabase(64);
+    database.loadDemoData();
+    database.addCustomers(tableSize);
+    table = CustomerTable.load(new CustomerDAO(database.getPool()));
+
+    singleThread = new ForkJoinPool(1);
+    parallel = new CustomerAnalytics(ForkJoinPool.commonPool());
+    sequential = new CustomerAnalytics(singleThread);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    singleThread.shutdown();
+    database.close();
+  }
+
+  @Benchmark
+  public CustomerAnalytics.Report forkJoin() {
+    return parallel.analyze(table, CustomerAnalytics.DEFAULT_AGE_BUCKET_WIDTH);
+  }
+
+  @Benchmark
+  public CustomerAnalytics.Report singleThread() {
+    return sequential.analyze(table, CustomerAnalytics.DEFAULT_AGE_BUCKET_WIDTH);
+  }
+
+  @Benchmark
+  public long sqlRoundTrips() throws SQLException {
+    long checksum = 0;
+    try (Connection conn = database.getPool().getDbConnection()) {
+      for (String query : AGGREGATE_SQL) {
+        try (PreparedStatement stmt = conn.prepareStatement(query);
+            ResultSet rs = stmt.executeQuery()) {
+          while (rs.next()) {
+            checksum += rs.getLong(rs.getMetaData().getColumnCount());
+          }
+        }
+      }
+    }
+    return checksum;
+  }
+}
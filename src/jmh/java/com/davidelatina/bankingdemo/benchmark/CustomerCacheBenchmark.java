@@ -0,0 +1,99 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.model.entity.Customer;
+import com.davidelatina.bankingdemo.model.service.CustomerCache;
+import com.davidelatina.bankingdemo.model.util.LongLruMap;
+
+/**
+ * Cache lookups by customer id: the access-ordered {@link LinkedHashMap} with
+ * {@link BigInteger} keys that the cache used to hold, against the primitive
+ * {@link LongLruMap} it holds now, and the whole {@link CustomerCache}.
+ * <p>
+ * Ids are parsed from text first, as they arrive from the menu and the HTTP
+ * API. Run with {@code -Dbenchmark.profilers=gc} to compare the bytes
+ * allocated per lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerCacheBenchmark {
+
+  private static final int CUSTOMERS = 10_000;
+  private static final int LOOKUPS = 1024;
+
+  private final LinkedHashMap<BigInteger, Customer> bigIntegerMap = new LinkedHashMap<>(16, 0.75f, true);
+  private final LongLruMap<Customer> longMap = new LongLruMap<>();
+  private final CustomerCache cache = new CustomerCache(CUSTOMERS, Duration.ofHours(1));
+  private final String[] lookups = new String[LOOKUPS];
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    LocalDateTime now = LocalDateTime.now();
+    for (long id = 1; id <= CUSTOMERS; id++) {
+      Customer customer = new Customer(id, "user" + id, "First", "Last", 30, now);
+      bigIntegerMap.put(BigInteger.valueOf(id), customer);
+      longMap.put(id, customer);
+      cache.put(customer);
+    }
+
+    Random random = new Random(42);
+    for (int i = 0; i < LOOKUPS; i++) {
+      lookups[i] = Long.toString(1 + random.nextInt(CUSTOMERS));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public int bigIntegerKeys() {
+    int found = 0;
+    for (String id : lookups) {
+      found += bigIntegerMap.get(new BigInteger(id)).age();
+    }
+    return found;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public int longKeys() {
+    int found = 0;
+    for (String id : lookups) {
+      found += longMap.get(Long.parseUnsignedLong(id)).age();
+    }
+    return found;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public int customerCache() {
+    int found = 0;
+    for (String id : lookups) {
+      Optional<Customer> customer = cache.getById(Long.parseUnsignedLong(id));
+      found += customer.get().age();
+    }
+    return found;
+  }
+}
@@ -0,0 +1,115 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.dao.CustomerDAO;
+import com.davidelatina.bankingdemo.dao.dto.CustomerCredentials;
+import com.davidelatina.bankingdemo.dao.dto.CustomerPage;
+import com.davidelatina.bankingdemo.model.entity.Customer;
+
+/**
+ * Every single-customer lookup of {@link CustomerDAO}, through the connection
+ * pool, with and without the per-connection prepared statement cache.
+ * <p>
+ * The demo data is topped up with synthetic customers so that lookups go
+ * through an index of realistic depth.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerLookupBenchmark {
+
+  private static final int SYNTHETIC_CUSTOMERS = 10_000;
+  private static final long ID = 7;
+  private static final String USERNAME = "williamblack";
+  private static final String FREE_USERNAME = "nosuchuser";
+
+  @Param({ "0", "64" })
+  int statementCacheSize;
+
+  private EmbeddedDatabase database;
+  private CustomerDAO customerDAO;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, SQLException {
+    database = new EmbeddedDatabase(statementCacheSize);
+    database.loadDemoData();
+    database.addCustomers(SYNTHETIC_CUSTOMERS);
+    customerDAO = new CustomerDAO(database.getPool());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    database.close();
+  }
+
+  @Benchmark
+  public Optional<Customer> getById() throws SQLException {
+    return customerDAO.get(ID);
+  }
+
+  @Benchmark
+  public byte[] getSaltById() throws SQLException {
+    return customerDAO.getSalt(ID);
+  }
+
+  @Benchmark
+  public byte[] getSaltByUsername() throws SQLException {
+    return customerDAO.getSalt(USERNAME);
+  }
+
+  @Benchmark
+  public long getIdFromUsername() throws SQLException {
+    return customerDAO.getIdFromUsername(USERNAME);
+  }
+
+  @Benchmark
+  public byte[] getHashedPassword() throws SQLException {
+    return customerDAO.getHashedPassword(USERNAME);
+  }
+
+  @Benchmark
+  public Optional<CustomerCredentials> getCredentials() throws SQLException {
+    return customerDAO.getCredentials(USERNAME);
+  }
+
+  @Benchmark
+  public boolean checkUsernameTaken() throws SQLException {
+    return customerDAO.checkUsernameAvailable(USERNAME);
+  }
+
+  @Benchmark
+  public boolean checkUsernameFree() throws SQLException {
+    return customerDAO.checkUsernameAvailable(FREE_USERNAME);
+  }
+
+  @Benchmark
+  public CustomerPage getFirstPage() throws SQLException {
+    return customerDAO.getPageAfter(0, 20, null, null);
+  }
+
+  @Benchmark
+  public long countCustomers() throws SQLException {
+    return customerDAO.countCustomers();
+  }
+}
@@ -0,0 +1,99 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.dao.CustomerDAO;
+import com.davidelatina.bankingdemo.model.service.CustomerSearchIndex;
+
+/**
+ * Customer search at several table sizes: {@link CustomerSearchIndex} by
+ * word prefix and by substring, against the {@code LIKE '%x%'} scan it
+ * replaces.
+ * <p>
+ * Customers from {@link EmbeddedDatabase#addCustomers(int)} are named
+ * {@code bench0001234}, {@code First1234 Last1234}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CustomerSearchBenchmark {
+
+  private static final String PREFIX_QUERY = "last4242";
+  private static final String SUBSTRING_QUERY = "04242";
+  private static final int LIMIT = CustomerSearchIndex.DEFAULT_LIMIT;
+
+  private static final String LIKE_SQL =
+      "SELECT id, username, first_name, last_name FROM customer"
+          + " WHERE username LIKE ? OR first_name LIKE ? OR last_name LIKE ? LIMIT ?";
+
+  @Param({ "100000", "1000000" })
+  int tableSize;
+
+  private EmbeddedDatabase database;
+  private CustomerSearchIndex index;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, SQLException {
+    database = new EmbeddedDatabase(64);
+    database.loadDemoData();
+    database.addCustomers(tableSize);
+    index = CustomerSearchIndex.load(new CustomerDAO(database.getPool()));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    database.close();
+  }
+
+  @Benchmark
+  public List<CustomerSearchIndex.Match> indexPrefix() {
+    return index.search(PREFIX_QUERY, LIMIT);
+  }
+
+  @Benchmark
+  public List<CustomerSearchIndex.Match> indexSubstring() {
+    return index.search(SUBSTRING_QUERY, LIMIT);
+  }
+
+  @Benchmark
+  public long likeSubstring() throws SQLException {
+    String pattern = "%" + SUBSTRING_QUERY + "%";
+    long checksum = 0;
+    try (Connection conn = database.getPool().getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement(LIKE_SQL)) {
+      stmt.setString(1, pattern);
+      stmt.setString(2, pattern);
+      stmt.setString(3, pattern);
+      stmt.setInt(4, LIMIT);
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          checksum += rs.getLong("id");
+        }
+      }
+    }
+    return checksum;
+  }
+}
@@ -0,0 +1,95 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.model.entity.Customer;
+import com.davidelatina.bankingdemo.model.service.CustomerTable;
+
+/**
+ * A full scan of the customer base held in memory, counting the adults
+ * registered in a given year: over a list of {@link Customer} records,
+ * against over the columns of a {@link CustomerTable}.
+ * <p>
+ * {@link CustomerTable#getStats()} reports the table's footprint; the list
+ * takes several times as much.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CustomerTableBenchmark {
+
+  private static final String[] FIRST_NAMES = { "Mario", "Giulia", "Luca", "Sofia", "Marco", "Anna", "Paolo", "Elena" };
+  private static final String[] LAST_NAMES = { "Rossi", "Russo", "Ferrari", "Esposito", "Bianchi", "Romano", "Colombo" };
+  private static final LocalDateTime YEAR_START = LocalDateTime.of(2022, 1, 1, 0, 0);
+  private static final LocalDateTime YEAR_END = YEAR_START.plusYears(1);
+
+  @Param({ "1000000" })
+  int tableSize;
+
+  private List<Customer> records;
+  private CustomerTable table;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42);
+    LocalDateTime first = LocalDateTime.of(2015, 1, 1, 0, 0);
+    records = new ArrayList<>(tableSize);
+    CustomerTable.Builder builder = new CustomerTable.Builder(tableSize);
+
+    for (int i = 1; i <= tableSize; i++) {
+      Customer customer = new Customer(i, "user" + i,
+          FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+          14 + random.nextInt(80), first.plusSeconds(random.nextInt(10 * 365 * 86_400)));
+      records.add(customer);
+      builder.add(customer);
+    }
+    table = builder.build();
+  }
+
+  @Benchmark
+  public int records() {
+    int count = 0;
+    for (Customer customer : records) {
+      LocalDateTime registeredAt = customer.datetime();
+      if (customer.age() >= 18 && !registeredAt.isBefore(YEAR_START) && registeredAt.isBefore(YEAR_END)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int columns() {
+    long from = YEAR_START.toEpochSecond(ZoneOffset.UTC);
+    long to = YEAR_END.toEpochSecond(ZoneOffset.UTC);
+    int count = 0;
+    for (int row = 0; row < table.size(); row++) {
+      long registeredAt = table.registeredAtEpochSecond(row);
+      if (table.age(row) >= 18 && registeredAt >= from && registeredAt < to) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
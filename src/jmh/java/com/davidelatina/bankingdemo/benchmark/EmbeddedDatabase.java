@@ -0,0 +1,237 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.davidelatina.bankingdemo.dao.util.ConnectionPool;
+import com.davidelatina.bankingdemo.dao.util.PoolConfig;
+
+/**
+ * In-memory H2 database, in MySQL compatibility mode, loaded from the demo
+ * scripts {@code banking_db_init.sql} and {@code banking_db_data.sql}.
+ * <p>
+ * The scripts are written for MySQL, so a few constructs H2 does not accept
+ * are rewritten on the fly: database selection, {@code SERIAL},
+ * {@code UNSIGNED}, column character sets, {@code UNHEX()} and double-quoted
+ * string literals. Each instance is a separate database, which lives until
+ * {@link #close()}.
+ * <p>
+ * The scripts are looked up in the directory named by the
+ * {@code benchmark.sqlDir} system property, or the working directory.
+ */
+public class EmbeddedDatabase implements AutoCloseable {
+
+  // Static variables
+  private static final String INIT_SCRIPT = "banking_db_init.sql";
+  private static final String DATA_SCRIPT = "banking_db_data.sql";
+  private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+  private static final String INSERT_CUSTOMER_SQL =
+      "INSERT INTO customer (username, first_name, last_name, age, salt, hashed_password, registered_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_TRANSACTION_SQL =
+      "INSERT INTO transaction (account_id, type_id, amount, recipient_account_id, executed_at) VALUES (?, ?, ?, ?, ?)";
+  private static final int INSERT_BATCH_SIZE = 1_000;
+
+  private static final Pattern UNHEX = Pattern.compile("UNHEX\\('([0-9A-Fa-f]*)'\\)");
+
+  // Instance variables
+  private final String url;
+  private final Connection keepAlive; // an in-memory database is dropped with its last connection
+  private final ConnectionPool pool;
+
+  // Constructor
+  /**
+   * Creates an empty database holding the demo schema.
+   *
+   * @param statementCacheSize prepared statements cached per pooled connection
+   */
+  public EmbeddedDatabase(int statementCacheSize) throws IOException, SQLException {
+    this.url = "jdbc:h2:mem:banking_db_" + DATABASE_COUNTER.incrementAndGet()
+        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+    this.keepAlive = DriverManager.getConnection(url, "sa", "");
+    runScript(INIT_SCRIPT);
+
+    this.pool = new ConnectionPool(
+        new PoolConfig(1, 8, Duration.ofSeconds(5), Duration.ofSeconds(2), Duration.ZERO,
+            Duration.ofMinutes(1), Duration.ZERO, false, statementCacheSize),
+        url, "sa", "");
+  }
+
+  // Methods
+  public ConnectionPool getPool() {
+    return pool;
+  }
+
+  /**
+   * Inserts the demo customers, accounts and transactions.
+   */
+  public void loadDemoData() throws IOException, SQLException {
+    runScript(DATA_SCRIPT);
+  }
+
+  /**
+   * Inserts synthetic customers named {@code bench0000000},
+   * {@code bench0000001} and so on, with random salts and hashes.
+   *
+   * @param count number of customers to add
+   */
+  public void addCustomers(int count) throws SQLException {
+    Random random = new Random(count);
+    LocalDateTime registeredAt = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    boolean autoCommit = keepAlive.getAutoCommit();
+    keepAlive.setAutoCommit(false);
+
+    try (PreparedStatement pstmt = keepAlive.prepareStatement(INSERT_CUSTOMER_SQL)) {
+      for (int i = 0; i < count; i++) {
+        byte[] salt = new byte[16];
+        byte[] hash = new byte[64];
+        random.nextBytes(salt);
+        random.nextBytes(hash);
+
+        pstmt.setString(1, String.format("bench%07d", i));
+        pstmt.setString(2, "First" + i);
+        pstmt.setString(3, "Last" + i);
+        pstmt.setInt(4, 18 + random.nextInt(70));
+        pstmt.setBytes(5, salt);
+        pstmt.setBytes(6, hash);
+        pstmt.setObject(7, registeredAt.plusMinutes(i));
+        pstmt.addBatch();
+
+        if ((i + 1) % INSERT_BATCH_SIZE == 0) {
+          pstmt.executeBatch();
+        }
+      }
+      pstmt.executeBatch();
+      keepAlive.commit();
+
+    } catch (SQLException ex) {
+      keepAlive.rollback();
+      throw ex;
+
+    } finally {
+      keepAlive.setAutoCommit(autoCommit);
+    }
+  }
+
+  /**
+   * Inserts synthetic transactions on the accounts with ids {@code 1} to
+   * {@code accounts}, one minute apart: deposits, withdrawals, and transfers
+   * to another of these accounts. Balances are left unchanged.
+   *
+   * @param count    number of transactions to add
+   * @param accounts number of accounts they are spread over, at least 2
+   */
+  public void addTransactions(int count, int accounts) throws SQLException {
+    Random random = new Random(count);
+    LocalDateTime executedAt = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    boolean autoCommit = keepAlive.getAutoCommit();
+    keepAlive.setAutoCommit(false);
+
+    // Type ids follow the insertion order of banking_db_init.sql
+    try (PreparedStatement pstmt = keepAlive.prepareStatement(INSERT_TRANSACTION_SQL)) {
+      for (int i = 0; i < count; i++) {
+        long accountId = 1 + random.nextInt(accounts);
+        int typeId = 1 + random.nextInt(3);
+
+        pstmt.setLong(1, accountId);
+        pstmt.setInt(2, typeId);
+        pstmt.setBigDecimal(3, BigDecimal.valueOf(1 + random.nextInt(100_000), 2));
+        if (typeId == 3) {
+          pstmt.setLong(4, 1 + (accountId + random.nextInt(accounts - 1)) % accounts);
+        } else {
+          pstmt.setNull(4, Types.BIGINT);
+        }
+        pstmt.setObject(5, executedAt.plusMinutes(i));
+        pstmt.addBatch();
+
+        if ((i + 1) % INSERT_BATCH_SIZE == 0) {
+          pstmt.executeBatch();
+        }
+      }
+      pstmt.executeBatch();
+      keepAlive.commit();
+
+    } catch (SQLException ex) {
+      keepAlive.rollback();
+      throw ex;
+
+    } finally {
+      keepAlive.setAutoCommit(autoCommit);
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+    pool.close();
+    keepAlive.close();
+  }
+
+  // --- Subroutines
+
+  private void runScript(String fileName) throws IOException, SQLException {
+    Path path = Path.of(System.getProperty("benchmark.sqlDir", "."), fileName);
+    String script = Files.readString(path, StandardCharsets.UTF_8);
+
+    try (Statement stmt = keepAlive.createStatement()) {
+      for (String sql : toH2Statements(script)) {
+        stmt.execute(sql);
+      }
+    }
+  }
+
+  // Splits a MySQL script into statements H2 accepts
+  static List<String> toH2Statements(String script) {
+    StringBuilder withoutComments = new StringBuilder();
+    for (String line : script.split("\\R")) {
+      int comment = line.indexOf("--");
+      withoutComments.append(comment < 0 ? line : line.substring(0, comment)).append('\n');
+    }
+
+    List<String> statements = new ArrayList<>();
+    for (String statement : withoutComments.toString().split(";")) {
+      String sql = statement.strip();
+      if (sql.isEmpty() || sql.matches("(?is)(CREATE\\s+DATABASE|USE)\\s.*")) {
+        continue;
+      }
+
+      sql = sql
+          .replaceAll("(?i)\\bSERIAL\\s+PRIMARY\\s+KEY", "BIGINT AUTO_INCREMENT PRIMARY KEY")
+          .replaceAll("(?i)\\s+UNSIGNED\\b", "")
+          .replaceAll("(?i)\\s+CHARACTER\\s+SET\\s+\\w+(\\s+COLLATE\\s+\\w+)?", "")
+          .replaceAll("\"([^\"]*)\"", "'$1'");
+      statements.add(replaceUnhex(sql));
+    }
+    return statements;
+  }
+
+  // UNHEX('abc') -> X'0abc': MySQL pads odd-length input with a leading zero
+  private static String replaceUnhex(String sql) {
+    Matcher matcher = UNHEX.matcher(sql);
+    StringBuilder result = new StringBuilder();
+    while (matcher.find()) {
+      String hex = matcher.group(1);
+      matcher.appendReplacement(result, "X'" + (hex.length() % 2 == 0 ? hex : "0" + hex) + "'");
+    }
+    matcher.appendTail(result);
+    return result.toString();
+  }
+}
@@ -0,0 +1,68 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.dao.CustomerDAO;
+import com.davidelatina.bankingdemo.model.entity.Customer;
+
+/**
+ * Full-table reads of {@link CustomerDAO} at several table sizes: the
+ * materialized {@link CustomerDAO#getAll()} against the streaming
+ * {@link CustomerDAO#streamAll()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class GetAllBenchmark {
+
+  @Param({ "1000", "10000", "100000" })
+  int tableSize;
+
+  private EmbeddedDatabase database;
+  private CustomerDAO customerDAO;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, SQLException {
+    database = new EmbeddedDatabase(64);
+    database.addCustomers(tableSize);
+    customerDAO = new CustomerDAO(database.getPool());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    database.close();
+  }
+
+  @Benchmark
+  public List<Customer> getAll() throws SQLException {
+    return customerDAO.getAll();
+  }
+
+  @Benchmark
+  public long streamAll() throws SQLException {
+    try (Stream<Customer> customers = customerDAO.streamAll()) {
+      return customers.count();
+    }
+  }
+}
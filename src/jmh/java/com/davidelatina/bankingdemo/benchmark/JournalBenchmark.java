@@ -0,0 +1,91 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.dao.AccountDAO;
+import com.davidelatina.bankingdemo.model.entity.Money;
+import com.davidelatina.bankingdemo.model.service.BalanceEngine;
+import com.davidelatina.bankingdemo.model.service.JournalConfig;
+import com.davidelatina.bankingdemo.model.service.TransactionJournal;
+import com.davidelatina.bankingdemo.model.service.TransferCommitter;
+
+/**
+ * Concurrent deposits through the {@link BalanceEngine}: written through to
+ * the embedded database, against committed to a {@link TransactionJournal}
+ * synced before each deposit returns, or every millisecond in the
+ * background.
+ * <p>
+ * The journal file lives in the temporary directory, whose file system
+ * decides what a sync costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class JournalBenchmark {
+
+  private static final int ACCOUNTS = 10; // in the demo data
+  private static final Money AMOUNT = Money.parse("0.01");
+
+  @Param({ "direct", "journalSynced", "journalInterval" })
+  String mode;
+
+  private EmbeddedDatabase database;
+  private Path journalFile;
+  private BalanceEngine engine;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, SQLException {
+    database = new EmbeddedDatabase(64);
+    database.loadDemoData();
+    AccountDAO accountDAO = new AccountDAO(database.getPool());
+
+    TransactionJournal journal = null;
+    if (!mode.equals("direct")) {
+      journalFile = Files.createTempFile("bench", ".journal");
+      Files.delete(journalFile);
+      journal = TransactionJournal.open(new JournalConfig(journalFile, JournalConfig.DEFAULT_CAPACITY,
+          mode.equals("journalInterval") ? 1_000 : 0, JournalConfig.DEFAULT_DRAIN_BATCH_SIZE), accountDAO);
+    }
+
+    engine = new BalanceEngine(accountDAO, BalanceEngine.DEFAULT_STRIPES, new TransferCommitter(accountDAO),
+        journal);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException, SQLException {
+    engine.close();
+    database.close();
+    if (journalFile != null) {
+      Files.deleteIfExists(journalFile);
+    }
+  }
+
+  @Benchmark
+  public Money deposit() throws SQLException {
+    return engine.deposit(1 + ThreadLocalRandom.current().nextInt(ACCOUNTS), AMOUNT);
+  }
+}
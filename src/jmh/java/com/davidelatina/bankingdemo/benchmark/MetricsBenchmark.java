@@ -0,0 +1,62 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.model.util.Metrics;
+import com.davidelatina.bankingdemo.model.util.OperationTimer;
+
+/**
+ * Cost of timing a call with {@link OperationTimer#time}, as the DAO and
+ * service operations do: the same trivial call untimed, timed, and timed from
+ * several threads sharing the timer, as concurrent requests do.
+ * <p>
+ * The difference to {@link #untimed()} is the overhead added to each
+ * operation: two {@link System#nanoTime()} reads, which dominate it, and a
+ * histogram update of about ten nanoseconds. The operations themselves take
+ * from microseconds to milliseconds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+  private static final OperationTimer TIMER = Metrics.INSTANCE.timer("MetricsBenchmark.call");
+
+  private long value;
+
+  @Benchmark
+  public long untimed() {
+    return call();
+  }
+
+  @Benchmark
+  public long timed() {
+    return TIMER.time(this::call);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long timedShared() {
+    return timed();
+  }
+
+  // --- Subroutines
+
+  private long call() {
+    return ++value;
+  }
+}
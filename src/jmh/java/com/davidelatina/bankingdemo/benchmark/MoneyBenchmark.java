@@ -0,0 +1,109 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.model.entity.Money;
+
+/**
+ * Balance arithmetic with {@link BigDecimal} against {@link Money}: each
+ * operation applies one deposit or withdrawal to a running balance and
+ * checks it against the DECIMAL(18,9) limits, as the balance engine does.
+ * <p>
+ * {@link #scaledLong()} is what the engine actually runs, on
+ * {@link Money#units()}. Run with {@code -Dbenchmark.profilers=gc} to see the
+ * bytes allocated per operation alongside the throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+  private static final int AMOUNTS = 1024;
+  private static final BigDecimal MAX_DECIMAL = Money.MAX_DECIMAL_18_9.toBigDecimal();
+  private static final long MAX_UNITS = Money.MAX_DECIMAL_18_9.units();
+
+  // Same amounts in each representation, as read from DECIMAL(18,9) columns:
+  // positive deposits, negative withdrawals, two decimals
+  private final BigDecimal[] decimals = new BigDecimal[AMOUNTS];
+  private final Money[] moneys = new Money[AMOUNTS];
+  private final long[] units = new long[AMOUNTS];
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42);
+    for (int i = 0; i < AMOUNTS; i++) {
+      BigDecimal amount = BigDecimal.valueOf(random.nextInt(2_000_000) - 1_000_000, 2).setScale(Money.SCALE);
+      decimals[i] = amount;
+      moneys[i] = Money.of(amount);
+      units[i] = moneys[i].units();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(AMOUNTS)
+  public BigDecimal bigDecimal() {
+    BigDecimal balance = BigDecimal.valueOf(100_000_000, 0).setScale(Money.SCALE);
+    for (BigDecimal amount : decimals) {
+      BigDecimal next = balance.add(amount);
+      if (next.signum() >= 0 && next.compareTo(MAX_DECIMAL) <= 0) {
+        balance = next;
+      }
+    }
+    return balance;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(AMOUNTS)
+  public Money money() {
+    Money balance = Money.ofUnits(100_000_000L * 1_000_000_000L);
+    for (Money amount : moneys) {
+      Money next = balance.plus(amount);
+      if (next.signum() >= 0 && !next.isGreaterThan(Money.MAX_DECIMAL_18_9)) {
+        balance = next;
+      }
+    }
+    return balance;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(AMOUNTS)
+  public long scaledLong() {
+    long balance = 100_000_000L * 1_000_000_000L;
+    for (long amount : units) {
+      long next = Math.addExact(balance, amount);
+      if (next >= 0 && next <= MAX_UNITS) {
+        balance = next;
+      }
+    }
+    return balance;
+  }
+
+  // JDBC round trip: the conversions done when loading and writing a balance
+  @Benchmark
+  @OperationsPerInvocation(AMOUNTS)
+  public long jdbcConversion() {
+    long checksum = 0;
+    for (BigDecimal amount : decimals) {
+      checksum += Money.of(amount).toBigDecimal().scale();
+    }
+    return checksum;
+  }
+}
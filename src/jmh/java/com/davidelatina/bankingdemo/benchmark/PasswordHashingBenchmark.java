@@ -0,0 +1,82 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.model.service.PasswordHashingEngine;
+
+/**
+ * Cost of one password hash, as computed by
+ * {@code CustomerService.hashPassword}: through the hashing engine's worker
+ * pool, directly with its PBKDF2 implementation, and with the JDK's
+ * {@link SecretKeyFactory} for reference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+  private static final int KEY_LENGTH_BITS = 512;
+  private static final char[] PASSWORD = "correct horse battery staple".toCharArray();
+  private static final byte[] SALT = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+  @Param({ "1000", "10000" })
+  int iterations;
+
+  private PasswordHashingEngine engine;
+  private byte[] passwordBytes;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    engine = new PasswordHashingEngine();
+    passwordBytes = new String(PASSWORD).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    engine.close();
+  }
+
+  @Benchmark
+  public byte[] engineHash() {
+    // The engine clears the array it is given
+    return engine.hash(PASSWORD.clone(), SALT, iterations, KEY_LENGTH_BITS);
+  }
+
+  @Benchmark
+  public byte[] pbkdf2() {
+    return PasswordHashingEngine.pbkdf2(passwordBytes, SALT, iterations, KEY_LENGTH_BITS);
+  }
+
+  @Benchmark
+  public byte[] jdkSecretKeyFactory() throws NoSuchAlgorithmException, InvalidKeySpecException {
+    PBEKeySpec spec = new PBEKeySpec(PASSWORD, SALT, iterations, KEY_LENGTH_BITS);
+    try {
+      return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512").generateSecret(spec).getEncoded();
+    } finally {
+      spec.clearPassword();
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.davidelatina.bankingdemo.benchmark;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.dao.AccountDAO;
+import com.davidelatina.bankingdemo.dao.dto.TransactionPage;
+
+/**
+ * Pages of an account's transaction history at several table sizes:
+ * {@link AccountDAO#getHistory} by keyset, at the start and halfway through
+ * the history, against the same deep page fetched with {@code OFFSET}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TransactionHistoryBenchmark {
+
+  private static final int ACCOUNTS = 100;
+  private static final long ACCOUNT_ID = 1;
+  private static final int PAGE_SIZE = 20;
+
+  private static final String OFFSET_PAGE_SQL =
+      "SELECT t.id, t.account_id, tt.name AS type, t.amount, t.recipient_account_id, t.executed_at"
+          + " FROM transaction t JOIN transaction_type tt ON tt.id = t.type_id"
+          + " WHERE t.account_id = ? OR t.recipient_account_id = ?"
+          + " ORDER BY t.executed_at DESC, t.id DESC LIMIT ? OFFSET ?";
+
+  @Param({ "100000", "1000000" })
+  int tableSize;
+
+  private EmbeddedDatabase database;
+  private AccountDAO accountDAO;
+  private int middle; // transactions of ACCOUNT_ID before the deep page
+  private TransactionPage.Cursor middleCursor;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, SQLException {
+    database = new EmbeddedDatabase(64);
+    database.loadDemoData();
+    database.addTransactions(tableSize, ACCOUNTS);
+    accountDAO = new AccountDAO(database.getPool());
+
+    try (Connection conn = database.getPool().getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement(
+            "SELECT COUNT(*) FROM transaction WHERE account_id = ? OR recipient_account_id = ?")) {
+      stmt.setLong(1, ACCOUNT_ID);
+      stmt.setLong(2, ACCOUNT_ID);
+      try (ResultSet rs = stmt.executeQuery()) {
+        rs.next();
+        middle = rs.getInt(1) / 2;
+      }
+    }
+
+    // Last transaction before the deep page
+    try (Connection conn = database.getPool().getDbConnection();
+        PreparedStatement stmt = offsetPage(conn, 1, middle - 1);
+        ResultSet rs = stmt.executeQuery()) {
+      rs.next();
+      middleCursor = new TransactionPage.Cursor(rs.getObject("executed_at", LocalDateTime.class), rs.getLong("id"));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    database.close();
+  }
+
+  @Benchmark
+  public TransactionPage firstPage() throws SQLException {
+    return accountDAO.getHistory(ACCOUNT_ID, null, PAGE_SIZE, null, null);
+  }
+
+  @Benchmark
+  public TransactionPage deepPageKeyset() throws SQLException {
+    return accountDAO.getHistory(ACCOUNT_ID, middleCursor, PAGE_SIZE, null, null);
+  }
+
+  @Benchmark
+  public long deepPageOffset() throws SQLException {
+    long checksum = 0;
+    try (Connection conn = database.getPool().getDbConnection();
+        PreparedStatement stmt = offsetPage(conn, PAGE_SIZE, middle);
+        ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        checksum += rs.getLong("id");
+      }
+    }
+    return checksum;
+  }
+
+  // --- Subroutines
+
+  private static PreparedStatement offsetPage(Connection conn, int limit, int offset) throws SQLException {
+    PreparedStatement stmt = conn.prepareStatement(OFFSET_PAGE_SQL);
+    stmt.setLong(1, ACCOUNT_ID);
+    stmt.setLong(2, ACCOUNT_ID);
+    stmt.setInt(3, limit);
+    stmt.setInt(4, offset);
+    return stmt;
+  }
+}
@@ -0,0 +1,84 @@
+package com.davidelatina.bankingdemo.dao;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.davidelatina.bankingdemo.benchmark.EmbeddedDatabase;
+import com.davidelatina.bankingdemo.model.entity.Customer;
+
+/**
+ * Cost of building a {@link Customer} from a result set row, isolated from
+ * query execution. Lives in the DAO package to reach the package-private
+ * mapper.
+ * <p>
+ * Rows are visited round-robin on a scrollable result set;
+ * {@link #positionOnly()} measures the cursor movement alone, to be
+ * subtracted from {@link #mapCustomer()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerMappingBenchmark {
+
+  private static final int ROWS = 1_000;
+
+  private EmbeddedDatabase database;
+  private Connection conn;
+  private Statement stmt;
+  private ResultSet rs;
+  private int row;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, SQLException {
+    database = new EmbeddedDatabase(0);
+    database.addCustomers(ROWS);
+
+    conn = database.getPool().getDbConnection();
+    stmt = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+    rs = stmt.executeQuery("SELECT * FROM customer");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    rs.close();
+    stmt.close();
+    conn.close();
+    database.close();
+  }
+
+  @Benchmark
+  public boolean positionOnly() throws SQLException {
+    return rs.absolute(nextRow());
+  }
+
+  @Benchmark
+  public Customer mapCustomer() throws SQLException {
+    rs.absolute(nextRow());
+    return CustomerDAO.mapCustomer(rs);
+  }
+
+  private int nextRow() {
+    row = row % ROWS + 1;
+    return row;
+  }
+}
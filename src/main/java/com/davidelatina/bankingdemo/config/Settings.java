@@ -0,0 +1,87 @@
+package com.davidelatina.bankingdemo.config;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Singleton giving typed access to the application settings.
+ * <p>
+ * Values are read from the {@code .env} file in the working directory, falling
+ * back to the process environment. Every getter takes a default that is
+ * returned when the key is not set, so only the database credentials are
+ * strictly required.
+ */
+public enum Settings {
+
+  INSTANCE;
+
+  // Instance variables
+  private final Dotenv dotenv;
+
+  // Constructor
+  private Settings() {
+    // Load environment variables
+    this.dotenv = Dotenv.load();
+  }
+
+  // Methods
+  public String getString(String key, String defaultValue) {
+    String value = dotenv.get(key);
+    return (value == null || value.isEmpty()) ? defaultValue : value;
+  }
+
+  /**
+   * Reads an integer setting.
+   *
+   * @param key          setting name
+   * @param defaultValue value returned when the setting is absent
+   * @return the configured value, or {@code defaultValue}
+   * @throws IllegalArgumentException if the setting is present but is not an
+   *                                  integer
+   */
+  public int getInt(String key, int defaultValue) throws IllegalArgumentException {
+    String value = getString(key, null);
+    if (value == null) {
+      return defaultValue;
+    }
+
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Setting " + key + " must be an integer, found: " + value, ex);
+    }
+  }
+
+  public long getLong(String key, long defaultValue) throws IllegalArgumentException {
+    String value = getString(key, null);
+    if (value == null) {
+      return defaultValue;
+    }
+
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Setting " + key + " must be an integer, found: " + value, ex);
+    }
+  }
+
+  public double getDouble(String key, double defaultValue) throws IllegalArgumentException {
+    String value = getString(key, null);
+    if (value == null) {
+      return defaultValue;
+    }
+
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Setting " + key + " must be a number, found: " + value, ex);
+    }
+  }
+
+  public boolean getBoolean(String key, boolean defaultValue) {
+    String value = getString(key, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    return Boolean.parseBoolean(value.trim());
+  }
+}
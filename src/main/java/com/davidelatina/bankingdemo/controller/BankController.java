@@ -1,14 +1,40 @@
 package com.davidelatina.bankingdemo.controller;
 
-import java.math.BigInteger;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
+import com.davidelatina.bankingdemo.dao.dto.CustomerPage;
+import com.davidelatina.bankingdemo.dao.dto.TransactionPage;
+import com.davidelatina.bankingdemo.exception.InsufficientFundsException;
+import com.davidelatina.bankingdemo.model.entity.Account;
+import com.davidelatina.bankingdemo.model.entity.AccountType;
 import com.davidelatina.bankingdemo.model.entity.Customer;
+import com.davidelatina.bankingdemo.model.entity.Money;
+import com.davidelatina.bankingdemo.model.entity.Transaction;
+import com.davidelatina.bankingdemo.model.entity.TransactionType;
+import com.davidelatina.bankingdemo.model.service.AccountService;
+import com.davidelatina.bankingdemo.model.service.BalanceSnapshotJob;
+import com.davidelatina.bankingdemo.model.service.CustomerAnalytics;
+import com.davidelatina.bankingdemo.model.service.CustomerExporter;
+import com.davidelatina.bankingdemo.model.service.CustomerImporter;
+import com.davidelatina.bankingdemo.model.service.CustomerSearchIndex;
 import com.davidelatina.bankingdemo.model.service.CustomerService;
+import com.davidelatina.bankingdemo.model.service.CustomerTable;
+import com.davidelatina.bankingdemo.model.service.Session;
 import com.davidelatina.bankingdemo.model.service.SessionManager;
+import com.davidelatina.bankingdemo.model.util.Metrics;
+import com.davidelatina.bankingdemo.model.util.OperationTimer;
+import com.davidelatina.bankingdemo.model.util.UnsignedIds;
 import com.davidelatina.bankingdemo.view.dto.Menu;
 import com.davidelatina.bankingdemo.view.impl.MenuView;
 
@@ -23,16 +49,31 @@ import com.davidelatina.bankingdemo.view.impl.MenuView;
  */
 public class BankController {
 
+  // Static variables
+  private static final int PAGE_SIZE = 20; // customers per page in the auditor list
+  private static final int HISTORY_PAGE_SIZE = 20; // transactions per page in a statement
+
   // Instance variables
   private final MenuView menuView;
   private final SessionManager sessionManager;
   private final CustomerService customerService;
+  private final AccountService accountService;
+  private final CustomerImporter customerImporter;
+  private final CustomerExporter customerExporter;
+  private final BalanceSnapshotJob snapshotJob;
+  private String sessionToken; // of the logged-in customer, if any
 
   // Constructor
-  public BankController(MenuView menuView, SessionManager sessionManager, CustomerService customerService) {
+  public BankController(MenuView menuView, SessionManager sessionManager, CustomerService customerService,
+      AccountService accountService, CustomerImporter customerImporter, CustomerExporter customerExporter,
+      BalanceSnapshotJob snapshotJob) {
     this.menuView = menuView;
     this.sessionManager = sessionManager;
     this.customerService = customerService;
+    this.accountService = accountService;
+    this.customerImporter = customerImporter;
+    this.customerExporter = customerExporter;
+    this.snapshotJob = snapshotJob;
   }
 
   // Methods
@@ -66,6 +107,8 @@ public class BankController {
             }
           } catch (Exception ex) {
             menuView.displayError(ex.getMessage());
+          } finally {
+            logoutUser();
           }
         }
 
@@ -87,8 +130,65 @@ public class BankController {
   }
 
   private void userMenu() {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException("Unimplemented method 'userMenu'");
+
+    int userSelection = -1;
+
+    while (true) {
+
+      // The session may have expired while the customer was idle
+      Optional<Customer> customer = sessionManager.getActiveUser(sessionToken);
+      if (customer.isEmpty()) {
+        menuView.displayMessage("Your session has expired. Please log in again.");
+        break; // <--------------------------------------------- EXIT WHILE LOOP
+      }
+
+      try {
+        userSelection = menuView.menu(MenuDefinitions.userMenu);
+      } catch (NoSuchElementException ex) {
+        menuView.displayError(ex.getMessage());
+        userSelection = MenuDefinitions.userMenu.option().length;
+      }
+
+      if (userSelection == MenuDefinitions.userMenu.option().length) {
+        break; // <--------------------------------------------- EXIT WHILE LOOP
+      }
+
+      long customerId = customer.get().id();
+      switch (userSelection) {
+
+        case 1 -> { // View accounts
+          viewAccounts(customerId);
+        }
+
+        case 2 -> { // Open account
+          openAccount(customerId);
+        }
+
+        case 3 -> { // Deposit
+          changeBalance(customerId, true);
+        }
+
+        case 4 -> { // Withdraw
+          changeBalance(customerId, false);
+        }
+
+        case 5 -> { // Transfer
+          transfer(customerId);
+        }
+
+        case 6 -> { // Statement
+          viewStatement(customerId);
+        }
+
+        case 7 -> { // Balance on a date
+          viewBalanceOnDate(customerId);
+        }
+
+        default -> {
+          menuView.displayError("Error in menu selection.");
+        }
+      }
+    }
   }
 
   private void auditorMode() {
@@ -115,13 +215,36 @@ public class BankController {
           viewSingleCustomer();
         }
 
-        case 2 -> { // View customer list
-          try {
-            customerService.getFullCustomerList()
-                .forEach(customer -> menuView.displayMessage(customer.toString()));
-          } catch (Exception ex) {
-            menuView.displayError(ex.getMessage());
-          }
+        case 2 -> { // Browse customer list
+          browseCustomers();
+        }
+
+        case 3 -> { // View service statistics
+          viewServiceStatistics();
+        }
+
+        case 4 -> { // Import customers from CSV
+          importCustomers();
+        }
+
+        case 5 -> { // Export customers
+          exportCustomers();
+        }
+
+        case 6 -> { // Take balance snapshot
+          takeBalanceSnapshot();
+        }
+
+        case 7 -> { // Load customer table
+          loadCustomerTable();
+        }
+
+        case 8 -> { // Customer analytics
+          viewCustomerAnalytics();
+        }
+
+        case 9 -> { // Search customers
+          searchCustomers();
         }
 
         default -> {
@@ -140,9 +263,9 @@ public class BankController {
     // View single customer
 
     // Read ID from user input
-    BigInteger userSelectedId;
+    long userSelectedId;
     try {
-      userSelectedId = new BigInteger(menuView.userSelectedStringAny("Insert customer ID"));
+      userSelectedId = UnsignedIds.parse(menuView.userSelectedStringAny("Insert customer ID"));
     } catch (NumberFormatException ex) {
       menuView.displayError(ex.getMessage());
       return;
@@ -165,6 +288,430 @@ public class BankController {
     }
   }
 
+  private void viewAccounts(long customerId) {
+    List<Account> accounts;
+    try {
+      accounts = accountService.getAccounts(customerId);
+    } catch (Exception ex) {
+      menuView.displayError(ex.getMessage());
+      return;
+    }
+
+    if (accounts.isEmpty()) {
+      menuView.displayMessage("You have no accounts yet.");
+    }
+    for (Account account : accounts) {
+      menuView.displayMessage(formatAccount(account));
+    }
+  }
+
+  private void openAccount(long customerId) {
+    int userSelection;
+    try {
+      userSelection = menuView.menu(MenuDefinitions.accountTypeMenu);
+    } catch (NoSuchElementException ex) {
+      menuView.displayError(ex.getMessage());
+      return;
+    }
+
+    if (userSelection == MenuDefinitions.accountTypeMenu.option().length) {
+      return; // Back
+    }
+
+    AccountType type = userSelection == 1 ? AccountType.CHECKING : AccountType.SAVINGS;
+    try {
+      menuView.displayMessage("Account opened: " + formatAccount(accountService.openAccount(customerId, type)));
+    } catch (Exception ex) {
+      menuView.displayError(ex.getMessage());
+    }
+  }
+
+  // Deposit, or withdrawal
+  private void changeBalance(long customerId, boolean deposit) {
+    long accountId;
+    Money amount;
+    try {
+      accountId = UnsignedIds.parse(menuView.userSelectedStringAny("Account ID"));
+      amount = Money.parse(menuView.userSelectedStringAny("Amount"));
+    } catch (IllegalArgumentException ex) { // including NumberFormatException
+      menuView.displayError("Please enter a valid number: " + ex.getMessage());
+      return;
+    } catch (NoSuchElementException ex) {
+      menuView.displayError(ex.getMessage());
+      return;
+    }
+
+    try {
+      Money balance = deposit
+          ? accountService.deposit(customerId, accountId, amount)
+          : accountService.withdraw(customerId, accountId, amount);
+      menuView.displayMessage("New balance: " + balance);
+
+    } catch (InsufficientFundsException | IllegalArgumentException | IllegalStateException ex) {
+      menuView.displayError(ex.getMessage());
+    } catch (SQLException ex) {
+      menuView.displayError("The operation could not be completed: " + ex.getMessage());
+    }
+  }
+
+  private void transfer(long customerId) {
+    long fromAccountId;
+    long toAccountId;
+    Money amount;
+    try {
+      fromAccountId = UnsignedIds.parse(menuView.userSelectedStringAny("From account ID"));
+      toAccountId = UnsignedIds.parse(menuView.userSelectedStringAny("To account ID"));
+      amount = Money.parse(menuView.userSelectedStringAny("Amount"));
+    } catch (IllegalArgumentException ex) { // including NumberFormatException
+      menuView.displayError("Please enter a valid number: " + ex.getMessage());
+      return;
+    } catch (NoSuchElementException ex) {
+      menuView.displayError(ex.getMessage());
+      return;
+    }
+
+    try {
+      Money balance = accountService.transfer(customerId, fromAccountId, toAccountId, amount);
+      menuView.displayMessage("Transfer complete. New balance: " + balance);
+
+    } catch (InsufficientFundsException | IllegalArgumentException | IllegalStateException ex) {
+      menuView.displayError(ex.getMessage());
+    } catch (SQLException ex) {
+      menuView.displayError("The transfer could not be completed: " + ex.getMessage());
+    }
+  }
+
+  private void viewStatement(long customerId) {
+    long accountId;
+    LocalDateTime executedFrom;
+    LocalDateTime executedBefore;
+    try {
+      accountId = UnsignedIds.parse(menuView.userSelectedStringAny("Account ID"));
+      executedFrom = readOptionalDate("From (yyyy-mm-dd, blank for any)");
+      executedBefore = readOptionalDate("Before (yyyy-mm-dd, blank for any)");
+    } catch (NumberFormatException | DateTimeParseException | NoSuchElementException ex) {
+      menuView.displayError(ex.getMessage());
+      return;
+    }
+
+    TransactionPage page;
+    try {
+      page = accountService.getHistory(customerId, accountId, null, HISTORY_PAGE_SIZE, executedFrom, executedBefore);
+    } catch (Exception ex) {
+      menuView.displayError(ex.getMessage());
+      return;
+    }
+
+    while (true) { // Page navigation loop. Exit on user input
+
+      if (page.isEmpty()) {
+        menuView.displayMessage("No transactions found.");
+      }
+      for (Transaction transaction : page.transactions()) {
+        menuView.displayMessage(formatTransaction(transaction, accountId));
+      }
+
+      if (!page.hasNext()) {
+        return; // <------------------------------------------------ EXIT METHOD
+      }
+
+      int userSelection;
+      try {
+        userSelection = menuView.menu(MenuDefinitions.historyPageMenu);
+      } catch (NoSuchElementException ex) {
+        menuView.displayError(ex.getMessage());
+        return;
+      }
+
+      if (userSelection == MenuDefinitions.historyPageMenu.option().length) {
+        return; // <------------------------------------------------ EXIT METHOD
+      }
+
+      try {
+        page = accountService.getHistory(customerId, accountId, page.nextCursor().orElseThrow(),
+            HISTORY_PAGE_SIZE, executedFrom, executedBefore);
+      } catch (Exception ex) {
+        menuView.displayError(ex.getMessage());
+        return;
+      }
+    }
+  }
+
+  private void viewBalanceOnDate(long customerId) {
+    long accountId;
+    LocalDate date;
+    try {
+      accountId = UnsignedIds.parse(menuView.userSelectedStringAny("Account ID"));
+      date = LocalDate.parse(menuView.userSelectedStringAny("Date (yyyy-mm-dd)").trim());
+    } catch (NumberFormatException | DateTimeParseException | NoSuchElementException ex) {
+      menuView.displayError(ex.getMessage());
+      return;
+    }
+
+    try {
+      // End of the day: before any transaction of the next one
+      Money balance = accountService.getBalanceAsOf(customerId, accountId, date.plusDays(1).atStartOfDay());
+      menuView.displayMessage("Balance at the end of " + date + ": " + balance);
+
+    } catch (IllegalArgumentException ex) {
+      menuView.displayError(ex.getMessage());
+    } catch (SQLException ex) {
+      menuView.displayError("The balance could not be retrieved: " + ex.getMessage());
+    }
+  }
+
+  // As seen from accountId: money in is positive, money out negative
+  private static String formatTransaction(Transaction transaction, long accountId) {
+    String counterpart = "";
+    if (transaction.type() == TransactionType.TRANSFER) {
+      counterpart = transaction.accountId() == accountId
+          ? " to #" + UnsignedIds.toString(transaction.recipientAccountId())
+          : " from #" + UnsignedIds.toString(transaction.accountId());
+    }
+    return String.format("%s %-10s %s%s%s",
+        transaction.executedAt(), transaction.type().dbName(),
+        transaction.isCreditTo(accountId) ? "+" : "-", transaction.amount(), counterpart);
+  }
+
+  private static String formatAccount(Account account) {
+    return String.format("#%s %-8s balance %s (opened %s)",
+        UnsignedIds.toString(account.id()), account.type().dbName(), account.balance(), account.createdAt());
+  }
+
+  private void viewServiceStatistics() {
+    menuView.displayMessage("Customer cache: " + customerService.getCacheStats());
+    menuView.displayMessage("Username filter: " + customerService.getUsernameFilterStats()
+        .map(Object::toString)
+        .orElse("disabled"));
+    menuView.displayMessage("Search index: " + customerService.getSearchIndexStats()
+        .map(Object::toString)
+        .orElse("disabled"));
+    menuView.displayMessage("Password hashing: iterations=" + customerService.getIterationCount()
+        + " " + customerService.getHashingStats());
+    menuView.displayMessage("Customer table: " + customerService.getCustomerTable()
+        .map(table -> table.getStats().toString())
+        .orElse("not loaded"));
+    menuView.displayMessage("Sessions: " + sessionManager.getStats());
+    menuView.displayMessage("Balances: " + accountService.getBalanceStats());
+    menuView.displayMessage("Transfers: " + accountService.getTransferStats());
+    menuView.displayMessage("Balance snapshots: " + snapshotJob.getStats());
+    menuView.displayMessage("Journal: " + accountService.getJournalStats()
+        .map(Object::toString)
+        .orElse("disabled"));
+    menuView.displayMessage("Operations:");
+    for (OperationTimer.Stats stats : Metrics.INSTANCE.getStats()) {
+      if (stats.latency().count() > 0) {
+        menuView.displayMessage("  " + stats);
+      }
+    }
+  }
+
+  // Snapshot for the latest scheduled time, completing it if it was missed
+  private void takeBalanceSnapshot() {
+    try {
+      BalanceSnapshotJob.Run run = snapshotJob.run(snapshotJob.latestSnapshotTime(LocalDateTime.now()));
+      menuView.displayMessage("Snapshot taken: " + run);
+
+    } catch (IllegalArgumentException | IllegalStateException ex) {
+      menuView.displayError(ex.getMessage());
+    } catch (SQLException ex) {
+      menuView.displayError("The snapshot could not be completed: " + ex.getMessage());
+    }
+  }
+
+  private void loadCustomerTable() {
+    try {
+      long start = System.nanoTime();
+      CustomerTable table = customerService.loadCustomerTable();
+      menuView.displayMessage("Customer table loaded in " + (System.nanoTime() - start) / 1_000_000 + " ms: "
+          + table.getStats());
+    } catch (SQLException ex) {
+      menuView.displayError("The customer table could not be loaded: " + ex.getMessage());
+    }
+  }
+
+  private void viewCustomerAnalytics() {
+    CustomerAnalytics.Report report;
+    try {
+      long start = System.nanoTime();
+      report = customerService.analyzeCustomers(CustomerAnalytics.DEFAULT_AGE_BUCKET_WIDTH);
+      menuView.displayMessage(report.customers() + " customers analyzed in "
+          + (System.nanoTime() - start) / 1_000_000 + " ms.");
+    } catch (SQLException ex) {
+      menuView.displayError("The customer table could not be loaded: " + ex.getMessage());
+      return;
+    }
+
+    menuView.displayMessage("Customers by age:");
+    report.customersByAge().forEach((age, count) -> menuView.displayMessage(
+        String.format("  %3d-%-3d %d", age, age + report.ageBucketWidth() - 1, count)));
+    menuView.displayMessage("Registrations by month:");
+    report.registrationsByMonth().forEach((month, count) -> menuView.displayMessage(
+        String.format("  %s %d", month, count)));
+    menuView.displayMessage("First name initials: " + report.firstNameInitials());
+    menuView.displayMessage("Last name initials: " + report.lastNameInitials());
+  }
+
+  private void searchCustomers() {
+    try {
+      List<CustomerSearchIndex.Match> matches = customerService.searchCustomers(
+          menuView.userSelectedStringAny("Username or name (whole words, starts or parts)"),
+          CustomerSearchIndex.DEFAULT_LIMIT);
+      if (matches.isEmpty()) {
+        menuView.displayMessage("No customers found.");
+      }
+      for (CustomerSearchIndex.Match match : matches) {
+        menuView.displayMessage(String.format("#%s %s (%s %s)",
+            UnsignedIds.toString(match.id()), match.username(), match.firstName(), match.lastName()));
+      }
+    } catch (IllegalArgumentException | IllegalStateException | NoSuchElementException ex) {
+      menuView.displayError(ex.getMessage());
+    }
+  }
+
+  private void importCustomers() {
+    Path csvFile;
+    try {
+      csvFile = Path.of(menuView.userSelectedStringAny("CSV file (username,password,first_name,last_name,age)").trim());
+    } catch (NoSuchElementException | InvalidPathException ex) {
+      menuView.displayError(ex.getMessage());
+      return;
+    }
+
+    // Progress is saved next to the file, so a failed import can be resumed
+    Path checkpointFile = csvFile.resolveSibling(csvFile.getFileName() + ".checkpoint");
+    if (Files.exists(checkpointFile)) {
+      menuView.displayMessage("Resuming the previous import of this file.");
+    }
+
+    try {
+      CustomerImporter.Report report = customerImporter.importCsv(csvFile, checkpointFile,
+          progress -> menuView.displayMessage("  " + progress));
+
+      menuView.displayMessage("Import complete: " + report);
+      report.errors().forEach(error -> menuView.displayMessage("  Skipped: " + error));
+
+    } catch (IOException | SQLException | RuntimeException ex) {
+      menuView.displayError("Import stopped: " + ex.getMessage()
+          + (Files.exists(checkpointFile) ? " Run it again to resume." : ""));
+    }
+  }
+
+  private void exportCustomers() {
+    int formatSelection;
+    int compressionSelection;
+    Path file;
+    try {
+      formatSelection = menuView.menu(MenuDefinitions.exportFormatMenu);
+      if (formatSelection == MenuDefinitions.exportFormatMenu.option().length) {
+        return; // Back
+      }
+      compressionSelection = menuView.menu(MenuDefinitions.exportCompressionMenu);
+      file = Path.of(menuView.userSelectedStringAny("Output file").trim());
+    } catch (NoSuchElementException | InvalidPathException ex) {
+      menuView.displayError(ex.getMessage());
+      return;
+    }
+
+    CustomerExporter.Format format = formatSelection == 1
+        ? CustomerExporter.Format.CSV
+        : CustomerExporter.Format.BINARY;
+    CustomerExporter.Compression compression = compressionSelection == 1
+        ? CustomerExporter.Compression.NONE
+        : CustomerExporter.Compression.GZIP;
+
+    try {
+      CustomerExporter.Report report = customerExporter.export(file, format, compression);
+      menuView.displayMessage("Export complete: " + file + " " + report);
+    } catch (IOException | SQLException | RuntimeException ex) {
+      menuView.displayError("Export failed: " + ex.getMessage());
+    }
+  }
+
+  private void browseCustomers() {
+
+    // Optional registration date range
+    LocalDateTime registeredFrom;
+    LocalDateTime registeredBefore;
+    try {
+      registeredFrom = readOptionalDate("Registered on or after (yyyy-mm-dd, blank for any)");
+      registeredBefore = readOptionalDate("Registered before (yyyy-mm-dd, blank for any)");
+    } catch (DateTimeParseException | NoSuchElementException ex) {
+      menuView.displayError(ex.getMessage());
+      return;
+    }
+
+    // First page
+    CustomerPage page;
+    try {
+      page = customerService.getCustomerPageAfter(0, PAGE_SIZE, registeredFrom, registeredBefore);
+    } catch (Exception ex) {
+      menuView.displayError(ex.getMessage());
+      return;
+    }
+
+    while (true) { // Page navigation loop. Exit on user input
+
+      // Display current page
+      if (page.isEmpty()) {
+        menuView.displayMessage("No customers found.");
+      } else {
+        page.customers().forEach(customer -> menuView.displayMessage(customer.toString()));
+      }
+
+      int userSelection;
+      try {
+        userSelection = menuView.menu(MenuDefinitions.pageMenu);
+      } catch (NoSuchElementException ex) {
+        menuView.displayError(ex.getMessage());
+        return;
+      }
+
+      if (userSelection == MenuDefinitions.pageMenu.option().length) {
+        return; // <------------------------------------------------ EXIT METHOD
+      }
+
+      try {
+        switch (userSelection) {
+
+          case 1 -> { // Next page
+            if (!page.hasNext()) {
+              menuView.displayMessage("This is the last page.");
+              continue;
+            }
+            page = customerService.getCustomerPageAfter(
+                page.lastId().orElseThrow(), PAGE_SIZE, registeredFrom, registeredBefore);
+          }
+
+          case 2 -> { // Previous page
+            CustomerPage previous = (page.hasPrevious() && !page.isEmpty())
+                ? customerService.getCustomerPageBefore(
+                    page.firstId().orElseThrow(), PAGE_SIZE, registeredFrom, registeredBefore)
+                : null;
+
+            if (previous == null || previous.isEmpty()) {
+              menuView.displayMessage("This is the first page.");
+              continue;
+            }
+            page = previous;
+          }
+
+          default -> {
+            menuView.displayError("Error in menu selection.");
+          }
+        }
+      } catch (Exception ex) {
+        menuView.displayError(ex.getMessage());
+      }
+    }
+  }
+
+  // Returns the start of the entered day, or null if the input is blank
+  private LocalDateTime readOptionalDate(String prompt) throws DateTimeParseException {
+    String input = menuView.userSelectedStringAny(prompt).trim();
+    return input.isEmpty() ? null : LocalDate.parse(input).atStartOfDay();
+  }
+
   private boolean loginUser() throws SQLException {
 
     String username;
@@ -175,15 +722,16 @@ public class BankController {
       username = menuView.userSelectedStringAny("Enter username");
       password = menuView.readPassword("Enter password");
 
-      // Check if customer by this username is registered
-      if (customerService.checkUsernameInUse(username)) {
+      // Attempt to log in. Unknown usernames are rejected like wrong passwords.
+      Optional<Session> session = username.isBlank()
+          ? Optional.empty()
+          : sessionManager.login(username, password);
 
-        // Attempt to log in
-        if (sessionManager.login(username, password)) {
-          menuView.displayMessage("Welcome back, " +
-              sessionManager.getActiveUser().firstName());
-          return true;
-        }
+      if (session.isPresent()) {
+        sessionToken = session.get().getToken();
+        menuView.displayMessage("Welcome back, " +
+            session.get().getCustomer().firstName());
+        return true;
       }
 
       // Delete first password and prompt the user again
@@ -196,6 +744,13 @@ public class BankController {
     return false;
   }
 
+  private void logoutUser() {
+    if (sessionToken != null) {
+      sessionManager.logout(sessionToken);
+      sessionToken = null;
+    }
+  }
+
   private void registerUser() {
 
     String username = menuView.userSelectedStringAny("Enter username");
@@ -269,14 +824,84 @@ final class MenuDefinitions {
       "Selection",
       "Please select a valid option.");
 
+  public static final Menu userMenu = new Menu(
+      "   --- MY ACCOUNTS ---",
+      new String[] {
+          "View accounts",
+          "Open account",
+          "Deposit",
+          "Withdraw",
+          "Transfer",
+          "Statement",
+          "Balance on a date",
+          "Log out"
+      },
+      "Selection",
+      "Please select a valid option.");
+
+  public static final Menu accountTypeMenu = new Menu(
+      "   --- ACCOUNT TYPE ---",
+      new String[] {
+          "Checking",
+          "Savings",
+          "Back"
+      },
+      "Selection",
+      "Please select a valid option.");
+
   public static final Menu auditorMenu = new Menu(
       "   --- AUDITOR MODE ---",
       new String[] {
           "View single customer",
-          "View customer list",
+          "Browse customer list",
+          "View service statistics",
+          "Import customers from CSV",
+          "Export customers",
+          "Take balance snapshot",
+          "Load customer table",
+          "Customer analytics",
+          "Search customers",
           "Exit"
       },
       "Selection",
       "Please select a valid option.");
 
+  public static final Menu exportFormatMenu = new Menu(
+      "   --- EXPORT FORMAT ---",
+      new String[] {
+          "CSV",
+          "Binary",
+          "Back"
+      },
+      "Selection",
+      "Please select a valid option.");
+
+  public static final Menu exportCompressionMenu = new Menu(
+      "   --- EXPORT COMPRESSION ---",
+      new String[] {
+          "None",
+          "gzip"
+      },
+      "Selection",
+      "Please select a valid option.");
+
+  public static final Menu historyPageMenu = new Menu(
+      "   --- STATEMENT ---",
+      new String[] {
+          "Older transactions",
+          "Back"
+      },
+      "Selection",
+      "Please select a valid option.");
+
+  public static final Menu pageMenu = new Menu(
+      "   --- CUSTOMER LIST ---",
+      new String[] {
+          "Next page",
+          "Previous page",
+          "Back"
+      },
+      "Selection",
+      "Please select a valid option.");
+
 }
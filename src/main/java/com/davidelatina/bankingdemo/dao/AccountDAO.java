@@ -0,0 +1,750 @@
+package com.davidelatina.bankingdemo.dao;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.davidelatina.bankingdemo.dao.dto.TransactionPage;
+import com.davidelatina.bankingdemo.dao.util.ConnectionProvider;
+import com.davidelatina.bankingdemo.model.entity.Account;
+import com.davidelatina.bankingdemo.model.entity.JournalEntry;
+import com.davidelatina.bankingdemo.model.entity.AccountType;
+import com.davidelatina.bankingdemo.model.entity.Money;
+import com.davidelatina.bankingdemo.model.entity.Transaction;
+import com.davidelatina.bankingdemo.model.entity.Transfer;
+import com.davidelatina.bankingdemo.model.entity.TransactionType;
+import com.davidelatina.bankingdemo.model.util.UnsignedIds;
+
+/**
+ * Data-access object for {@link Account}, and for the transactions that
+ * change account balances.
+ */
+public class AccountDAO {
+
+  // SQL, kept constant so that pooled connections can reuse the prepared
+  // statements
+  private static final String SELECT_ACCOUNT_SQL =
+      "SELECT a.id, a.customer_id, t.name AS type, a.balance, a.created_at FROM account a JOIN account_type t ON t.id = a.account_type_id";
+  private static final String SELECT_BY_ID_SQL =
+      SELECT_ACCOUNT_SQL + " WHERE a.id = ?";
+  private static final String SELECT_BY_CUSTOMER_SQL =
+      SELECT_ACCOUNT_SQL + " WHERE a.customer_id = ? ORDER BY a.id";
+  private static final String INSERT_ACCOUNT_SQL =
+      "INSERT INTO account (customer_id, account_type_id, balance, created_at) SELECT ?, id, 0, NOW() FROM account_type WHERE name = ?";
+  private static final String DEPOSIT_SQL =
+      "UPDATE account SET balance = balance + ? WHERE id = ?";
+  private static final String WITHDRAW_SQL =
+      "UPDATE account SET balance = balance - ? WHERE id = ? AND balance >= ?";
+  private static final String INSERT_TRANSACTION_SQL =
+      "INSERT INTO transaction (account_id, type_id, amount, executed_at) SELECT ?, id, ?, NOW() FROM transaction_type WHERE name = ?";
+  private static final String INSERT_TRANSFER_SQL =
+      "INSERT INTO transaction (account_id, type_id, amount, recipient_account_id, executed_at) SELECT ?, id, ?, ?, NOW() FROM transaction_type WHERE name = ?";
+  // Signed change, refused if it would make the balance negative
+  private static final String APPLY_CHANGE_SQL =
+      "UPDATE account SET balance = balance + ? WHERE id = ? AND balance + ? >= 0";
+  private static final String INSERT_JOURNALED_TRANSACTION_SQL =
+      "INSERT INTO transaction (account_id, type_id, amount, executed_at) SELECT ?, id, ?, ? FROM transaction_type WHERE name = ?";
+  private static final String SELECT_JOURNAL_CHECKPOINT_SQL =
+      "SELECT drained_position FROM journal_checkpoint WHERE id = 1";
+  private static final String UPDATE_JOURNAL_CHECKPOINT_SQL =
+      "UPDATE journal_checkpoint SET drained_position = ? WHERE id = 1";
+  // Every column read by a history branch is in its covering index
+  private static final String HISTORY_BRANCH_SQL =
+      "SELECT id, account_id, type_id, amount, recipient_account_id, executed_at FROM transaction WHERE ";
+  private static final String HISTORY_ORDER_SQL =
+      " ORDER BY executed_at DESC, id DESC LIMIT ?";
+  private static final String SELECT_MAX_ID_SQL =
+      "SELECT COALESCE(MAX(id), 0) FROM account";
+  private static final String SELECT_CREATED_AT_SQL =
+      "SELECT created_at FROM account WHERE id = ?";
+  // Balance as of ? of the accounts with ids between ? and ?, that existed
+  // by then: their current balance, less what changed since
+  private static final String INSERT_SNAPSHOT_SQL =
+      "INSERT IGNORE INTO balance_snapshot (account_id, taken_at, balance) SELECT a.id, ?, a.balance - "
+          + netChangeSql("a.id", "t.executed_at >= ?")
+          + " FROM account a WHERE a.id BETWEEN ? AND ? AND a.created_at <= ?";
+  private static final String SELECT_SNAPSHOT_BEFORE_SQL =
+      "SELECT taken_at, balance FROM balance_snapshot WHERE account_id = ? AND taken_at <= ? ORDER BY taken_at DESC LIMIT 1";
+  private static final String SELECT_SNAPSHOT_AFTER_SQL =
+      "SELECT taken_at, balance FROM balance_snapshot WHERE account_id = ? AND taken_at > ? ORDER BY taken_at LIMIT 1";
+  private static final String SELECT_BALANCE_SQL =
+      "SELECT balance FROM account WHERE id = ?";
+  private static final String SELECT_NET_CHANGE_SQL =
+      "SELECT " + netChangeSql("?", "t.executed_at >= ? AND t.executed_at < ?");
+  private static final String SELECT_NET_CHANGE_SINCE_SQL =
+      "SELECT " + netChangeSql("?", "t.executed_at >= ?");
+
+  private final ConnectionProvider connectionProvider;
+
+  public AccountDAO(ConnectionProvider connectionProvider) {
+    this.connectionProvider = connectionProvider;
+  }
+
+  // --- Methods
+  /**
+   * Retrieves a single account.
+   *
+   * @return the account, or {@link Optional#empty()} if there is none with
+   *         this id
+   * @throws SQLException if a database access error occurs
+   */
+  public Optional<Account> get(long id) throws SQLException {
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
+
+      // Ids are BIGINT UNSIGNED held in a long
+      UnsignedIds.bind(stmt, 1, id);
+
+      try (ResultSet rs = stmt.executeQuery()) {
+        return rs.next() ? Optional.of(mapAccount(rs)) : Optional.empty();
+      }
+    }
+  }
+
+  /**
+   * Retrieves the accounts of a customer, oldest first.
+   *
+   * @throws SQLException if a database access error occurs
+   */
+  public List<Account> getByCustomer(long customerId) throws SQLException {
+    List<Account> accounts = new ArrayList<>();
+
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement(SELECT_BY_CUSTOMER_SQL)) {
+
+      UnsignedIds.bind(stmt, 1, customerId);
+
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          accounts.add(mapAccount(rs));
+        }
+      }
+    }
+    return accounts;
+  }
+
+  /**
+   * Opens an account with a zero balance.
+   *
+   * @return the id of the new account
+   * @throws SQLException if a database access error occurs, including a
+   *                      customer that does not exist
+   */
+  public long createAccount(long customerId, AccountType type) throws SQLException {
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement(INSERT_ACCOUNT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+      UnsignedIds.bind(stmt, 1, customerId);
+      stmt.setString(2, type.dbName());
+
+      if (stmt.executeUpdate() != 1) {
+        throw new SQLException("Account type '" + type.dbName() + "' is missing from account_type.");
+      }
+
+      try (ResultSet keys = stmt.getGeneratedKeys()) {
+        if (!keys.next()) {
+          throw new SQLException("No id was generated for the new account.");
+        }
+        return UnsignedIds.read(keys, 1);
+      }
+    }
+  }
+
+  /**
+   * Applies a deposit or withdrawal to an account balance and records the
+   * transaction, in a single database transaction.
+   * <p>
+   * The balance is changed relative to its stored value, so the update never
+   * overwrites a change made by someone else.
+   *
+   * @param accountId account to change
+   * @param type      {@link TransactionType#DEPOSIT} or
+   *                  {@link TransactionType#WITHDRAWAL}
+   * @param amount    positive amount
+   * @return {@code true} if the change was applied; {@code false}, with
+   *         nothing changed, if the account does not exist or a withdrawal
+   *         exceeds the stored balance
+   * @throws SQLException if a database access error occurs; nothing is
+   *                      changed
+   */
+  public boolean applyTransaction(long accountId, TransactionType type, Money amount)
+      throws IllegalArgumentException, SQLException {
+
+    // --- Parameter validation
+    if (type != TransactionType.DEPOSIT && type != TransactionType.WITHDRAWAL) {
+      throw new IllegalArgumentException("Only deposits and withdrawals change a single account.");
+    }
+
+    // DECIMAL(18,9) maps to BigDecimal, exactly
+    BigDecimal value = amount.toBigDecimal();
+
+    try (Connection conn = connectionProvider.getDbConnection()) {
+      conn.setAutoCommit(false);
+
+      try {
+        boolean applied;
+        if (type == TransactionType.DEPOSIT) {
+          try (PreparedStatement stmt = conn.prepareStatement(DEPOSIT_SQL)) {
+            stmt.setBigDecimal(1, value);
+            UnsignedIds.bind(stmt, 2, accountId);
+            applied = stmt.executeUpdate() == 1;
+          }
+        } else {
+          try (PreparedStatement stmt = conn.prepareStatement(WITHDRAW_SQL)) {
+            stmt.setBigDecimal(1, value);
+            UnsignedIds.bind(stmt, 2, accountId);
+            stmt.setBigDecimal(3, value);
+            applied = stmt.executeUpdate() == 1;
+          }
+        }
+
+        if (!applied) {
+          conn.rollback();
+          return false;
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_TRANSACTION_SQL)) {
+          UnsignedIds.bind(stmt, 1, accountId);
+          stmt.setBigDecimal(2, value);
+          stmt.setString(3, type.dbName());
+          stmt.executeUpdate();
+        }
+
+        conn.commit();
+        return true;
+
+      } catch (SQLException | RuntimeException ex) {
+        conn.rollback();
+        throw ex;
+
+      } finally {
+        conn.setAutoCommit(true);
+      }
+    }
+  }
+
+  /**
+   * Applies transfers with one JDBC batch per statement, in a single
+   * database transaction: either all of them are committed or none is.
+   * <p>
+   * Each transfer debits one account, credits another and records a
+   * {@link TransactionType#TRANSFER} row on the debited account. No two
+   * transfers of the batch may touch the same account.
+   *
+   * @return the transfers that could not be applied, because an account does
+   *         not exist or a debit exceeds the stored balance; if there are any,
+   *         nothing was committed
+   * @throws SQLException if a database access error occurs; nothing is
+   *                      committed
+   */
+  public List<Transfer> applyTransfers(List<Transfer> transfers) throws SQLException {
+    List<Transfer> failed = new ArrayList<>();
+    if (transfers.isEmpty()) {
+      return failed;
+    }
+
+    try (Connection conn = connectionProvider.getDbConnection()) {
+      conn.setAutoCommit(false);
+
+      try (PreparedStatement debit = conn.prepareStatement(WITHDRAW_SQL);
+          PreparedStatement credit = conn.prepareStatement(DEPOSIT_SQL);
+          PreparedStatement record = conn.prepareStatement(INSERT_TRANSFER_SQL)) {
+
+        try {
+          for (Transfer transfer : transfers) {
+            bindTransfer(debit, credit, transfer);
+            debit.addBatch();
+            credit.addBatch();
+
+            UnsignedIds.bind(record, 1, transfer.fromAccountId());
+            record.setBigDecimal(2, transfer.amount().toBigDecimal());
+            UnsignedIds.bind(record, 3, transfer.toAccountId());
+            record.setString(4, TransactionType.TRANSFER.dbName());
+            record.addBatch();
+          }
+
+          int[] debited = debit.executeBatch();
+          int[] credited = credit.executeBatch();
+
+          // A refused debit must not go unnoticed: if the driver withheld
+          // the counts, start over one transfer at a time
+          if (withheld(debited) || withheld(credited)) {
+            conn.rollback();
+            for (int i = 0; i < transfers.size(); i++) {
+              bindTransfer(debit, credit, transfers.get(i));
+              debited[i] = debit.executeUpdate();
+              credited[i] = credit.executeUpdate();
+            }
+          }
+
+          for (int i = 0; i < transfers.size(); i++) {
+            if (!applied(debited[i]) || !applied(credited[i])) {
+              failed.add(transfers.get(i));
+            }
+          }
+
+          if (!failed.isEmpty()) {
+            conn.rollback();
+            return failed;
+          }
+
+          record.executeBatch();
+          conn.commit();
+          return failed;
+
+        } finally {
+          // Statements are cached with the connection: leave nothing queued
+          // for the next caller
+          clearBatches(debit, credit, record);
+        }
+
+      } catch (SQLException | RuntimeException ex) {
+        conn.rollback();
+        throw ex;
+
+      } finally {
+        conn.setAutoCommit(true);
+      }
+    }
+  }
+
+  /**
+   * Position up to which the transaction journal has been applied.
+   *
+   * @throws SQLException if a database access error occurs, or the
+   *                      checkpoint row is missing
+   * @see #applyJournal(List, long)
+   */
+  public long getJournalCheckpoint() throws SQLException {
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement(SELECT_JOURNAL_CHECKPOINT_SQL);
+        ResultSet rs = stmt.executeQuery()) {
+
+      if (!rs.next()) {
+        throw new SQLException("The journal_checkpoint row is missing; apply banking_db_migration_v5.sql.");
+      }
+      return rs.getLong("drained_position");
+    }
+  }
+
+  /**
+   * Applies journaled deposits and withdrawals, in order, and moves the
+   * journal checkpoint, in a single database transaction: either all of it is
+   * committed or nothing is.
+   * <p>
+   * Each entry changes its account balance and records a transaction row
+   * executed at the entry's time. Balance changes are sent as one JDBC batch
+   * in journal order, so a withdrawal may rely on a deposit before it in the
+   * same list.
+   *
+   * @param entries    entries to apply, in journal order; may be empty
+   * @param checkpoint new journal checkpoint, past the last entry
+   * @return the entries that could not be applied, because the account does
+   *         not exist or a withdrawal exceeds the stored balance; if there are
+   *         any, nothing was committed
+   * @throws SQLException if a database access error occurs; nothing is
+   *                      committed
+   */
+  public List<JournalEntry> applyJournal(List<JournalEntry> entries, long checkpoint) throws SQLException {
+    List<JournalEntry> failed = new ArrayList<>();
+
+    try (Connection conn = connectionProvider.getDbConnection()) {
+      conn.setAutoCommit(false);
+
+      try (PreparedStatement change = conn.prepareStatement(APPLY_CHANGE_SQL);
+          PreparedStatement record = conn.prepareStatement(INSERT_JOURNALED_TRANSACTION_SQL);
+          PreparedStatement advance = conn.prepareStatement(UPDATE_JOURNAL_CHECKPOINT_SQL)) {
+
+        try {
+          if (!entries.isEmpty()) {
+            for (JournalEntry entry : entries) {
+              bindChange(change, entry);
+              change.addBatch();
+
+              UnsignedIds.bind(record, 1, entry.accountId());
+              record.setBigDecimal(2, entry.amount().toBigDecimal());
+              record.setObject(3, entry.executedAt());
+              record.setString(4, entry.type().dbName());
+              record.addBatch();
+            }
+
+            int[] changed = change.executeBatch();
+
+            // A refused withdrawal must not go unnoticed: if the driver
+            // withheld the counts, start over one entry at a time
+            if (withheld(changed)) {
+              conn.rollback();
+              for (int i = 0; i < entries.size(); i++) {
+                bindChange(change, entries.get(i));
+                changed[i] = change.executeUpdate();
+              }
+            }
+
+            for (int i = 0; i < entries.size(); i++) {
+              if (!applied(changed[i])) {
+                failed.add(entries.get(i));
+              }
+            }
+
+            if (!failed.isEmpty()) {
+              conn.rollback();
+              return failed;
+            }
+
+            record.executeBatch();
+          }
+
+          advance.setLong(1, checkpoint);
+          if (advance.executeUpdate() != 1) {
+            throw new SQLException("The journal_checkpoint row is missing; apply banking_db_migration_v5.sql.");
+          }
+
+          conn.commit();
+          return failed;
+
+        } finally {
+          // Statements are cached with the connection: leave nothing queued
+          // for the next caller
+          clearBatches(change, record);
+        }
+
+      } catch (SQLException | RuntimeException ex) {
+        conn.rollback();
+        throw ex;
+
+      } finally {
+        conn.setAutoCommit(true);
+      }
+    }
+  }
+
+  /**
+   * Retrieves a page of an account's transaction history, newest first:
+   * its deposits, withdrawals and transfers, sent or received.
+   * <p>
+   * Pages are found by keyset on {@code (executed_at, id)}, never by offset.
+   * Sent and received transactions are read from two covering indexes, each
+   * starting with the account id and ordered like the history, so a page
+   * reads about {@code 2 * limit} index entries and no table rows, however
+   * long the history is.
+   *
+   * @param accountId      account whose history is read
+   * @param after          position of the last transaction of the previous
+   *                       page, or null for the first page
+   * @param limit          maximum number of transactions on the page
+   * @param executedFrom   if not null, only transactions executed at or after
+   *                       this time
+   * @param executedBefore if not null, only transactions executed before this
+   *                       time
+   * @return the page, which is empty if no further transactions match
+   * @throws SQLException             if a database access error occurs
+   * @throws IllegalArgumentException if limit is not positive
+   */
+  public TransactionPage getHistory(long accountId, TransactionPage.Cursor after, int limit,
+      LocalDateTime executedFrom, LocalDateTime executedBefore) throws IllegalArgumentException, SQLException {
+
+    // --- Parameter validation
+    if (limit < 1) {
+      throw new IllegalArgumentException("Page size must be a positive whole number");
+    }
+
+    // Each branch is sorted and limited on its own index; the outer query
+    // merges them. Only eight distinct SQL strings can come out of here.
+    StringBuilder filters = new StringBuilder();
+    if (executedFrom != null) {
+      filters.append(" AND executed_at >= ?");
+    }
+    if (executedBefore != null) {
+      filters.append(" AND executed_at < ?");
+    }
+    if (after != null) {
+      filters.append(" AND (executed_at < ? OR (executed_at = ? AND id < ?))");
+    }
+    String query = "SELECT h.id, h.account_id, tt.name AS type, h.amount, h.recipient_account_id, h.executed_at FROM ("
+        + "(" + HISTORY_BRANCH_SQL + "account_id = ?" + filters + HISTORY_ORDER_SQL + ")"
+        + " UNION ALL "
+        + "(" + HISTORY_BRANCH_SQL + "recipient_account_id = ?" + filters + HISTORY_ORDER_SQL + ")"
+        + ") h JOIN transaction_type tt ON tt.id = h.type_id"
+        + " ORDER BY h.executed_at DESC, h.id DESC LIMIT ?";
+
+    // Fetch one extra row to find out whether there is a next page
+    int fetch = limit + 1;
+
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement(query)) {
+
+      int index = 1;
+      for (int branch = 0; branch < 2; branch++) {
+        UnsignedIds.bind(stmt, index++, accountId);
+        if (executedFrom != null) {
+          stmt.setObject(index++, executedFrom);
+        }
+        if (executedBefore != null) {
+          stmt.setObject(index++, executedBefore);
+        }
+        if (after != null) {
+          stmt.setObject(index++, after.executedAt());
+          stmt.setObject(index++, after.executedAt());
+          UnsignedIds.bind(stmt, index++, after.id());
+        }
+        stmt.setInt(index++, fetch);
+      }
+      stmt.setInt(index, fetch);
+
+      List<Transaction> transactions = new ArrayList<>(fetch);
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          transactions.add(mapTransaction(rs));
+        }
+      }
+
+      boolean hasNext = transactions.size() > limit;
+      if (hasNext) {
+        transactions.remove(transactions.size() - 1);
+      }
+      return new TransactionPage(transactions, hasNext);
+    }
+  }
+
+  /**
+   * Highest account id, or {@code 0} if there are no accounts.
+   *
+   * @throws SQLException if a database access error occurs
+   */
+  public long getMaxId() throws SQLException {
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement(SELECT_MAX_ID_SQL);
+        ResultSet rs = stmt.executeQuery()) {
+
+      rs.next();
+      return UnsignedIds.read(rs, 1);
+    }
+  }
+
+  /**
+   * Records the balance as of {@code takenAt} of the accounts with ids in
+   * {@code [fromId, toId]} that existed by then, in {@code balance_snapshot}.
+   * <p>
+   * Each balance is the current one, less the transactions executed since
+   * {@code takenAt}, all read in a single statement. Accounts that already
+   * have a snapshot at that time are skipped, so a run that failed half-way
+   * can simply be repeated.
+   *
+   * @return number of snapshots recorded
+   * @throws SQLException if a database access error occurs; nothing is
+   *                      recorded
+   */
+  public int snapshotBalances(long fromId, long toId, LocalDateTime takenAt) throws SQLException {
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement(INSERT_SNAPSHOT_SQL)) {
+
+      stmt.setObject(1, takenAt);
+      stmt.setObject(2, takenAt);
+      stmt.setObject(3, takenAt);
+      UnsignedIds.bind(stmt, 4, fromId);
+      UnsignedIds.bind(stmt, 5, toId);
+      stmt.setObject(6, takenAt);
+      return stmt.executeUpdate();
+    }
+  }
+
+  /**
+   * Balance of an account as of a time: after the transactions executed
+   * before it, and none executed at or after it.
+   * <p>
+   * Starts from the nearest snapshot at or before that time and adds the
+   * transactions since; failing that, from the nearest snapshot after it, or
+   * the current balance, and subtracts the transactions in between. Either
+   * way, only the transactions between the two times are read, from the
+   * history indexes.
+   *
+   * @return the balance, or {@link Optional#empty()} if there is no account
+   *         by this id or it was opened after that time
+   * @throws SQLException if a database access error occurs
+   */
+  public Optional<Money> getBalanceAsOf(long accountId, LocalDateTime asOf) throws SQLException {
+    try (Connection conn = connectionProvider.getDbConnection()) {
+      // One transaction, so that every read sees the same balances
+      conn.setAutoCommit(false);
+
+      try {
+        Optional<Money> balance = balanceAsOf(conn, accountId, asOf);
+        conn.commit();
+        return balance;
+
+      } catch (SQLException | RuntimeException ex) {
+        conn.rollback();
+        throw ex;
+
+      } finally {
+        conn.setAutoCommit(true);
+      }
+    }
+  }
+
+  // --- Subroutines
+
+  // Net change to account accountSql from the transactions matching
+  // timeCondition, on alias t: what it received, less what it sent
+  private static String netChangeSql(String accountSql, String timeCondition) {
+    return "(COALESCE((SELECT SUM(CASE tt.name WHEN 'deposit' THEN t.amount ELSE -t.amount END)"
+        + " FROM transaction t JOIN transaction_type tt ON tt.id = t.type_id"
+        + " WHERE t.account_id = " + accountSql + " AND " + timeCondition + "), 0)"
+        + " + COALESCE((SELECT SUM(t.amount) FROM transaction t"
+        + " WHERE t.recipient_account_id = " + accountSql + " AND " + timeCondition + "), 0))";
+  }
+
+  private static Optional<Money> balanceAsOf(Connection conn, long accountId, LocalDateTime asOf)
+      throws SQLException {
+
+    try (PreparedStatement stmt = conn.prepareStatement(SELECT_CREATED_AT_SQL)) {
+      UnsignedIds.bind(stmt, 1, accountId);
+      try (ResultSet rs = stmt.executeQuery()) {
+        if (!rs.next() || rs.getObject("created_at", LocalDateTime.class).isAfter(asOf)) {
+          return Optional.empty();
+        }
+      }
+    }
+
+    // Forwards from an earlier snapshot
+    try (PreparedStatement stmt = conn.prepareStatement(SELECT_SNAPSHOT_BEFORE_SQL)) {
+      UnsignedIds.bind(stmt, 1, accountId);
+      stmt.setObject(2, asOf);
+      try (ResultSet rs = stmt.executeQuery()) {
+        if (rs.next()) {
+          Money snapshot = Money.of(rs.getBigDecimal("balance"));
+          LocalDateTime takenAt = rs.getObject("taken_at", LocalDateTime.class);
+          return Optional.of(snapshot.plus(netChange(conn, accountId, takenAt, asOf)));
+        }
+      }
+    }
+
+    // Backwards from a later snapshot
+    try (PreparedStatement stmt = conn.prepareStatement(SELECT_SNAPSHOT_AFTER_SQL)) {
+      UnsignedIds.bind(stmt, 1, accountId);
+      stmt.setObject(2, asOf);
+      try (ResultSet rs = stmt.executeQuery()) {
+        if (rs.next()) {
+          Money snapshot = Money.of(rs.getBigDecimal("balance"));
+          LocalDateTime takenAt = rs.getObject("taken_at", LocalDateTime.class);
+          return Optional.of(snapshot.minus(netChange(conn, accountId, asOf, takenAt)));
+        }
+      }
+    }
+
+    // Backwards from the current balance
+    Money balance;
+    try (PreparedStatement stmt = conn.prepareStatement(SELECT_BALANCE_SQL)) {
+      UnsignedIds.bind(stmt, 1, accountId);
+      try (ResultSet rs = stmt.executeQuery()) {
+        if (!rs.next()) {
+          return Optional.empty();
+        }
+        balance = Money.of(rs.getBigDecimal("balance"));
+      }
+    }
+    return Optional.of(balance.minus(netChange(conn, accountId, asOf, null)));
+  }
+
+  // Net change to an account from the transactions executed in [from, to),
+  // or since from if to is null
+  private static Money netChange(Connection conn, long accountId, LocalDateTime from, LocalDateTime to)
+      throws SQLException {
+
+    String query = to == null ? SELECT_NET_CHANGE_SINCE_SQL : SELECT_NET_CHANGE_SQL;
+    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+      int index = 1;
+      for (int branch = 0; branch < 2; branch++) {
+        UnsignedIds.bind(stmt, index++, accountId);
+        stmt.setObject(index++, from);
+        if (to != null) {
+          stmt.setObject(index++, to);
+        }
+      }
+
+      try (ResultSet rs = stmt.executeQuery()) {
+        rs.next();
+        return Money.of(rs.getBigDecimal(1)); // DECIMAL, scale 9
+      }
+    }
+  }
+
+  // Update count of one batched UPDATE. Drivers that rewrite batches may not
+  // report individual counts.
+  // Only an exact count proves a guarded update changed its row
+  private static boolean applied(int updateCount) {
+    return updateCount == 1;
+  }
+
+  // True if the driver reported a batch without row counts, as it may when
+  // it rewrites batches (rewriteBatchedStatements)
+  private static boolean withheld(int[] updateCounts) {
+    for (int updateCount : updateCounts) {
+      if (updateCount == Statement.SUCCESS_NO_INFO) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void bindTransfer(PreparedStatement debit, PreparedStatement credit, Transfer transfer)
+      throws SQLException {
+    BigDecimal amount = transfer.amount().toBigDecimal();
+
+    debit.setBigDecimal(1, amount);
+    UnsignedIds.bind(debit, 2, transfer.fromAccountId());
+    debit.setBigDecimal(3, amount);
+
+    credit.setBigDecimal(1, amount);
+    UnsignedIds.bind(credit, 2, transfer.toAccountId());
+  }
+
+  // Deposits add to the balance, withdrawals subtract unless it would go
+  // below zero
+  private static void bindChange(PreparedStatement change, JournalEntry entry) throws SQLException {
+    BigDecimal amount = entry.amount().toBigDecimal();
+    BigDecimal delta = entry.type() == TransactionType.DEPOSIT ? amount : amount.negate();
+
+    change.setBigDecimal(1, delta);
+    UnsignedIds.bind(change, 2, entry.accountId());
+    change.setBigDecimal(3, delta);
+  }
+
+  private static void clearBatches(PreparedStatement... statements) {
+    for (PreparedStatement statement : statements) {
+      try {
+        statement.clearBatch();
+      } catch (SQLException ex) {
+        // Broken statement: the statement cache drops it when it is closed
+      }
+    }
+  }
+
+  // Maps the current row of a result set of SELECT_ACCOUNT_SQL
+  private static Account mapAccount(ResultSet rs) throws SQLException {
+    return new Account(
+        UnsignedIds.read(rs, "id"),
+        UnsignedIds.read(rs, "customer_id"),
+        AccountType.fromDbName(rs.getString("type")),
+        Money.of(rs.getBigDecimal("balance")), // DECIMAL(18,9)
+        rs.getObject("created_at", LocalDateTime.class));
+  }
+
+  // Maps the current row of a history query
+  private static Transaction mapTransaction(ResultSet rs) throws SQLException {
+    return new Transaction(
+        UnsignedIds.read(rs, "id"),
+        UnsignedIds.read(rs, "account_id"),
+        TransactionType.fromDbName(rs.getString("type")),
+        Money.of(rs.getBigDecimal("amount")), // DECIMAL(18,9)
+        UnsignedIds.read(rs, "recipient_account_id"), // NULL reads as 0
+        rs.getObject("executed_at", LocalDateTime.class));
+  }
+}
@@ -7,23 +7,69 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import java.math.BigInteger;
 
-import com.davidelatina.bankingdemo.dao.util.ConnectionManager;
+import com.davidelatina.bankingdemo.dao.dto.CustomerCredentials;
+import com.davidelatina.bankingdemo.dao.dto.CustomerPage;
+import com.davidelatina.bankingdemo.dao.dto.CustomerRegistration;
+import com.davidelatina.bankingdemo.dao.util.ConnectionProvider;
+import com.davidelatina.bankingdemo.dao.util.ResultSetStream;
 import com.davidelatina.bankingdemo.model.entity.Customer;
+import com.davidelatina.bankingdemo.model.util.UnsignedIds;
 
 /**
  * Data-access object for {@link Customer}
  */
 public class CustomerDAO {
 
-  private ConnectionManager connectionManager;
-
-  public CustomerDAO(ConnectionManager connectionManager) {
-    this.connectionManager = connectionManager;
+  // SQL, kept constant so that pooled connections can reuse the prepared
+  // statements
+  private static final String CHECK_USERNAME_SQL =
+      "SELECT username FROM customer WHERE username = ?";
+  private static final String INSERT_CUSTOMER_SQL =
+      "INSERT INTO customer (username, first_name, last_name, age, salt, hashed_password, hash_algorithm, hash_iterations, registered_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, NOW())";
+  private static final String UPDATE_PASSWORD_HASH_SQL =
+      "UPDATE customer SET salt = ?, hashed_password = ?, hash_algorithm = ?, hash_iterations = ? WHERE id = ?";
+  private static final String SELECT_BY_ID_SQL =
+      "SELECT id, username, first_name, last_name, age, registered_at FROM customer WHERE id = ?";
+  private static final String SELECT_SALT_BY_ID_SQL =
+      "SELECT salt FROM customer WHERE id = ?";
+  private static final String SELECT_SALT_BY_USERNAME_SQL =
+      "SELECT salt FROM customer WHERE username = ?";
+  private static final String SELECT_ID_BY_USERNAME_SQL =
+      "SELECT id FROM customer WHERE username = ?";
+  private static final String SELECT_HASH_BY_USERNAME_SQL =
+      "SELECT hashed_password FROM customer WHERE username = ?";
+  private static final String SELECT_CREDENTIALS_BY_USERNAME_SQL =
+      "SELECT id, username, first_name, last_name, age, registered_at, salt, hashed_password, hash_algorithm, hash_iterations FROM customer WHERE username = ?";
+  private static final String SELECT_PAGE_SQL =
+      "SELECT id, username, first_name, last_name, age, registered_at FROM customer";
+  private static final String COUNT_SQL =
+      "SELECT COUNT(*) FROM customer";
+  private static final String SELECT_ALL_USERNAMES_SQL =
+      "SELECT username FROM customer";
+  private static final String SELECT_ALL_SQL =
+      "SELECT id, username, first_name, last_name, age, registered_at FROM customer";
+  private static final String SELECT_ALL_BY_ID_SQL =
+      SELECT_ALL_SQL + " ORDER BY id";
+  private static final String SELECT_USERNAMES_IN_SQL =
+      "SELECT username FROM customer WHERE username IN ";
+
+  // Largest IN list sent in one query
+  private static final int MAX_IN_LIST_SIZE = 1000;
+
+  private final ConnectionProvider connectionProvider;
+
+  public CustomerDAO(ConnectionProvider connectionProvider) {
+    this.connectionProvider = connectionProvider;
   }
 
   // --- Methods
@@ -35,33 +81,132 @@ public class CustomerDAO {
    * @throws SQLException if a database access error occurs
    */
   public boolean checkUsernameAvailable(String username) throws SQLException {
-    String query = "SELECT username FROM customer WHERE username = ?";
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement(CHECK_USERNAME_SQL)) {
 
-    Connection conn = connectionManager.getDbConnection();
+      stmt.setString(1, username);
 
-    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+      try (ResultSet rs = stmt.executeQuery()) {
 
-      stmt.setString(1, username);
+        // Position cursor on first (and only) row. return true if no data
+        return !rs.next();
+      }
+    }
+  }
+
+  /**
+   * Finds which of the given usernames are already registered, with as few
+   * queries as possible.
+   * <p>
+   * Usernames are compared with the column's collation, so a username that
+   * differs from a registered one only in case or accents counts as taken.
+   * The returned names are spelled as stored in the database.
+   *
+   * @param usernames usernames to look up
+   * @return the registered usernames among them
+   * @throws SQLException if a database access error occurs
+   */
+  public Set<String> findExistingUsernames(Collection<String> usernames) throws SQLException {
+    Set<String> existing = new HashSet<>();
+    if (usernames.isEmpty()) {
+      return existing;
+    }
+
+    List<String> remaining = new ArrayList<>(usernames);
+    try (Connection conn = connectionProvider.getDbConnection()) {
+
+      for (int from = 0; from < remaining.size(); from += MAX_IN_LIST_SIZE) {
+        List<String> batch = remaining.subList(from, Math.min(from + MAX_IN_LIST_SIZE, remaining.size()));
+        String sql = SELECT_USERNAMES_IN_SQL + "(" + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
 
-      ResultSet rs = stmt.executeQuery();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+          for (int i = 0; i < batch.size(); i++) {
+            stmt.setString(i + 1, batch.get(i));
+          }
 
-      // Position cursor on first (and only) row. return true if no data
-      return !rs.next();
+          try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+              existing.add(rs.getString("username"));
+            }
+          }
+        }
+      }
     }
+    return existing;
   }
 
   /**
-   * Register a new customer to the database.
+   * Inserts customers with one JDBC batch, in a single transaction: either all
+   * of them are registered or none is.
+   * <p>
+   * With MySQL, adding {@code rewriteBatchedStatements=true} to the connection
+   * URL turns the batch into multi-row inserts.
+   *
+   * @param registrations customers to insert
+   * @return the ids of the new customers, in the order of the registrations
+   * @throws SQLException if a database access error occurs, including a
+   *                      username that is already taken; nothing is inserted
    */
-  public void createCustomer(
-      String username, String firstName, String lastName, int age, byte[] salt, byte[] hashedPassword)
-      throws SQLException {
+  public long[] createCustomers(List<CustomerRegistration> registrations) throws SQLException {
+    if (registrations.isEmpty()) {
+      return new long[0];
+    }
 
-    String sql = "INSERT INTO customer (username, first_name, last_name, age, salt, hashed_password, registered_at)  VALUES (?, ?, ?, ?, ?, ?, NOW());";
+    try (Connection conn = connectionProvider.getDbConnection()) {
+      conn.setAutoCommit(false);
+
+      try (PreparedStatement stmt = conn.prepareStatement(INSERT_CUSTOMER_SQL, Statement.RETURN_GENERATED_KEYS)) {
+        for (CustomerRegistration registration : registrations) {
+          stmt.setString(1, registration.username());
+          stmt.setString(2, registration.firstName());
+          stmt.setString(3, registration.lastName());
+          stmt.setInt(4, registration.age());
+          stmt.setBytes(5, registration.salt());
+          stmt.setBytes(6, registration.hashedPassword());
+          stmt.setString(7, registration.hashAlgorithm());
+          stmt.setInt(8, registration.hashIterations());
+          stmt.addBatch();
+        }
 
-    Connection conn = connectionManager.getDbConnection();
+        stmt.executeBatch();
 
-    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        long[] ids = new long[registrations.size()];
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+          for (int i = 0; i < ids.length; i++) {
+            if (!keys.next()) {
+              throw new SQLException("No id was generated for new customer " + registrations.get(i).username() + ".");
+            }
+            ids[i] = UnsignedIds.read(keys, 1);
+          }
+        }
+
+        conn.commit();
+        return ids;
+
+      } catch (SQLException ex) {
+        conn.rollback();
+        throw ex;
+
+      } finally {
+        conn.setAutoCommit(true);
+      }
+    }
+  }
+
+  /**
+   * Register a new customer to the database.
+   *
+   * @param hashAlgorithm  algorithm that produced {@code hashedPassword}
+   * @param hashIterations iteration count that produced {@code hashedPassword}
+   * @return the id of the new customer
+   */
+  public long createCustomer(
+      String username, String firstName, String lastName, int age, byte[] salt, byte[] hashedPassword,
+      String hashAlgorithm, int hashIterations)
+      throws SQLException {
+
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement(INSERT_CUSTOMER_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
       stmt.setString(1, username);
       stmt.setString(2, firstName);
@@ -69,8 +214,41 @@ public class CustomerDAO {
       stmt.setInt(4, age);
       stmt.setBytes(5, salt);
       stmt.setBytes(6, hashedPassword);
+      stmt.setString(7, hashAlgorithm);
+      stmt.setInt(8, hashIterations);
 
       stmt.executeUpdate();
+
+      try (ResultSet keys = stmt.getGeneratedKeys()) {
+        if (!keys.next()) {
+          throw new SQLException("No id was generated for the new customer.");
+        }
+        return UnsignedIds.read(keys, 1);
+      }
+    }
+  }
+
+  /**
+   * Replaces a customer's password hash, together with the parameters that
+   * produced it.
+   *
+   * @return {@code true} if the customer exists
+   * @throws SQLException if a database access error occurs
+   */
+  public boolean updatePasswordHash(long id, byte[] salt, byte[] hashedPassword,
+      String hashAlgorithm, int hashIterations) throws SQLException {
+
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement stmt = conn.prepareStatement(UPDATE_PASSWORD_HASH_SQL)) {
+
+      stmt.setBytes(1, salt);
+      stmt.setBytes(2, hashedPassword);
+      stmt.setString(3, hashAlgorithm);
+      stmt.setInt(4, hashIterations);
+      // Ids are BIGINT UNSIGNED held in a long
+      UnsignedIds.bind(stmt, 5, id);
+
+      return stmt.executeUpdate() == 1;
     }
   }
 
@@ -81,34 +259,25 @@ public class CustomerDAO {
    * The type correspondences between Java and MySQL can be consulted at:
    * https://dev.mysql.com/doc/connector-j/en/connector-j-reference-type-conversions.html
    * 
-   * @param id unique identifier for the customer (must be positive and not null)
+   * @param id unique identifier for the customer, unsigned (must not be 0)
    * @return {@link Optional} containing the {@link Customer} if found,
    *         or {@link Optional#empty()} if no customer exists with the given id
    * @throws SQLException             if a database access error occurs or the
    *                                  connection is closed
-   * @throws IllegalArgumentException if id is null or not positive
+   * @throws IllegalArgumentException if id is 0
    * @see Customer
-   * @see ConnectionManager
+   * @see ConnectionProvider
+   * @see UnsignedIds
    */
-  public Optional<Customer> get(BigInteger id) throws IllegalArgumentException, SQLException {
+  public Optional<Customer> get(long id) throws IllegalArgumentException, SQLException {
     // --- Parameter validation
-    if (id == null) {
-      throw new IllegalArgumentException("Customer ID cannot be null");
-    }
-
-    if (id.compareTo(BigInteger.valueOf(0)) <= 0) {
-      throw new IllegalArgumentException("Customer ID must be a positive whole number");
-    }
-
-    // Prepared statement
-    final String query = "SELECT id, username, first_name, last_name, age, registered_at FROM customer WHERE id = ?";
+    validateId(id);
 
-    Connection conn = connectionManager.getDbConnection();
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement pstmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
-    try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-
-      // Java BigInteger maps to MySQL BIGINT UNSIGNED
-      pstmt.setObject(1, id);
+      // Ids are BIGINT UNSIGNED held in a long
+      UnsignedIds.bind(pstmt, 1, id);
 
       // Execute statement
       try (ResultSet rs = pstmt.executeQuery()) {
@@ -120,40 +289,31 @@ public class CustomerDAO {
         }
 
         // Extract data from result set
-        Customer customer = new Customer(
-            rs.getObject("id", BigInteger.class), // BIGINT UNSIGNED (SERIAL)
-            rs.getString("username"), // VARCHAR
-            rs.getString("first_name"), // VARCHAR
-            rs.getString("last_name"), // VARCHAR
-            rs.getInt("age"), // INT
-            rs.getObject("registered_at", LocalDateTime.class) // DATETIME
-        );
-
-        return Optional.of(customer);
+        return Optional.of(mapCustomer(rs));
       }
     }
   }
 
-  public byte[] getSalt(BigInteger id) throws IllegalArgumentException, SQLException {
-
-    // --- Parameter validation
-    if (id == null) {
-      throw new IllegalArgumentException("Customer ID cannot be null");
-    }
-
-    if (id.compareTo(BigInteger.valueOf(0)) <= 0) {
-      throw new IllegalArgumentException("Customer ID must be a positive whole number");
-    }
+  /**
+   * @deprecated use {@link #get(long)}
+   * @throws IllegalArgumentException if id is null, not positive or does not
+   *                                  fit in 64 bits
+   */
+  @Deprecated
+  public Optional<Customer> get(BigInteger id) throws IllegalArgumentException, SQLException {
+    return get(UnsignedIds.fromBigInteger(id));
+  }
 
-    // Prepared statement
-    final String query = "SELECT salt FROM customer WHERE id = ?";
+  public byte[] getSalt(long id) throws IllegalArgumentException, SQLException {
 
-    Connection conn = connectionManager.getDbConnection();
+    // --- Parameter validation
+    validateId(id);
 
-    try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement pstmt = conn.prepareStatement(SELECT_SALT_BY_ID_SQL)) {
 
-      // Java BigInteger maps to MySQL BIGINT UNSIGNED
-      pstmt.setObject(1, id);
+      // Ids are BIGINT UNSIGNED held in a long
+      UnsignedIds.bind(pstmt, 1, id);
 
       // Execute statement
       try (ResultSet rs = pstmt.executeQuery()) {
@@ -170,6 +330,14 @@ public class CustomerDAO {
     }
   }
 
+  /**
+   * @deprecated use {@link #getSalt(long)}
+   */
+  @Deprecated
+  public byte[] getSalt(BigInteger id) throws IllegalArgumentException, SQLException {
+    return getSalt(UnsignedIds.fromBigInteger(id));
+  }
+
   public byte[] getSalt(String username) throws IllegalArgumentException, SQLException {
 
     // --- Parameter validation
@@ -181,12 +349,8 @@ public class CustomerDAO {
       throw new IllegalArgumentException("Username cannot be blank.");
     }
 
-    // Prepared statement
-    final String query = "SELECT salt FROM customer WHERE username = ?";
-
-    Connection conn = connectionManager.getDbConnection();
-
-    try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement pstmt = conn.prepareStatement(SELECT_SALT_BY_USERNAME_SQL)) {
 
       pstmt.setString(1, username);
 
@@ -205,7 +369,7 @@ public class CustomerDAO {
     }
   }
 
-  public BigInteger getIdFromUsername(String username) throws IllegalArgumentException, SQLException {
+  public long getIdFromUsername(String username) throws IllegalArgumentException, SQLException {
 
     // --- Parameter validation
     if (username == null) {
@@ -216,12 +380,8 @@ public class CustomerDAO {
       throw new IllegalArgumentException("Username cannot be blank.");
     }
 
-    // Prepared statement
-    final String query = "SELECT id FROM customer WHERE username = ?";
-
-    Connection conn = connectionManager.getDbConnection();
-
-    try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement pstmt = conn.prepareStatement(SELECT_ID_BY_USERNAME_SQL)) {
 
       pstmt.setString(1, username);
 
@@ -235,7 +395,7 @@ public class CustomerDAO {
         }
 
         // Extract data from result set
-        return rs.getObject("id", BigInteger.class);
+        return UnsignedIds.read(rs, "id");
       }
     }
   }
@@ -251,12 +411,8 @@ public class CustomerDAO {
       throw new IllegalArgumentException("Username cannot be blank.");
     }
 
-    // Prepared statement
-    final String query = "SELECT hashed_password FROM customer WHERE username = ?";
-
-    Connection conn = connectionManager.getDbConnection();
-
-    try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement pstmt = conn.prepareStatement(SELECT_HASH_BY_USERNAME_SQL)) {
 
       // Java BigInteger maps to MySQL BIGINT UNSIGNED
       pstmt.setString(1, username);
@@ -276,33 +432,283 @@ public class CustomerDAO {
     }
   }
 
+  /**
+   * Retrieves a customer together with their password salt and hash, in a
+   * single query.
+   * <p>
+   * This is the lookup behind login: it replaces separate queries for the
+   * username, salt, hash, id and profile.
+   *
+   * @param username the customer's username
+   * @return {@link Optional} containing the credentials if the username is
+   *         registered, or {@link Optional#empty()} otherwise
+   * @throws SQLException             if a database access error occurs
+   * @throws IllegalArgumentException if username is null or blank
+   * @see CustomerCredentials
+   */
+  public Optional<CustomerCredentials> getCredentials(String username)
+      throws IllegalArgumentException, SQLException {
+
+    // --- Parameter validation
+    if (username == null) {
+      throw new IllegalArgumentException("Username cannot be null.");
+    }
+
+    if (username.isBlank()) {
+      throw new IllegalArgumentException("Username cannot be blank.");
+    }
+
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement pstmt = conn.prepareStatement(SELECT_CREDENTIALS_BY_USERNAME_SQL)) {
+
+      pstmt.setString(1, username);
+
+      // Execute statement
+      try (ResultSet rs = pstmt.executeQuery()) {
+
+        // Position cursor on first (and only) row
+        // Return empty optional if no data is available
+        if (!rs.next()) {
+          return Optional.empty();
+        }
 
+        // Extract data from result set
+        return Optional.of(new CustomerCredentials(
+            mapCustomer(rs),
+            rs.getBytes("salt"), // VARBINARY
+            rs.getBytes("hashed_password"), // VARBINARY
+            rs.getString("hash_algorithm"), // VARCHAR
+            rs.getInt("hash_iterations"))); // INT UNSIGNED
+      }
+    }
+  }
 
   public List<Customer> getAll() throws SQLException {
-    String query = "SELECT id, username, first_name, last_name, age, registered_at FROM customer";
     ArrayList<Customer> customerList = new ArrayList<>();
 
-    Connection conn = connectionManager.getDbConnection();
-
     try (
+        Connection conn = connectionProvider.getDbConnection();
         Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery(query)) {
+        ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
       while (rs.next()) {
-        customerList.add(new Customer(
-            rs.getObject("id", BigInteger.class), // BIGINT UNSIGNED (SERIAL)
-            rs.getString("username"),
-            rs.getString("first_name"),
-            rs.getString("last_name"),
-            rs.getInt("age"),
-            rs.getObject("registered_at", LocalDateTime.class))); // DATETIME
+        customerList.add(mapCustomer(rs));
       }
     }
     return customerList;
   }
 
+  /**
+   * Streams every customer, reading rows from the database as the stream is
+   * consumed.
+   * <p>
+   * Unlike {@link #getAll()}, memory use does not grow with the size of the
+   * table and the first rows are available immediately. The stream holds a
+   * pooled connection until it is closed, so it must be consumed in a
+   * try-with-resources block.
+   *
+   * @return lazily populated stream of customers, in no particular order
+   * @throws SQLException if the query could not be started
+   * @see ResultSetStream
+   */
+  public Stream<Customer> streamAll() throws SQLException {
+    return stream(SELECT_ALL_SQL, CustomerDAO::mapCustomer);
+  }
+
+  /**
+   * Streams every customer in ascending id order. Like {@link #streamAll()},
+   * the stream must be closed after use; the order comes from the primary
+   * key, at no extra cost.
+   *
+   * @throws SQLException if the query could not be started
+   */
+  public Stream<Customer> streamAllById() throws SQLException {
+    return stream(SELECT_ALL_BY_ID_SQL, CustomerDAO::mapCustomer);
+  }
+
+  public long countCustomers() throws SQLException {
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement pstmt = conn.prepareStatement(COUNT_SQL);
+        ResultSet rs = pstmt.executeQuery()) {
+
+      rs.next();
+      return rs.getLong(1);
+    }
+  }
+
+  /**
+   * Streams every registered username. Like {@link #streamAll()}, the stream
+   * must be closed after use.
+   *
+   * @throws SQLException if the query could not be started
+   */
+  public Stream<String> streamUsernames() throws SQLException {
+    return stream(SELECT_ALL_USERNAMES_SQL, row -> row.getString("username"));
+  }
+
+  /**
+   * Retrieves the page of customers that follows {@code lastSeenId}, in
+   * ascending id order.
+   * <p>
+   * Pages are found with {@code id > lastSeenId ORDER BY id LIMIT n} on the
+   * primary key, so each page costs the same no matter how deep into the table
+   * it is.
+   *
+   * @param lastSeenId       highest id of the previous page, or {@code 0} for
+   *                         the first page; ids are unsigned
+   * @param limit            maximum number of customers on the page
+   * @param registeredFrom   if not null, only customers registered at or after
+   *                         this time
+   * @param registeredBefore if not null, only customers registered before this
+   *                         time
+   * @return the page, which is empty if no further customers match
+   * @throws SQLException             if a database access error occurs
+   * @throws IllegalArgumentException if limit is not positive
+   */
+  public CustomerPage getPageAfter(long lastSeenId, int limit,
+      LocalDateTime registeredFrom, LocalDateTime registeredBefore)
+      throws IllegalArgumentException, SQLException {
+
+    // --- Parameter validation
+    validatePageRequest(limit);
+
+    // Fetch one extra row to find out whether there is a next page
+    List<Customer> customers = queryPage(true, lastSeenId, limit + 1, registeredFrom, registeredBefore);
+
+    boolean hasNext = customers.size() > limit;
+    if (hasNext) {
+      customers.remove(customers.size() - 1);
+    }
+
+    return new CustomerPage(customers, lastSeenId != 0, hasNext);
+  }
+
+  /**
+   * Retrieves the page of customers that precedes {@code firstSeenId}, in
+   * ascending id order.
+   *
+   * @param firstSeenId      lowest id of the following page
+   * @param limit            maximum number of customers on the page
+   * @param registeredFrom   if not null, only customers registered at or after
+   *                         this time
+   * @param registeredBefore if not null, only customers registered before this
+   *                         time
+   * @return the page, which is empty if no earlier customers match
+   * @throws SQLException             if a database access error occurs
+   * @throws IllegalArgumentException if limit is not positive
+   * @see #getPageAfter(long, int, LocalDateTime, LocalDateTime)
+   */
+  public CustomerPage getPageBefore(long firstSeenId, int limit,
+      LocalDateTime registeredFrom, LocalDateTime registeredBefore)
+      throws IllegalArgumentException, SQLException {
+
+    // --- Parameter validation
+    validatePageRequest(limit);
+
+    // Walk backwards from firstSeenId, then restore ascending order
+    List<Customer> customers = queryPage(false, firstSeenId, limit + 1, registeredFrom, registeredBefore);
+
+    boolean hasPrevious = customers.size() > limit;
+    if (hasPrevious) {
+      customers.remove(customers.size() - 1);
+    }
+    Collections.reverse(customers);
+
+    return new CustomerPage(customers, hasPrevious, true);
+  }
+
   public void update(Customer user, String[] params) {
 
   }
 
+  // --- Subroutines
+
+  private static void validateId(long id) throws IllegalArgumentException {
+    if (!UnsignedIds.isValid(id)) {
+      throw new IllegalArgumentException("Customer ID must be a positive whole number");
+    }
+  }
+
+  private static void validatePageRequest(int limit) throws IllegalArgumentException {
+    if (limit < 1) {
+      throw new IllegalArgumentException("Page size must be a positive whole number");
+    }
+  }
+
+  // Keyset query on the primary key, in either direction. Only eight
+  // distinct SQL strings can come out of here, so they stay cached.
+  private List<Customer> queryPage(boolean forward, long boundaryId, int limit,
+      LocalDateTime registeredFrom, LocalDateTime registeredBefore) throws SQLException {
+
+    StringBuilder query = new StringBuilder(SELECT_PAGE_SQL)
+        .append(forward ? " WHERE id > ?" : " WHERE id < ?");
+    if (registeredFrom != null) {
+      query.append(" AND registered_at >= ?");
+    }
+    if (registeredBefore != null) {
+      query.append(" AND registered_at < ?");
+    }
+    query.append(forward ? " ORDER BY id ASC" : " ORDER BY id DESC").append(" LIMIT ?");
+
+    try (Connection conn = connectionProvider.getDbConnection();
+        PreparedStatement pstmt = conn.prepareStatement(query.toString())) {
+
+      int index = 1;
+      // Ids are BIGINT UNSIGNED held in a long
+      UnsignedIds.bind(pstmt, index++, boundaryId);
+      if (registeredFrom != null) {
+        pstmt.setObject(index++, registeredFrom);
+      }
+      if (registeredBefore != null) {
+        pstmt.setObject(index++, registeredBefore);
+      }
+      pstmt.setInt(index, limit);
+
+      List<Customer> customers = new ArrayList<>(limit);
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          customers.add(mapCustomer(rs));
+        }
+      }
+      return customers;
+    }
+  }
+
+  // Runs a query whose rows are read as the stream is consumed. The stream
+  // owns the statement and connection.
+  private <T> Stream<T> stream(String query, ResultSetStream.RowMapper<T> mapper) throws SQLException {
+    Connection conn = connectionProvider.getDbConnection();
+    Statement stmt = null;
+
+    try {
+      stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      stmt.setFetchSize(ResultSetStream.streamingFetchSize(conn));
+
+      ResultSet rs = stmt.executeQuery(query);
+      return ResultSetStream.of(rs, mapper, stmt, conn);
+
+    } catch (SQLException | RuntimeException ex) {
+      if (stmt != null) {
+        stmt.close();
+      }
+      conn.close();
+      throw ex;
+    }
+  }
+
+  // Builds a Customer from the current row of a result set.
+  // Java/MySQL type correspondences:
+  // https://dev.mysql.com/doc/connector-j/en/connector-j-reference-type-conversions.html
+  // Package-private for the mapping benchmark.
+  static Customer mapCustomer(ResultSet rs) throws SQLException {
+    return new Customer(
+        UnsignedIds.read(rs, "id"), // BIGINT UNSIGNED (SERIAL)
+        rs.getString("username"), // VARCHAR
+        rs.getString("first_name"), // VARCHAR
+        rs.getString("last_name"), // VARCHAR
+        rs.getInt("age"), // INT
+        rs.getObject("registered_at", LocalDateTime.class) // DATETIME
+    );
+  }
+
 }
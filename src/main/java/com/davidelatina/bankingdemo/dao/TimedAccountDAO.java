@@ -0,0 +1,106 @@
+package com.davidelatina.bankingdemo.dao;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import com.davidelatina.bankingdemo.dao.dto.TransactionPage;
+import com.davidelatina.bankingdemo.dao.util.ConnectionProvider;
+import com.davidelatina.bankingdemo.model.entity.Account;
+import com.davidelatina.bankingdemo.model.entity.AccountType;
+import com.davidelatina.bankingdemo.model.entity.JournalEntry;
+import com.davidelatina.bankingdemo.model.entity.Money;
+import com.davidelatina.bankingdemo.model.entity.TransactionType;
+import com.davidelatina.bankingdemo.model.entity.Transfer;
+import com.davidelatina.bankingdemo.model.util.Metrics;
+import com.davidelatina.bankingdemo.model.util.OperationTimer;
+
+/**
+ * {@link AccountDAO} recording the latency and errors of every database call
+ * in {@link Metrics}, as {@code AccountDAO.<method>}.
+ */
+public class TimedAccountDAO extends AccountDAO {
+
+  // Static variables
+  private static final OperationTimer GET = timer("get");
+  private static final OperationTimer GET_BY_CUSTOMER = timer("getByCustomer");
+  private static final OperationTimer CREATE_ACCOUNT = timer("createAccount");
+  private static final OperationTimer APPLY_TRANSACTION = timer("applyTransaction");
+  private static final OperationTimer APPLY_TRANSFERS = timer("applyTransfers");
+  private static final OperationTimer GET_JOURNAL_CHECKPOINT = timer("getJournalCheckpoint");
+  private static final OperationTimer APPLY_JOURNAL = timer("applyJournal");
+  private static final OperationTimer GET_HISTORY = timer("getHistory");
+  private static final OperationTimer GET_MAX_ID = timer("getMaxId");
+  private static final OperationTimer SNAPSHOT_BALANCES = timer("snapshotBalances");
+  private static final OperationTimer GET_BALANCE_AS_OF = timer("getBalanceAsOf");
+
+  // Constructor
+  public TimedAccountDAO(ConnectionProvider connectionProvider) {
+    super(connectionProvider);
+  }
+
+  // Methods
+  @Override
+  public Optional<Account> get(long id) throws SQLException {
+    return GET.time(() -> super.get(id));
+  }
+
+  @Override
+  public List<Account> getByCustomer(long customerId) throws SQLException {
+    return GET_BY_CUSTOMER.time(() -> super.getByCustomer(customerId));
+  }
+
+  @Override
+  public long createAccount(long customerId, AccountType type) throws SQLException {
+    return CREATE_ACCOUNT.time(() -> super.createAccount(customerId, type));
+  }
+
+  @Override
+  public boolean applyTransaction(long accountId, TransactionType type, Money amount)
+      throws IllegalArgumentException, SQLException {
+    return APPLY_TRANSACTION.time(() -> super.applyTransaction(accountId, type, amount));
+  }
+
+  @Override
+  public List<Transfer> applyTransfers(List<Transfer> transfers) throws SQLException {
+    return APPLY_TRANSFERS.time(() -> super.applyTransfers(transfers));
+  }
+
+  @Override
+  public long getJournalCheckpoint() throws SQLException {
+    return GET_JOURNAL_CHECKPOINT.time(super::getJournalCheckpoint);
+  }
+
+  @Override
+  public List<JournalEntry> applyJournal(List<JournalEntry> entries, long checkpoint) throws SQLException {
+    return APPLY_JOURNAL.time(() -> super.applyJournal(entries, checkpoint));
+  }
+
+  @Override
+  public TransactionPage getHistory(long accountId, TransactionPage.Cursor after, int limit,
+      LocalDateTime executedFrom, LocalDateTime executedBefore) throws IllegalArgumentException, SQLException {
+    return GET_HISTORY.time(() -> super.getHistory(accountId, after, limit, executedFrom, executedBefore));
+  }
+
+  @Override
+  public long getMaxId() throws SQLException {
+    return GET_MAX_ID.time(super::getMaxId);
+  }
+
+  @Override
+  public int snapshotBalances(long fromId, long toId, LocalDateTime takenAt) throws SQLException {
+    return SNAPSHOT_BALANCES.time(() -> super.snapshotBalances(fromId, toId, takenAt));
+  }
+
+  @Override
+  public Optional<Money> getBalanceAsOf(long accountId, LocalDateTime asOf) throws SQLException {
+    return GET_BALANCE_AS_OF.time(() -> super.getBalanceAsOf(accountId, asOf));
+  }
+
+  // --- Subroutines
+
+  private static OperationTimer timer(String method) {
+    return Metrics.INSTANCE.timer("AccountDAO." + method);
+  }
+}
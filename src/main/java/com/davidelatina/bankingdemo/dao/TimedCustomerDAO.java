@@ -0,0 +1,161 @@
+package com.davidelatina.bankingdemo.dao;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.davidelatina.bankingdemo.dao.dto.CustomerCredentials;
+import com.davidelatina.bankingdemo.dao.dto.CustomerPage;
+import com.davidelatina.bankingdemo.dao.dto.CustomerRegistration;
+import com.davidelatina.bankingdemo.dao.util.ConnectionProvider;
+import com.davidelatina.bankingdemo.model.entity.Customer;
+import com.davidelatina.bankingdemo.model.util.Metrics;
+import com.davidelatina.bankingdemo.model.util.OperationTimer;
+
+/**
+ * {@link CustomerDAO} recording the latency and errors of every database
+ * call in {@link Metrics}, as {@code CustomerDAO.<method>}.
+ * <p>
+ * Streams are timed until their query has run, not while they are consumed.
+ * Overloads taking a {@code BigInteger} id are counted with the {@code long}
+ * ones they delegate to.
+ */
+public class TimedCustomerDAO extends CustomerDAO {
+
+  // Static variables
+  private static final OperationTimer CHECK_USERNAME_AVAILABLE = timer("checkUsernameAvailable");
+  private static final OperationTimer FIND_EXISTING_USERNAMES = timer("findExistingUsernames");
+  private static final OperationTimer CREATE_CUSTOMERS = timer("createCustomers");
+  private static final OperationTimer CREATE_CUSTOMER = timer("createCustomer");
+  private static final OperationTimer UPDATE_PASSWORD_HASH = timer("updatePasswordHash");
+  private static final OperationTimer GET = timer("get");
+  private static final OperationTimer GET_SALT_BY_ID = timer("getSaltById");
+  private static final OperationTimer GET_SALT_BY_USERNAME = timer("getSaltByUsername");
+  private static final OperationTimer GET_ID_FROM_USERNAME = timer("getIdFromUsername");
+  private static final OperationTimer GET_HASHED_PASSWORD = timer("getHashedPassword");
+  private static final OperationTimer GET_CREDENTIALS = timer("getCredentials");
+  private static final OperationTimer GET_ALL = timer("getAll");
+  private static final OperationTimer STREAM_ALL = timer("streamAll");
+  private static final OperationTimer STREAM_ALL_BY_ID = timer("streamAllById");
+  private static final OperationTimer COUNT_CUSTOMERS = timer("countCustomers");
+  private static final OperationTimer STREAM_USERNAMES = timer("streamUsernames");
+  private static final OperationTimer GET_PAGE_AFTER = timer("getPageAfter");
+  private static final OperationTimer GET_PAGE_BEFORE = timer("getPageBefore");
+
+  // Constructor
+  public TimedCustomerDAO(ConnectionProvider connectionProvider) {
+    super(connectionProvider);
+  }
+
+  // Methods
+  @Override
+  public boolean checkUsernameAvailable(String username) throws SQLException {
+    return CHECK_USERNAME_AVAILABLE.time(() -> super.checkUsernameAvailable(username));
+  }
+
+  @Override
+  public Set<String> findExistingUsernames(Collection<String> usernames) throws SQLException {
+    return FIND_EXISTING_USERNAMES.time(() -> super.findExistingUsernames(usernames));
+  }
+
+  @Override
+  public long[] createCustomers(List<CustomerRegistration> registrations) throws SQLException {
+    return CREATE_CUSTOMERS.time(() -> super.createCustomers(registrations));
+  }
+
+  @Override
+  public long createCustomer(
+      String username, String firstName, String lastName, int age, byte[] salt, byte[] hashedPassword,
+      String hashAlgorithm, int hashIterations)
+      throws SQLException {
+    return CREATE_CUSTOMER.time(() -> super.createCustomer(
+        username, firstName, lastName, age, salt, hashedPassword, hashAlgorithm, hashIterations));
+  }
+
+  @Override
+  public boolean updatePasswordHash(long id, byte[] salt, byte[] hashedPassword,
+      String hashAlgorithm, int hashIterations) throws SQLException {
+    return UPDATE_PASSWORD_HASH.time(
+        () -> super.updatePasswordHash(id, salt, hashedPassword, hashAlgorithm, hashIterations));
+  }
+
+  @Override
+  public Optional<Customer> get(long id) throws IllegalArgumentException, SQLException {
+    return GET.time(() -> super.get(id));
+  }
+
+  @Override
+  public byte[] getSalt(long id) throws IllegalArgumentException, SQLException {
+    return GET_SALT_BY_ID.time(() -> super.getSalt(id));
+  }
+
+  @Override
+  public byte[] getSalt(String username) throws IllegalArgumentException, SQLException {
+    return GET_SALT_BY_USERNAME.time(() -> super.getSalt(username));
+  }
+
+  @Override
+  public long getIdFromUsername(String username) throws IllegalArgumentException, SQLException {
+    return GET_ID_FROM_USERNAME.time(() -> super.getIdFromUsername(username));
+  }
+
+  @Override
+  public byte[] getHashedPassword(String username) throws IllegalArgumentException, SQLException {
+    return GET_HASHED_PASSWORD.time(() -> super.getHashedPassword(username));
+  }
+
+  @Override
+  public Optional<CustomerCredentials> getCredentials(String username)
+      throws IllegalArgumentException, SQLException {
+    return GET_CREDENTIALS.time(() -> super.getCredentials(username));
+  }
+
+  @Override
+  public List<Customer> getAll() throws SQLException {
+    return GET_ALL.time(super::getAll);
+  }
+
+  @Override
+  public Stream<Customer> streamAll() throws SQLException {
+    return STREAM_ALL.time(super::streamAll);
+  }
+
+  @Override
+  public Stream<Customer> streamAllById() throws SQLException {
+    return STREAM_ALL_BY_ID.time(super::streamAllById);
+  }
+
+  @Override
+  public long countCustomers() throws SQLException {
+    return COUNT_CUSTOMERS.time(super::countCustomers);
+  }
+
+  @Override
+  public Stream<String> streamUsernames() throws SQLException {
+    return STREAM_USERNAMES.time(super::streamUsernames);
+  }
+
+  @Override
+  public CustomerPage getPageAfter(long lastSeenId, int limit,
+      LocalDateTime registeredFrom, LocalDateTime registeredBefore)
+      throws IllegalArgumentException, SQLException {
+    return GET_PAGE_AFTER.time(() -> super.getPageAfter(lastSeenId, limit, registeredFrom, registeredBefore));
+  }
+
+  @Override
+  public CustomerPage getPageBefore(long firstSeenId, int limit,
+      LocalDateTime registeredFrom, LocalDateTime registeredBefore)
+      throws IllegalArgumentException, SQLException {
+    return GET_PAGE_BEFORE.time(() -> super.getPageBefore(firstSeenId, limit, registeredFrom, registeredBefore));
+  }
+
+  // --- Subroutines
+
+  private static OperationTimer timer(String method) {
+    return Metrics.INSTANCE.timer("CustomerDAO." + method);
+  }
+}
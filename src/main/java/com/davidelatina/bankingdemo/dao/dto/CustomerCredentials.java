@@ -0,0 +1,17 @@
+package com.davidelatina.bankingdemo.dao.dto;
+
+import com.davidelatina.bankingdemo.model.entity.Customer;
+
+/**
+ * Login projection of a customer row: the public profile plus the password
+ * salt and hash, read in one query.
+ *
+ * @param customer       the customer's profile
+ * @param salt           salt used when hashing the password
+ * @param hashedPassword stored password hash
+ * @param hashAlgorithm  algorithm that produced the hash
+ * @param hashIterations iteration count that produced the hash
+ */
+public record CustomerCredentials(
+    Customer customer, byte[] salt, byte[] hashedPassword, String hashAlgorithm, int hashIterations) {
+}
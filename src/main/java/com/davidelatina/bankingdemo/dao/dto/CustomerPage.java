@@ -0,0 +1,38 @@
+package com.davidelatina.bankingdemo.dao.dto;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import com.davidelatina.bankingdemo.model.entity.Customer;
+
+/**
+ * One page of customers, ordered by id.
+ *
+ * @param customers   the customers on this page, in ascending id order
+ * @param hasPrevious whether customers with a lower id may exist
+ * @param hasNext     whether customers with a higher id exist
+ */
+public record CustomerPage(List<Customer> customers, boolean hasPrevious, boolean hasNext) {
+
+  public CustomerPage {
+    customers = List.copyOf(customers);
+  }
+
+  public boolean isEmpty() {
+    return customers.isEmpty();
+  }
+
+  /**
+   * Id to pass as {@code firstSeenId} when fetching the previous page.
+   */
+  public OptionalLong firstId() {
+    return isEmpty() ? OptionalLong.empty() : OptionalLong.of(customers.get(0).id());
+  }
+
+  /**
+   * Id to pass as {@code lastSeenId} when fetching the next page.
+   */
+  public OptionalLong lastId() {
+    return isEmpty() ? OptionalLong.empty() : OptionalLong.of(customers.get(customers.size() - 1).id());
+  }
+}
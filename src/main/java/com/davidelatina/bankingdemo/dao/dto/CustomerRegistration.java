@@ -0,0 +1,19 @@
+package com.davidelatina.bankingdemo.dao.dto;
+
+/**
+ * A customer ready to be inserted: validated profile plus password salt and
+ * hash.
+ *
+ * @param username       unique username
+ * @param firstName      first name, possibly empty
+ * @param lastName       last name, possibly empty
+ * @param age            age in years
+ * @param salt           salt used when hashing the password
+ * @param hashedPassword password hash
+ * @param hashAlgorithm  algorithm that produced the hash
+ * @param hashIterations iteration count that produced the hash
+ */
+public record CustomerRegistration(
+    String username, String firstName, String lastName, int age,
+    byte[] salt, byte[] hashedPassword, String hashAlgorithm, int hashIterations) {
+}
@@ -0,0 +1,49 @@
+package com.davidelatina.bankingdemo.dao.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import com.davidelatina.bankingdemo.model.entity.Transaction;
+
+/**
+ * One page of an account's transaction history, newest first.
+ *
+ * @param transactions the transactions on this page, ordered by descending
+ *                     execution time, then descending id
+ * @param hasNext      whether older transactions exist
+ */
+public record TransactionPage(List<Transaction> transactions, boolean hasNext) {
+
+  /**
+   * Position in a history: the page that follows it starts with the newest
+   * transaction older than {@code (executedAt, id)}.
+   */
+  public record Cursor(LocalDateTime executedAt, long id) {
+
+    public Cursor {
+      if (executedAt == null) {
+        throw new IllegalArgumentException("Cursor time cannot be null.");
+      }
+    }
+  }
+
+  public TransactionPage {
+    transactions = List.copyOf(transactions);
+  }
+
+  public boolean isEmpty() {
+    return transactions.isEmpty();
+  }
+
+  /**
+   * Cursor to pass when fetching the next, older, page.
+   */
+  public Optional<Cursor> nextCursor() {
+    if (isEmpty()) {
+      return Optional.empty();
+    }
+    Transaction last = transactions.get(transactions.size() - 1);
+    return Optional.of(new Cursor(last.executedAt(), last.id()));
+  }
+}
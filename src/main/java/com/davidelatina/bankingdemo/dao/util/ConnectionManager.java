@@ -1,40 +1,51 @@
 package com.davidelatina.bankingdemo.dao.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
-import io.github.cdimascio.dotenv.Dotenv;
+import com.davidelatina.bankingdemo.config.Settings;
 
 /**
- * Singleton managing one single connection
+ * Singleton managing the application's pool of database connections.
+ * <p>
+ * Connections obtained from {@link #getDbConnection()} must be closed after
+ * use, which returns them to the pool.
+ *
+ * @see ConnectionPool
  */
-public enum ConnectionManager {
+public enum ConnectionManager implements ConnectionProvider {
 
   INSTANCE;
 
-  private Connection dbConnection;
+  private final ConnectionPool pool;
 
-  public Connection getDbConnection() {
-    return this.dbConnection;
+  @Override
+  public Connection getDbConnection() throws SQLException {
+    return this.pool.getDbConnection();
+  }
+
+  public PoolStats getPoolStats() {
+    return this.pool.getStats();
+  }
+
+  /**
+   * Closes every pooled connection. Further borrows will fail.
+   */
+  public void shutdown() {
+    this.pool.close();
   }
 
   private ConnectionManager() {
 
     // Load environment variables
-    Dotenv dotenv = Dotenv.load();
-
-    // Attempt to establish a db connection
-    try {
-      this.dbConnection = DriverManager.getConnection(
-          dotenv.get("DB_URL"),
-          dotenv.get("DB_USER"),
-          dotenv.get("DB_PASSWORD"));
-    }
-
-    // Connection failed
-    catch (SQLException e) {
-      e.printStackTrace();
-    }
+    Settings settings = Settings.INSTANCE;
+
+    // Open the pool. Connection failures at this point are reported, and
+    // retried on the first borrow.
+    this.pool = new ConnectionPool(
+        PoolConfig.fromSettings(settings),
+        settings.getString("DB_URL", null),
+        settings.getString("DB_USER", null),
+        settings.getString("DB_PASSWORD", null));
   }
 }
@@ -0,0 +1,465 @@
+package com.davidelatina.bankingdemo.dao.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.davidelatina.bankingdemo.model.util.Metrics;
+import com.davidelatina.bankingdemo.model.util.OperationTimer;
+
+/**
+ * Bounded pool of JDBC connections.
+ * <p>
+ * Callers borrow a connection with {@link #getDbConnection()} and give it back
+ * by closing it. The pool keeps at least {@link PoolConfig#minSize()} and at
+ * most {@link PoolConfig#maxSize()} physical connections open; when all of
+ * them are in use, borrowers wait up to {@link PoolConfig#borrowTimeout()}.
+ * <p>
+ * Idle connections are validated before being handed out, unless they were
+ * returned only moments ago. A background task closes connections that stayed
+ * idle for longer than {@link PoolConfig#idleTimeout()}, tops the pool back up
+ * to its minimum size and reports connections that have been borrowed for
+ * longer than {@link PoolConfig#leakThreshold()}, with the name of the
+ * borrowing thread and, if {@link PoolConfig#leakStackTraces()} is set, the
+ * stack trace of the code that borrowed them.
+ * <p>
+ * Each physical connection keeps a {@link StatementCache}, so a borrower
+ * preparing SQL that was prepared before on the same connection reuses the
+ * existing statement.
+ *
+ * @see PoolConfig
+ * @see PoolStats
+ */
+public class ConnectionPool implements ConnectionProvider, AutoCloseable {
+
+  // Static variables
+  // Connections returned more recently than this are not validated again
+  private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+  // Time to borrow a connection, and failures to, across all pools;
+  // published by Metrics
+  private static final OperationTimer ACQUIRE_TIMER =
+      Metrics.INSTANCE.timer("ConnectionPool.getDbConnection");
+
+  // Instance variables
+  private final PoolConfig config;
+  private final ConnectionFactory connectionFactory;
+
+  // One permit per connection that may be borrowed at the same time
+  private final Semaphore permits;
+  // Most recently returned connections are at the head
+  private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+  private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger total = new AtomicInteger();
+  private final ScheduledExecutorService housekeeper;
+  private volatile boolean closed;
+
+  // --- Metrics
+  private final LongAdder borrows = new LongAdder();
+  private final LongAdder timeouts = new LongAdder();
+  private final LongAdder totalWaitNanos = new LongAdder();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private final LongAdder leaks = new LongAdder();
+  private final LongAdder statementHits = new LongAdder();
+  private final LongAdder statementMisses = new LongAdder();
+  private final LongAdder statementEvictions = new LongAdder();
+
+  /**
+   * Opens physical connections for a {@link ConnectionPool}.
+   */
+  @FunctionalInterface
+  public interface ConnectionFactory {
+    Connection create() throws SQLException;
+  }
+
+  // Constructors
+  public ConnectionPool(PoolConfig config, String url, String user, String password) {
+    this(config, () -> DriverManager.getConnection(url, user, password));
+  }
+
+  public ConnectionPool(PoolConfig config, ConnectionFactory connectionFactory) {
+    this.config = config;
+    this.connectionFactory = connectionFactory;
+    this.permits = new Semaphore(config.maxSize(), true);
+
+    this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    // Open the minimum number of connections up front. A database that is not
+    // reachable yet is not fatal: borrowers will retry.
+    fillToMinimum();
+
+    long period = config.housekeepingInterval().toMillis();
+    housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  // Methods
+  /**
+   * Borrows a connection from the pool, opening a new one if none is idle and
+   * the pool has not reached its maximum size.
+   *
+   * @return a connection that returns to the pool when closed
+   * @throws SQLTimeoutException if no connection became available within the
+   *                             borrow timeout
+   * @throws SQLException        if the pool is closed or a new connection could
+   *                             not be opened
+   */
+  @Override
+  public Connection getDbConnection() throws SQLException {
+    return ACQUIRE_TIMER.time(this::borrow);
+  }
+
+  private Connection borrow() throws SQLException {
+    if (closed) {
+      throw new SQLException("Connection pool is closed.");
+    }
+
+    long start = System.nanoTime();
+    long deadline = start + config.borrowTimeout().toNanos();
+
+    try {
+      if (!permits.tryAcquire(config.borrowTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+        throw borrowTimedOut();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a database connection.", ex);
+    }
+
+    try {
+      PooledConnection pooled = acquire(deadline);
+      recordWait(System.nanoTime() - start);
+      return pooled.lend();
+    } catch (SQLException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  public PoolStats getStats() {
+    return new PoolStats(
+        total.get(),
+        idle.size(),
+        borrowed.size(),
+        borrows.sum(),
+        timeouts.sum(),
+        totalWaitNanos.sum(),
+        maxWaitNanos.get(),
+        leaks.sum(),
+        statementHits.sum(),
+        statementMisses.sum(),
+        statementEvictions.sum());
+  }
+
+  /**
+   * Closes all idle connections and stops the background task. Connections
+   * still borrowed are closed as they are returned.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    housekeeper.shutdownNow();
+
+    PooledConnection pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      discard(pooled);
+    }
+  }
+
+  // --- Subroutines
+
+  // Called while holding a permit
+  private PooledConnection acquire(long deadline) throws SQLException {
+    while (true) {
+      PooledConnection pooled = idle.pollFirst();
+
+      if (pooled == null) {
+        if (reserveSlot()) {
+          return open();
+        }
+
+        // Pool is at its maximum size: a connection is being returned or opened
+        try {
+          pooled = idle.pollFirst(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new SQLException("Interrupted while waiting for a database connection.", ex);
+        }
+
+        if (pooled == null) {
+          throw borrowTimedOut();
+        }
+      }
+
+      if (isUsable(pooled)) {
+        return pooled;
+      }
+
+      // Broken connection: drop it and try the next one
+      discard(pooled);
+    }
+  }
+
+  private boolean isUsable(PooledConnection pooled) {
+    if (System.nanoTime() - pooled.lastReturnedNanos < VALIDATION_BYPASS_NANOS) {
+      return true;
+    }
+
+    int timeoutSeconds = (int) Math.max(1, (config.validationTimeout().toMillis() + 999) / 1000);
+    try {
+      return pooled.physical.isValid(timeoutSeconds);
+    } catch (SQLException ex) {
+      return false;
+    }
+  }
+
+  // Claims room for one more physical connection, if the pool is not full
+  private boolean reserveSlot() {
+    while (true) {
+      int current = total.get();
+      if (current >= config.maxSize()) {
+        return false;
+      }
+      if (total.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  // Called after a successful reserveSlot()
+  private PooledConnection open() throws SQLException {
+    try {
+      return new PooledConnection(connectionFactory.create());
+    } catch (SQLException | RuntimeException ex) {
+      total.decrementAndGet();
+      throw ex;
+    }
+  }
+
+  private void release(PooledConnection pooled) {
+    borrowed.remove(pooled);
+
+    try {
+      Connection physical = pooled.physical;
+
+      if (closed || physical.isClosed()) {
+        discard(pooled);
+        return;
+      }
+
+      if (pooled.statementCache != null) {
+        pooled.statementCache.onConnectionReturned();
+      }
+
+      // Never hand out a connection with someone else's open transaction
+      if (!physical.getAutoCommit()) {
+        physical.rollback();
+        physical.setAutoCommit(true);
+      }
+
+      pooled.lastReturnedNanos = System.nanoTime();
+      idle.offerFirst(pooled);
+
+    } catch (SQLException ex) {
+      discard(pooled);
+    } finally {
+      permits.release();
+    }
+  }
+
+  private void discard(PooledConnection pooled) {
+    total.decrementAndGet();
+    try {
+      pooled.physical.close();
+    } catch (SQLException ex) {
+      // Connection is being dropped anyway
+    }
+  }
+
+  private void fillToMinimum() {
+    while (!closed && total.get() < config.minSize() && reserveSlot()) {
+      try {
+        PooledConnection pooled = open();
+        pooled.lastReturnedNanos = System.nanoTime();
+        idle.offerLast(pooled);
+      } catch (SQLException ex) {
+        ex.printStackTrace();
+        return;
+      }
+    }
+  }
+
+  private void housekeep() {
+    try {
+      evictIdle();
+      fillToMinimum();
+      detectLeaks();
+    } catch (RuntimeException ex) {
+      // Keep the scheduled task alive
+      ex.printStackTrace();
+    }
+  }
+
+  private void evictIdle() {
+    long idleTimeoutNanos = config.idleTimeout().toNanos();
+    if (idleTimeoutNanos == 0) {
+      return;
+    }
+
+    long now = System.nanoTime();
+    for (PooledConnection pooled : idle) {
+      if (total.get() <= config.minSize()) {
+        return;
+      }
+      if (now - pooled.lastReturnedNanos > idleTimeoutNanos && idle.remove(pooled)) {
+        discard(pooled);
+      }
+    }
+  }
+
+  private void detectLeaks() {
+    long thresholdNanos = config.leakThreshold().toNanos();
+    if (thresholdNanos == 0) {
+      return;
+    }
+
+    long now = System.nanoTime();
+    for (PooledConnection pooled : borrowed) {
+      if (!pooled.leakReported && now - pooled.borrowedAtNanos > thresholdNanos) {
+        pooled.leakReported = true;
+        leaks.increment();
+        System.err.println("Possible connection leak: connection borrowed by thread " + pooled.borrowedBy + " "
+            + TimeUnit.NANOSECONDS.toMillis(now - pooled.borrowedAtNanos) + " ms ago has not been returned.");
+        Throwable borrowSite = pooled.borrowSite;
+        if (borrowSite != null) {
+          borrowSite.printStackTrace();
+        }
+      }
+    }
+  }
+
+  private void recordWait(long waitNanos) {
+    borrows.increment();
+    totalWaitNanos.add(waitNanos);
+    maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+  }
+
+  private SQLTimeoutException borrowTimedOut() {
+    timeouts.increment();
+    return new SQLTimeoutException("Timed out after " + config.borrowTimeout().toMillis()
+        + " ms waiting for a database connection.");
+  }
+
+  /**
+   * A physical connection owned by the pool, with its bookkeeping.
+   */
+  private final class PooledConnection {
+
+    private final Connection physical;
+    private final StatementCache statementCache;
+    private volatile long lastReturnedNanos;
+    private volatile long borrowedAtNanos;
+    private volatile String borrowedBy;
+    private volatile Throwable borrowSite; // only with leak stack traces
+    private volatile boolean leakReported;
+
+    private PooledConnection(Connection physical) {
+      this.physical = physical;
+      this.statementCache = config.statementCacheSize() == 0
+          ? null
+          : new StatementCache(physical, config.statementCacheSize(),
+              statementHits, statementMisses, statementEvictions);
+    }
+
+    // Wraps the physical connection in a handle whose close() returns it here
+    private Connection lend() {
+      borrowedAtNanos = System.nanoTime();
+      leakReported = false;
+      borrowedBy = Thread.currentThread().getName();
+      borrowSite = config.leakStackTraces() && !config.leakThreshold().isZero()
+          ? new Throwable("Connection borrowed by thread " + borrowedBy)
+          : null;
+      borrowed.add(this);
+
+      return (Connection) Proxy.newProxyInstance(
+          ConnectionPool.class.getClassLoader(),
+          new Class<?>[] { Connection.class },
+          new LogicalConnection(this));
+    }
+  }
+
+  /**
+   * Handler behind the {@link Connection} handles given to borrowers. Every
+   * call is forwarded to the physical connection, except {@code close()} and
+   * {@code prepareStatement(String)}, which goes through the statement cache.
+   */
+  private final class LogicalConnection implements InvocationHandler {
+
+    private final PooledConnection pooled;
+    private boolean closed;
+
+    private LogicalConnection(PooledConnection pooled) {
+      this.pooled = pooled;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close" -> {
+          if (!closed) {
+            closed = true;
+            release(pooled);
+          }
+          return null;
+        }
+        case "isClosed" -> {
+          return closed || pooled.physical.isClosed();
+        }
+        case "equals" -> {
+          return proxy == args[0];
+        }
+        case "hashCode" -> {
+          return System.identityHashCode(proxy);
+        }
+        case "toString" -> {
+          return "Pooled[" + pooled.physical + "]";
+        }
+        default -> {
+          // fall through to the physical connection
+        }
+      }
+
+      if (closed) {
+        throw new SQLException("Connection has already been returned to the pool.");
+      }
+
+      if (pooled.statementCache != null && method.getName().equals("prepareStatement")
+          && args.length == 1 && args[0] instanceof String sql) {
+        return pooled.statementCache.prepare((Connection) proxy, sql);
+      }
+
+      try {
+        return method.invoke(pooled.physical, args);
+      } catch (InvocationTargetException ex) {
+        throw ex.getCause();
+      }
+    }
+  }
+}
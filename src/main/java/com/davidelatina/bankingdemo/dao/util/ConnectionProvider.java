@@ -0,0 +1,25 @@
+package com.davidelatina.bankingdemo.dao.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Source of database connections for the data-access objects.
+ * <p>
+ * Connections handed out by a provider must be closed by the caller, which
+ * returns them to their pool rather than closing the physical link.
+ *
+ * @see ConnectionManager
+ * @see ConnectionPool
+ */
+@FunctionalInterface
+public interface ConnectionProvider {
+
+  /**
+   * Borrows a connection.
+   *
+   * @return an open connection, to be closed by the caller when done
+   * @throws SQLException if no connection could be obtained
+   */
+  Connection getDbConnection() throws SQLException;
+}
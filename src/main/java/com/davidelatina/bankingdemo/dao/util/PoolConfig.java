@@ -0,0 +1,76 @@
+package com.davidelatina.bankingdemo.dao.util;
+
+import java.time.Duration;
+
+import com.davidelatina.bankingdemo.config.Settings;
+
+/**
+ * Sizing and timing parameters for a {@link ConnectionPool}.
+ *
+ * @param minSize              connections kept open even when idle
+ * @param maxSize              upper bound on open connections
+ * @param borrowTimeout        how long a caller waits for a free connection
+ * @param validationTimeout    time allowed for the validity check on borrow
+ * @param idleTimeout          idle time after which surplus connections are
+ *                             closed
+ * @param housekeepingInterval period of the eviction and leak detection task
+ * @param leakThreshold        borrow time after which a connection is reported
+ *                             as leaked ({@link Duration#ZERO} disables it)
+ * @param leakStackTraces      whether leak reports include the stack trace of
+ *                             the borrower; capturing it costs every borrow
+ *                             a few microseconds, so it is meant for debugging
+ * @param statementCacheSize   prepared statements cached per connection
+ *                             ({@code 0} disables the cache)
+ */
+public record PoolConfig(
+    int minSize,
+    int maxSize,
+    Duration borrowTimeout,
+    Duration validationTimeout,
+    Duration idleTimeout,
+    Duration housekeepingInterval,
+    Duration leakThreshold,
+    boolean leakStackTraces,
+    int statementCacheSize) {
+
+  public PoolConfig {
+    // --- Parameter validation
+    if (minSize < 0) {
+      throw new IllegalArgumentException("Pool minimum size cannot be negative.");
+    }
+
+    if (maxSize < 1 || maxSize < minSize) {
+      throw new IllegalArgumentException("Pool maximum size must be at least 1 and not below the minimum size.");
+    }
+
+    if (borrowTimeout.isNegative() || validationTimeout.isNegative() || idleTimeout.isNegative()
+        || leakThreshold.isNegative()) {
+      throw new IllegalArgumentException("Pool timeouts cannot be negative.");
+    }
+
+    if (statementCacheSize < 0) {
+      throw new IllegalArgumentException("Statement cache size cannot be negative.");
+    }
+
+    if (housekeepingInterval.isZero() || housekeepingInterval.isNegative()) {
+      throw new IllegalArgumentException("Pool housekeeping interval must be positive.");
+    }
+  }
+
+  /**
+   * Reads the pool configuration from the application settings, using the
+   * defaults for missing keys.
+   */
+  public static PoolConfig fromSettings(Settings settings) {
+    return new PoolConfig(
+        settings.getInt("DB_POOL_MIN_SIZE", 2),
+        settings.getInt("DB_POOL_MAX_SIZE", 10),
+        Duration.ofMillis(settings.getLong("DB_POOL_BORROW_TIMEOUT_MS", 5_000)),
+        Duration.ofMillis(settings.getLong("DB_POOL_VALIDATION_TIMEOUT_MS", 2_000)),
+        Duration.ofMillis(settings.getLong("DB_POOL_IDLE_TIMEOUT_MS", 600_000)),
+        Duration.ofMillis(settings.getLong("DB_POOL_HOUSEKEEPING_INTERVAL_MS", 30_000)),
+        Duration.ofMillis(settings.getLong("DB_POOL_LEAK_THRESHOLD_MS", 60_000)),
+        settings.getBoolean("DB_POOL_LEAK_STACK_TRACES", false),
+        settings.getInt("DB_STATEMENT_CACHE_SIZE", 64));
+  }
+}
@@ -0,0 +1,51 @@
+package com.davidelatina.bankingdemo.dao.util;
+
+import java.util.Locale;
+
+/**
+ * Point-in-time snapshot of {@link ConnectionPool} metrics.
+ *
+ * @param total              open physical connections
+ * @param idle               connections waiting in the pool
+ * @param active             connections currently borrowed
+ * @param borrows            successful borrows since startup
+ * @param timeouts           borrows that gave up waiting
+ * @param totalWaitNanos     time spent waiting for a connection, summed over all
+ *                           borrows
+ * @param maxWaitNanos       longest single wait
+ * @param leaks              connections reported as leaked
+ * @param statementHits      prepared statements served from a connection's cache
+ * @param statementMisses    prepared statements that had to be prepared
+ * @param statementEvictions prepared statements evicted from a full cache
+ */
+public record PoolStats(
+    int total,
+    int idle,
+    int active,
+    long borrows,
+    long timeouts,
+    long totalWaitNanos,
+    long maxWaitNanos,
+    long leaks,
+    long statementHits,
+    long statementMisses,
+    long statementEvictions) {
+
+  public double averageWaitMillis() {
+    return borrows == 0 ? 0.0 : totalWaitNanos / (borrows * 1_000_000.0);
+  }
+
+  public double statementHitRatio() {
+    long lookups = statementHits + statementMisses;
+    return lookups == 0 ? 0.0 : (double) statementHits / lookups;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(Locale.ROOT,
+        "total=%d idle=%d active=%d borrows=%d timeouts=%d avgWait=%.3fms maxWait=%.3fms leaks=%d"
+            + " stmtHits=%d stmtMisses=%d stmtEvictions=%d stmtHitRatio=%.2f",
+        total, idle, active, borrows, timeouts, averageWaitMillis(), maxWaitNanos / 1_000_000.0, leaks,
+        statementHits, statementMisses, statementEvictions, statementHitRatio());
+  }
+}
@@ -0,0 +1,117 @@
+package com.davidelatina.bankingdemo.dao.util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.davidelatina.bankingdemo.exception.UncheckedSQLException;
+
+/**
+ * Utility class. Exposes an open {@link ResultSet} as a lazily consumed
+ * {@link Stream}.
+ * <p>
+ * Rows are mapped one at a time as the stream is consumed, so memory use does
+ * not depend on the number of rows. Closing the stream closes the result set,
+ * its statement and its connection; callers should therefore always consume
+ * it in a try-with-resources block. Database errors raised while iterating
+ * surface as {@link UncheckedSQLException}.
+ */
+public final class ResultSetStream {
+
+  // Fetch size used when the driver has no row-by-row streaming mode
+  private static final int DEFAULT_FETCH_SIZE = 500;
+
+  // Constructor must not be called.
+  private ResultSetStream() {
+    throw new java.lang.UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Maps the current row of a result set.
+   */
+  @FunctionalInterface
+  public interface RowMapper<T> {
+    T map(ResultSet rs) throws SQLException;
+  }
+
+  /**
+   * Returns the fetch size that makes the driver stream rows instead of
+   * buffering the whole result.
+   * <p>
+   * MySQL Connector/J only streams with {@link Integer#MIN_VALUE}; other
+   * drivers take a regular batch size.
+   */
+  public static int streamingFetchSize(Connection conn) throws SQLException {
+    return "MySQL".equals(conn.getMetaData().getDatabaseProductName())
+        ? Integer.MIN_VALUE
+        : DEFAULT_FETCH_SIZE;
+  }
+
+  /**
+   * Wraps a result set in a stream.
+   *
+   * @param rs        open result set, positioned before the first row
+   * @param mapper    converts each row
+   * @param resources closed, in order, when the stream is closed (typically
+   *                  the statement and the connection)
+   */
+  public static <T> Stream<T> of(ResultSet rs, RowMapper<T> mapper, AutoCloseable... resources) {
+    Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(
+        Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+      @Override
+      public boolean tryAdvance(Consumer<? super T> action) {
+        try {
+          if (!rs.next()) {
+            return false;
+          }
+          action.accept(mapper.map(rs));
+          return true;
+        } catch (SQLException ex) {
+          throw new UncheckedSQLException("Error while reading rows: " + ex.getMessage(), ex);
+        }
+      }
+    };
+
+    return StreamSupport.stream(rows, false).onClose(() -> close(rs, resources));
+  }
+
+  // --- Subroutines
+
+  private static void close(ResultSet rs, AutoCloseable... resources) {
+    Exception failure = null;
+
+    try {
+      rs.close();
+    } catch (Exception ex) {
+      failure = ex;
+    }
+
+    for (AutoCloseable resource : resources) {
+      try {
+        resource.close();
+      } catch (Exception ex) {
+        if (failure == null) {
+          failure = ex;
+        } else {
+          failure.addSuppressed(ex);
+        }
+      }
+    }
+
+    if (failure instanceof SQLException sqlFailure) {
+      throw new UncheckedSQLException("Error while closing result stream: " + failure.getMessage(), sqlFailure);
+    }
+    if (failure instanceof RuntimeException runtimeFailure) {
+      throw runtimeFailure;
+    }
+    if (failure != null) {
+      throw new IllegalStateException("Error while closing result stream.", failure);
+    }
+  }
+}
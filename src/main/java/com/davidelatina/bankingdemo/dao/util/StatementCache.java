@@ -0,0 +1,251 @@
+package com.davidelatina.bankingdemo.dao.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Least-recently-used cache of prepared statements for one physical
+ * connection, keyed by SQL text.
+ * <p>
+ * Statements handed out by the cache are reused rather than closed: closing
+ * the handle clears its parameters and pending batch and makes it available to
+ * the next caller preparing the same SQL. A statement whose settings were
+ * changed (fetch size, row limit, timeout...) is closed instead, so the next
+ * caller always starts from the driver defaults. A statement that is still
+ * open when the same SQL is prepared again is not shared; the second caller
+ * gets a private statement.
+ * <p>
+ * A cache belongs to a single pooled connection and is only used by the
+ * thread that has currently borrowed it, so it needs no locking.
+ *
+ * @see ConnectionPool
+ */
+final class StatementCache {
+
+  // Static variables
+  // Statement settings that would carry over to the next borrower
+  private static final Set<String> SETTINGS = Set.of(
+      "setFetchSize", "setFetchDirection", "setMaxRows", "setLargeMaxRows", "setMaxFieldSize",
+      "setQueryTimeout", "setEscapeProcessing", "setCursorName", "setPoolable", "closeOnCompletion");
+
+  // Instance variables
+  private final Connection physical;
+  private final LinkedHashMap<String, CachedStatement> statements;
+
+  // Counters shared by all caches of a pool
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder evictions;
+
+  // Constructor
+  StatementCache(Connection physical, int capacity, LongAdder hits, LongAdder misses, LongAdder evictions) {
+    this.physical = physical;
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+
+    // Access-ordered map: the eldest entry is the least recently used
+    this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+        if (size() <= capacity) {
+          return false;
+        }
+        StatementCache.this.evictions.increment();
+        eldest.getValue().evict();
+        return true;
+      }
+    };
+  }
+
+  // Methods
+  /**
+   * Returns a prepared statement for {@code sql}, reusing a cached one if it is
+   * not in use.
+   *
+   * @param logical the connection handle the statement should report as its
+   *                own
+   */
+  PreparedStatement prepare(Connection logical, String sql) throws SQLException {
+    CachedStatement cached = statements.get(sql);
+
+    // Statement broke when it was last given back
+    if (cached != null && cached.evicted) {
+      statements.remove(sql);
+      cached = null;
+    }
+
+    if (cached != null && !cached.inUse) {
+      hits.increment();
+      return cached.lend(logical);
+    }
+
+    misses.increment();
+    CachedStatement created = new CachedStatement(physical.prepareStatement(sql));
+
+    if (cached != null) {
+      // Same SQL already open higher up the call stack: do not share it
+      created.evicted = true;
+    } else {
+      statements.put(sql, created);
+    }
+
+    return created.lend(logical);
+  }
+
+  /**
+   * Called when the owning connection returns to the pool. Statements the
+   * borrower forgot to close are dropped, since a stale handle could still
+   * reach them.
+   */
+  void onConnectionReturned() {
+    List<String> abandoned = new ArrayList<>();
+    statements.forEach((sql, cached) -> {
+      if (cached.inUse) {
+        abandoned.add(sql);
+      }
+    });
+
+    for (String sql : abandoned) {
+      CachedStatement cached = statements.remove(sql);
+      cached.evicted = true;
+      closeQuietly(cached.statement);
+    }
+  }
+
+  // --- Subroutines
+
+  private static void closeQuietly(PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException ex) {
+      // Statement is being dropped anyway
+    }
+  }
+
+  /**
+   * A physical prepared statement and its cache state.
+   */
+  private static final class CachedStatement {
+
+    private final PreparedStatement statement;
+    private boolean inUse;
+    private boolean evicted;
+    private boolean reconfigured; // settings changed by the current borrower
+
+    private CachedStatement(PreparedStatement statement) {
+      this.statement = statement;
+    }
+
+    private PreparedStatement lend(Connection logical) {
+      inUse = true;
+      return (PreparedStatement) Proxy.newProxyInstance(
+          StatementCache.class.getClassLoader(),
+          new Class<?>[] { PreparedStatement.class },
+          new StatementHandle(this, logical));
+    }
+
+    // Removed from the cache: close now, or as soon as the borrower is done
+    private void evict() {
+      evicted = true;
+      if (!inUse) {
+        closeQuietly(statement);
+      }
+    }
+
+    private void giveBack() {
+      inUse = false;
+
+      // Settings cannot be reliably restored: re-prepare instead
+      if (reconfigured) {
+        evicted = true;
+      }
+
+      if (evicted) {
+        closeQuietly(statement);
+        return;
+      }
+
+      try {
+        statement.clearParameters();
+        statement.clearBatch();
+      } catch (SQLException ex) {
+        // Unusable statement: it will be re-prepared after eviction
+        evicted = true;
+        closeQuietly(statement);
+      }
+    }
+  }
+
+  /**
+   * Handler behind the statement handles given to callers. Every call is
+   * forwarded to the physical statement, except {@code close()}.
+   */
+  private static final class StatementHandle implements InvocationHandler {
+
+    private final CachedStatement cached;
+    private final Connection logical;
+    private boolean closed;
+
+    private StatementHandle(CachedStatement cached, Connection logical) {
+      this.cached = cached;
+      this.logical = logical;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close" -> {
+          if (!closed) {
+            closed = true;
+            cached.giveBack();
+          }
+          return null;
+        }
+        case "isClosed" -> {
+          return closed || cached.statement.isClosed();
+        }
+        case "getConnection" -> {
+          return logical;
+        }
+        case "equals" -> {
+          return proxy == args[0];
+        }
+        case "hashCode" -> {
+          return System.identityHashCode(proxy);
+        }
+        case "toString" -> {
+          return "Cached[" + cached.statement + "]";
+        }
+        default -> {
+          // fall through to the physical statement
+        }
+      }
+
+      if (closed) {
+        throw new SQLException("Statement is closed.");
+      }
+
+      if (SETTINGS.contains(method.getName())) {
+        cached.reconfigured = true;
+      }
+
+      try {
+        return method.invoke(cached.statement, args);
+      } catch (InvocationTargetException ex) {
+        throw ex.getCause();
+      }
+    }
+  }
+}
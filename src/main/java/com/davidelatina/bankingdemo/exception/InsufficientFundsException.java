@@ -0,0 +1,20 @@
+package com.davidelatina.bankingdemo.exception;
+
+/**
+ * Thrown when a withdrawal or transfer asks for more than the balance of the
+ * account it draws from. Nothing is changed when it is thrown.
+ *
+ * @see com.davidelatina.bankingdemo.model.service.AccountService
+ */
+public class InsufficientFundsException extends Exception {
+
+  /**
+   * Constructs a new {@code InsufficientFundsException} with the specified
+   * detail message.
+   *
+   * @param message The detail message.
+   */
+  public InsufficientFundsException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,32 @@
+package com.davidelatina.bankingdemo.exception;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps a {@link SQLException} thrown where checked exceptions cannot be
+ * declared, such as inside a {@link java.util.stream.Stream} backed by a
+ * database cursor.
+ *
+ * @see com.davidelatina.bankingdemo.dao.util.ResultSetStream
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+  /**
+   * Constructs a new {@code UncheckedSQLException} with the specified detail
+   * message and cause.
+   *
+   * @param message The detail message.
+   * @param cause   The {@link SQLException} being wrapped.
+   */
+  public UncheckedSQLException(String message, SQLException cause) {
+    super(message, cause);
+  }
+
+  /**
+   * Returns the wrapped {@link SQLException}.
+   */
+  @Override
+  public synchronized SQLException getCause() {
+    return (SQLException) super.getCause();
+  }
+}
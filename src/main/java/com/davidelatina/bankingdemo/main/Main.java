@@ -1,44 +1,247 @@
 package com.davidelatina.bankingdemo.main;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import com.davidelatina.bankingdemo.config.Settings;
 import com.davidelatina.bankingdemo.controller.BankController;
+import com.davidelatina.bankingdemo.dao.AccountDAO;
 import com.davidelatina.bankingdemo.dao.CustomerDAO;
+import com.davidelatina.bankingdemo.dao.TimedAccountDAO;
+import com.davidelatina.bankingdemo.dao.TimedCustomerDAO;
 import com.davidelatina.bankingdemo.dao.util.ConnectionManager;
+import com.davidelatina.bankingdemo.exception.UncheckedSQLException;
+import com.davidelatina.bankingdemo.model.service.AccountService;
+import com.davidelatina.bankingdemo.model.service.BalanceEngine;
+import com.davidelatina.bankingdemo.model.service.BalanceSnapshotJob;
+import com.davidelatina.bankingdemo.model.service.CustomerCache;
+import com.davidelatina.bankingdemo.model.service.CustomerExporter;
+import com.davidelatina.bankingdemo.model.service.CustomerImporter;
+import com.davidelatina.bankingdemo.model.service.CustomerSearchIndex;
 import com.davidelatina.bankingdemo.model.service.CustomerService;
+import com.davidelatina.bankingdemo.model.service.JournalConfig;
+import com.davidelatina.bankingdemo.model.service.PasswordHashingEngine;
+import com.davidelatina.bankingdemo.model.service.UsernameFilter;
 import com.davidelatina.bankingdemo.model.service.SessionManager;
+import com.davidelatina.bankingdemo.model.service.SnapshotConfig;
+import com.davidelatina.bankingdemo.model.service.TransactionJournal;
+import com.davidelatina.bankingdemo.model.service.TransferCommitter;
+import com.davidelatina.bankingdemo.model.util.Metrics;
+import com.davidelatina.bankingdemo.server.BankHttpServer;
+import com.davidelatina.bankingdemo.server.ServerConfig;
 import com.davidelatina.bankingdemo.view.impl.MenuView;
 
 public class Main {
+
+  // Static variables
+  // Counted down once main() has released everything: a shutdown hook waits
+  // for it, so a signal still gets an orderly shutdown
+  private static final CountDownLatch SHUT_DOWN = new CountDownLatch(1);
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
   public static void main(String[] args) {
 
-    // Initialize CustomerDAO
-    CustomerDAO customerDAO = new CustomerDAO(ConnectionManager.INSTANCE);
+    // Initialize CustomerDAO, timing its calls
+    CustomerDAO customerDAO = new TimedCustomerDAO(ConnectionManager.INSTANCE);
+
+    // Initialize customer cache
+    Settings settings = Settings.INSTANCE;
+    CustomerCache customerCache = new CustomerCache(
+        settings.getInt("CUSTOMER_CACHE_SIZE", CustomerCache.DEFAULT_MAX_SIZE),
+        Duration.ofSeconds(settings.getLong("CUSTOMER_CACHE_TTL_SECONDS",
+            CustomerCache.DEFAULT_TIME_TO_LIVE.toSeconds())));
+
+    // Initialize password hashing engine, one worker per core by default
+    int hashingThreads = settings.getInt("HASH_THREADS", Runtime.getRuntime().availableProcessors());
+    PasswordHashingEngine hashingEngine = new PasswordHashingEngine(
+        hashingThreads,
+        settings.getInt("HASH_QUEUE_CAPACITY", 4 * hashingThreads),
+        settings.getLong("HASH_SUBMIT_TIMEOUT_MS", 1_000));
 
     // Initialize customer service
     CustomerService customerService;
     try {
       customerService = new CustomerService(
           customerDAO, 
-          SecureRandom.getInstanceStrong()); // Throws NoSuchAlgorithmException
+          SecureRandom.getInstanceStrong(), // Throws NoSuchAlgorithmException
+          customerCache,
+          hashingEngine);
     } catch (NoSuchAlgorithmException e) {
       MenuView.INSTANCE.displayError("No algorithm for secure random number generation is available on this platform. Exiting application...");
       return;
     }
     
+    // Password hashing cost: fixed, or measured against a login latency budget
+    customerService.setIterationCount(
+        settings.getInt("HASH_ITERATIONS", CustomerService.DEFAULT_ITERATION_COUNT));
+
+    if (settings.getBoolean("HASH_CALIBRATE", false)) {
+      PasswordHashingEngine.Calibration calibration = customerService.calibrateIterationCount(
+          Duration.ofMillis(settings.getLong("HASH_LOGIN_BUDGET_MS", 250)));
+      MenuView.INSTANCE.displayMessage("Password hashing calibrated to " + calibration.iterations()
+          + " iterations (" + calibration.hashTime().toMillis() + " ms per hash).");
+    }
+
+    // Build the username filter from the registered usernames
+    if (settings.getBoolean("USERNAME_FILTER_ENABLED", true)) {
+      try {
+        customerService.setUsernameFilter(UsernameFilter.load(
+            customerDAO,
+            settings.getDouble("USERNAME_FILTER_FPP", UsernameFilter.DEFAULT_FALSE_POSITIVE_RATE)));
+      } catch (SQLException | UncheckedSQLException ex) {
+        MenuView.INSTANCE.displayError("Could not load the username filter, continuing without it: " + ex.getMessage());
+      }
+    }
+
+    // Build the customer search index from the registered customers
+    if (settings.getBoolean("SEARCH_INDEX_ENABLED", true)) {
+      try {
+        customerService.setSearchIndex(CustomerSearchIndex.load(customerDAO));
+      } catch (SQLException | UncheckedSQLException ex) {
+        MenuView.INSTANCE.displayError("Could not load the search index, continuing without customer search: "
+            + ex.getMessage());
+      }
+    }
+
+    // Optionally journal deposits and withdrawals, replaying those a crash
+    // kept from the database. A journal left from when it was enabled is
+    // replayed too, then closed: its changes were already acknowledged.
+    AccountDAO accountDAO = new TimedAccountDAO(ConnectionManager.INSTANCE);
+    TransactionJournal journal = null;
+    boolean journalEnabled = settings.getBoolean("JOURNAL_ENABLED", false);
+    if (journalEnabled
+        || Files.exists(Path.of(settings.getString("JOURNAL_PATH", JournalConfig.DEFAULT_PATH)))) {
+      try {
+        journal = TransactionJournal.open(JournalConfig.fromSettings(settings), accountDAO);
+      } catch (IOException | SQLException | IllegalArgumentException ex) {
+        MenuView.INSTANCE.displayError("Could not open the transaction journal: " + ex.getMessage()
+            + " Exiting application...");
+        hashingEngine.close();
+        ConnectionManager.INSTANCE.shutdown();
+        return;
+      }
+      long recovered = journal.getStats().recovered();
+      if (recovered > 0) {
+        MenuView.INSTANCE.displayMessage("Recovered " + recovered + " journaled transactions.");
+      }
+      if (!journalEnabled) {
+        journal.close();
+        journal = null;
+      }
+    }
+
+    // Initialize account service, with balances held in memory and transfers
+    // committed in groups
+    BalanceEngine balanceEngine = new BalanceEngine(
+        accountDAO,
+        settings.getInt("BALANCE_LOCK_STRIPES", BalanceEngine.DEFAULT_STRIPES),
+        new TransferCommitter(
+            accountDAO,
+            settings.getInt("TRANSFER_MAX_BATCH_SIZE", TransferCommitter.DEFAULT_MAX_BATCH_SIZE),
+            settings.getLong("TRANSFER_MAX_WAIT_MICROS", 0)),
+        journal);
+    AccountService accountService = new AccountService(accountDAO, balanceEngine);
+
+    // Balance snapshots, taken periodically if enabled
+    BalanceSnapshotJob snapshotJob = new BalanceSnapshotJob(
+        accountDAO, SnapshotConfig.fromSettings(settings), journal);
+    if (settings.getBoolean("SNAPSHOT_ENABLED", false)) {
+      snapshotJob.start();
+    }
+
+    // Per-operation latency metrics, always published over JMX, and written
+    // to a file periodically if an interval is set
+    long metricsDumpSeconds = settings.getLong("METRICS_DUMP_INTERVAL_SECONDS", 0);
+    if (metricsDumpSeconds > 0) {
+      Metrics.INSTANCE.startDump(
+          Path.of(settings.getString("METRICS_DUMP_PATH", "metrics.txt")),
+          Duration.ofSeconds(metricsDumpSeconds));
+    }
+
     // Fulfill CustomerService dependency for SessionManager
     SessionManager.INSTANCE.setCustomerService(customerService);
 
-    // Initialize BankController
-    BankController bankController = new BankController(
-        MenuView.INSTANCE,
-        SessionManager.INSTANCE,
-        customerService);
+    // Start application: network server, or interactive console
+    if (Arrays.asList(args).contains("--server") || settings.getBoolean("SERVER_MODE", false)) {
+      runServer(settings, customerService);
+    } else {
+      // Initialize BankController
+      BankController bankController = new BankController(
+          MenuView.INSTANCE,
+          SessionManager.INSTANCE,
+          customerService,
+          accountService,
+          new CustomerImporter(customerService,
+              settings.getInt("IMPORT_CHUNK_SIZE", CustomerImporter.DEFAULT_CHUNK_SIZE)),
+          new CustomerExporter(customerService),
+          snapshotJob);
+
+      bankController.run();
+    }
+
+    // End sessions, release worker threads and database connections
+    SessionManager.INSTANCE.shutdown();
+    snapshotJob.close();
+    balanceEngine.close();
+    hashingEngine.close();
+    ConnectionManager.INSTANCE.shutdown();
+    Metrics.INSTANCE.stopDump();
+    SHUT_DOWN.countDown();
+
+  }
+
+  // Serves HTTP requests until the process is asked to stop (SIGTERM,
+  // Ctrl-C), or Enter is pressed when running on a terminal. Needs no
+  // standard input: at end of input it keeps serving until signalled.
+  private static void runServer(Settings settings, CustomerService customerService) {
+    CountDownLatch stop = new CountDownLatch(1);
+
+    // On a signal, stop serving and hold the JVM until main() has shut down
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      stop.countDown();
+      try {
+        SHUT_DOWN.await(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }, "shutdown"));
+
+    try (BankHttpServer server = new BankHttpServer(
+        ServerConfig.fromSettings(settings), customerService, SessionManager.INSTANCE)) {
 
-    // Start application
-    bankController.run();
+      server.start();
+      MenuView.INSTANCE.displayMessage("Listening on port " + server.getPort()
+          + (server.usesVirtualThreads() ? " (virtual threads)." : " (platform threads)."));
 
+      if (System.console() != null) {
+        Thread stopOnEnter = new Thread(() -> {
+          try {
+            MenuView.INSTANCE.userSelectedStringAny("Press Enter to stop");
+            stop.countDown();
+          } catch (NoSuchElementException ex) {
+            // Standard input closed: keep serving until signalled
+          }
+        }, "stop-on-enter");
+        stopOnEnter.setDaemon(true);
+        stopOnEnter.start();
+      }
+
+      stop.await();
+
+    } catch (IOException ex) {
+      MenuView.INSTANCE.displayError("Could not start the server: " + ex.getMessage());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
   }
 
 }
\ No newline at end of file
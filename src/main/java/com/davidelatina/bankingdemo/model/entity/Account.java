@@ -0,0 +1,13 @@
+package com.davidelatina.bankingdemo.model.entity;
+
+import java.time.LocalDateTime;
+
+public record Account(long id, long customerId, AccountType type, Money balance, LocalDateTime createdAt) {
+
+  /**
+   * Returns a copy of this account with another balance.
+   */
+  public Account withBalance(Money balance) {
+    return new Account(id, customerId, type, balance, createdAt);
+  }
+}
@@ -0,0 +1,24 @@
+package com.davidelatina.bankingdemo.model.entity;
+
+import java.util.Locale;
+
+/**
+ * Kinds of account, as listed in the {@code account_type} table.
+ */
+public enum AccountType {
+  CHECKING, SAVINGS;
+
+  /**
+   * Name of this type in the {@code account_type} table.
+   */
+  public String dbName() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * @throws IllegalArgumentException if no type has this name
+   */
+  public static AccountType fromDbName(String name) throws IllegalArgumentException {
+    return valueOf(name.toUpperCase(Locale.ROOT));
+  }
+}
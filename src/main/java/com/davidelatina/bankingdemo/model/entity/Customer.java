@@ -1,6 +1,9 @@
 package com.davidelatina.bankingdemo.model.entity;
 
-import java.math.BigInteger;
 import java.time.LocalDateTime;
 
-public record Customer(BigInteger id, String username, String firstName, String lastName, int age, LocalDateTime datetime) {}
+/**
+ * @param id unsigned {@code BIGINT UNSIGNED} id, see
+ *           {@link com.davidelatina.bankingdemo.model.util.UnsignedIds}
+ */
+public record Customer(long id, String username, String firstName, String lastName, int age, LocalDateTime datetime) {}
@@ -0,0 +1,17 @@
+package com.davidelatina.bankingdemo.model.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * A deposit or withdrawal as recorded in the transaction journal.
+ *
+ * @param position   offset of the record in the journal; unique, and
+ *                   increasing in the order the changes were made
+ * @param type       {@link TransactionType#DEPOSIT} or
+ *                   {@link TransactionType#WITHDRAWAL}
+ * @param accountId  account changed
+ * @param amount     positive amount
+ * @param executedAt when the change was made
+ */
+public record JournalEntry(long position, TransactionType type, long accountId, Money amount,
+    LocalDateTime executedAt) {}
@@ -0,0 +1,163 @@
+package com.davidelatina.bankingdemo.model.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * An amount of money with exactly {@value #SCALE} decimals, stored as a
+ * {@code long} count of 10<sup>-9</sup> units.
+ * <p>
+ * This matches the {@code DECIMAL(18,9)} columns of the schema, whose whole
+ * range fits in a {@code long}, and converts to and from their
+ * {@link BigDecimal} JDBC values without loss. Unlike {@link BigDecimal},
+ * adding, subtracting and comparing amounts is plain {@code long} arithmetic:
+ * callers that keep the {@link #units()} can work without allocating at all.
+ * Arithmetic that overflows a {@code long} throws {@link ArithmeticException}
+ * instead of wrapping around.
+ * <p>
+ * Instances are immutable.
+ */
+public final class Money implements Comparable<Money> {
+
+  // Static variables
+  public static final int SCALE = 9;
+  private static final long UNITS_PER_WHOLE = 1_000_000_000L;
+
+  public static final Money ZERO = new Money(0);
+  // Largest value of a DECIMAL(18,9) column
+  public static final Money MAX_DECIMAL_18_9 = new Money(999_999_999_999_999_999L);
+
+  // Instance variables
+  private final long units;
+
+  // Constructor
+  private Money(long units) {
+    this.units = units;
+  }
+
+  // Factories
+  /**
+   * @param units amount in 10<sup>-9</sup>
+   */
+  public static Money ofUnits(long units) {
+    return units == 0 ? ZERO : new Money(units);
+  }
+
+  /**
+   * Converts exactly, e.g. from {@link java.sql.ResultSet#getBigDecimal}.
+   *
+   * @throws ArithmeticException if the value has more than {@value #SCALE}
+   *                             significant decimals or does not fit
+   */
+  public static Money of(BigDecimal value) throws ArithmeticException {
+    // setScale throws if digits would be lost; longValueExact if too large
+    return ofUnits(value.setScale(SCALE).unscaledValue().longValueExact());
+  }
+
+  /**
+   * Parses a plain decimal number such as {@code 12}, {@code -0.5} or
+   * {@code 1023.57}.
+   *
+   * @throws IllegalArgumentException if the text is not such a number, has
+   *                                  more than {@value #SCALE} decimals or
+   *                                  does not fit
+   */
+  public static Money parse(String text) throws IllegalArgumentException {
+    BigDecimal value;
+    try {
+      value = new BigDecimal(text.strip());
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Not an amount: " + text, ex);
+    }
+
+    if (value.stripTrailingZeros().scale() > SCALE) {
+      throw new IllegalArgumentException("Amounts have at most " + SCALE + " decimals: " + text);
+    }
+    try {
+      return of(value);
+    } catch (ArithmeticException ex) {
+      throw new IllegalArgumentException("Amount too large: " + text, ex);
+    }
+  }
+
+  // Methods
+  /**
+   * Amount in 10<sup>-9</sup>.
+   */
+  public long units() {
+    return units;
+  }
+
+  /**
+   * Converts exactly, e.g. for {@link java.sql.PreparedStatement#setBigDecimal}.
+   */
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(units, SCALE);
+  }
+
+  /**
+   * @throws ArithmeticException if the result does not fit
+   */
+  public Money plus(Money other) throws ArithmeticException {
+    return ofUnits(Math.addExact(units, other.units));
+  }
+
+  /**
+   * @throws ArithmeticException if the result does not fit
+   */
+  public Money minus(Money other) throws ArithmeticException {
+    return ofUnits(Math.subtractExact(units, other.units));
+  }
+
+  public int signum() {
+    return Long.signum(units);
+  }
+
+  public boolean isGreaterThan(Money other) {
+    return units > other.units;
+  }
+
+  public boolean isLessThan(Money other) {
+    return units < other.units;
+  }
+
+  @Override
+  public int compareTo(Money other) {
+    return Long.compare(units, other.units);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof Money other && other.units == units;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(units);
+  }
+
+  /**
+   * Plain decimal notation with at least two decimals, e.g. {@code 1023.57}
+   * or {@code 0.000000001}.
+   */
+  @Override
+  public String toString() {
+    // Long.MIN_VALUE cannot be negated
+    if (units == Long.MIN_VALUE) {
+      return toBigDecimal().toPlainString();
+    }
+
+    long absolute = Math.abs(units);
+    StringBuilder text = new StringBuilder(24);
+    if (units < 0) {
+      text.append('-');
+    }
+    text.append(absolute / UNITS_PER_WHOLE).append('.');
+
+    String fraction = Long.toString(absolute % UNITS_PER_WHOLE + UNITS_PER_WHOLE).substring(1);
+    int end = fraction.length();
+    while (end > 2 && fraction.charAt(end - 1) == '0') {
+      end--;
+    }
+    return text.append(fraction, 0, end).toString();
+  }
+}
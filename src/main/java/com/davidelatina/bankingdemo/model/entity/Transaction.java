@@ -0,0 +1,22 @@
+package com.davidelatina.bankingdemo.model.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the {@code transaction} table.
+ *
+ * @param recipientAccountId credited account of a transfer, or {@code 0} for
+ *                           deposits and withdrawals
+ */
+public record Transaction(long id, long accountId, TransactionType type, Money amount, long recipientAccountId,
+    LocalDateTime executedAt) {
+
+  /**
+   * Whether this transaction added money to an account: a deposit into it, or
+   * a transfer to it.
+   */
+  public boolean isCreditTo(long accountId) {
+    return type == TransactionType.DEPOSIT && this.accountId == accountId
+        || type == TransactionType.TRANSFER && recipientAccountId == accountId;
+  }
+}
@@ -0,0 +1,24 @@
+package com.davidelatina.bankingdemo.model.entity;
+
+import java.util.Locale;
+
+/**
+ * Kinds of transaction, as listed in the {@code transaction_type} table.
+ */
+public enum TransactionType {
+  DEPOSIT, WITHDRAWAL, TRANSFER;
+
+  /**
+   * Name of this type in the {@code transaction_type} table.
+   */
+  public String dbName() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * @throws IllegalArgumentException if no type has this name
+   */
+  public static TransactionType fromDbName(String name) throws IllegalArgumentException {
+    return valueOf(name.toUpperCase(Locale.ROOT));
+  }
+}
@@ -0,0 +1,3 @@
+package com.davidelatina.bankingdemo.model.entity;
+
+public record Transfer(long fromAccountId, long toAccountId, Money amount) {}
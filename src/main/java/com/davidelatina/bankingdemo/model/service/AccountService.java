@@ -0,0 +1,249 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.davidelatina.bankingdemo.dao.AccountDAO;
+import com.davidelatina.bankingdemo.dao.dto.TransactionPage;
+import com.davidelatina.bankingdemo.exception.InsufficientFundsException;
+import com.davidelatina.bankingdemo.model.entity.Account;
+import com.davidelatina.bankingdemo.model.entity.AccountType;
+import com.davidelatina.bankingdemo.model.entity.Money;
+import com.davidelatina.bankingdemo.model.util.Metrics;
+import com.davidelatina.bankingdemo.model.util.OperationTimer;
+import com.davidelatina.bankingdemo.model.util.UnsignedIds;
+
+/**
+ * Accounts of a customer, and the operations on their balances.
+ * <p>
+ * Every operation names the customer performing it, and only reaches that
+ * customer's own accounts: an account of someone else is reported exactly as
+ * a missing one. Balances are read and changed through the
+ * {@link BalanceEngine}.
+ */
+public class AccountService {
+
+  // Static variables
+  // Limit of the DECIMAL(18,9) balance and amount columns
+  public static final Money MAX_BALANCE = Money.MAX_DECIMAL_18_9;
+  public static final int MAX_HISTORY_PAGE_SIZE = 1000;
+
+  // Timing, published by Metrics
+  private static final OperationTimer DEPOSIT_TIMER =
+      Metrics.INSTANCE.timer("AccountService.deposit");
+  private static final OperationTimer WITHDRAW_TIMER =
+      Metrics.INSTANCE.timer("AccountService.withdraw");
+  private static final OperationTimer TRANSFER_TIMER =
+      Metrics.INSTANCE.timer("AccountService.transfer");
+
+  // Instance variables
+  private final AccountDAO accountDAO;
+  private final BalanceEngine balanceEngine;
+
+  // Constructor
+  public AccountService(AccountDAO accountDAO, BalanceEngine balanceEngine) {
+    this.accountDAO = accountDAO;
+    this.balanceEngine = balanceEngine;
+  }
+
+  // Methods
+  /**
+   * Accounts of a customer, oldest first, with their current balances.
+   *
+   * @throws SQLException if a database access error occurs
+   */
+  public List<Account> getAccounts(long customerId) throws SQLException {
+    List<Account> accounts = new ArrayList<>();
+    for (Account account : accountDAO.getByCustomer(customerId)) {
+      accounts.add(balanceEngine.track(account));
+    }
+    return accounts;
+  }
+
+  /**
+   * Opens an account with a zero balance.
+   *
+   * @throws SQLException if a database access error occurs
+   */
+  public Account openAccount(long customerId, AccountType type) throws IllegalArgumentException, SQLException {
+    // --- Parameter validation
+    if (type == null) {
+      throw new IllegalArgumentException("Account type is required.");
+    }
+
+    long id = accountDAO.createAccount(customerId, type);
+    Account account = accountDAO.get(id)
+        .orElseThrow(() -> new SQLException("Account " + UnsignedIds.toString(id) + " vanished after being created."));
+    return balanceEngine.track(account);
+  }
+
+  /**
+   * @throws IllegalArgumentException if the customer has no account by this
+   *                                  id
+   * @throws SQLException             if a database access error occurs
+   */
+  public Money getBalance(long customerId, long accountId)
+      throws IllegalArgumentException, SQLException {
+
+    checkOwner(customerId, accountId);
+    return balanceEngine.getBalance(accountId);
+  }
+
+  /**
+   * @return the new balance
+   * @throws IllegalArgumentException if the customer has no account by this
+   *                                  id, or the amount is invalid
+   * @throws SQLException             if a database access error occurs;
+   *                                  nothing is changed
+   * @see BalanceEngine#deposit(long, Money)
+   */
+  public Money deposit(long customerId, long accountId, Money amount)
+      throws IllegalArgumentException, SQLException {
+
+    return DEPOSIT_TIMER.time(() -> {
+      checkOwner(customerId, accountId);
+      return balanceEngine.deposit(accountId, amount);
+    });
+  }
+
+  /**
+   * @return the new balance
+   * @throws InsufficientFundsException if the balance is less than the
+   *                                    amount; nothing is changed
+   * @throws IllegalArgumentException   if the customer has no account by this
+   *                                    id, or the amount is invalid
+   * @throws SQLException               if a database access error occurs;
+   *                                    nothing is changed
+   * @see BalanceEngine#withdraw(long, Money)
+   */
+  public Money withdraw(long customerId, long accountId, Money amount)
+      throws InsufficientFundsException, IllegalArgumentException, SQLException {
+
+    return WITHDRAW_TIMER.<Money, InsufficientFundsException, SQLException>time(() -> {
+      checkOwner(customerId, accountId);
+      return balanceEngine.withdraw(accountId, amount);
+    });
+  }
+
+  /**
+   * Moves money from one of the customer's accounts to any other account.
+   *
+   * @return the new balance of the debited account
+   * @throws InsufficientFundsException if the balance is less than the
+   *                                    amount; nothing is changed
+   * @throws IllegalArgumentException   if the customer has no account by the
+   *                                    first id, there is no account by the
+   *                                    second, or the amount is invalid
+   * @throws SQLException               if a database access error occurs;
+   *                                    nothing is changed
+   * @see BalanceEngine#transfer(long, long, Money)
+   */
+  public Money transfer(long customerId, long fromAccountId, long toAccountId,
+      Money amount) throws InsufficientFundsException, IllegalArgumentException, SQLException {
+
+    return TRANSFER_TIMER.<Money, InsufficientFundsException, SQLException>time(() -> {
+      checkOwner(customerId, fromAccountId);
+      return balanceEngine.transfer(fromAccountId, toAccountId, amount);
+    });
+  }
+
+  /**
+   * Returns a page of the transaction history of one of the customer's
+   * accounts, newest first, optionally restricted to an execution time range.
+   *
+   * @param after          {@link TransactionPage#nextCursor()} of the previous
+   *                       page, or null for the first page
+   * @param pageSize       number of transactions per page, between 1 and
+   *                       {@value #MAX_HISTORY_PAGE_SIZE}
+   * @param executedFrom   inclusive lower bound on execution time, or null
+   * @param executedBefore exclusive upper bound on execution time, or null
+   * @throws IllegalArgumentException if the customer has no account by this
+   *                                  id, or the page size or time range is
+   *                                  invalid
+   * @throws SQLException             if a database access error occurs
+   * @see AccountDAO#getHistory(long, TransactionPage.Cursor, int, LocalDateTime, LocalDateTime)
+   */
+  public TransactionPage getHistory(long customerId, long accountId, TransactionPage.Cursor after, int pageSize,
+      LocalDateTime executedFrom, LocalDateTime executedBefore) throws IllegalArgumentException, SQLException {
+
+    // --- Parameter validation
+    if (pageSize < 1 || pageSize > MAX_HISTORY_PAGE_SIZE) {
+      throw new IllegalArgumentException("Page size must be between 1 and " + MAX_HISTORY_PAGE_SIZE + ".");
+    }
+
+    if (executedFrom != null && executedBefore != null && !executedFrom.isBefore(executedBefore)) {
+      throw new IllegalArgumentException("Time range start must precede its end.");
+    }
+
+    checkOwner(customerId, accountId);
+    balanceEngine.awaitStored(accountId);
+    return accountDAO.getHistory(accountId, after, pageSize, executedFrom, executedBefore);
+  }
+
+  /**
+   * Balance of one of the customer's accounts as of a time: after the
+   * transactions executed before it, and none executed at or after it.
+   *
+   * @throws IllegalArgumentException if the customer has no account by this
+   *                                  id, the time is null or the account was
+   *                                  opened after it
+   * @throws SQLException             if a database access error occurs
+   * @see AccountDAO#getBalanceAsOf(long, LocalDateTime)
+   */
+  public Money getBalanceAsOf(long customerId, long accountId, LocalDateTime asOf)
+      throws IllegalArgumentException, SQLException {
+
+    // --- Parameter validation
+    if (asOf == null) {
+      throw new IllegalArgumentException("Time cannot be null.");
+    }
+
+    checkOwner(customerId, accountId);
+    balanceEngine.awaitStored(accountId);
+    return accountDAO.getBalanceAsOf(accountId, asOf)
+        .orElseThrow(() -> new IllegalArgumentException("The account was not open yet at that time."));
+  }
+
+  public BalanceEngine.Stats getBalanceStats() {
+    return balanceEngine.getStats();
+  }
+
+  public TransferCommitter.Stats getTransferStats() {
+    return balanceEngine.getTransferStats();
+  }
+
+  public Optional<TransactionJournal.Stats> getJournalStats() {
+    return balanceEngine.getJournalStats();
+  }
+
+  /**
+   * Checks that an amount of money can be deposited, withdrawn or
+   * transferred: positive, and no greater than {@link #MAX_BALANCE}.
+   *
+   * @throws IllegalArgumentException if it cannot
+   */
+  static void validateAmount(Money amount) throws IllegalArgumentException {
+    if (amount == null) {
+      throw new IllegalArgumentException("Amount cannot be null.");
+    }
+
+    if (amount.signum() <= 0) {
+      throw new IllegalArgumentException("Amount must be positive.");
+    }
+
+    if (amount.isGreaterThan(MAX_BALANCE)) {
+      throw new IllegalArgumentException("Amount cannot exceed " + MAX_BALANCE + ".");
+    }
+  }
+
+  // --- Subroutines
+
+  private void checkOwner(long customerId, long accountId) throws IllegalArgumentException, SQLException {
+    if (customerId != balanceEngine.getOwner(accountId)) {
+      throw new IllegalArgumentException("No account by this id.");
+    }
+  }
+}
@@ -0,0 +1,479 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.davidelatina.bankingdemo.dao.AccountDAO;
+import com.davidelatina.bankingdemo.exception.InsufficientFundsException;
+import com.davidelatina.bankingdemo.model.entity.Account;
+import com.davidelatina.bankingdemo.model.entity.Money;
+import com.davidelatina.bankingdemo.model.entity.TransactionType;
+import com.davidelatina.bankingdemo.model.entity.Transfer;
+import com.davidelatina.bankingdemo.model.util.UnsignedIds;
+
+/**
+ * In-memory account balances, written through to the database.
+ * <p>
+ * Balances are loaded on first use and then served from memory: reads take
+ * no lock. They are held as {@link Money#units()}, so updating one is
+ * {@code long} arithmetic. Changes are serialised per account with lock striping: the
+ * account id picks one of a fixed number of locks, so changes to different
+ * accounts almost never wait for each other, while the number of locks stays
+ * bounded whatever the number of accounts. Under the lock, a change is first
+ * committed to the database, and only then made visible in memory, so a
+ * failed write leaves both unchanged.
+ * <p>
+ * A transfer holds the locks of both its accounts, always taken in the same
+ * global order (by stripe index), so two transfers can never wait for each
+ * other in a cycle. Transfers are written through a
+ * {@link TransferCommitter}, which commits concurrent transfers together.
+ * <p>
+ * The engine assumes it is the only writer of the balances it holds. If the
+ * database turns out to disagree, the balance is reloaded and the change
+ * refused.
+ * <p>
+ * With a {@link TransactionJournal}, deposits and withdrawals are committed
+ * to the journal instead, and reach the database shortly after. Whatever
+ * reads the database for an account (a transfer, a reload, its history)
+ * first waits for the account's journaled changes to get there.
+ * <p>
+ * All operations are thread-safe.
+ */
+public class BalanceEngine implements AutoCloseable {
+
+  // Static variables
+  public static final int DEFAULT_STRIPES = 1024;
+  private static final int MAX_STRIPES = 1 << 16;
+
+  // Instance variables
+  private final AccountDAO accountDAO;
+  private final TransferCommitter transferCommitter;
+  private final TransactionJournal journal; // null without one
+  private final ReentrantLock[] locks;
+  private final int stripeMask;
+  private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+  // --- Statistics
+  private final LongAdder reads = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder deposits = new LongAdder();
+  private final LongAdder withdrawals = new LongAdder();
+  private final LongAdder transfers = new LongAdder();
+  private final LongAdder contended = new LongAdder();
+  private final LongAdder reloads = new LongAdder();
+
+  // Balance of one account. Written under the account's stripe lock.
+  private static final class Entry {
+    final long customerId;
+    volatile long balanceUnits;
+    volatile long journalPosition; // just past the account's last journaled change
+
+    Entry(long customerId, Money balance) {
+      this.customerId = customerId;
+      this.balanceUnits = balance.units();
+    }
+  }
+
+  /**
+   * Point-in-time snapshot of engine statistics.
+   *
+   * @param accounts    balances held in memory
+   * @param stripes     number of locks
+   * @param reads       balance reads
+   * @param loads       balances loaded from the database
+   * @param deposits    deposits applied
+   * @param withdrawals withdrawals applied
+   * @param transfers   transfers applied
+   * @param contended   changes that had to wait for a stripe lock
+   * @param reloads     balances reloaded because the database disagreed
+   */
+  public record Stats(int accounts, int stripes, long reads, long loads, long deposits, long withdrawals,
+      long transfers, long contended, long reloads) {
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "accounts=%d stripes=%d reads=%d loads=%d deposits=%d withdrawals=%d transfers=%d contended=%d reloads=%d",
+          accounts, stripes, reads, loads, deposits, withdrawals, transfers, contended, reloads);
+    }
+  }
+
+  // Constructors
+  public BalanceEngine(AccountDAO accountDAO) {
+    this(accountDAO, DEFAULT_STRIPES, new TransferCommitter(accountDAO));
+  }
+
+  /**
+   * @param accountDAO        where balances are loaded from and written to
+   * @param stripes           number of locks, rounded up to a power of two
+   * @param transferCommitter where transfers are written; closed with the
+   *                          engine
+   */
+  public BalanceEngine(AccountDAO accountDAO, int stripes, TransferCommitter transferCommitter) {
+    this(accountDAO, stripes, transferCommitter, null);
+  }
+
+  /**
+   * @param accountDAO        where balances are loaded from and written to
+   * @param stripes           number of locks, rounded up to a power of two
+   * @param transferCommitter where transfers are written; closed with the
+   *                          engine
+   * @param journal           where deposits and withdrawals are written, or
+   *                          {@code null} to write them to the database;
+   *                          closed with the engine
+   */
+  public BalanceEngine(AccountDAO accountDAO, int stripes, TransferCommitter transferCommitter,
+      TransactionJournal journal) {
+
+    // --- Parameter validation
+    if (stripes < 1 || stripes > MAX_STRIPES) {
+      throw new IllegalArgumentException("Lock stripes must be between 1 and " + MAX_STRIPES + ".");
+    }
+
+    this.accountDAO = accountDAO;
+    this.transferCommitter = transferCommitter;
+    this.journal = journal;
+    int size = Integer.highestOneBit(stripes) == stripes ? stripes : Integer.highestOneBit(stripes) << 1;
+    this.locks = new ReentrantLock[size];
+    for (int i = 0; i < size; i++) {
+      locks[i] = new ReentrantLock();
+    }
+    this.stripeMask = size - 1;
+  }
+
+  // Methods
+  /**
+   * Current balance of an account.
+   *
+   * @throws IllegalArgumentException if there is no account by this id
+   * @throws SQLException             if the balance had to be loaded and could
+   *                                  not be
+   */
+  public Money getBalance(long accountId) throws IllegalArgumentException, SQLException {
+    reads.increment();
+    return Money.ofUnits(entry(accountId).balanceUnits);
+  }
+
+  /**
+   * Id of the customer owning an account.
+   *
+   * @throws IllegalArgumentException if there is no account by this id
+   * @throws SQLException             if the account had to be loaded and
+   *                                  could not be
+   */
+  public long getOwner(long accountId) throws IllegalArgumentException, SQLException {
+    return entry(accountId).customerId;
+  }
+
+  /**
+   * Makes an account read from the database known to the engine, unless it
+   * already holds its balance.
+   *
+   * @return the account, with the balance held by the engine
+   */
+  public Account track(Account account) {
+    Entry entry = entries.computeIfAbsent(account.id(), id -> new Entry(account.customerId(), account.balance()));
+    return account.withBalance(Money.ofUnits(entry.balanceUnits));
+  }
+
+  /**
+   * Adds {@code amount} to an account.
+   *
+   * @return the new balance
+   * @throws IllegalArgumentException if there is no account by this id, the
+   *                                  amount is invalid or the balance would
+   *                                  exceed {@link AccountService#MAX_BALANCE}
+   * @throws IllegalStateException    if the database disagreed with the
+   *                                  engine; nothing is changed
+   * @throws SQLException             if the change could not be written;
+   *                                  nothing is changed
+   */
+  public Money deposit(long accountId, Money amount)
+      throws IllegalArgumentException, IllegalStateException, SQLException {
+
+    AccountService.validateAmount(amount);
+
+    ReentrantLock lock = lockFor(accountId);
+    acquire(lock);
+    try {
+      Entry entry = entry(accountId);
+      // Both at most MAX_BALANCE: cannot overflow
+      long balance = entry.balanceUnits + amount.units();
+      if (balance > AccountService.MAX_BALANCE.units()) {
+        throw new IllegalArgumentException("Balance cannot exceed " + AccountService.MAX_BALANCE + ".");
+      }
+
+      writeThrough(accountId, entry, TransactionType.DEPOSIT, amount);
+      entry.balanceUnits = balance;
+      deposits.increment();
+      return Money.ofUnits(balance);
+
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Takes {@code amount} from an account.
+   *
+   * @return the new balance
+   * @throws InsufficientFundsException if the balance is less than the
+   *                                    amount; nothing is changed
+   * @throws IllegalArgumentException   if there is no account by this id or
+   *                                    the amount is invalid
+   * @throws IllegalStateException      if the database disagreed with the
+   *                                    engine; nothing is changed
+   * @throws SQLException               if the change could not be written;
+   *                                    nothing is changed
+   */
+  public Money withdraw(long accountId, Money amount)
+      throws InsufficientFundsException, IllegalArgumentException, IllegalStateException, SQLException {
+
+    AccountService.validateAmount(amount);
+
+    ReentrantLock lock = lockFor(accountId);
+    acquire(lock);
+    try {
+      Entry entry = entry(accountId);
+      long balance = entry.balanceUnits - amount.units();
+      if (balance < 0) {
+        throw new InsufficientFundsException("Insufficient funds: the balance is "
+            + Money.ofUnits(entry.balanceUnits) + ".");
+      }
+
+      writeThrough(accountId, entry, TransactionType.WITHDRAWAL, amount);
+      entry.balanceUnits = balance;
+      withdrawals.increment();
+      return Money.ofUnits(balance);
+
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Moves {@code amount} from one account to another.
+   * <p>
+   * Both accounts stay locked until the transfer is committed, which, under
+   * load, happens together with other transfers.
+   *
+   * @return the new balance of the debited account
+   * @throws InsufficientFundsException if the debited balance is less than the
+   *                                    amount; nothing is changed
+   * @throws IllegalArgumentException   if either account does not exist, they
+   *                                    are the same, the amount is invalid or
+   *                                    the credited balance would exceed
+   *                                    {@link AccountService#MAX_BALANCE}
+   * @throws IllegalStateException      if the database disagreed with the
+   *                                    engine; nothing is changed
+   * @throws SQLException               if the transfer could not be written;
+   *                                    nothing is changed
+   */
+  public Money transfer(long fromAccountId, long toAccountId, Money amount)
+      throws InsufficientFundsException, IllegalArgumentException, IllegalStateException, SQLException {
+
+    // --- Parameter validation
+    AccountService.validateAmount(amount);
+    if (fromAccountId == toAccountId) {
+      throw new IllegalArgumentException("An account cannot transfer to itself.");
+    }
+
+    // Global lock order: lower stripe first. Ordering by account id instead
+    // would not do, since two accounts can share a stripe with two others in
+    // opposite order.
+    int fromStripe = stripeOf(fromAccountId);
+    int toStripe = stripeOf(toAccountId);
+    ReentrantLock first = locks[Math.min(fromStripe, toStripe)];
+    ReentrantLock second = locks[Math.max(fromStripe, toStripe)];
+
+    acquire(first);
+    try {
+      if (second != first) {
+        acquire(second);
+      }
+      try {
+        Entry from = entry(fromAccountId);
+        Entry to = entry(toAccountId);
+
+        long fromBalance = from.balanceUnits - amount.units();
+        if (fromBalance < 0) {
+          throw new InsufficientFundsException("Insufficient funds: the balance is "
+              + Money.ofUnits(from.balanceUnits) + ".");
+        }
+        long toBalance = to.balanceUnits + amount.units();
+        if (toBalance > AccountService.MAX_BALANCE.units()) {
+          throw new IllegalArgumentException("The recipient's balance cannot exceed "
+              + AccountService.MAX_BALANCE + ".");
+        }
+
+        // The transfer is checked against the stored balances
+        awaitJournal(Math.max(from.journalPosition, to.journalPosition));
+
+        try {
+          transferCommitter.commit(new Transfer(fromAccountId, toAccountId, amount));
+        } catch (IllegalStateException ex) {
+          reload(fromAccountId);
+          reload(toAccountId);
+          throw ex;
+        }
+
+        from.balanceUnits = fromBalance;
+        to.balanceUnits = toBalance;
+        transfers.increment();
+        return Money.ofUnits(fromBalance);
+
+      } finally {
+        if (second != first) {
+          second.unlock();
+        }
+      }
+    } finally {
+      first.unlock();
+    }
+  }
+
+  public Stats getStats() {
+    return new Stats(entries.size(), locks.length, reads.sum(), loads.sum(), deposits.sum(), withdrawals.sum(),
+        transfers.sum(), contended.sum(), reloads.sum());
+  }
+
+  public TransferCommitter.Stats getTransferStats() {
+    return transferCommitter.getStats();
+  }
+
+  /**
+   * @return statistics of the journal, if the engine has one
+   */
+  public Optional<TransactionJournal.Stats> getJournalStats() {
+    return journal == null ? Optional.empty() : Optional.of(journal.getStats());
+  }
+
+  /**
+   * Waits until the database holds every change made so far to an account,
+   * before reading it from there. Returns straight away without a journal.
+   *
+   * @throws SQLException if the journal could not get the changes there in
+   *                      time
+   */
+  public void awaitStored(long accountId) throws SQLException {
+    Entry entry = entries.get(accountId);
+    if (entry != null) {
+      awaitJournal(entry.journalPosition);
+    }
+  }
+
+  /**
+   * Stops accepting transfers, once those already submitted are committed,
+   * then closes the journal.
+   */
+  @Override
+  public void close() {
+    transferCommitter.close();
+    if (journal != null) {
+      journal.close();
+    }
+  }
+
+  // --- Subroutines
+
+  private int stripeOf(long accountId) {
+    int hash = Long.hashCode(accountId);
+    return (hash ^ (hash >>> 16)) & stripeMask;
+  }
+
+  // Lock guarding changes to an account
+  private ReentrantLock lockFor(long accountId) {
+    return locks[stripeOf(accountId)];
+  }
+
+  private void acquire(ReentrantLock lock) {
+    if (!lock.tryLock()) {
+      contended.increment();
+      lock.lock();
+    }
+  }
+
+  // Held entry, loaded from the database on first use. Loads of the same
+  // account are serialised by its stripe lock.
+  private Entry entry(long accountId) throws IllegalArgumentException, SQLException {
+    // --- Parameter validation
+    if (!UnsignedIds.isValid(accountId)) {
+      throw new IllegalArgumentException("No account by this id.");
+    }
+
+    Entry entry = entries.get(accountId);
+    if (entry != null) {
+      return entry;
+    }
+
+    ReentrantLock lock = lockFor(accountId);
+    lock.lock();
+    try {
+      entry = entries.get(accountId);
+      if (entry == null) {
+        entry = load(accountId);
+        entries.put(accountId, entry);
+        loads.increment();
+      }
+      return entry;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Entry load(long accountId) throws IllegalArgumentException, SQLException {
+    Account account = accountDAO.get(accountId)
+        .orElseThrow(() -> new IllegalArgumentException("No account by this id."));
+    return new Entry(account.customerId(), account.balance());
+  }
+
+  // Called with the account's stripe lock held
+  private void writeThrough(long accountId, Entry entry, TransactionType type, Money amount)
+      throws IllegalStateException, SQLException {
+
+    if (journal != null) {
+      try {
+        entry.journalPosition = journal.append(type, accountId, amount);
+      } catch (IOException ex) {
+        throw new SQLException("Could not write to the transaction journal: " + ex.getMessage(), ex);
+      }
+      return;
+    }
+
+    if (!accountDAO.applyTransaction(accountId, type, amount)) {
+      reload(accountId);
+      throw new IllegalStateException("The stored balance of account " + UnsignedIds.toString(accountId)
+          + " differed from the one in memory; it has been reloaded. Please try again.");
+    }
+  }
+
+  // Changed or removed behind the engine's back: start again from the stored
+  // balance. Called with the account's stripe lock held.
+  private void reload(long accountId) {
+    reloads.increment();
+    try {
+      awaitStored(accountId);
+      entries.put(accountId, load(accountId));
+    } catch (IllegalArgumentException | SQLException ex) {
+      // Removed, or unreadable for now: loaded again on next use
+      entries.remove(accountId);
+    }
+  }
+
+  private void awaitJournal(long journalPosition) throws SQLException {
+    if (journal == null || journalPosition == 0) {
+      return;
+    }
+
+    try {
+      journal.awaitDrained(journalPosition);
+    } catch (IOException ex) {
+      throw new SQLException(ex.getMessage(), ex);
+    }
+  }
+}
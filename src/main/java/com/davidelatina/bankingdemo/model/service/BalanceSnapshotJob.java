@@ -0,0 +1,279 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.davidelatina.bankingdemo.dao.AccountDAO;
+
+/**
+ * Periodic snapshots of every account balance, so that the balance of an
+ * account at any past time is found from the nearest snapshot and the
+ * transactions since, instead of its whole history.
+ * <p>
+ * A snapshot is recorded in chunks of consecutive account ids, several at
+ * once, each in a single statement: see
+ * {@link AccountDAO#snapshotBalances(long, long, LocalDateTime)}. Chunks
+ * already recorded are skipped when a snapshot is taken again, so a failed
+ * run is completed by the next one.
+ * <p>
+ * Once {@link #start() started}, a snapshot is taken at every multiple of
+ * the interval since midnight, shortly after it, and one straight away for
+ * the latest such time, in case it was missed while the application was not
+ * running.
+ * <p>
+ * With a {@link TransactionJournal}, a snapshot first waits for the changes
+ * journaled so far to reach the database, since balances are read from
+ * there; if they do not in time, the snapshot fails and nothing is recorded.
+ * <p>
+ * All operations are thread-safe; snapshots are taken one at a time.
+ */
+public class BalanceSnapshotJob implements AutoCloseable {
+
+  // Instance variables
+  private final AccountDAO accountDAO;
+  private final SnapshotConfig config;
+  private final TransactionJournal journal; // null without one
+  private final ThreadPoolExecutor workers;
+  private final Object runLock = new Object(); // one snapshot at a time
+  private ScheduledExecutorService scheduler; // null until started; guarded by this
+  private boolean closed; // guarded by this
+
+  // --- Statistics
+  private final LongAdder runs = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder recorded = new LongAdder();
+  private volatile Run lastRun;
+
+  /**
+   * Outcome of one snapshot.
+   *
+   * @param takenAt  time the balances are as of
+   * @param chunks   statements run
+   * @param recorded balances recorded; accounts that already had one at that
+   *                 time are not counted
+   * @param elapsed  time taken
+   */
+  public record Run(LocalDateTime takenAt, int chunks, long recorded, Duration elapsed) {
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "takenAt=%s chunks=%d recorded=%d elapsed=%dms",
+          takenAt, chunks, recorded, elapsed.toMillis());
+    }
+  }
+
+  /**
+   * Point-in-time snapshot of job statistics.
+   *
+   * @param runs     snapshots completed
+   * @param failures snapshots that failed
+   * @param recorded balances recorded
+   * @param lastRun  latest snapshot completed, or null
+   */
+  public record Stats(long runs, long failures, long recorded, Run lastRun) {
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "runs=%d failures=%d recorded=%d last(%s)",
+          runs, failures, recorded, lastRun == null ? "none" : lastRun);
+    }
+  }
+
+  // Constructor
+  public BalanceSnapshotJob(AccountDAO accountDAO, SnapshotConfig config) {
+    this(accountDAO, config, null);
+  }
+
+  /**
+   * @param journal where deposits and withdrawals are journaled before
+   *                reaching the database, or null
+   */
+  public BalanceSnapshotJob(AccountDAO accountDAO, SnapshotConfig config, TransactionJournal journal) {
+    this.accountDAO = accountDAO;
+    this.config = config;
+    this.journal = journal;
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.workers = new ThreadPoolExecutor(
+        config.threads(), config.threads(), 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "balance-snapshot-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  // Methods
+  /**
+   * Records the balance of every account that existed at {@code takenAt}, as
+   * of that time.
+   *
+   * @throws IllegalArgumentException if the time is null or in the future
+   * @throws IllegalStateException    if the job is closed
+   * @throws SQLException             if journaled changes did not reach the
+   *                                  database in time, or a chunk could not
+   *                                  be recorded; the chunks already recorded
+   *                                  are kept
+   */
+  public Run run(LocalDateTime takenAt) throws IllegalArgumentException, IllegalStateException, SQLException {
+    // --- Parameter validation
+    if (takenAt == null) {
+      throw new IllegalArgumentException("Snapshot time cannot be null.");
+    }
+
+    if (takenAt.isAfter(LocalDateTime.now())) {
+      throw new IllegalArgumentException("A snapshot cannot be taken in the future.");
+    }
+
+    synchronized (runLock) {
+      long start = System.nanoTime();
+      List<Future<Integer>> chunks = new ArrayList<>();
+      try {
+        // Balances are read from the database: journaled changes must be there
+        if (journal != null) {
+          try {
+            journal.awaitDrained();
+          } catch (IOException ex) {
+            throw new SQLException("Journaled transactions did not reach the database: " + ex.getMessage(), ex);
+          }
+        }
+
+        // Ids are unsigned, and SERIAL ids start at 1
+        long maxId = accountDAO.getMaxId();
+        for (long fromId = 1; Long.compareUnsigned(fromId, maxId) <= 0;) {
+          long toId = Long.compareUnsigned(maxId - fromId, config.chunkSize()) < 0
+              ? maxId
+              : fromId + config.chunkSize() - 1;
+          long chunkStart = fromId;
+          chunks.add(workers.submit(() -> accountDAO.snapshotBalances(chunkStart, toId, takenAt)));
+          if (toId == maxId) {
+            break;
+          }
+          fromId = toId + 1;
+        }
+
+        long total = 0;
+        for (Future<Integer> chunk : chunks) {
+          total += chunk.get();
+        }
+
+        Run run = new Run(takenAt, chunks.size(), total, Duration.ofNanos(System.nanoTime() - start));
+        runs.increment();
+        recorded.add(total);
+        lastRun = run;
+        return run;
+
+      } catch (SQLException ex) {
+        failures.increment();
+        throw ex;
+
+      } catch (RejectedExecutionException ex) {
+        cancel(chunks);
+        throw new IllegalStateException("The snapshot job is closed.", ex);
+
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        cancel(chunks);
+        failures.increment();
+        throw new SQLException("Interrupted while taking the balance snapshot.", ex);
+
+      } catch (ExecutionException ex) {
+        cancel(chunks);
+        failures.increment();
+        if (ex.getCause() instanceof SQLException cause) {
+          throw cause;
+        }
+        if (ex.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        throw new SQLException("Could not take the balance snapshot.", ex.getCause());
+      }
+    }
+  }
+
+  /**
+   * Latest time a scheduled snapshot is due for by {@code now}: the latest
+   * multiple of the interval since midnight, at least the delay before it.
+   */
+  public LocalDateTime latestSnapshotTime(LocalDateTime now) {
+    LocalDateTime due = now.minus(config.delay());
+    LocalDateTime midnight = due.toLocalDate().atStartOfDay();
+    long intervals = Duration.between(midnight, due).toSeconds() / config.interval().toSeconds();
+    return midnight.plusSeconds(intervals * config.interval().toSeconds());
+  }
+
+  /**
+   * Starts taking snapshots in the background: one now for the latest time
+   * due, then one per interval. Failures are reported and retried at the
+   * next interval.
+   *
+   * @throws IllegalStateException if the job is closed or already started
+   */
+  public synchronized void start() throws IllegalStateException {
+    if (closed || scheduler != null) {
+      throw new IllegalStateException("The snapshot job is closed or already started.");
+    }
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "balance-snapshot-scheduler");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime next = latestSnapshotTime(now).plus(config.interval()).plus(config.delay());
+    scheduler.execute(this::runScheduled);
+    scheduler.scheduleAtFixedRate(this::runScheduled,
+        Duration.between(now, next).toNanos(), config.interval().toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  public Stats getStats() {
+    return new Stats(runs.sum(), failures.sum(), recorded.sum(), lastRun);
+  }
+
+  /**
+   * Stops scheduling snapshots and abandons the one in progress, if any; its
+   * remaining chunks are recorded by the next snapshot at that time.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+    workers.shutdownNow();
+  }
+
+  // --- Subroutines
+
+  private void runScheduled() {
+    try {
+      run(latestSnapshotTime(LocalDateTime.now()));
+    } catch (SQLException | RuntimeException ex) {
+      // Must not escape, or no snapshot is scheduled again
+      System.err.println("Could not take the balance snapshot: " + ex.getMessage());
+    }
+  }
+
+  private static void cancel(List<Future<Integer>> chunks) {
+    for (Future<Integer> chunk : chunks) {
+      chunk.cancel(true);
+    }
+  }
+}
@@ -0,0 +1,270 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Aggregates over a {@link CustomerTable}, computed in parallel with
+ * fork/join.
+ * <p>
+ * The rows are split in halves until a range is small enough, each range is
+ * aggregated into its own counters, and counters are added up as the halves
+ * join, so no two threads ever write the same counter. A range reads only
+ * the primitive columns it needs: the initial of each distinct name is looked
+ * up once beforehand, and rows are counted by the initial of their name's
+ * dictionary code.
+ * <p>
+ * Thread-safe: the table is immutable, and each call has its own counters.
+ */
+public class CustomerAnalytics {
+
+  // Static variables
+  public static final int DEFAULT_AGE_BUCKET_WIDTH = 10;
+  // Ages from this one up share the last counter
+  public static final int MAX_TRACKED_AGE = 150;
+  // Rows aggregated by one task without splitting further
+  private static final int LEAF_ROWS = 16_384;
+  private static final long SECONDS_PER_DAY = 86_400;
+
+  // Instance variables
+  private final ForkJoinPool pool;
+
+  /**
+   * Aggregates over the customer base.
+   *
+   * @param customers            customers counted
+   * @param ageBucketWidth       years per age bucket
+   * @param customersByAge       customers per age bucket, by the bucket's
+   *                             lowest age; ages above
+   *                             {@value #MAX_TRACKED_AGE} are counted in its
+   *                             bucket
+   * @param registrationsByMonth customers per month of registration
+   * @param firstNameInitials    customers per upper-case initial of their
+   *                             first name, {@code '#'} for those not
+   *                             starting with a letter
+   * @param lastNameInitials     customers per initial of their last name
+   */
+  public record Report(
+      int customers,
+      int ageBucketWidth,
+      SortedMap<Integer, Long> customersByAge,
+      SortedMap<YearMonth, Long> registrationsByMonth,
+      SortedMap<Character, Long> firstNameInitials,
+      SortedMap<Character, Long> lastNameInitials) {
+  }
+
+  // Constructors
+  public CustomerAnalytics() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @param pool where aggregates are computed; its parallelism decides how
+   *             many cores are used
+   */
+  public CustomerAnalytics(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  // Methods
+  /**
+   * Computes every aggregate in a single parallel pass over the table.
+   *
+   * @param ageBucketWidth years per age bucket
+   * @throws IllegalArgumentException if the width is not positive
+   */
+  public Report analyze(CustomerTable table, int ageBucketWidth) throws IllegalArgumentException {
+    // --- Parameter validation
+    if (ageBucketWidth < 1) {
+      throw new IllegalArgumentException("Age bucket width must be positive.");
+    }
+
+    Initials firstInitials = new Initials(table.distinctFirstNames(), table::firstNameInitial);
+    Initials lastInitials = new Initials(table.distinctLastNames(), table::lastNameInitial);
+    Counters counters = pool.invoke(new AggregateTask(table, firstInitials, lastInitials, 0, table.size()));
+
+    SortedMap<Integer, Long> byAge = new TreeMap<>();
+    for (int age = 0; age <= MAX_TRACKED_AGE; age++) {
+      if (counters.ages[age] > 0) {
+        byAge.merge(age / ageBucketWidth * ageBucketWidth, counters.ages[age], Long::sum);
+      }
+    }
+
+    SortedMap<YearMonth, Long> byMonth = new TreeMap<>();
+    for (int i = 0; counters.months != null && i < counters.months.length; i++) {
+      if (counters.months[i] > 0) {
+        long month = counters.firstMonth + i;
+        byMonth.put(YearMonth.of((int) Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1),
+            counters.months[i]);
+      }
+    }
+
+    return new Report(table.size(), ageBucketWidth,
+        Collections.unmodifiableSortedMap(byAge),
+        Collections.unmodifiableSortedMap(byMonth),
+        firstInitials.toMap(counters.firstInitials),
+        lastInitials.toMap(counters.lastInitials));
+  }
+
+  // --- Subroutines
+
+  // Months since year 0 of a local date-time in epoch seconds: the civil
+  // calendar conversion of LocalDate.ofEpochDay, without allocating
+  static long monthOf(long epochSecond) {
+    long zeroDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY) + 719_468; // days since 0000-03-01
+    long era = Math.floorDiv(zeroDay, 146_097);
+    long dayOfEra = zeroDay - era * 146_097;
+    long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+    long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    long marchMonth = (5 * dayOfYear + 2) / 153; // 0 for March
+    long year = yearOfEra + era * 400 + (marchMonth >= 10 ? 1 : 0);
+    long month = marchMonth < 10 ? marchMonth + 2 : marchMonth - 10; // 0 for January
+    return year * 12 + month;
+  }
+
+  @FunctionalInterface
+  private interface CodeInitial {
+    char initial(int code);
+  }
+
+  // The distinct initials of a name dictionary, numbered from 0 in order of
+  // first appearance, and the number of each code's initial
+  private static final class Initials {
+    final int[] slotByCode;
+    final char[] initialBySlot;
+
+    Initials(int codes, CodeInitial initialOf) {
+      Map<Character, Integer> slots = new HashMap<>();
+      slotByCode = new int[codes];
+      for (int code = 0; code < codes; code++) {
+        char initial = initialOf.initial(code);
+        initial = Character.isLetter(initial) ? Character.toUpperCase(initial) : '#';
+        slotByCode[code] = slots.computeIfAbsent(initial, key -> slots.size());
+      }
+      initialBySlot = new char[slots.size()];
+      slots.forEach((initial, slot) -> initialBySlot[slot] = initial);
+    }
+
+    SortedMap<Character, Long> toMap(long[] bySlot) {
+      SortedMap<Character, Long> byInitial = new TreeMap<>();
+      for (int slot = 0; slot < bySlot.length; slot++) {
+        if (bySlot[slot] > 0) {
+          byInitial.put(initialBySlot[slot], bySlot[slot]);
+        }
+      }
+      return Collections.unmodifiableSortedMap(byInitial);
+    }
+  }
+
+  // Counts of one range of rows
+  private static final class Counters {
+    final long[] ages = new long[MAX_TRACKED_AGE + 1];
+    final long[] firstInitials;
+    final long[] lastInitials;
+    long firstMonth; // month of months[0]
+    long[] months; // null until a row is counted
+
+    Counters(Initials firstInitials, Initials lastInitials) {
+      this.firstInitials = new long[firstInitials.initialBySlot.length];
+      this.lastInitials = new long[lastInitials.initialBySlot.length];
+    }
+
+    void countMonth(long month, long count) {
+      if (months == null) {
+        firstMonth = month;
+        months = new long[12];
+      } else if (month < firstMonth || month >= firstMonth + months.length) {
+        long first = Math.min(firstMonth, month);
+        long end = Math.max(firstMonth + months.length, month + 1);
+        long[] grown = new long[(int) (end - first)];
+        System.arraycopy(months, 0, grown, (int) (firstMonth - first), months.length);
+        firstMonth = first;
+        months = grown;
+      }
+      months[(int) (month - firstMonth)] += count;
+    }
+
+    Counters add(Counters other) {
+      for (int i = 0; i < ages.length; i++) {
+        ages[i] += other.ages[i];
+      }
+      for (int i = 0; i < firstInitials.length; i++) {
+        firstInitials[i] += other.firstInitials[i];
+      }
+      for (int i = 0; i < lastInitials.length; i++) {
+        lastInitials[i] += other.lastInitials[i];
+      }
+      for (int i = 0; other.months != null && i < other.months.length; i++) {
+        if (other.months[i] > 0) {
+          countMonth(other.firstMonth + i, other.months[i]);
+        }
+      }
+      return this;
+    }
+  }
+
+  private static final class AggregateTask extends RecursiveTask<Counters> {
+
+    private final CustomerTable table;
+    private final Initials firstInitials;
+    private final Initials lastInitials;
+    private final int from; // first row
+    private final int to; // past the last row
+
+    AggregateTask(CustomerTable table, Initials firstInitials, Initials lastInitials, int from, int to) {
+      this.table = table;
+      this.firstInitials = firstInitials;
+      this.lastInitials = lastInitials;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Counters compute() {
+      if (to - from <= LEAF_ROWS) {
+        return aggregate();
+      }
+
+      int middle = (from + to) >>> 1;
+      AggregateTask left = new AggregateTask(table, firstInitials, lastInitials, from, middle);
+      left.fork();
+      Counters right = new AggregateTask(table, firstInitials, lastInitials, middle, to).compute();
+      return left.join().add(right);
+    }
+
+    private Counters aggregate() {
+      Counters counters = new Counters(firstInitials, lastInitials);
+      int[] firstSlots = firstInitials.slotByCode;
+      int[] lastSlots = lastInitials.slotByCode;
+      // Rows registered in the same month tend to be adjacent: count runs
+      long runMonth = Long.MIN_VALUE;
+      long runLength = 0;
+
+      for (int row = from; row < to; row++) {
+        counters.ages[Math.min(MAX_TRACKED_AGE, Math.max(0, table.age(row)))]++;
+        counters.firstInitials[firstSlots[table.firstNameCode(row)]]++;
+        counters.lastInitials[lastSlots[table.lastNameCode(row)]]++;
+
+        long month = monthOf(table.registeredAtEpochSecond(row));
+        if (month != runMonth) {
+          if (runLength > 0) {
+            counters.countMonth(runMonth, runLength);
+          }
+          runMonth = month;
+          runLength = 0;
+        }
+        runLength++;
+      }
+      if (runLength > 0) {
+        counters.countMonth(runMonth, runLength);
+      }
+      return counters;
+    }
+  }
+}
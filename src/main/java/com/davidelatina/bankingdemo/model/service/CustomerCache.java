@@ -0,0 +1,181 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import com.davidelatina.bankingdemo.model.entity.Customer;
+import com.davidelatina.bankingdemo.model.util.LongLruMap;
+
+/**
+ * Bounded in-process cache of {@link Customer} records, indexed by id and by
+ * username.
+ * <p>
+ * Entries are evicted least-recently-used first once the cache holds
+ * {@code maxSize} customers, and expire {@code timeToLive} after they were
+ * stored. Since {@link Customer} is immutable, cached records can be shared
+ * freely; changes in the database must be followed by an explicit
+ * invalidation.
+ * <p>
+ * All operations are thread-safe.
+ *
+ * @see CustomerService
+ */
+public class CustomerCache {
+
+  // Static variables
+  public static final int DEFAULT_MAX_SIZE = 10_000;
+  public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+  // Instance variables
+  private final int maxSize;
+  private final long timeToLiveNanos;
+
+  // Keyed by the primitive id, in least-recently-used order.
+  // Both maps are guarded by this.
+  private final LongLruMap<Entry> byId = new LongLruMap<>();
+  private final Map<String, Long> idByUsername = new HashMap<>();
+
+  // --- Statistics, guarded by this
+  private long hits;
+  private long misses;
+  private long sizeEvictions;
+  private long expirations;
+  private long invalidations;
+
+  private record Entry(Customer customer, long expiresAtNanos) {
+  }
+
+  /**
+   * Point-in-time snapshot of cache statistics.
+   *
+   * @param size          customers currently cached
+   * @param hits          lookups served from the cache
+   * @param misses        lookups that found nothing, or an expired entry
+   * @param sizeEvictions entries dropped to stay within the maximum size
+   * @param expirations   entries dropped because their time to live elapsed
+   * @param invalidations entries dropped on request
+   */
+  public record Stats(int size, long hits, long misses, long sizeEvictions, long expirations, long invalidations) {
+
+    public double hitRatio() {
+      long lookups = hits + misses;
+      return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "size=%d hits=%d misses=%d hitRatio=%.2f sizeEvictions=%d expirations=%d invalidations=%d",
+          size, hits, misses, hitRatio(), sizeEvictions, expirations, invalidations);
+    }
+  }
+
+  // Constructors
+  public CustomerCache() {
+    this(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+  }
+
+  /**
+   * @param maxSize    maximum number of cached customers ({@code 0} disables
+   *                   caching)
+   * @param timeToLive how long a customer stays cached after being stored
+   */
+  public CustomerCache(int maxSize, Duration timeToLive) {
+    // --- Parameter validation
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Cache size cannot be negative.");
+    }
+
+    if (timeToLive.isZero() || timeToLive.isNegative()) {
+      throw new IllegalArgumentException("Cache time to live must be positive.");
+    }
+
+    this.maxSize = maxSize;
+    this.timeToLiveNanos = timeToLive.toNanos();
+  }
+
+  // Methods
+  public synchronized Optional<Customer> getById(long id) {
+    Entry entry = byId.get(id);
+
+    if (entry == null) {
+      misses++;
+      return Optional.empty();
+    }
+
+    if (System.nanoTime() - entry.expiresAtNanos() >= 0) {
+      expirations++;
+      misses++;
+      remove(id, entry);
+      return Optional.empty();
+    }
+
+    hits++;
+    return Optional.of(entry.customer());
+  }
+
+  public synchronized Optional<Customer> getByUsername(String username) {
+    Long id = idByUsername.get(username);
+
+    if (id == null) {
+      misses++;
+      return Optional.empty();
+    }
+
+    return getById(id);
+  }
+
+  public synchronized void put(Customer customer) {
+    if (maxSize == 0) {
+      return;
+    }
+
+    Entry previous = byId.put(customer.id(), new Entry(customer, System.nanoTime() + timeToLiveNanos));
+
+    // Username changed since the customer was last cached
+    if (previous != null && !previous.customer().username().equals(customer.username())) {
+      idByUsername.remove(previous.customer().username());
+    }
+    idByUsername.put(customer.username(), customer.id());
+
+    if (byId.size() > maxSize) {
+      sizeEvictions++;
+      idByUsername.remove(byId.removeEldest().customer().username());
+    }
+  }
+
+  public synchronized void invalidate(long id) {
+    Entry entry = byId.remove(id);
+    if (entry != null) {
+      invalidations++;
+      idByUsername.remove(entry.customer().username());
+    }
+  }
+
+  public synchronized void invalidateUsername(String username) {
+    Long id = idByUsername.get(username);
+    if (id != null) {
+      invalidate(id);
+    }
+  }
+
+  public synchronized void clear() {
+    invalidations += byId.size();
+    byId.clear();
+    idByUsername.clear();
+  }
+
+  public synchronized Stats getStats() {
+    return new Stats(byId.size(), hits, misses, sizeEvictions, expirations, invalidations);
+  }
+
+  // --- Subroutines
+
+  private void remove(long id, Entry entry) {
+    byId.remove(id);
+    idByUsername.remove(entry.customer().username());
+  }
+}
@@ -0,0 +1,379 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.davidelatina.bankingdemo.exception.UncheckedSQLException;
+import com.davidelatina.bankingdemo.model.entity.Customer;
+
+/**
+ * Full extract of the customer table to a file, as CSV or as a compact binary
+ * format, optionally gzip-compressed.
+ * <p>
+ * Rows are read from a streaming cursor and encoded straight into a reusable
+ * direct buffer, which is written, or compressed and written, through a
+ * {@link FileChannel} whenever it fills up. Memory use is therefore the same
+ * whatever the size of the table. The file is written under a temporary name
+ * and moved into place once complete.
+ * <p>
+ * <b>CSV</b>: header {@code id,username,first_name,last_name,age,registered_at}
+ * followed by one line per customer, RFC 4180 quoting, times as
+ * {@code yyyy-MM-dd HH:mm:ss}.
+ * <p>
+ * <b>Binary</b>, big-endian: the magic bytes {@code BKCX} and a version byte
+ * ({@code 1}); then, per customer, a {@code 1} byte, the id as 8 bytes, the
+ * username, first name and last name each as a 2-byte length followed by that
+ * many bytes of UTF-8, the age as 4 bytes and the registration time as 8
+ * bytes of seconds since 1970-01-01T00:00:00; and finally a {@code 0} byte and
+ * the number of customers as 8 bytes.
+ */
+public class CustomerExporter {
+
+  // Static variables
+  private static final int BUFFER_SIZE = 64 * 1024;
+  // Fits any row: usernames and names are at most 255 characters
+  private static final int MAX_RECORD_SIZE = 4 * 1024;
+  private static final byte[] BINARY_MAGIC = { 'B', 'K', 'C', 'X', 1 };
+  private static final byte[] CSV_HEADER =
+      "id,username,first_name,last_name,age,registered_at\n".getBytes(StandardCharsets.US_ASCII);
+  // RFC 1952 member header: deflate, no flags, no time, unknown OS
+  private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+  // Instance variables
+  private final CustomerService customerService;
+
+  public enum Format {
+    CSV, BINARY
+  }
+
+  public enum Compression {
+    NONE, GZIP
+  }
+
+  /**
+   * Outcome of an export.
+   *
+   * @param rows         customers written
+   * @param bytesWritten size of the file
+   * @param elapsed      time taken
+   */
+  public record Report(long rows, long bytesWritten, Duration elapsed) {
+
+    public double rowsPerSecond() {
+      double seconds = elapsed.toNanos() / 1e9;
+      return seconds > 0 ? rows / seconds : 0.0;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "rows=%d bytes=%d elapsed=%dms rows/s=%.0f",
+          rows, bytesWritten, elapsed.toMillis(), rowsPerSecond());
+    }
+  }
+
+  // Constructor
+  public CustomerExporter(CustomerService customerService) {
+    this.customerService = customerService;
+  }
+
+  // Methods
+  /**
+   * Writes every customer to {@code file}, replacing it if it exists.
+   *
+   * @throws IOException  if the file could not be written; no partial file is
+   *                      left at {@code file}
+   * @throws SQLException if the customers could not be read
+   */
+  public Report export(Path file, Format format, Compression compression) throws IOException, SQLException {
+    long start = System.nanoTime();
+    Path temporary = file.resolveSibling(file.getFileName() + ".part");
+    long rows = 0;
+
+    try (FileChannel channel = FileChannel.open(temporary,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        Stream<Customer> customers = customerService.streamFullCustomerList()) {
+
+      RecordWriter writer = new RecordWriter(channel, compression);
+      try {
+        writer.begin(format == Format.CSV ? CSV_HEADER : BINARY_MAGIC);
+
+        Iterator<Customer> iterator = customers.iterator();
+        while (iterator.hasNext()) {
+          Customer customer = iterator.next();
+          if (format == Format.CSV) {
+            writer.csvRecord(customer);
+          } else {
+            writer.binaryRecord(customer);
+          }
+          rows++;
+        }
+
+        if (format == Format.BINARY) {
+          writer.binaryTrailer(rows);
+        }
+        writer.finish();
+      } finally {
+        writer.release();
+      }
+
+      channel.force(false);
+
+    } catch (UncheckedSQLException ex) {
+      Files.deleteIfExists(temporary);
+      throw ex.getCause();
+
+    } catch (IOException | SQLException | RuntimeException ex) {
+      Files.deleteIfExists(temporary);
+      throw ex;
+    }
+
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return new Report(rows, Files.size(file), Duration.ofNanos(System.nanoTime() - start));
+  }
+
+  // --- Subroutines
+
+  /**
+   * Encodes records into a direct buffer and drains it into the channel,
+   * through a deflater when compressing.
+   */
+  private static final class RecordWriter {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+    private final CharsetEncoder utf8 = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    // Compression only
+    private final Deflater deflater;
+    private final ByteBuffer compressed;
+    private final CRC32 crc;
+    private long uncompressedSize;
+
+    RecordWriter(FileChannel channel, Compression compression) {
+      this.channel = channel;
+      boolean gzip = compression == Compression.GZIP;
+      this.deflater = gzip ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+      this.compressed = gzip ? ByteBuffer.allocateDirect(BUFFER_SIZE) : null;
+      this.crc = gzip ? new CRC32() : null;
+    }
+
+    void begin(byte[] header) throws IOException {
+      if (deflater != null) {
+        writeFully(ByteBuffer.wrap(GZIP_HEADER));
+      }
+      buffer.put(header);
+    }
+
+    void csvRecord(Customer customer) throws IOException {
+      ensureRoom();
+      putId(customer.id());
+      buffer.put((byte) ',');
+      putCsvField(customer.username());
+      buffer.put((byte) ',');
+      putCsvField(customer.firstName());
+      buffer.put((byte) ',');
+      putCsvField(customer.lastName());
+      buffer.put((byte) ',');
+      putDecimal(customer.age());
+      buffer.put((byte) ',');
+      putDateTime(customer.datetime());
+      buffer.put((byte) '\n');
+    }
+
+    void binaryRecord(Customer customer) throws IOException {
+      ensureRoom();
+      buffer.put((byte) 1);
+      buffer.putLong(customer.id()); // BIGINT UNSIGNED, same 64 bits
+      putSizedString(customer.username());
+      putSizedString(customer.firstName());
+      putSizedString(customer.lastName());
+      buffer.putInt(customer.age());
+      buffer.putLong(customer.datetime() == null ? 0 : customer.datetime().toEpochSecond(ZoneOffset.UTC));
+    }
+
+    void binaryTrailer(long rows) throws IOException {
+      ensureRoom();
+      buffer.put((byte) 0);
+      buffer.putLong(rows);
+    }
+
+    void finish() throws IOException {
+      drain();
+
+      if (deflater != null) {
+        deflater.finish();
+        while (!deflater.finished()) {
+          deflater.deflate(compressed);
+          writeCompressed();
+        }
+
+        // RFC 1952 trailer, little-endian
+        ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        trailer.putInt((int) crc.getValue());
+        trailer.putInt((int) uncompressedSize);
+        trailer.flip();
+        writeFully(trailer);
+      }
+    }
+
+    void release() {
+      if (deflater != null) {
+        deflater.end();
+      }
+    }
+
+    // --- Encoding
+
+    private void ensureRoom() throws IOException {
+      if (buffer.remaining() < MAX_RECORD_SIZE) {
+        drain();
+      }
+    }
+
+    // Unsigned: ids above Long.MAX_VALUE are negative longs
+    private void putId(long id) {
+      if (id >= 0) {
+        putDecimal(id);
+      } else {
+        buffer.put(Long.toUnsignedString(id).getBytes(StandardCharsets.US_ASCII));
+      }
+    }
+
+    // ASCII digits, without allocating
+    private void putDecimal(long value) {
+      if (value < 0) {
+        if (value == Long.MIN_VALUE) {
+          buffer.put(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+          return;
+        }
+        buffer.put((byte) '-');
+        value = -value;
+      }
+
+      long divisor = 1;
+      while (divisor <= value / 10) {
+        divisor *= 10;
+      }
+      for (; divisor > 0; divisor /= 10) {
+        buffer.put((byte) ('0' + (value / divisor) % 10));
+      }
+    }
+
+    private void putTwoDigits(int value) {
+      buffer.put((byte) ('0' + value / 10));
+      buffer.put((byte) ('0' + value % 10));
+    }
+
+    private void putDateTime(LocalDateTime dateTime) {
+      if (dateTime == null) {
+        return;
+      }
+      putDecimal(dateTime.getYear());
+      buffer.put((byte) '-');
+      putTwoDigits(dateTime.getMonthValue());
+      buffer.put((byte) '-');
+      putTwoDigits(dateTime.getDayOfMonth());
+      buffer.put((byte) ' ');
+      putTwoDigits(dateTime.getHour());
+      buffer.put((byte) ':');
+      putTwoDigits(dateTime.getMinute());
+      buffer.put((byte) ':');
+      putTwoDigits(dateTime.getSecond());
+    }
+
+    private void putCsvField(String value) {
+      if (value == null) {
+        return;
+      }
+
+      boolean needsQuotes = false;
+      for (int i = 0; i < value.length() && !needsQuotes; i++) {
+        char c = value.charAt(i);
+        needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+      }
+
+      if (!needsQuotes) {
+        putUtf8(value);
+        return;
+      }
+
+      buffer.put((byte) '"');
+      putUtf8(value.replace("\"", "\"\""));
+      buffer.put((byte) '"');
+    }
+
+    // 2-byte length, then the UTF-8 bytes
+    private void putSizedString(String value) {
+      int lengthPosition = buffer.position();
+      buffer.putShort((short) 0);
+      if (value != null) {
+        putUtf8(value);
+      }
+      buffer.putShort(lengthPosition, (short) (buffer.position() - lengthPosition - 2));
+    }
+
+    private void putUtf8(String value) {
+      utf8.reset();
+      CoderResult result = utf8.encode(CharBuffer.wrap(value), buffer, true);
+      if (result.isOverflow()) {
+        // Cannot happen with MAX_RECORD_SIZE headroom
+        throw new IllegalStateException("Export record exceeds " + MAX_RECORD_SIZE + " bytes.");
+      }
+      utf8.flush(buffer);
+    }
+
+    // --- Output
+
+    private void drain() throws IOException {
+      buffer.flip();
+
+      if (deflater == null) {
+        writeFully(buffer);
+      } else {
+        uncompressedSize += buffer.remaining();
+        crc.update(buffer.duplicate());
+        // The deflater keeps its input buffer: give it a view that stays
+        // consumed once the buffer is cleared and refilled
+        deflater.setInput(buffer.duplicate());
+        while (!deflater.needsInput()) {
+          deflater.deflate(compressed);
+          writeCompressed();
+        }
+      }
+      buffer.clear();
+    }
+
+    private void writeCompressed() throws IOException {
+      compressed.flip();
+      writeFully(compressed);
+      compressed.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+      while (source.hasRemaining()) {
+        channel.write(source);
+      }
+    }
+  }
+}
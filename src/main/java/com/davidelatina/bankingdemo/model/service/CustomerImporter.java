@@ -0,0 +1,393 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import com.davidelatina.bankingdemo.dao.dto.CustomerRegistration;
+import com.davidelatina.bankingdemo.model.util.Csv;
+
+/**
+ * Bulk registration of customers from a CSV file.
+ * <p>
+ * The file starts with the header {@code username,password,first_name,
+ * last_name,age} and holds one customer per line. It is read as a stream, in
+ * chunks of {@code chunkSize} lines. For each chunk:
+ * <ol>
+ * <li>every row goes through the same rules as
+ * {@link CustomerService#createNewCustomer}; rows breaking them are skipped
+ * and reported</li>
+ * <li>usernames already registered, or repeated within the chunk, are found
+ * with a few batched queries and skipped</li>
+ * <li>passwords are hashed in parallel on the password hashing engine</li>
+ * <li>the chunk is inserted with one JDBC batch, in one transaction. The
+ * database may still find a username taken, since its collation equates
+ * spellings the checks above do not, such as "&szlig;" and "ss": the chunk
+ * is then inserted one row at a time, skipping the rows that conflict as
+ * taken</li>
+ * <li>the number of lines done is saved to the checkpoint file</li>
+ * </ol>
+ * An import that fails part way can be restarted with the same checkpoint
+ * file: it resumes after the last committed chunk. Rows of a chunk that was
+ * committed but not yet checkpointed are recognised as taken usernames.
+ */
+public class CustomerImporter {
+
+  // Static variables
+  public static final int DEFAULT_CHUNK_SIZE = 1_000;
+  private static final List<String> HEADER = List.of("username", "password", "first_name", "last_name", "age");
+  private static final int MAX_REPORTED_ERRORS = 100;
+
+  // Instance variables
+  private final CustomerService customerService;
+  private final int chunkSize;
+
+  /**
+   * Progress, or outcome, of an import.
+   *
+   * @param linesRead    data lines read, including those skipped on resume
+   * @param resumedAfter data lines skipped because an earlier run committed
+   *                     them
+   * @param imported     customers registered by this run
+   * @param taken        rows skipped because the username is taken
+   * @param invalid      rows skipped because they break a registration rule
+   * @param elapsed      time spent by this run
+   * @param errors       descriptions of the first skipped rows
+   */
+  public record Report(
+      long linesRead, long resumedAfter, long imported, long taken, long invalid, Duration elapsed,
+      List<String> errors) {
+
+    /**
+     * Lines processed per second by this run.
+     */
+    public double rowsPerSecond() {
+      double seconds = elapsed.toNanos() / 1e9;
+      return seconds > 0 ? (linesRead - resumedAfter) / seconds : 0.0;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "lines=%d imported=%d taken=%d invalid=%d resumedAfter=%d rows/s=%.0f",
+          linesRead, imported, taken, invalid, resumedAfter, rowsPerSecond());
+    }
+  }
+
+  // A row that passed validation, waiting for its hash
+  private record Row(int lineNumber, CustomerService.NewCustomer customer, char[] password) {
+  }
+
+  // Counters of a running import
+  private static final class Totals {
+    long linesRead;
+    long resumedAfter;
+    long imported;
+    long taken;
+    long invalid;
+    final long startNanos = System.nanoTime();
+    final List<String> errors = new ArrayList<>();
+
+    void skip(int lineNumber, String reason) {
+      if (errors.size() < MAX_REPORTED_ERRORS) {
+        errors.add("Line " + lineNumber + ": " + reason);
+      }
+    }
+
+    Report report() {
+      return new Report(linesRead, resumedAfter, imported, taken, invalid,
+          Duration.ofNanos(System.nanoTime() - startNanos), List.copyOf(errors));
+    }
+  }
+
+  // Constructors
+  public CustomerImporter(CustomerService customerService) {
+    this(customerService, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * @param customerService service registering the customers
+   * @param chunkSize       lines per transaction
+   */
+  public CustomerImporter(CustomerService customerService, int chunkSize) {
+    // --- Parameter validation
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be positive.");
+    }
+
+    this.customerService = customerService;
+    this.chunkSize = chunkSize;
+  }
+
+  // Methods
+  /**
+   * Imports a CSV file, resuming from the checkpoint file if it exists. The
+   * checkpoint file is deleted once the whole file has been imported.
+   *
+   * @param csvFile        customers to import
+   * @param checkpointFile where progress is saved after each chunk
+   * @param onProgress     receives a report after each chunk
+   * @return the final report
+   * @throws IOException              if a file could not be read or written
+   * @throws SQLException             if a chunk could not be inserted; the
+   *                                  import can then be resumed
+   * @throws IllegalArgumentException if the header is missing or the
+   *                                  checkpoint belongs to another file
+   */
+  public Report importCsv(Path csvFile, Path checkpointFile, Consumer<Report> onProgress)
+      throws IOException, SQLException, IllegalArgumentException {
+
+    Totals totals = new Totals();
+    long resumeAfter = readCheckpoint(checkpointFile, csvFile);
+    List<Row> chunk = new ArrayList<>(chunkSize);
+
+    try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+      String header = reader.readLine();
+      if (header == null || !Csv.parseLine(header.strip().toLowerCase(Locale.ROOT)).equals(HEADER)) {
+        throw new IllegalArgumentException("CSV header must be: " + String.join(",", HEADER));
+      }
+
+      // Lines committed by an earlier run
+      while (totals.linesRead < resumeAfter && reader.readLine() != null) {
+        totals.linesRead++;
+      }
+      totals.resumedAfter = totals.linesRead;
+
+      String line;
+      while (true) {
+        // Read and validate one chunk
+        int linesInChunk = 0;
+        while (linesInChunk < chunkSize && (line = reader.readLine()) != null) {
+          linesInChunk++;
+          totals.linesRead++;
+          // Header is line 1
+          int lineNumber = (int) Math.min(Integer.MAX_VALUE, totals.linesRead + 1);
+          if (!line.isBlank()) {
+            parseRow(line, lineNumber, totals).ifPresent(chunk::add);
+          }
+        }
+
+        if (linesInChunk == 0) {
+          break;
+        }
+
+        importChunk(chunk, totals);
+        chunk.clear();
+
+        writeCheckpoint(checkpointFile, csvFile, totals.linesRead);
+        if (onProgress != null) {
+          onProgress.accept(totals.report());
+        }
+      }
+
+    } finally {
+      // Rows of a chunk that was never imported still hold their passwords
+      for (Row row : chunk) {
+        Arrays.fill(row.password(), '\u0000');
+      }
+    }
+
+    Files.deleteIfExists(checkpointFile);
+    return totals.report();
+  }
+
+  // --- Subroutines
+
+  private Optional<Row> parseRow(String line, int lineNumber, Totals totals) {
+    try {
+      List<String> fields = Csv.parseLine(line);
+      if (fields.size() != HEADER.size()) {
+        throw new IllegalArgumentException("Expected " + HEADER.size() + " fields, found " + fields.size() + ".");
+      }
+
+      int age;
+      try {
+        age = Integer.parseInt(fields.get(4).strip());
+      } catch (NumberFormatException ex) {
+        throw new IllegalArgumentException("Age must be a whole number.");
+      }
+
+      String username = fields.get(0).strip();
+      if (username.isEmpty()) {
+        throw new IllegalArgumentException("Username cannot be empty.");
+      }
+
+      CustomerService.NewCustomer customer = CustomerService.validateNewCustomer(
+          username, fields.get(2), fields.get(3), age);
+      return Optional.of(new Row(lineNumber, customer, fields.get(1).toCharArray()));
+
+    } catch (IllegalArgumentException ex) {
+      totals.invalid++;
+      totals.skip(lineNumber, ex.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  private void importChunk(List<Row> chunk, Totals totals) throws SQLException {
+    List<Row> accepted = new ArrayList<>(chunk.size());
+    try {
+      // Repeated within the chunk: only the first occurrence counts
+      Set<String> seen = new HashSet<>();
+      List<Row> unique = new ArrayList<>(chunk.size());
+      for (Row row : chunk) {
+        if (seen.add(UsernameFilter.normalize(row.customer().username()))) {
+          unique.add(row);
+        } else {
+          rejectTaken(row, "username repeated in the file", totals);
+        }
+      }
+
+      List<String> usernames = new ArrayList<>(unique.size());
+      for (Row row : unique) {
+        usernames.add(row.customer().username());
+      }
+      Set<String> taken = customerService.findTakenUsernames(usernames);
+
+      for (Row row : unique) {
+        if (taken.contains(row.customer().username())) {
+          rejectTaken(row, "username unavailable", totals);
+        } else {
+          accepted.add(row);
+        }
+      }
+
+      List<CustomerRegistration> registrations = hashAll(accepted);
+      try {
+        customerService.createCustomers(registrations);
+        totals.imported += registrations.size();
+      } catch (SQLException ex) {
+        if (!isConstraintViolation(ex)) {
+          throw ex;
+        }
+        importEach(accepted, registrations, totals);
+      }
+
+    } finally {
+      for (Row row : chunk) {
+        Arrays.fill(row.password(), '\u0000');
+      }
+    }
+  }
+
+  // Inserts rows one at a time, after their batch was rolled back on a
+  // username the database considers taken
+  private void importEach(List<Row> rows, List<CustomerRegistration> registrations, Totals totals)
+      throws SQLException {
+    for (int i = 0; i < rows.size(); i++) {
+      try {
+        customerService.createCustomers(List.of(registrations.get(i)));
+        totals.imported++;
+      } catch (SQLException ex) {
+        if (!isConstraintViolation(ex)) {
+          throw ex;
+        }
+        rejectTaken(rows.get(i), "username unavailable", totals);
+      }
+    }
+  }
+
+  // SQLState class 23; drivers report a failed batch as a
+  // BatchUpdateException carrying the state of the failed statement
+  private static boolean isConstraintViolation(SQLException ex) {
+    return ex instanceof SQLIntegrityConstraintViolationException
+        || ex.getCause() instanceof SQLIntegrityConstraintViolationException
+        || (ex.getSQLState() != null && ex.getSQLState().startsWith("23"));
+  }
+
+  private static void rejectTaken(Row row, String reason, Totals totals) {
+    totals.taken++;
+    totals.skip(row.lineNumber(), reason + " (" + row.customer().username() + ")");
+    Arrays.fill(row.password(), '\u0000');
+  }
+
+  // Hashes every password of the chunk on the hashing engine's workers. When
+  // the engine is saturated, waits for the oldest pending hash before
+  // submitting more.
+  private List<CustomerRegistration> hashAll(List<Row> rows) {
+    int iterations = customerService.getIterationCount();
+    List<byte[]> salts = new ArrayList<>(rows.size());
+    List<CompletableFuture<byte[]>> hashes = new ArrayList<>(rows.size());
+    ArrayDeque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+
+    for (Row row : rows) {
+      byte[] salt = customerService.newSalt();
+      CompletableFuture<byte[]> hash = null;
+
+      while (hash == null) {
+        try {
+          // Copy, since a rejected submission clears the array it was given
+          hash = customerService.hashPasswordAsync(salt, row.password().clone(), iterations);
+        } catch (RejectedExecutionException ex) {
+          if (pending.isEmpty()) {
+            throw ex;
+          }
+          awaitQuietly(pending.pollFirst());
+        }
+      }
+      Arrays.fill(row.password(), '\u0000');
+
+      salts.add(salt);
+      hashes.add(hash);
+      pending.addLast(hash);
+    }
+
+    List<CustomerRegistration> registrations = new ArrayList<>(rows.size());
+    for (int i = 0; i < rows.size(); i++) {
+      CustomerService.NewCustomer customer = rows.get(i).customer();
+      registrations.add(new CustomerRegistration(
+          customer.username(), customer.firstName(), customer.lastName(), customer.age(),
+          salts.get(i), hashes.get(i).join(), CustomerService.HASHING_ALGORITHM, iterations));
+    }
+    return Collections.unmodifiableList(registrations);
+  }
+
+  private static void awaitQuietly(CompletableFuture<byte[]> hash) {
+    try {
+      hash.join();
+    } catch (CompletionException ex) {
+      // Reported when the results are collected
+    }
+  }
+
+  // Checkpoint: "<lines done> <csv file name>"
+  private static long readCheckpoint(Path checkpointFile, Path csvFile) throws IOException {
+    if (!Files.exists(checkpointFile)) {
+      return 0;
+    }
+
+    String[] parts = Files.readString(checkpointFile, StandardCharsets.UTF_8).strip().split(" ", 2);
+    if (parts.length != 2 || !parts[1].equals(csvFile.getFileName().toString())) {
+      throw new IllegalArgumentException("Checkpoint file " + checkpointFile + " does not belong to " + csvFile + ".");
+    }
+
+    try {
+      return Long.parseLong(parts[0]);
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Checkpoint file " + checkpointFile + " is corrupt.", ex);
+    }
+  }
+
+  private static void writeCheckpoint(Path checkpointFile, Path csvFile, long linesDone) throws IOException {
+    Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+    Files.writeString(temporary, linesDone + " " + csvFile.getFileName(), StandardCharsets.UTF_8);
+    Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+}
@@ -0,0 +1,449 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import com.davidelatina.bankingdemo.dao.CustomerDAO;
+import com.davidelatina.bankingdemo.model.entity.Customer;
+
+/**
+ * In-memory search over customers' usernames, first names and last names.
+ * <p>
+ * Two indexes point to customers by their position in the index (their
+ * document number):
+ * <ul>
+ * <li>a sorted dictionary of the words in each field finds the customers
+ * with a word starting with a query of any length;</li>
+ * <li>an index of trigrams (three-character sequences) finds the customers
+ * with a field containing a query of three characters or more: the postings
+ * of the query's trigrams are intersected, then each candidate is checked,
+ * as sharing trigrams does not make a substring.</li>
+ * </ul>
+ * Every word of a query must match one of the fields. Matches are ranked by
+ * how well each word matched (whole field, start of a word, anywhere) and
+ * where (username, then last name, then first name). Text is compared case-
+ * and accent-insensitively, like the database's collation.
+ * <p>
+ * The index must be built from every existing customer before first use,
+ * and told about each new one. It reflects no other change.
+ * <p>
+ * Thread-safe: searches run concurrently, and wait only for additions.
+ *
+ * @see CustomerService#searchCustomers(String, int)
+ */
+public class CustomerSearchIndex {
+
+  // Static variables
+  public static final int DEFAULT_LIMIT = 20;
+  public static final int MAX_LIMIT = 100;
+  private static final int GRAM_LENGTH = 3;
+  // Candidates ranked per search: an unselective query is only ranked among
+  // the first ones found, words starting with it first
+  private static final int MAX_CANDIDATES = 5_000;
+  private static final int INITIAL_CAPACITY = 1_024;
+
+  // --- Fields, in document order, and their weight in a match's score
+  private static final int USERNAME = 0;
+  private static final int FIRST_NAME = 1;
+  private static final int LAST_NAME = 2;
+  private static final int FIELDS = 3;
+  private static final int[] FIELD_WEIGHT = { 2, 0, 1 };
+
+  // --- How well a query word matched a field
+  private static final int SUBSTRING = 1;
+  private static final int WORD_PREFIX = 2;
+  private static final int EXACT = 3;
+
+  // Instance variables
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private int size; // documents
+  private long[] ids;
+  private String[] values; // original fields, FIELDS per document
+  private String[] folded; // case- and accent-folded fields
+  private final NavigableMap<String, Postings> terms = new TreeMap<>();
+  private final Map<Long, Postings> grams = new HashMap<>();
+  private long postingCount;
+
+  // --- Statistics
+  private final LongAdder searches = new LongAdder();
+  private final LongAdder searchNanos = new LongAdder();
+
+  /**
+   * A customer found by a search.
+   *
+   * @param score higher for better matches; only meaningful within a search
+   */
+  public record Match(long id, String username, String firstName, String lastName, int score) {
+  }
+
+  /**
+   * Point-in-time snapshot of index statistics.
+   *
+   * @param customers customers indexed
+   * @param terms     distinct words in the prefix dictionary
+   * @param trigrams  distinct trigrams
+   * @param postings  references to customers from terms and trigrams
+   * @param searches  searches answered
+   * @param meanNanos mean time spent per search
+   */
+  public record Stats(int customers, int terms, int trigrams, long postings, long searches, long meanNanos) {
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "customers=%d terms=%d trigrams=%d postings=%d searches=%d mean=%.1fus",
+          customers, terms, trigrams, postings, searches, meanNanos / 1e3);
+    }
+  }
+
+  // Constructors
+  public CustomerSearchIndex() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /**
+   * @param expectedSize number of customers held before the first resize
+   */
+  public CustomerSearchIndex(int expectedSize) {
+    // --- Parameter validation
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("Expected size cannot be negative.");
+    }
+
+    int capacity = Math.max(16, expectedSize);
+    this.ids = new long[capacity];
+    this.values = new String[capacity * FIELDS];
+    this.folded = new String[capacity * FIELDS];
+  }
+
+  // Methods
+  /**
+   * Builds an index holding every customer currently in the database.
+   *
+   * @throws SQLException if the customers could not be read
+   */
+  public static CustomerSearchIndex load(CustomerDAO customerDAO) throws SQLException {
+    long count = customerDAO.countCustomers();
+    CustomerSearchIndex index = new CustomerSearchIndex((int) Math.min(count, Integer.MAX_VALUE / FIELDS));
+
+    try (Stream<Customer> customers = customerDAO.streamAll()) {
+      customers.forEach(customer -> index.add(
+          customer.id(), customer.username(), customer.firstName(), customer.lastName()));
+    }
+    return index;
+  }
+
+  /**
+   * Adds a customer. Each customer must be added only once.
+   *
+   * @throws IllegalArgumentException if a field is null
+   */
+  public void add(long id, String username, String firstName, String lastName) throws IllegalArgumentException {
+    // --- Parameter validation
+    if (username == null || firstName == null || lastName == null) {
+      throw new IllegalArgumentException("Indexed fields cannot be null.");
+    }
+
+    String[] fields = { username, firstName, lastName };
+    String[] texts = new String[FIELDS];
+    for (int field = 0; field < FIELDS; field++) {
+      texts[field] = fold(fields[field]);
+    }
+
+    lock.writeLock().lock();
+    try {
+      if (size == ids.length) {
+        int capacity = (int) Math.min(Integer.MAX_VALUE / FIELDS, 2L * size);
+        if (capacity == size) {
+          throw new IllegalStateException("Search index full.");
+        }
+        ids = Arrays.copyOf(ids, capacity);
+        values = Arrays.copyOf(values, capacity * FIELDS);
+        folded = Arrays.copyOf(folded, capacity * FIELDS);
+      }
+
+      int doc = size;
+      ids[doc] = id;
+      for (int field = 0; field < FIELDS; field++) {
+        values[doc * FIELDS + field] = fields[field];
+        folded[doc * FIELDS + field] = texts[field];
+        indexTerms(doc, texts[field]);
+        indexGrams(doc, texts[field]);
+      }
+      size++;
+
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the customers matching every word of a query, best first.
+   *
+   * @param limit most matches returned, between 1 and {@value #MAX_LIMIT}
+   * @throws IllegalArgumentException if the query is blank or the limit out of
+   *                                  range
+   */
+  public List<Match> search(String query, int limit) throws IllegalArgumentException {
+    // --- Parameter validation
+    if (query == null || query.isBlank()) {
+      throw new IllegalArgumentException("Search query cannot be blank.");
+    }
+
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new IllegalArgumentException("Search limit must be between 1 and " + MAX_LIMIT + ".");
+    }
+
+    long start = System.nanoTime();
+    String[] words = fold(query).strip().split("\\s+");
+
+    // The longest word has the fewest candidates
+    String driver = words[0];
+    for (String word : words) {
+      if (word.length() > driver.length()) {
+        driver = word;
+      }
+    }
+
+    // Worst of the kept matches on top, to be replaced by better ones
+    Comparator<Match> ranking = Comparator.comparingInt(Match::score)
+        .thenComparing(Match::id, (a, b) -> Long.compareUnsigned(b, a));
+    PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, ranking);
+
+    lock.readLock().lock();
+    try {
+      for (int doc : candidates(driver)) {
+        int score = score(doc, words);
+        if (score == 0 || best.size() == limit && !outranks(score, ids[doc], best.peek())) {
+          continue;
+        }
+
+        int base = doc * FIELDS;
+        best.add(new Match(ids[doc], values[base + USERNAME], values[base + FIRST_NAME],
+            values[base + LAST_NAME], score));
+        if (best.size() > limit) {
+          best.poll();
+        }
+      }
+
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    List<Match> matches = new ArrayList<>(best);
+    matches.sort(ranking.reversed());
+
+    searches.increment();
+    searchNanos.add(System.nanoTime() - start);
+    return matches;
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public Stats getStats() {
+    long count = searches.sum();
+    lock.readLock().lock();
+    try {
+      return new Stats(size, terms.size(), grams.size(), postingCount, count,
+          count == 0 ? 0 : searchNanos.sum() / count);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // --- Subroutines
+
+  /**
+   * Folds case and accents the way {@link UsernameFilter#normalize} does,
+   * with a fast path for ASCII text.
+   */
+  static String fold(String text) {
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) >= 0x80) {
+        return UsernameFilter.normalize(text);
+      }
+    }
+    return text.stripTrailing().toLowerCase(Locale.ROOT);
+  }
+
+  // Adds each word of the field to the prefix dictionary
+  private void indexTerms(int doc, String text) {
+    int wordStart = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (inWord && wordStart < 0) {
+        wordStart = i;
+      } else if (!inWord && wordStart >= 0) {
+        post(terms.computeIfAbsent(text.substring(wordStart, i), key -> new Postings()), doc);
+        wordStart = -1;
+      }
+    }
+  }
+
+  private void indexGrams(int doc, String text) {
+    for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+      post(grams.computeIfAbsent(gram(text, i), key -> new Postings()), doc);
+    }
+  }
+
+  private void post(Postings postings, int doc) {
+    if (postings.add(doc)) {
+      postingCount++;
+    }
+  }
+
+  private static long gram(String text, int start) {
+    return (long) text.charAt(start) << 32 | (long) text.charAt(start + 1) << 16 | text.charAt(start + 2);
+  }
+
+  // Documents with a word starting with the given one then, if it is long
+  // enough, documents containing it: better matches first, and at most
+  // MAX_CANDIDATES
+  private int[] candidates(String word) {
+    int[] docs = new int[Math.min(MAX_CANDIDATES, size)];
+    int count = 0;
+    for (Postings postings : terms.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+      int taken = Math.min(postings.size, docs.length - count);
+      System.arraycopy(postings.docs, 0, docs, count, taken);
+      count += taken;
+      if (count == docs.length) {
+        break;
+      }
+    }
+
+    // A document may hold several words with this start
+    Arrays.sort(docs, 0, count);
+    int distinct = 0;
+    for (int i = 0; i < count; i++) {
+      if (distinct == 0 || docs[distinct - 1] != docs[i]) {
+        docs[distinct++] = docs[i];
+      }
+    }
+
+    if (word.length() >= GRAM_LENGTH && distinct < docs.length) {
+      return Arrays.copyOf(docs, addContaining(word, docs, distinct));
+    }
+    return Arrays.copyOf(docs, distinct);
+  }
+
+  // Adds the documents holding every trigram of the word, but not among the
+  // first found (sorted), while there is room; returns the new count
+  private int addContaining(String word, int[] docs, int found) {
+    List<Postings> lists = new ArrayList<>();
+    for (int i = 0; i + GRAM_LENGTH <= word.length(); i++) {
+      Postings postings = grams.get(gram(word, i));
+      if (postings == null) {
+        return found;
+      }
+      lists.add(postings);
+    }
+    lists.sort(Comparator.comparingInt(postings -> postings.size));
+
+    // Walk the rarest trigram's documents, looking each up in the other
+    // lists from where the previous lookup stopped
+    Postings rarest = lists.get(0);
+    int[] from = new int[lists.size()];
+    int count = found;
+    for (int i = 0; i < rarest.size && count < docs.length; i++) {
+      int doc = rarest.docs[i];
+      if (inAll(lists, from, doc) && Arrays.binarySearch(docs, 0, found, doc) < 0) {
+        docs[count++] = doc;
+      }
+    }
+    return count;
+  }
+
+  private static boolean inAll(List<Postings> lists, int[] from, int doc) {
+    for (int j = 1; j < lists.size(); j++) {
+      Postings postings = lists.get(j);
+      int position = Arrays.binarySearch(postings.docs, from[j], postings.size, doc);
+      if (position < 0) {
+        from[j] = -position - 1;
+        return false;
+      }
+      from[j] = position + 1;
+    }
+    return true;
+  }
+
+  private static boolean outranks(int score, long id, Match match) {
+    return score > match.score()
+        || score == match.score() && Long.compareUnsigned(id, match.id()) < 0;
+  }
+
+  // Sum of the best match of each word, or 0 if a word matches no field
+  private int score(int doc, String[] words) {
+    int total = 0;
+    for (String word : words) {
+      int best = 0;
+      for (int field = 0; field < FIELDS; field++) {
+        int match = match(folded[doc * FIELDS + field], word);
+        if (match > 0) {
+          best = Math.max(best, match * FIELDS + FIELD_WEIGHT[field]);
+        }
+      }
+      if (best == 0) {
+        return 0;
+      }
+      total += best;
+    }
+    return total;
+  }
+
+  private static int match(String text, String word) {
+    if (text.equals(word)) {
+      return EXACT;
+    }
+
+    int position = text.indexOf(word);
+    if (position < 0) {
+      return 0;
+    }
+    do {
+      if (position == 0 || !Character.isLetterOrDigit(text.charAt(position - 1))) {
+        return WORD_PREFIX;
+      }
+      position = text.indexOf(word, position + 1);
+    } while (position >= 0);
+    return SUBSTRING;
+  }
+
+  // Documents holding a term or trigram, in ascending order as documents are
+  // only appended
+  private static final class Postings {
+    int[] docs = new int[2];
+    int size;
+
+    // false if the document is already the last one held
+    boolean add(int doc) {
+      if (size > 0 && docs[size - 1] == doc) {
+        return false;
+      }
+      if (size == docs.length) {
+        docs = Arrays.copyOf(docs, 2 * size);
+      }
+      docs[size++] = doc;
+      return true;
+    }
+  }
+}
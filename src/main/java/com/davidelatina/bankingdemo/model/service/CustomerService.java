@@ -1,49 +1,199 @@
 package com.davidelatina.bankingdemo.model.service;
 
 import java.math.BigInteger;
-import java.security.NoSuchAlgorithmException;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-
-import javax.crypto.SecretKey;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
 
 import com.davidelatina.bankingdemo.dao.CustomerDAO;
+import com.davidelatina.bankingdemo.dao.dto.CustomerCredentials;
+import com.davidelatina.bankingdemo.dao.dto.CustomerPage;
+import com.davidelatina.bankingdemo.dao.dto.CustomerRegistration;
 import com.davidelatina.bankingdemo.model.entity.Customer;
+import com.davidelatina.bankingdemo.model.util.Metrics;
+import com.davidelatina.bankingdemo.model.util.OperationTimer;
+import com.davidelatina.bankingdemo.model.util.UnsignedIds;
 
 public class CustomerService {
   // Static variables
   // --- Hashing
   private static final int SALT_WIDTH = 16;
-  private static final int ITERATION_COUNT = 1000; // for generating PBEKey
+  // Cost of hashes stored before per-record parameters existed
+  public static final int DEFAULT_ITERATION_COUNT = 1000;
   private static final int KEY_LENGTH_BITS = 512; // for SHA512 hashing
-  private static final String HASHING_ALGORITHM = "PBKDF2WithHmacSHA512";
+  static final String HASHING_ALGORITHM = "PBKDF2WithHmacSHA512";
+  // Stand-in salt for login attempts with an unknown username
+  private static final byte[] UNKNOWN_USER_SALT = new byte[SALT_WIDTH];
+
+  // --- Listing
+  public static final int MAX_PAGE_SIZE = 1000;
+
+  // --- Timing, published by Metrics
+  private static final OperationTimer CREATE_NEW_CUSTOMER_TIMER =
+      Metrics.INSTANCE.timer("CustomerService.createNewCustomer");
+  private static final OperationTimer HASH_PASSWORD_TIMER =
+      Metrics.INSTANCE.timer("CustomerService.hashPassword");
 
   // Instance variables
   private final CustomerDAO customerDAO;
   private final SecureRandom secureRandom;
-
-  // Constructor
+  private final CustomerCache customerCache;
+  private final PasswordHashingEngine hashingEngine;
+  private final CustomerAnalytics customerAnalytics = new CustomerAnalytics();
+  private UsernameFilter usernameFilter; // optional
+  private CustomerSearchIndex searchIndex; // optional
+  private volatile CustomerTable customerTable; // null until loaded
+  private volatile int iterationCount = DEFAULT_ITERATION_COUNT; // for new hashes
+
+  // Constructors
   public CustomerService(CustomerDAO customerDAO, SecureRandom secureRandom) {
+    this(customerDAO, secureRandom, new CustomerCache(), new PasswordHashingEngine());
+  }
+
+  public CustomerService(CustomerDAO customerDAO, SecureRandom secureRandom, CustomerCache customerCache,
+      PasswordHashingEngine hashingEngine) {
     this.customerDAO = customerDAO;
     this.secureRandom = secureRandom;
+    this.customerCache = customerCache;
+    this.hashingEngine = hashingEngine;
   }
 
   // Methods
+  /**
+   * Enables the username filter, which answers most availability checks for
+   * untaken usernames without querying the database. The filter must already
+   * hold every registered username.
+   *
+   * @see UsernameFilter#load(CustomerDAO, double)
+   */
+  public void setUsernameFilter(UsernameFilter usernameFilter) {
+    this.usernameFilter = usernameFilter;
+  }
+
+  /**
+   * Enables customer search. The index must already hold every registered
+   * customer.
+   *
+   * @see CustomerSearchIndex#load(CustomerDAO)
+   */
+  public void setSearchIndex(CustomerSearchIndex searchIndex) {
+    this.searchIndex = searchIndex;
+  }
+
+  /**
+   * Sets the PBKDF2 iteration count for new password hashes. Stored hashes
+   * with a lower count are re-hashed on the customer's next successful login;
+   * lowering the count leaves stronger stored hashes as they are.
+   */
+  public void setIterationCount(int iterationCount) {
+    if (iterationCount < 1) {
+      throw new IllegalArgumentException("Iteration count must be positive.");
+    }
+    this.iterationCount = iterationCount;
+  }
+
+  public int getIterationCount() {
+    return iterationCount;
+  }
+
+  /**
+   * Picks the highest iteration count whose hash fits in {@code budget} on
+   * this host, never below {@link #DEFAULT_ITERATION_COUNT}, and uses it for
+   * new hashes.
+   *
+   * @param budget time one password hash may take during login
+   * @return the measurement that was applied
+   */
+  public PasswordHashingEngine.Calibration calibrateIterationCount(Duration budget) {
+    PasswordHashingEngine.Calibration calibration =
+        PasswordHashingEngine.calibrate(budget, KEY_LENGTH_BITS, DEFAULT_ITERATION_COUNT);
+    setIterationCount(calibration.iterations());
+    return calibration;
+  }
+
+  public Optional<UsernameFilter.Stats> getUsernameFilterStats() {
+    return Optional.ofNullable(usernameFilter).map(UsernameFilter::getStats);
+  }
+
+  public Optional<CustomerSearchIndex.Stats> getSearchIndexStats() {
+    return Optional.ofNullable(searchIndex).map(CustomerSearchIndex::getStats);
+  }
+
+  /**
+   * Finds customers by username, first name or last name: by the start of
+   * any of their words, or by any part of three characters or more. Answered
+   * from the search index, never by the database.
+   *
+   * @param limit most matches returned
+   * @throws IllegalArgumentException if the query is blank or the limit out of
+   *                                  range
+   * @throws IllegalStateException    if search is not enabled
+   * @see CustomerSearchIndex#search(String, int)
+   */
+  public List<CustomerSearchIndex.Match> searchCustomers(String query, int limit)
+      throws IllegalArgumentException, IllegalStateException {
+    CustomerSearchIndex index = this.searchIndex;
+    if (index == null) {
+      throw new IllegalStateException("Customer search is not enabled.");
+    }
+    return index.search(query, limit);
+  }
 
   public Customer getCustomer(String username) throws SQLException {
 
-    BigInteger id = customerDAO.getIdFromUsername(username);
+    // Read-through cache
+    Optional<Customer> cached = customerCache.getByUsername(username);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+
+    long id = customerDAO.getIdFromUsername(username);
 
-    return customerDAO.get(id).orElseThrow();
+    Customer customer = customerDAO.get(id).orElseThrow();
+    customerCache.put(customer);
+    return customer;
   }
 
-  public boolean authenticateUser(String username, char[] password) throws IllegalArgumentException, SQLException {
+  public CustomerCache.Stats getCacheStats() {
+    return customerCache.getStats();
+  }
+
+  public PasswordHashingEngine.Stats getHashingStats() {
+    return hashingEngine.getStats();
+  }
+
+  /**
+   * Checks a customer's password and, if it matches, returns their profile.
+   * <p>
+   * Profile, salt and stored hash are read with a single query. Unknown
+   * usernames still go through one hash computation, so they take as long to
+   * reject as a wrong password. The password array is cleared in every case.
+   * <p>
+   * If the stored hash was computed with fewer iterations than the current
+   * count, it is replaced after a successful check.
+   *
+   * @param username the customer's username
+   * @param password the password to check
+   * @return {@link Optional} containing the {@link Customer} if the credentials
+   *         match, or {@link Optional#empty()} otherwise
+   * @throws IllegalArgumentException if username or password is null, or the
+   *                                  username is blank
+   * @throws SQLException             if a database access error occurs
+   */
+  public Optional<Customer> authenticate(String username, char[] password)
+      throws IllegalArgumentException, SQLException {
     // --- Parameter verification
     if (username == null) {
       throw new IllegalArgumentException("Username cannot be null.");
@@ -53,52 +203,266 @@ public class CustomerService {
       throw new IllegalArgumentException("Password cannot be null.");
     }
 
-    // TODO: retrieve salt and hashed password in a single query
-    byte[] salt = customerDAO.getSalt(username);
-    byte[] newHashedPassword = hashPassword(salt, password);
-    Arrays.fill(password, '\u0000');
+    Optional<CustomerCredentials> credentials;
+    try {
+      credentials = customerDAO.getCredentials(username);
+    } catch (IllegalArgumentException | SQLException ex) {
+      Arrays.fill(password, '\u0000');
+      throw ex;
+    }
 
-    byte[] oldHashedPassword = customerDAO.getHashedPassword(username);
+    // Hash even if the username is unknown, at the current cost
+    byte[] salt = credentials.map(CustomerCredentials::salt).orElse(UNKNOWN_USER_SALT);
+    int iterations = credentials.map(CustomerCredentials::hashIterations).orElse(iterationCount);
+    String algorithm = credentials.map(CustomerCredentials::hashAlgorithm).orElse(HASHING_ALGORITHM);
 
-    return Arrays.equals(oldHashedPassword, newHashedPassword);
+    if (!HASHING_ALGORITHM.equals(algorithm)) {
+      Arrays.fill(password, '\u0000');
+      throw new IllegalStateException("Unsupported password hash algorithm: " + algorithm);
+    }
+
+    // Keep a copy of the password if the stored hash is due for an upgrade;
+    // never downgrade one after recalibration or a lowered HASH_ITERATIONS
+    boolean outdated = credentials.isPresent() && iterations < iterationCount;
+    char[] retained = outdated ? password.clone() : null;
+
+    try {
+      // Clears password
+      byte[] newHashedPassword = hashPassword(salt, password, iterations);
+
+      if (credentials.isEmpty()
+          || !MessageDigest.isEqual(credentials.get().hashedPassword(), newHashedPassword)) {
+        return Optional.empty();
+      }
+
+      Customer customer = credentials.get().customer();
+      if (outdated) {
+        rehashPassword(customer, retained);
+      }
+
+      // Freshly read profile: keep it for the lookups that follow a login
+      customerCache.put(customer);
+      return Optional.of(customer);
+
+    } finally {
+      if (retained != null) {
+        Arrays.fill(retained, '\u0000');
+      }
+    }
+  }
+
+  public boolean authenticateUser(String username, char[] password) throws IllegalArgumentException, SQLException {
+    return authenticate(username, password).isPresent();
   }
 
   public List<Customer> getFullCustomerList() throws SQLException {
     return customerDAO.getAll();
   }
 
-  public Optional<Customer> viewSingleCustomer(BigInteger id) throws IllegalArgumentException, SQLException {
+  /**
+   * Streams every customer without loading the whole table in memory. The
+   * stream must be closed after use.
+   *
+   * @see CustomerDAO#streamAll()
+   */
+  public Stream<Customer> streamFullCustomerList() throws SQLException {
+    return customerDAO.streamAll();
+  }
+
+  /**
+   * Loads every customer into a new in-memory {@link CustomerTable}, which
+   * replaces the one loaded before, if any.
+   *
+   * @throws SQLException if a database access error occurs; the previous
+   *                      table is kept
+   */
+  public CustomerTable loadCustomerTable() throws SQLException {
+    CustomerTable table = CustomerTable.load(customerDAO);
+    customerTable = table;
+    return table;
+  }
 
-    // id is equal to or lesser than zero
-    if (id.compareTo(BigInteger.valueOf(0)) <= 0) {
+  /**
+   * The table last loaded by {@link #loadCustomerTable()}, if any.
+   */
+  public Optional<CustomerTable> getCustomerTable() {
+    return Optional.ofNullable(customerTable);
+  }
+
+  /**
+   * Computes the customer analytics on the in-memory table, loading it first
+   * if it has not been loaded yet.
+   *
+   * @param ageBucketWidth years per age bucket
+   * @throws IllegalArgumentException if the width is not positive
+   * @throws SQLException             if a database access error occurs while
+   *                                  loading the table
+   */
+  public CustomerAnalytics.Report analyzeCustomers(int ageBucketWidth)
+      throws IllegalArgumentException, SQLException {
+    CustomerTable table = customerTable;
+    if (table == null) {
+      table = loadCustomerTable();
+    }
+    return customerAnalytics.analyze(table, ageBucketWidth);
+  }
+
+  /**
+   * Returns the page of customers following {@code lastSeenId}, optionally
+   * restricted to a registration time range.
+   *
+   * @param lastSeenId       highest id already shown, or {@code 0} to start
+   *                         from the beginning; ids are unsigned
+   * @param pageSize         number of customers per page, between 1 and
+   *                         {@value #MAX_PAGE_SIZE}
+   * @param registeredFrom   inclusive lower bound on registration time, or null
+   * @param registeredBefore exclusive upper bound on registration time, or null
+   * @throws IllegalArgumentException if the page size or time range is invalid
+   * @see CustomerDAO#getPageAfter(long, int, LocalDateTime, LocalDateTime)
+   */
+  public CustomerPage getCustomerPageAfter(long lastSeenId, int pageSize,
+      LocalDateTime registeredFrom, LocalDateTime registeredBefore)
+      throws IllegalArgumentException, SQLException {
+
+    validatePageRequest(pageSize, registeredFrom, registeredBefore);
+    return customerDAO.getPageAfter(lastSeenId, pageSize, registeredFrom, registeredBefore);
+  }
+
+  /**
+   * Returns the page of customers preceding {@code firstSeenId}, optionally
+   * restricted to a registration time range.
+   *
+   * @see #getCustomerPageAfter(long, int, LocalDateTime, LocalDateTime)
+   */
+  public CustomerPage getCustomerPageBefore(long firstSeenId, int pageSize,
+      LocalDateTime registeredFrom, LocalDateTime registeredBefore)
+      throws IllegalArgumentException, SQLException {
+
+    validatePageRequest(pageSize, registeredFrom, registeredBefore);
+    return customerDAO.getPageBefore(firstSeenId, pageSize, registeredFrom, registeredBefore);
+  }
+
+  public Optional<Customer> viewSingleCustomer(long id) throws IllegalArgumentException, SQLException {
+
+    // id is zero, the only unsigned value not greater than zero
+    if (!UnsignedIds.isValid(id)) {
       throw new IllegalArgumentException("Invalid Customer ID. Must be greater than 0");
     }
 
-    return customerDAO.get(id);
+    // Read-through cache
+    Optional<Customer> cached = customerCache.getById(id);
+    if (cached.isPresent()) {
+      return cached;
+    }
+
+    Optional<Customer> customer = customerDAO.get(id);
+    customer.ifPresent(customerCache::put);
+    return customer;
+  }
+
+  /**
+   * @deprecated use {@link #viewSingleCustomer(long)}
+   * @throws IllegalArgumentException if id is null, not positive or does not
+   *                                  fit in 64 bits
+   */
+  @Deprecated
+  public Optional<Customer> viewSingleCustomer(BigInteger id) throws IllegalArgumentException, SQLException {
+    return viewSingleCustomer(UnsignedIds.fromBigInteger(id));
   }
 
   public boolean checkUsernameAvailable(String username) throws SQLException {
-    return customerDAO.checkUsernameAvailable(username);
+    UsernameFilter filter = this.usernameFilter;
+
+    // Definitely not taken: skip the database
+    if (filter != null && !filter.mightContain(username)) {
+      return true;
+    }
+
+    boolean available = customerDAO.checkUsernameAvailable(username);
+    if (filter != null) {
+      filter.recordDatabaseCheck(!available);
+    }
+    return available;
   }
 
   public boolean checkUsernameInUse(String username) throws SQLException {
     return !checkUsernameAvailable(username);
   }
 
-  public void createNewCustomer(String username, char[] password, String firstName, String lastName, int age)
+  /**
+   * Registers a new customer.
+   *
+   * @return the id of the new customer
+   */
+  public long createNewCustomer(String username, char[] password, String firstName, String lastName, int age)
+      throws RuntimeException, SQLException {
+    return CREATE_NEW_CUSTOMER_TIMER.time(() -> register(username, password, firstName, lastName, age));
+  }
+
+  private long register(String username, char[] password, String firstName, String lastName, int age)
       throws RuntimeException, SQLException {
     // --- Parameter verification
-    if (username == null) {
-      throw new IllegalArgumentException("Username cannot be null.");
-    }
+    NewCustomer newCustomer = validateNewCustomer(username, firstName, lastName, age);
 
     // Check if username is available
-    if (!customerDAO.checkUsernameAvailable(username)) {
+    if (!checkUsernameAvailable(username)) {
       throw new IllegalArgumentException("Username unavailable.");
     }
 
     // TODO: Check if password satisfies requirements
 
+    // Generate salt
+    byte[] salt = newSalt();
+
+    // Hash password
+    byte[] hashedPassword;
+
+    // Throws RuntimeException
+    int iterations = iterationCount;
+    hashedPassword = hashPassword(salt, password, iterations);
+
+    // Register user in database
+    // Throws SQLException
+    long id = this.customerDAO.createCustomer(
+        newCustomer.username(), newCustomer.firstName(), newCustomer.lastName(), newCustomer.age(),
+        salt, hashedPassword, HASHING_ALGORITHM, iterations);
+
+    registered(id, newCustomer.username(), newCustomer.firstName(), newCustomer.lastName());
+    return id;
+  }
+
+  /**
+   * Updates a customer and drops them from the cache.
+   *
+   * @see CustomerDAO#update(Customer, String[])
+   */
+  public void updateCustomer(Customer customer, String[] params) {
+    customerDAO.update(customer, params);
+    customerCache.invalidate(customer.id());
+  }
+
+  // --- Registration rules and bulk registration, shared with CustomerImporter
+
+  /**
+   * Profile of a customer about to be registered, validated and with names
+   * trimmed.
+   */
+  record NewCustomer(String username, String firstName, String lastName, int age) {
+  }
+
+  /**
+   * Applies the rules every new customer must satisfy, however they are
+   * registered. Username availability is checked separately.
+   *
+   * @throws IllegalArgumentException if a rule is broken
+   */
+  static NewCustomer validateNewCustomer(String username, String firstName, String lastName, int age)
+      throws IllegalArgumentException {
+
+    if (username == null) {
+      throw new IllegalArgumentException("Username cannot be null.");
+    }
+
     // ID will be null when creating a new user: the DBMS will handle
     // auto-incremented IDs.
 
@@ -110,10 +474,6 @@ public class CustomerService {
           "Cannot create a Customer with neither first name nor last name.");
     }
 
-    // Remove leading and trailing whitespace
-    firstName = firstName.trim();
-    lastName = lastName.trim();
-
     // Age
     if (age < 0) {
       throw new IllegalArgumentException("A customer's age cannot be negative.");
@@ -122,52 +482,119 @@ public class CustomerService {
     // datetime will be null when creating a new user: the DBMS will register the
     // exact time it registered the new user.
 
-    // Generate salt
-    byte[] salt = new byte[SALT_WIDTH];
-
-    secureRandom.nextBytes(salt);
+    // Remove leading and trailing whitespace
+    return new NewCustomer(username, firstName.trim(), lastName.trim(), age);
+  }
 
-    // Hash password
-    byte[] hashedPassword;
+  /**
+   * Returns the usernames among {@code usernames} that are already taken,
+   * consulting the username filter first and the database, in batches, for
+   * the rest.
+   */
+  Set<String> findTakenUsernames(Collection<String> usernames) throws SQLException {
+    UsernameFilter filter = this.usernameFilter;
+
+    List<String> candidates = new ArrayList<>();
+    for (String username : usernames) {
+      if (filter == null || filter.mightContain(username)) {
+        candidates.add(username);
+      }
+    }
 
-    // Throws RuntimeException
-    hashedPassword = hashPassword(salt, password);
+    // Stored spelling may differ from the candidate in case or accents
+    Set<String> registered = new HashSet<>();
+    for (String existing : customerDAO.findExistingUsernames(candidates)) {
+      registered.add(UsernameFilter.normalize(existing));
+    }
 
-    // Register user in database
-    // Throws SQLException
-    this.customerDAO.createCustomer(username, firstName, lastName, age, salt, hashedPassword);
+    Set<String> taken = new HashSet<>();
+    for (String candidate : candidates) {
+      boolean present = registered.contains(UsernameFilter.normalize(candidate));
+      if (present) {
+        taken.add(candidate);
+      }
+      if (filter != null) {
+        filter.recordDatabaseCheck(present);
+      }
+    }
+    return taken;
   }
 
-  private byte[] hashPassword(byte[] salt, char[] password) throws RuntimeException {
+  byte[] newSalt() {
+    byte[] salt = new byte[SALT_WIDTH];
+    secureRandom.nextBytes(salt);
+    return salt;
+  }
 
-    // Instantiate PBEKeySpec. (will clone password and salt)
-    PBEKeySpec spec = new PBEKeySpec(password, salt, ITERATION_COUNT, KEY_LENGTH_BITS);
+  /**
+   * Queues a password hash at the given cost. Clears password.
+   *
+   * @throws RejectedExecutionException if the hashing engine stayed saturated
+   *                                    for its whole submit timeout
+   */
+  CompletableFuture<byte[]> hashPasswordAsync(byte[] salt, char[] password, int iterations)
+      throws RejectedExecutionException {
+    return hashingEngine.hashAsync(password, salt, iterations, KEY_LENGTH_BITS);
+  }
 
-    // Clear password
-    Arrays.fill(password, '\u0000');
+  /**
+   * Inserts customers in a single transaction.
+   *
+   * @see CustomerDAO#createCustomers(List)
+   */
+  void createCustomers(List<CustomerRegistration> registrations) throws SQLException {
+    long[] ids = customerDAO.createCustomers(registrations);
+    for (int i = 0; i < ids.length; i++) {
+      CustomerRegistration registration = registrations.get(i);
+      registered(ids[i], registration.username(), registration.firstName(), registration.lastName());
+    }
+  }
 
-    // Obtain a SecretKeyFactory instance
-    SecretKeyFactory skf;
-    try {
-      skf = SecretKeyFactory.getInstance(HASHING_ALGORITHM);
+  // Drops anything cached under a newly registered username and adds the
+  // customer to the filter and the search index
+  private void registered(long id, String username, String firstName, String lastName) {
+    customerCache.invalidateUsername(username);
 
-    } catch (NoSuchAlgorithmException ex) {
-      throw new RuntimeException("Hashing error: unknown algorithm", ex);
+    if (usernameFilter != null) {
+      usernameFilter.put(username);
+    }
+    if (searchIndex != null) {
+      searchIndex.add(id, username, firstName, lastName);
     }
+  }
 
-    // Derive key
-    SecretKey key;
-    try {
-      key = skf.generateSecret(spec);
+  private static void validatePageRequest(int pageSize,
+      LocalDateTime registeredFrom, LocalDateTime registeredBefore) throws IllegalArgumentException {
 
-    } catch (InvalidKeySpecException ex) {
-      throw new RuntimeException("Hashing error: invalid keyspec", ex);
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
     }
 
-    // Extract hashed password bytes
-    byte[] hashedPassword = key.getEncoded();
+    if (registeredFrom != null && registeredBefore != null && !registeredFrom.isBefore(registeredBefore)) {
+      throw new IllegalArgumentException("Registration range start must precede its end.");
+    }
+  }
 
-    return hashedPassword;
+  private byte[] hashPassword(byte[] salt, char[] password, int iterations) throws RuntimeException {
+
+    // Runs on the hashing engine's workers; clears password
+    return HASH_PASSWORD_TIMER.time(() -> hashingEngine.hash(password, salt, iterations, KEY_LENGTH_BITS));
   }
 
+  // Stores a new hash at the current cost. Login has already succeeded, so a
+  // failure here is reported and otherwise ignored: the upgrade is retried on
+  // the next login. Clears password.
+  private void rehashPassword(Customer customer, char[] password) {
+    byte[] salt = newSalt();
+
+    try {
+      int iterations = iterationCount;
+      byte[] hashedPassword = hashPassword(salt, password, iterations);
+      customerDAO.updatePasswordHash(customer.id(), salt, hashedPassword, HASHING_ALGORITHM, iterations);
+    } catch (SQLException | RuntimeException ex) {
+      System.err.println("Could not upgrade password hash for customer " + customer.id() + ": " + ex.getMessage());
+    }
+  }
+
+
 }
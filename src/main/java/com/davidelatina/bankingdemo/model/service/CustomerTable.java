@@ -0,0 +1,336 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.stream.Stream;
+
+import com.davidelatina.bankingdemo.dao.CustomerDAO;
+import com.davidelatina.bankingdemo.model.entity.Customer;
+import com.davidelatina.bankingdemo.model.util.UnsignedIds;
+import com.davidelatina.bankingdemo.model.util.Utf8Column;
+
+/**
+ * Read-only, in-memory copy of the customer table, held by column.
+ * <p>
+ * A {@link Customer} with its strings and date-time takes some 250 bytes of
+ * heap; a row here takes about 40. Ids, ages and registration times (in
+ * epoch seconds, as they are {@code DATETIME} values) are primitive arrays.
+ * Usernames are packed as UTF-8 in a {@link Utf8Column}. First and last
+ * names repeat a lot, so each is stored once in a dictionary and rows hold
+ * its code. A {@link Customer} is only built when a row is asked for.
+ * <p>
+ * Rows are in ascending id order, so a customer is found by binary search.
+ * The table is a snapshot of when it was loaded: it does not see later
+ * changes.
+ * <p>
+ * Immutable, and safe to read from any thread.
+ */
+public final class CustomerTable {
+
+  // Instance variables
+  private final int size;
+  private final long[] ids; // ascending, unsigned
+  private final int[] ages;
+  private final long[] registeredAt; // epoch seconds of the local date-time
+  private final Utf8Column usernames;
+  private final int[] firstNameCodes;
+  private final Utf8Column firstNames; // by code
+  private final int[] lastNameCodes;
+  private final Utf8Column lastNames; // by code
+
+  /**
+   * Size of a table.
+   *
+   * @param rows               customers held
+   * @param distinctFirstNames entries of the first name dictionary
+   * @param distinctLastNames  entries of the last name dictionary
+   * @param footprint          approximate heap used by the columns, in bytes
+   */
+  public record Stats(int rows, int distinctFirstNames, int distinctLastNames, long footprint) {
+
+    public double bytesPerRow() {
+      return rows == 0 ? 0.0 : (double) footprint / rows;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "rows=%d distinctFirstNames=%d distinctLastNames=%d footprint=%.1fMB (%.1f bytes/row)",
+          rows, distinctFirstNames, distinctLastNames, footprint / 1e6, bytesPerRow());
+    }
+  }
+
+  /**
+   * Fills a table one customer at a time, in ascending id order.
+   * <p>
+   * Not thread-safe.
+   */
+  public static final class Builder {
+
+    private int size;
+    private long[] ids;
+    private int[] ages;
+    private long[] registeredAt;
+    private final Utf8Column usernames;
+    private int[] firstNameCodes;
+    private final Utf8Column firstNames = new Utf8Column();
+    private final Map<String, Integer> firstNameDictionary = new HashMap<>();
+    private int[] lastNameCodes;
+    private final Utf8Column lastNames = new Utf8Column();
+    private final Map<String, Integer> lastNameDictionary = new HashMap<>();
+
+    public Builder() {
+      this(16);
+    }
+
+    /**
+     * @param expectedSize number of customers held before the first resize
+     */
+    public Builder(int expectedSize) {
+      // --- Parameter validation
+      if (expectedSize < 0) {
+        throw new IllegalArgumentException("Expected size cannot be negative.");
+      }
+
+      int capacity = Math.max(16, expectedSize);
+      ids = new long[capacity];
+      ages = new int[capacity];
+      registeredAt = new long[capacity];
+      firstNameCodes = new int[capacity];
+      lastNameCodes = new int[capacity];
+      usernames = new Utf8Column(capacity);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the customer's id is not above the
+     *                                  previous one
+     */
+    public Builder add(Customer customer) throws IllegalArgumentException {
+      // --- Parameter validation
+      if (size > 0 && Long.compareUnsigned(customer.id(), ids[size - 1]) <= 0) {
+        throw new IllegalArgumentException("Customers must be added in ascending id order.");
+      }
+
+      if (size == ids.length) {
+        int capacity = Math.max(size + 1, (int) Math.min(Integer.MAX_VALUE - 8, 2L * size));
+        ids = Arrays.copyOf(ids, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        registeredAt = Arrays.copyOf(registeredAt, capacity);
+        firstNameCodes = Arrays.copyOf(firstNameCodes, capacity);
+        lastNameCodes = Arrays.copyOf(lastNameCodes, capacity);
+      }
+
+      ids[size] = customer.id();
+      ages[size] = customer.age();
+      registeredAt[size] = customer.datetime().toEpochSecond(ZoneOffset.UTC);
+      usernames.add(customer.username());
+      firstNameCodes[size] = firstNameDictionary.computeIfAbsent(customer.firstName(), firstNames::add);
+      lastNameCodes[size] = lastNameDictionary.computeIfAbsent(customer.lastName(), lastNames::add);
+      size++;
+      return this;
+    }
+
+    /**
+     * Builds the table. The builder must not be used afterwards.
+     */
+    public CustomerTable build() {
+      usernames.trimToSize();
+      firstNames.trimToSize();
+      lastNames.trimToSize();
+      return new CustomerTable(this);
+    }
+  }
+
+  // Constructor
+  private CustomerTable(Builder builder) {
+    this.size = builder.size;
+    this.ids = Arrays.copyOf(builder.ids, size);
+    this.ages = Arrays.copyOf(builder.ages, size);
+    this.registeredAt = Arrays.copyOf(builder.registeredAt, size);
+    this.usernames = builder.usernames;
+    this.firstNameCodes = Arrays.copyOf(builder.firstNameCodes, size);
+    this.firstNames = builder.firstNames;
+    this.lastNameCodes = Arrays.copyOf(builder.lastNameCodes, size);
+    this.lastNames = builder.lastNames;
+  }
+
+  // Methods
+  /**
+   * Loads every customer, streaming rows from the database.
+   *
+   * @throws SQLException if a database access error occurs
+   */
+  public static CustomerTable load(CustomerDAO customerDAO) throws SQLException {
+    // Sized from the current count; rows added meanwhile only cause a resize
+    long count = customerDAO.countCustomers();
+    Builder builder = new Builder((int) Math.min(count, Integer.MAX_VALUE - 8));
+
+    try (Stream<Customer> customers = customerDAO.streamAllById()) {
+      customers.forEachOrdered(builder::add);
+    }
+    return builder.build();
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long id(int row) {
+    return ids[checkRow(row)];
+  }
+
+  public int age(int row) {
+    return ages[checkRow(row)];
+  }
+
+  /**
+   * Registration time of a row, as epoch seconds of its local date-time: what
+   * {@link LocalDateTime#toEpochSecond} gives at {@link ZoneOffset#UTC}.
+   */
+  public long registeredAtEpochSecond(int row) {
+    return registeredAt[checkRow(row)];
+  }
+
+  public LocalDateTime registeredAt(int row) {
+    return LocalDateTime.ofEpochSecond(registeredAtEpochSecond(row), 0, ZoneOffset.UTC);
+  }
+
+  public String username(int row) {
+    return usernames.get(checkRow(row));
+  }
+
+  public String firstName(int row) {
+    return firstNames.get(firstNameCodes[checkRow(row)]);
+  }
+
+  public String lastName(int row) {
+    return lastNames.get(lastNameCodes[checkRow(row)]);
+  }
+
+  /**
+   * Dictionary code of a row's first name, between {@code 0} and
+   * {@link #distinctFirstNames()}: rows with equal first names have equal
+   * codes.
+   */
+  public int firstNameCode(int row) {
+    return firstNameCodes[checkRow(row)];
+  }
+
+  /**
+   * Dictionary code of a row's last name.
+   *
+   * @see #firstNameCode(int)
+   */
+  public int lastNameCode(int row) {
+    return lastNameCodes[checkRow(row)];
+  }
+
+  public int distinctFirstNames() {
+    return firstNames.size();
+  }
+
+  public int distinctLastNames() {
+    return lastNames.size();
+  }
+
+  /**
+   * First character of the first name with this code, or {@code 0} if it is
+   * empty.
+   *
+   * @throws IndexOutOfBoundsException if there is no such code
+   */
+  public char firstNameInitial(int code) throws IndexOutOfBoundsException {
+    return firstNames.firstChar(code);
+  }
+
+  /**
+   * First character of the last name with this code, or {@code 0} if it is
+   * empty.
+   *
+   * @throws IndexOutOfBoundsException if there is no such code
+   */
+  public char lastNameInitial(int code) throws IndexOutOfBoundsException {
+    return lastNames.firstChar(code);
+  }
+
+  /**
+   * Builds the customer of a row.
+   *
+   * @throws IndexOutOfBoundsException if there is no such row
+   */
+  public Customer get(int row) throws IndexOutOfBoundsException {
+    return new Customer(id(row), username(row), firstName(row), lastName(row), age(row), registeredAt(row));
+  }
+
+  /**
+   * Row of a customer, by binary search on the ids.
+   *
+   * @return the row, or {@code -1} if there is no customer by this id
+   */
+  public int rowOf(long id) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int comparison = Long.compareUnsigned(ids[mid], id);
+      if (comparison < 0) {
+        low = mid + 1;
+      } else if (comparison > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  public Optional<Customer> findById(long id) {
+    int row = UnsignedIds.isValid(id) ? rowOf(id) : -1;
+    return row < 0 ? Optional.empty() : Optional.of(get(row));
+  }
+
+  /**
+   * The rows as a read-only list, building each customer when it is read.
+   */
+  public List<Customer> asList() {
+    return new CustomerList();
+  }
+
+  public Stats getStats() {
+    // Five primitive columns, and the codes' dictionaries
+    long footprint = 16L * 5 + (8L + 4L + 8L + 4L + 4L) * size
+        + usernames.footprint() + firstNames.footprint() + lastNames.footprint();
+    return new Stats(size, firstNames.size(), lastNames.size(), footprint);
+  }
+
+  // --- Subroutines
+
+  private int checkRow(int row) throws IndexOutOfBoundsException {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+    }
+    return row;
+  }
+
+  private final class CustomerList extends AbstractList<Customer> implements RandomAccess {
+
+    @Override
+    public Customer get(int index) {
+      return CustomerTable.this.get(index);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.nio.file.Path;
+
+import com.davidelatina.bankingdemo.config.Settings;
+
+/**
+ * Settings of a {@link TransactionJournal}.
+ *
+ * @param path               journal file, created if missing
+ * @param capacity           records the journal holds before changes wait
+ *                           for the drainer; fixes the file size, at
+ *                           {@value TransactionJournal#RECORD_SIZE} bytes per
+ *                           record
+ * @param syncIntervalMicros {@code 0} to sync the file before each change is
+ *                           acknowledged, together with the changes made
+ *                           meanwhile; otherwise how often the file is synced
+ *                           in the background, acknowledging changes before
+ *                           they are on disk
+ * @param drainBatchSize     most records applied to the database in one
+ *                           transaction
+ */
+public record JournalConfig(Path path, int capacity, long syncIntervalMicros, int drainBatchSize) {
+
+  // Static variables
+  public static final String DEFAULT_PATH = "transaction.journal";
+  public static final int DEFAULT_CAPACITY = 1 << 20;
+  public static final int DEFAULT_DRAIN_BATCH_SIZE = 1_000;
+
+  public JournalConfig {
+    // --- Parameter validation
+    if (path == null) {
+      throw new IllegalArgumentException("Journal path cannot be null.");
+    }
+
+    if (capacity < 1 || capacity > Integer.MAX_VALUE / TransactionJournal.RECORD_SIZE) {
+      throw new IllegalArgumentException("Journal capacity must be between 1 and "
+          + Integer.MAX_VALUE / TransactionJournal.RECORD_SIZE + " records.");
+    }
+
+    if (syncIntervalMicros < 0) {
+      throw new IllegalArgumentException("Journal sync interval cannot be negative.");
+    }
+
+    if (drainBatchSize < 1) {
+      throw new IllegalArgumentException("Journal drain batch size must be positive.");
+    }
+  }
+
+  /**
+   * Reads the journal configuration from the application settings, using the
+   * defaults for missing keys.
+   */
+  public static JournalConfig fromSettings(Settings settings) {
+    return new JournalConfig(
+        Path.of(settings.getString("JOURNAL_PATH", DEFAULT_PATH)),
+        settings.getInt("JOURNAL_CAPACITY", DEFAULT_CAPACITY),
+        settings.getLong("JOURNAL_SYNC_INTERVAL_MICROS", 0),
+        settings.getInt("JOURNAL_DRAIN_BATCH_SIZE", DEFAULT_DRAIN_BATCH_SIZE));
+  }
+}
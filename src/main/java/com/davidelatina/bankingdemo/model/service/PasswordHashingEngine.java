@@ -0,0 +1,393 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+
+import com.davidelatina.bankingdemo.model.util.LatencyHistogram;
+
+/**
+ * Computes PBKDF2-HMAC-SHA512 password hashes on a bounded pool of worker
+ * threads.
+ * <p>
+ * Hashing is deliberately slow, so it is kept off the callers' threads and
+ * limited to one worker per core by default. At most
+ * {@code threads + queueCapacity} hashes can be pending; further callers wait
+ * up to {@code submitTimeout} for room and are then rejected with a
+ * {@link RejectedExecutionException}, instead of piling up behind the
+ * workers.
+ * <p>
+ * Each worker keeps its own {@link Mac} instance, and the PBKDF2 rounds reuse
+ * a single buffer, so no objects are created per iteration. The result is
+ * identical to {@code SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512")}.
+ */
+public class PasswordHashingEngine implements AutoCloseable {
+
+  // Static variables
+  public static final String MAC_ALGORITHM = "HmacSHA512";
+  private static final int MAC_LENGTH = 64; // bytes of HmacSHA512 output
+
+  private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+    try {
+      return Mac.getInstance(MAC_ALGORITHM);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new RuntimeException("Hashing error: unknown algorithm", ex);
+    }
+  });
+
+  // Instance variables
+  private final ThreadPoolExecutor workers;
+  private final Semaphore capacity;
+  private final long submitTimeoutNanos;
+  private final long startedAtNanos = System.nanoTime();
+
+  // --- Metrics
+  private final LatencyHistogram hashLatency = new LatencyHistogram();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * Point-in-time snapshot of engine metrics.
+   *
+   * @param threads          worker threads
+   * @param queueDepth       hashes waiting for a worker
+   * @param active           hashes being computed
+   * @param completed        hashes computed since startup
+   * @param rejected         hashes refused because the engine was saturated
+   * @param throughputPerSec average hashes per second since startup
+   * @param latency          time to compute one hash, excluding queueing
+   */
+  public record Stats(
+      int threads,
+      int queueDepth,
+      int active,
+      long completed,
+      long rejected,
+      double throughputPerSec,
+      LatencyHistogram.Snapshot latency) {
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "threads=%d queueDepth=%d active=%d completed=%d rejected=%d throughput=%.1f/s latency[%s]",
+          threads, queueDepth, active, completed, rejected, throughputPerSec, latency);
+    }
+  }
+
+  /**
+   * Result of {@link #calibrate(Duration, int, int)}.
+   *
+   * @param iterations chosen iteration count
+   * @param hashTime   measured time of one hash at that count
+   */
+  public record Calibration(int iterations, Duration hashTime) {
+  }
+
+  // Constructors
+  public PasswordHashingEngine() {
+    this(Runtime.getRuntime().availableProcessors(), 4 * Runtime.getRuntime().availableProcessors(), 1_000);
+  }
+
+  /**
+   * @param threads         number of worker threads
+   * @param queueCapacity   hashes that may wait for a worker
+   * @param submitTimeoutMs how long a caller waits for room before being
+   *                        rejected
+   */
+  public PasswordHashingEngine(int threads, int queueCapacity, long submitTimeoutMs) {
+    // --- Parameter validation
+    if (threads < 1) {
+      throw new IllegalArgumentException("Hashing engine needs at least one thread.");
+    }
+
+    if (queueCapacity < 0 || submitTimeoutMs < 0) {
+      throw new IllegalArgumentException("Hashing engine queue capacity and timeout cannot be negative.");
+    }
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.workers = new ThreadPoolExecutor(
+        threads, threads, 0, TimeUnit.MILLISECONDS,
+        // Sized above the permit count: a worker releases its permit
+        // slightly before it is free to take the next task
+        new ArrayBlockingQueue<>(queueCapacity + threads),
+        runnable -> {
+          Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    this.capacity = new Semaphore(threads + queueCapacity);
+    this.submitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(submitTimeoutMs);
+  }
+
+  // Methods
+  /**
+   * Hashes a password and waits for the result. The password array is cleared
+   * before this method returns.
+   *
+   * @param password   the password, cleared by this method
+   * @param salt       the salt
+   * @param iterations PBKDF2 iteration count
+   * @param keyLength  length of the hash in bits
+   * @return the hash
+   * @throws RejectedExecutionException if the engine stayed saturated for the
+   *                                    whole submit timeout
+   */
+  public byte[] hash(char[] password, byte[] salt, int iterations, int keyLength) throws RuntimeException {
+    try {
+      return hashAsync(password, salt, iterations, keyLength).get();
+
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Hashing error: interrupted", ex);
+
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new RuntimeException("Hashing error", ex.getCause());
+    }
+  }
+
+  /**
+   * Queues a password hash. The password array is cleared before this method
+   * returns; the returned future completes on a worker thread.
+   *
+   * @see #hash(char[], byte[], int, int)
+   */
+  public CompletableFuture<byte[]> hashAsync(char[] password, byte[] salt, int iterations, int keyLength)
+      throws RejectedExecutionException {
+
+    // Encode on the caller's thread so the char array can be cleared at once
+    byte[] passwordBytes = encode(password);
+    Arrays.fill(password, '\u0000');
+
+    boolean admitted;
+    try {
+      admitted = capacity.tryAcquire(submitTimeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      admitted = false;
+    }
+
+    if (!admitted) {
+      Arrays.fill(passwordBytes, (byte) 0);
+      rejected.increment();
+      throw new RejectedExecutionException("Password hashing engine is saturated, try again later.");
+    }
+
+    CompletableFuture<byte[]> result = new CompletableFuture<>();
+    try {
+      workers.execute(() -> {
+        try {
+          long start = System.nanoTime();
+          byte[] hash = pbkdf2(passwordBytes, salt, iterations, keyLength);
+          hashLatency.record(System.nanoTime() - start);
+          completed.increment();
+          result.complete(hash);
+        } catch (RuntimeException ex) {
+          result.completeExceptionally(ex);
+        } finally {
+          Arrays.fill(passwordBytes, (byte) 0);
+          capacity.release();
+        }
+      });
+    } catch (RejectedExecutionException ex) {
+      // Engine shut down
+      Arrays.fill(passwordBytes, (byte) 0);
+      capacity.release();
+      rejected.increment();
+      throw ex;
+    }
+    return result;
+  }
+
+  public Stats getStats() {
+    long done = completed.sum();
+    double seconds = (System.nanoTime() - startedAtNanos) / 1e9;
+
+    return new Stats(
+        workers.getCorePoolSize(),
+        workers.getQueue().size(),
+        workers.getActiveCount(),
+        done,
+        rejected.sum(),
+        seconds > 0 ? done / seconds : 0.0,
+        hashLatency.snapshot());
+  }
+
+  @Override
+  public void close() {
+    workers.shutdown();
+  }
+
+  /**
+   * Measures PBKDF2 on this host and returns the highest iteration count whose
+   * hash fits in {@code budget}, rounded down to a multiple of 1000.
+   * <p>
+   * The measurement runs on the calling thread; with every core busy, as
+   * under login load, each worker hashes at about the same speed.
+   *
+   * @param budget        time one hash may take
+   * @param keyLength     length of the hash in bits
+   * @param minIterations lower bound on the result, even if it exceeds the
+   *                      budget
+   */
+  public static Calibration calibrate(Duration budget, int keyLength, int minIterations) {
+    // --- Parameter validation
+    if (budget.isZero() || budget.isNegative()) {
+      throw new IllegalArgumentException("Hashing budget must be positive.");
+    }
+
+    byte[] password = "calibration-password".getBytes(StandardCharsets.UTF_8);
+    byte[] salt = new byte[16];
+    long budgetNanos = budget.toNanos();
+
+    // Let the JIT compile the hashing loop first
+    for (int i = 0; i < 3; i++) {
+      pbkdf2(password, salt, 10_000, keyLength);
+    }
+
+    // Double the cost until a hash takes a tenth of the budget, for a
+    // measurement long enough to be reliable
+    int iterations = 1_000;
+    long elapsed;
+    while (true) {
+      long start = System.nanoTime();
+      pbkdf2(password, salt, iterations, keyLength);
+      elapsed = System.nanoTime() - start;
+
+      if (elapsed >= budgetNanos / 10 || iterations >= Integer.MAX_VALUE / 4) {
+        break;
+      }
+      iterations *= 2;
+    }
+
+    // Scale linearly to the budget
+    double nanosPerIteration = (double) elapsed / iterations;
+    long fitting = (long) (budgetNanos / nanosPerIteration) / 1_000 * 1_000;
+    int chosen = (int) Math.max(minIterations, Math.min(Integer.MAX_VALUE / 1_000 * 1_000, fitting));
+
+    // Confirm
+    long start = System.nanoTime();
+    pbkdf2(password, salt, chosen, keyLength);
+    return new Calibration(chosen, Duration.ofNanos(System.nanoTime() - start));
+  }
+
+  /**
+   * PBKDF2 (RFC 8018) with HMAC-SHA512, on the calling thread.
+   *
+   * @param password   password encoded as UTF-8
+   * @param salt       the salt
+   * @param iterations iteration count
+   * @param keyLength  length of the derived key in bits
+   */
+  public static byte[] pbkdf2(byte[] password, byte[] salt, int iterations, int keyLength) {
+    // --- Parameter validation
+    if (iterations < 1 || keyLength < 8 || keyLength % 8 != 0) {
+      throw new IllegalArgumentException("Invalid PBKDF2 iteration count or key length.");
+    }
+
+    Mac mac = MAC.get();
+    try {
+      mac.init(new RawKey(password));
+    } catch (InvalidKeyException ex) {
+      throw new RuntimeException("Hashing error: invalid key", ex);
+    }
+
+    byte[] derived = new byte[keyLength / 8];
+    byte[] block = new byte[MAC_LENGTH];
+    byte[] u = new byte[MAC_LENGTH];
+
+    int blocks = (derived.length + MAC_LENGTH - 1) / MAC_LENGTH;
+    try {
+      for (int i = 1; i <= blocks; i++) {
+        // U1 = PRF(password, salt || INT(i))
+        mac.update(salt);
+        mac.update(new byte[] { (byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i });
+        mac.doFinal(u, 0);
+        System.arraycopy(u, 0, block, 0, MAC_LENGTH);
+
+        // Uj = PRF(password, Uj-1), block = U1 ^ U2 ^ ... ^ Uc
+        for (int j = 1; j < iterations; j++) {
+          mac.update(u);
+          mac.doFinal(u, 0);
+          for (int k = 0; k < MAC_LENGTH; k++) {
+            block[k] ^= u[k];
+          }
+        }
+
+        int offset = (i - 1) * MAC_LENGTH;
+        System.arraycopy(block, 0, derived, offset, Math.min(MAC_LENGTH, derived.length - offset));
+      }
+    } catch (ShortBufferException ex) {
+      throw new RuntimeException("Hashing error", ex);
+    } finally {
+      Arrays.fill(block, (byte) 0);
+      Arrays.fill(u, (byte) 0);
+      mac.reset();
+    }
+    return derived;
+  }
+
+  // --- Subroutines
+
+  // UTF-8, as used by the JDK's PBKDF2 implementation
+  private static byte[] encode(char[] password) {
+    ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+    byte[] bytes = new byte[encoded.remaining()];
+    encoded.get(bytes);
+
+    // Wipe the encoder's buffer
+    if (encoded.hasArray()) {
+      Arrays.fill(encoded.array(), (byte) 0);
+    }
+    return bytes;
+  }
+
+  /**
+   * HMAC key over raw password bytes. Unlike
+   * {@link javax.crypto.spec.SecretKeySpec}, it accepts an empty password.
+   */
+  private static final class RawKey implements SecretKey {
+
+    private static final long serialVersionUID = 1L;
+    private final byte[] key;
+
+    private RawKey(byte[] key) {
+      this.key = key;
+    }
+
+    @Override
+    public String getAlgorithm() {
+      return MAC_ALGORITHM;
+    }
+
+    @Override
+    public String getFormat() {
+      return "RAW";
+    }
+
+    @Override
+    public byte[] getEncoded() {
+      return key.clone();
+    }
+  }
+}
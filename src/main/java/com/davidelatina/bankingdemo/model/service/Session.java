@@ -0,0 +1,49 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.time.LocalDateTime;
+
+import com.davidelatina.bankingdemo.model.entity.Customer;
+
+/**
+ * A logged-in customer, identified by an opaque token.
+ *
+ * @see SessionRegistry
+ */
+public final class Session {
+
+  // Instance variables
+  private final String token;
+  private final Customer customer;
+  private final LocalDateTime createdAt;
+
+  // Maintained by SessionRegistry
+  volatile long lastAccessNanos;
+  volatile boolean ended;
+
+  // Constructor
+  Session(String token, Customer customer, long nowNanos) {
+    this.token = token;
+    this.customer = customer;
+    this.createdAt = LocalDateTime.now();
+    this.lastAccessNanos = nowNanos;
+  }
+
+  // Methods
+  public String getToken() {
+    return token;
+  }
+
+  public Customer getCustomer() {
+    return customer;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  // The token is a credential: keep it out of logs
+  @Override
+  public String toString() {
+    return "Session[customer=" + customer.username() + ", createdAt=" + createdAt + "]";
+  }
+}
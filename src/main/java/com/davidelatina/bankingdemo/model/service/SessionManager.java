@@ -1,20 +1,23 @@
 package com.davidelatina.bankingdemo.model.service;
 
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
 
+import com.davidelatina.bankingdemo.config.Settings;
 import com.davidelatina.bankingdemo.model.entity.Customer;
+import com.davidelatina.bankingdemo.model.util.Metrics;
+import com.davidelatina.bankingdemo.model.util.OperationTimer;
 
 /**
- * The {@code SessionManager} class is a singleton responsible for managing the
- * active user session
- * throughout the banking application.
+ * The {@code SessionManager} class is a singleton responsible for managing
+ * customer sessions throughout the banking application.
  *
  * <p>
- * It holds the state of the currently logged-in {@link Customer} and provides
- * methods for logging in, logging out, and retrieving the active user's
- * information.
- * This class ensures that only one user can be active at a time within the
- * application's session.
+ * Each successful login opens a {@link Session}, identified by an opaque
+ * token that the caller presents on later requests. Any number of customers
+ * can be logged in at the same time; sessions end on logout or after a period
+ * without use.
  * </p>
  *
  * <p>
@@ -22,48 +25,84 @@ import com.davidelatina.bankingdemo.model.entity.Customer;
  * </p>
  * <ul>
  * <li>The {@link com.davidelatina.bankingdemo.controller.BankController} will
- * primarily
- * interact with this manager to initiate login and logout operations based on
- * user input.</li>
+ * primarily interact with this manager to initiate login and logout operations
+ * based on user input, and keeps the token of the session it opened.</li>
  * <li>Other service classes within the {@code model/service} layer may query
- * this manager
- * to obtain the {@link #getActiveUser() active user}'s context for business
- * logic
- * (e.g., permission checks, associating transactions with the current
- * user).</li>
+ * this manager with a token to obtain the {@link #getActiveUser(String) active
+ * user}'s context for business logic (e.g., permission checks, associating
+ * transactions with the current user).</li>
  * </ul>
  *
- * @see Customer
+ * @see SessionRegistry
  * @see com.davidelatina.bankingdemo.controller.BankController
  */
 public enum SessionManager {
 
   INSTANCE;
 
+  // Static variables
+  // Timing, published by Metrics
+  private static final OperationTimer LOGIN_TIMER =
+      Metrics.INSTANCE.timer("SessionManager.login");
+
   // Instance variables
   private CustomerService customerService;
-  private Customer activeUser;
+  private final SessionRegistry sessionRegistry;
+
+  // Constructor
+  private SessionManager() {
+    Settings settings = Settings.INSTANCE;
+
+    this.sessionRegistry = new SessionRegistry(
+        Duration.ofSeconds(settings.getLong("SESSION_IDLE_TIMEOUT_SECONDS",
+            SessionRegistry.DEFAULT_IDLE_TIMEOUT.toSeconds())),
+        Duration.ofMillis(settings.getLong("SESSION_EXPIRY_TICK_MS",
+            SessionRegistry.DEFAULT_TICK_DURATION.toMillis())),
+        settings.getInt("SESSION_WHEEL_SIZE", SessionRegistry.DEFAULT_WHEEL_SIZE));
+  }
 
   // Methods
   public void setCustomerService(CustomerService customerService) {
     this.customerService = customerService;
   }
 
-  public Customer getActiveUser() {
-    return activeUser;
+  /**
+   * Logs in a customer, opening a new session if the password matches.
+   * Costs a single database query.
+   *
+   * @return the new session, or {@link Optional#empty()} if the credentials do
+   *         not match
+   */
+  public Optional<Session> login(String username, char[] password) throws IllegalArgumentException, SQLException {
+    return LOGIN_TIMER.time(() -> customerService.authenticate(username, password)
+        .map(sessionRegistry::create));
   }
 
+  /**
+   * @return the session for the token, or {@link Optional#empty()} if it has
+   *         ended or expired
+   */
+  public Optional<Session> getSession(String token) {
+    return sessionRegistry.get(token);
+  }
+
+  public Optional<Customer> getActiveUser(String token) {
+    return sessionRegistry.get(token).map(Session::getCustomer);
+  }
+
+  public void logout(String token) {
+    sessionRegistry.invalidate(token);
+  }
 
-  public boolean login(String username, char[] password) throws IllegalArgumentException, SQLException {
-    if (customerService.authenticateUser(username, password)) {
-      activeUser = customerService.getCustomer(username);
-      return true;
-    }
-    return false;
+  public SessionRegistry.Stats getStats() {
+    return sessionRegistry.getStats();
   }
 
-  public void logout() {
-    activeUser = null;
+  /**
+   * Ends every session and stops the expiry thread.
+   */
+  public void shutdown() {
+    sessionRegistry.close();
   }
 
 }
@@ -0,0 +1,227 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.davidelatina.bankingdemo.model.entity.Customer;
+import com.davidelatina.bankingdemo.model.util.HashedTimingWheel;
+
+/**
+ * Concurrent registry of logged-in sessions, keyed by random opaque tokens.
+ * <p>
+ * Looking a session up is a single hash map read and marks the session as
+ * used. Sessions unused for longer than the idle timeout expire: they are
+ * filed in a {@link HashedTimingWheel} under their deadline and a single
+ * background thread advances the wheel, so the number of sessions does not
+ * affect the cost of expiry. A session used since it was filed is simply
+ * filed again under its new deadline when its slot comes round.
+ * <p>
+ * An expired session is never returned, even if the wheel has not reached it
+ * yet.
+ *
+ * @see SessionManager
+ */
+public class SessionRegistry implements AutoCloseable {
+
+  // Static variables
+  public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(15);
+  public static final Duration DEFAULT_TICK_DURATION = Duration.ofSeconds(1);
+  public static final int DEFAULT_WHEEL_SIZE = 512;
+  private static final int TOKEN_BYTES = 32; // 256 bits
+
+  // Instance variables
+  private final long idleTimeoutNanos;
+  private final long touchGranularityNanos;
+  private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+  private final HashedTimingWheel<Session> expiryWheel;
+  private final ScheduledExecutorService expiryThread;
+  private final SecureRandom secureRandom = new SecureRandom();
+  private final Base64.Encoder tokenEncoder = Base64.getUrlEncoder().withoutPadding();
+
+  // --- Statistics
+  private final LongAdder created = new LongAdder();
+  private final LongAdder expired = new LongAdder();
+  private final LongAdder loggedOut = new LongAdder();
+
+  /**
+   * Point-in-time snapshot of registry statistics.
+   *
+   * @param active    sessions currently registered
+   * @param created   sessions created
+   * @param expired   sessions evicted after their idle timeout
+   * @param loggedOut sessions ended on request
+   */
+  public record Stats(int active, long created, long expired, long loggedOut) {
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "active=%d created=%d expired=%d loggedOut=%d", active, created, expired, loggedOut);
+    }
+  }
+
+  // Constructors
+  public SessionRegistry() {
+    this(DEFAULT_IDLE_TIMEOUT, DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+  }
+
+  /**
+   * @param idleTimeout  time without use after which a session expires
+   * @param tickDuration resolution of expiry
+   * @param wheelSize    slots in the timing wheel; ideally enough for one
+   *                     idle timeout
+   */
+  public SessionRegistry(Duration idleTimeout, Duration tickDuration, int wheelSize) {
+    // --- Parameter validation
+    if (idleTimeout.isZero() || idleTimeout.isNegative()) {
+      throw new IllegalArgumentException("Session idle timeout must be positive.");
+    }
+
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    this.expiryWheel = new HashedTimingWheel<>(tickDuration, wheelSize, System.nanoTime());
+    // Recording every single use would make hot sessions contend on one field
+    this.touchGranularityNanos = Math.min(tickDuration.toNanos(), idleTimeoutNanos / 2);
+
+    this.expiryThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "session-expiry");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    long period = tickDuration.toNanos();
+    expiryThread.scheduleAtFixedRate(this::expire, period, period, TimeUnit.NANOSECONDS);
+  }
+
+  // Methods
+  /**
+   * Opens a new session for a customer.
+   *
+   * @return the session, holding its token
+   */
+  public Session create(Customer customer) {
+    // --- Parameter validation
+    if (customer == null) {
+      throw new IllegalArgumentException("Customer cannot be null.");
+    }
+
+    long now = System.nanoTime();
+    Session session;
+    do {
+      session = new Session(newToken(), customer, now);
+    } while (sessions.putIfAbsent(session.getToken(), session) != null);
+
+    expiryWheel.schedule(session, now + idleTimeoutNanos);
+    created.increment();
+    return session;
+  }
+
+  /**
+   * Looks up a session by token and marks it as used.
+   *
+   * @return the session, or {@link Optional#empty()} if the token is unknown
+   *         or the session has ended
+   */
+  public Optional<Session> get(String token) {
+    if (token == null) {
+      return Optional.empty();
+    }
+
+    Session session = sessions.get(token);
+    if (session == null) {
+      return Optional.empty();
+    }
+
+    long now = System.nanoTime();
+    long lastAccess = session.lastAccessNanos;
+    if (now - lastAccess >= idleTimeoutNanos) {
+      evict(session);
+      return Optional.empty();
+    }
+
+    if (now - lastAccess >= touchGranularityNanos) {
+      session.lastAccessNanos = now;
+    }
+    return Optional.of(session);
+  }
+
+  /**
+   * Ends a session.
+   *
+   * @return {@code true} if the token belonged to an active session
+   */
+  public boolean invalidate(String token) {
+    if (token == null) {
+      return false;
+    }
+
+    Session session = sessions.remove(token);
+    if (session == null) {
+      return false;
+    }
+
+    // Left in the timing wheel, which drops it when its slot comes round
+    session.ended = true;
+    loggedOut.increment();
+    return true;
+  }
+
+  public Stats getStats() {
+    return new Stats(sessions.size(), created.sum(), expired.sum(), loggedOut.sum());
+  }
+
+  /**
+   * Stops the expiry thread and ends every session.
+   */
+  @Override
+  public void close() {
+    expiryThread.shutdownNow();
+    sessions.values().forEach(session -> session.ended = true);
+    sessions.clear();
+  }
+
+  // --- Subroutines
+
+  private String newToken() {
+    byte[] bytes = new byte[TOKEN_BYTES];
+    secureRandom.nextBytes(bytes);
+    return tokenEncoder.encodeToString(bytes);
+  }
+
+  private void expire() {
+    try {
+      expiryWheel.advance(System.nanoTime(), this::onDeadline);
+    } catch (RuntimeException ex) {
+      // Keep the scheduled task alive
+      ex.printStackTrace();
+    }
+  }
+
+  private void onDeadline(Session session) {
+    if (session.ended) {
+      return;
+    }
+
+    long deadline = session.lastAccessNanos + idleTimeoutNanos;
+    if (System.nanoTime() - deadline >= 0) {
+      evict(session);
+    } else {
+      // Used since it was filed
+      expiryWheel.schedule(session, deadline);
+    }
+  }
+
+  private void evict(Session session) {
+    if (sessions.remove(session.getToken(), session)) {
+      session.ended = true;
+      expired.increment();
+    }
+  }
+}
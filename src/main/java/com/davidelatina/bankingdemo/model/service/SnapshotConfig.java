@@ -0,0 +1,55 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.time.Duration;
+
+import com.davidelatina.bankingdemo.config.Settings;
+
+/**
+ * Settings of a {@link BalanceSnapshotJob}.
+ *
+ * @param interval  time between snapshots; they are taken at multiples of it
+ *                  since midnight, so a day gives one at each midnight
+ * @param delay     how long after its time a snapshot is taken, so that
+ *                  transactions executed just before it are stored by then
+ * @param chunkSize account ids recorded per statement
+ * @param threads   chunks recorded at once, each on its own connection
+ */
+public record SnapshotConfig(Duration interval, Duration delay, int chunkSize, int threads) {
+
+  // Static variables
+  public static final Duration DEFAULT_INTERVAL = Duration.ofDays(1);
+  public static final Duration DEFAULT_DELAY = Duration.ofMinutes(1);
+  public static final int DEFAULT_CHUNK_SIZE = 10_000;
+  public static final int DEFAULT_THREADS = 4;
+
+  public SnapshotConfig {
+    // --- Parameter validation
+    if (interval == null || delay == null) {
+      throw new IllegalArgumentException("Snapshot interval and delay cannot be null.");
+    }
+
+    if (interval.toSeconds() < 1 || Duration.ofDays(1).toSeconds() % interval.toSeconds() != 0) {
+      throw new IllegalArgumentException("Snapshot interval must be a whole number of seconds dividing a day.");
+    }
+
+    if (delay.isNegative() || delay.compareTo(interval) >= 0) {
+      throw new IllegalArgumentException("Snapshot delay cannot be negative, and must be shorter than the interval.");
+    }
+
+    if (chunkSize < 1 || threads < 1) {
+      throw new IllegalArgumentException("Snapshot chunk size and threads must be positive.");
+    }
+  }
+
+  /**
+   * Reads the snapshot configuration from the application settings, using
+   * the defaults for missing keys.
+   */
+  public static SnapshotConfig fromSettings(Settings settings) {
+    return new SnapshotConfig(
+        Duration.ofSeconds(settings.getLong("SNAPSHOT_INTERVAL_SECONDS", DEFAULT_INTERVAL.toSeconds())),
+        Duration.ofSeconds(settings.getLong("SNAPSHOT_DELAY_SECONDS", DEFAULT_DELAY.toSeconds())),
+        settings.getInt("SNAPSHOT_CHUNK_SIZE", DEFAULT_CHUNK_SIZE),
+        settings.getInt("SNAPSHOT_THREADS", DEFAULT_THREADS));
+  }
+}
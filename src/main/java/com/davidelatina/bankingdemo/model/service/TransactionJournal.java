@@ -0,0 +1,548 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+import com.davidelatina.bankingdemo.dao.AccountDAO;
+import com.davidelatina.bankingdemo.model.entity.JournalEntry;
+import com.davidelatina.bankingdemo.model.entity.Money;
+import com.davidelatina.bankingdemo.model.entity.TransactionType;
+import com.davidelatina.bankingdemo.model.util.LatencyHistogram;
+
+/**
+ * Write-ahead journal of deposits and withdrawals, in a memory-mapped file.
+ * <p>
+ * A change is durable once its record is synced to the journal, which is far
+ * cheaper than a database commit; a background drainer then applies the
+ * records to the database in large batches, moving a checkpoint stored in the
+ * database in the same transaction. Records are applied exactly once, even
+ * across crashes: on {@link #open}, the records past the checkpoint are
+ * replayed before anything else happens.
+ * <p>
+ * Syncs are batched. With a sync interval of {@code 0}, {@link #append}
+ * returns once its record is synced, and one sync covers every record
+ * appended while the previous one was running. Otherwise a background thread
+ * syncs at that interval and {@link #append} returns straight away: a change
+ * then survives the process crashing, but not the machine, until the next
+ * sync.
+ * <p>
+ * The file is a ring of fixed-size records, each holding its position and a
+ * CRC-32C checksum; the end of the journal is the first record that does not
+ * match its position or checksum. Records are drained only once synced. If
+ * the drainer falls a full ring behind, appends wait for it.
+ * <p>
+ * All operations are thread-safe.
+ */
+public class TransactionJournal implements AutoCloseable {
+
+  // Static variables
+  // Record layout: position, account id, amount in 10^-9 units, executed at
+  // (epoch seconds of the local date-time), type, CRC-32C of the preceding
+  // bytes
+  public static final int RECORD_SIZE = 40;
+  private static final int ACCOUNT_OFFSET = 8;
+  private static final int AMOUNT_OFFSET = 16;
+  private static final int EXECUTED_AT_OFFSET = 24;
+  private static final int TYPE_OFFSET = 32;
+  private static final int CRC_OFFSET = 36;
+  private static final int TYPE_DEPOSIT = 1;
+  private static final int TYPE_WITHDRAWAL = 2;
+
+  private static final long POLL_INTERVAL_MS = 100;
+  private static final long RETRY_DELAY_MS = 1_000;
+  private static final long WAIT_TIMEOUT_MS = 30_000;
+
+  // Instance variables
+  private final AccountDAO accountDAO;
+  private final FileChannel channel;
+  private final MappedByteBuffer map;
+  private final long capacityBytes;
+  private final long syncIntervalNanos;
+  private final int drainBatchSize;
+  private final Object syncLock = new Object(); // one sync at a time
+  private Thread drainer;
+  private Thread syncer; // only with a sync interval
+
+  // Positions, in bytes since the journal was created: records before
+  // drainedPosition are in the database, records before durablePosition are
+  // on disk. All three are written holding this, which is notified when they
+  // move.
+  private volatile long drainedPosition;
+  private volatile long durablePosition;
+  private volatile long writtenPosition;
+  private volatile boolean closed; // no more appends
+  private volatile boolean draining = true; // cleared once the last records are synced
+  private volatile IOException syncFailure; // once set, no more appends
+
+  // Encoding buffers: for appends, guarded by this; for reads, used by the
+  // drainer only
+  private final byte[] writeRecord = new byte[RECORD_SIZE];
+  private final ByteBuffer writeBuffer = ByteBuffer.wrap(writeRecord);
+  private final CRC32C writeCrc = new CRC32C();
+  private final byte[] readRecord = new byte[RECORD_SIZE];
+  private final ByteBuffer readBuffer = ByteBuffer.wrap(readRecord);
+  private final CRC32C readCrc = new CRC32C();
+
+  // --- Statistics
+  private long recovered;
+  private final LongAdder appended = new LongAdder();
+  private final LongAdder drained = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder drainFailures = new LongAdder();
+  private final LatencyHistogram recordsPerSync = new LatencyHistogram();
+  private final LatencyHistogram syncLatency = new LatencyHistogram();
+
+  /**
+   * Point-in-time snapshot of journal statistics.
+   *
+   * @param appended           records appended since start
+   * @param pending            records not yet in the database
+   * @param recovered          records replayed at start
+   * @param syncs              file syncs
+   * @param meanRecordsPerSync records covered by each sync, on average
+   * @param drained            records applied to the database since start
+   * @param rejected           records the database refused, and were skipped
+   * @param drainFailures      drain attempts that failed and were retried
+   * @param syncLatency        time taken by each sync
+   */
+  public record Stats(long appended, long pending, long recovered, long syncs, double meanRecordsPerSync,
+      long drained, long rejected, long drainFailures, LatencyHistogram.Snapshot syncLatency) {
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "appended=%d pending=%d recovered=%d syncs=%d recordsPerSync=%.1f drained=%d rejected=%d drainFailures=%d syncLatency(%s)",
+          appended, pending, recovered, syncs, meanRecordsPerSync, drained, rejected, drainFailures, syncLatency);
+    }
+  }
+
+  // Constructor
+  private TransactionJournal(JournalConfig config, AccountDAO accountDAO, long checkpoint) throws IOException {
+    this.accountDAO = accountDAO;
+    this.capacityBytes = (long) config.capacity() * RECORD_SIZE;
+    this.syncIntervalNanos = TimeUnit.MICROSECONDS.toNanos(config.syncIntervalMicros());
+    this.drainBatchSize = config.drainBatchSize();
+
+    this.channel = FileChannel.open(config.path(),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      // Positions map to records modulo the capacity: it cannot change while
+      // records may be pending
+      long size = channel.size();
+      if (size != 0 && size != capacityBytes) {
+        throw new IOException("The journal " + config.path() + " holds " + size / RECORD_SIZE
+            + " records, not the " + config.capacity() + " configured. To resize it, delete it after a clean shutdown.");
+      }
+      this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+    } catch (IOException | RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+
+    this.drainedPosition = checkpoint;
+    this.durablePosition = checkpoint;
+    this.writtenPosition = checkpoint;
+  }
+
+  // Methods
+  /**
+   * Opens or creates a journal, replays the records that had not reached the
+   * database, and starts draining.
+   *
+   * @throws IOException  if the journal file cannot be used
+   * @throws SQLException if the checkpoint cannot be read or the replay fails;
+   *                      the records stay in the journal for the next attempt
+   */
+  public static TransactionJournal open(JournalConfig config, AccountDAO accountDAO)
+      throws IOException, SQLException {
+
+    TransactionJournal journal = new TransactionJournal(config, accountDAO, accountDAO.getJournalCheckpoint());
+    try {
+      journal.recover();
+      journal.start();
+      return journal;
+    } catch (IOException | SQLException | RuntimeException ex) {
+      journal.channel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Records a deposit or withdrawal, executed now.
+   * <p>
+   * Without a sync interval, returns once the record is synced to disk.
+   *
+   * @return position just past the record, to pass to
+   *         {@link #awaitDrained(long)}
+   * @throws IOException           if the record could not be written or
+   *                               synced, or the journal stayed full
+   * @throws IllegalStateException if the journal is closed
+   */
+  public long append(TransactionType type, long accountId, Money amount)
+      throws IOException, IllegalStateException {
+
+    // --- Parameter validation
+    if (type != TransactionType.DEPOSIT && type != TransactionType.WITHDRAWAL) {
+      throw new IllegalArgumentException("Only deposits and withdrawals are journaled.");
+    }
+
+    long end;
+    synchronized (this) {
+      if (closed) {
+        throw new IllegalStateException("The journal is closed.");
+      }
+      if (syncFailure != null) {
+        throw new IOException("The journal could not be synced; restart to recover it.", syncFailure);
+      }
+
+      // Full ring: wait for the drainer to free a record
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_TIMEOUT_MS);
+      while (writtenPosition + RECORD_SIZE - drainedPosition > capacityBytes) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          throw new IOException("The journal is full: the database is not keeping up.");
+        }
+        timedWait(remaining);
+      }
+
+      long position = writtenPosition;
+      encode(position, type, accountId, amount, LocalDateTime.now());
+      map.put(offsetOf(position), writeRecord);
+      end = position + RECORD_SIZE;
+      writtenPosition = end;
+    }
+    appended.increment();
+
+    if (syncer == null) {
+      sync(end);
+    }
+    return end;
+  }
+
+  /**
+   * Waits until every record before {@code position} is in the database.
+   *
+   * @throws IOException if they could not be synced, or did not reach the
+   *                     database in time
+   */
+  public void awaitDrained(long position) throws IOException {
+    if (drainedPosition >= position) {
+      return;
+    }
+
+    // Only synced records are drained: do not wait for the next interval
+    sync(position);
+
+    synchronized (this) {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_TIMEOUT_MS);
+      while (drainedPosition < position) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          throw new IOException("The journal is not reaching the database; changes are kept and applied later.");
+        }
+        timedWait(remaining);
+      }
+    }
+  }
+
+  /**
+   * Waits until every record appended so far is in the database.
+   *
+   * @throws IOException if they could not be synced, or did not reach the
+   *                     database in time
+   */
+  public void awaitDrained() throws IOException {
+    awaitDrained(writtenPosition);
+  }
+
+  public Stats getStats() {
+    LatencyHistogram.Snapshot syncs = recordsPerSync.snapshot();
+    return new Stats(appended.sum(), (writtenPosition - drainedPosition) / RECORD_SIZE, recovered,
+        syncs.count(), syncs.mean(), drained.sum(), rejected.sum(), drainFailures.sum(), syncLatency.snapshot());
+  }
+
+  /**
+   * Stops accepting records, syncs the last ones and waits for the drainer to
+   * apply them. Records the database cannot take in time stay in the journal
+   * and are replayed on the next {@link #open}.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+
+    try {
+      if (syncer != null) {
+        syncer.join();
+      }
+      try {
+        sync(writtenPosition);
+      } catch (IOException ex) {
+        System.err.println("Could not sync the transaction journal: " + ex.getMessage());
+      }
+
+      synchronized (this) {
+        draining = false;
+        notifyAll();
+      }
+      drainer.join(WAIT_TIMEOUT_MS);
+      if (drainer.isAlive()) {
+        drainer.interrupt();
+        drainer.join();
+        System.err.println("Transaction journal records not yet in the database are replayed on the next start.");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+
+    try {
+      channel.close();
+    } catch (IOException ex) {
+      System.err.println("Could not close the transaction journal: " + ex.getMessage());
+    }
+  }
+
+  // --- Subroutines
+
+  // Finds the end of the journal and applies the records past the
+  // checkpoint. Runs before any thread is started.
+  private void recover() throws IOException, SQLException {
+    long end = drainedPosition;
+    while (end - drainedPosition < capacityBytes && readEntry(end) != null) {
+      end += RECORD_SIZE;
+    }
+
+    // Records beyond the end were never acknowledged, or are torn. Erase
+    // them, or they could pass for valid once new records close the gap.
+    byte[] empty = new byte[RECORD_SIZE];
+    for (int offset = 0; offset < capacityBytes; offset += RECORD_SIZE) {
+      if (map.getLong(offset) >= end) {
+        map.put(offset, empty);
+      }
+    }
+    map.force();
+
+    writtenPosition = end;
+    durablePosition = end;
+    recovered = (end - drainedPosition) / RECORD_SIZE;
+
+    while (drainedPosition < end) {
+      drainBatch();
+    }
+  }
+
+  private void start() {
+    drainer = new Thread(this::runDrainer, "journal-drain");
+    drainer.setDaemon(true);
+    drainer.start();
+
+    if (syncIntervalNanos > 0) {
+      syncer = new Thread(this::runSyncer, "journal-sync");
+      syncer.setDaemon(true);
+      syncer.start();
+    }
+  }
+
+  // Makes every record before position durable. Callers arriving while a
+  // sync runs are covered by the next one, which takes everything written
+  // by then.
+  private void sync(long position) throws IOException {
+    if (durablePosition >= position) {
+      return;
+    }
+
+    synchronized (syncLock) {
+      if (durablePosition >= position) {
+        return;
+      }
+      if (syncFailure != null) {
+        throw new IOException("The journal could not be synced; restart to recover it.", syncFailure);
+      }
+
+      long from = durablePosition;
+      long to = writtenPosition;
+      long start = System.nanoTime();
+      try {
+        force(from, to);
+      } catch (UncheckedIOException ex) {
+        syncFailure = ex.getCause();
+        throw ex.getCause();
+      }
+      syncLatency.record(System.nanoTime() - start);
+      recordsPerSync.record((to - from) / RECORD_SIZE);
+
+      synchronized (this) {
+        durablePosition = to;
+        notifyAll();
+      }
+    }
+  }
+
+  // Writes the records in [from, to) to disk, in one or two ranges of the
+  // ring
+  private void force(long from, long to) {
+    int start = offsetOf(from);
+    long length = to - from;
+    if (start + length <= capacityBytes) {
+      map.force(start, (int) length);
+    } else {
+      map.force(start, (int) (capacityBytes - start));
+      map.force(0, (int) (length - (capacityBytes - start)));
+    }
+  }
+
+  private void runSyncer() {
+    while (!closed) {
+      LockSupport.parkNanos(syncIntervalNanos);
+      try {
+        sync(writtenPosition);
+      } catch (IOException ex) {
+        System.err.println("Could not sync the transaction journal: " + ex.getMessage());
+        return;
+      }
+    }
+  }
+
+  private void runDrainer() {
+    while (true) {
+      try {
+        if (drainBatch()) {
+          continue;
+        }
+
+        synchronized (this) {
+          if (drainedPosition == durablePosition) {
+            if (!draining) {
+              return;
+            }
+            wait(POLL_INTERVAL_MS);
+          }
+        }
+
+      } catch (InterruptedException ex) {
+        return; // only close() interrupts
+      } catch (SQLException | RuntimeException ex) {
+        // Must not kill the thread: the records stay until they are applied
+        drainFailures.increment();
+        System.err.println("Could not apply the transaction journal, retrying: " + ex.getMessage());
+        try {
+          Thread.sleep(RETRY_DELAY_MS);
+        } catch (InterruptedException interrupted) {
+          return;
+        }
+      }
+    }
+  }
+
+  // Applies the next synced records, if any
+  private boolean drainBatch() throws SQLException {
+    long from = drainedPosition;
+    long to = Math.min(durablePosition, from + (long) drainBatchSize * RECORD_SIZE);
+    if (to == from) {
+      return false;
+    }
+
+    List<JournalEntry> entries = new ArrayList<>((int) ((to - from) / RECORD_SIZE));
+    for (long position = from; position < to; position += RECORD_SIZE) {
+      JournalEntry entry = readEntry(position);
+      if (entry == null) {
+        throw new IllegalStateException("The journal record at position " + position + " is corrupt.");
+      }
+      entries.add(entry);
+    }
+
+    // Nothing was committed if some were refused: skip those, retry the
+    // others. The engine is the only writer, so this should not happen.
+    List<JournalEntry> remaining = entries;
+    List<JournalEntry> refused;
+    while (!(refused = accountDAO.applyJournal(remaining, to)).isEmpty()) {
+      rejected.add(refused.size());
+      for (JournalEntry entry : refused) {
+        System.err.println("The database refused a journaled change, skipped: " + entry);
+      }
+      remaining = new ArrayList<>(remaining);
+      remaining.removeAll(refused);
+    }
+    drained.add(remaining.size());
+
+    synchronized (this) {
+      drainedPosition = to;
+      notifyAll();
+    }
+    return true;
+  }
+
+  // Called holding this
+  private void encode(long position, TransactionType type, long accountId, Money amount,
+      LocalDateTime executedAt) {
+
+    writeBuffer.putLong(0, position);
+    writeBuffer.putLong(ACCOUNT_OFFSET, accountId);
+    writeBuffer.putLong(AMOUNT_OFFSET, amount.units());
+    writeBuffer.putLong(EXECUTED_AT_OFFSET, executedAt.toEpochSecond(ZoneOffset.UTC));
+    writeBuffer.putInt(TYPE_OFFSET, type == TransactionType.DEPOSIT ? TYPE_DEPOSIT : TYPE_WITHDRAWAL);
+    writeCrc.reset();
+    writeCrc.update(writeRecord, 0, CRC_OFFSET);
+    writeBuffer.putInt(CRC_OFFSET, (int) writeCrc.getValue());
+  }
+
+  // The record at a position, or null if there is no valid one
+  private JournalEntry readEntry(long position) {
+    map.get(offsetOf(position), readRecord);
+
+    if (readBuffer.getLong(0) != position) {
+      return null;
+    }
+    readCrc.reset();
+    readCrc.update(readRecord, 0, CRC_OFFSET);
+    if (readBuffer.getInt(CRC_OFFSET) != (int) readCrc.getValue()) {
+      return null;
+    }
+
+    TransactionType type = switch (readBuffer.getInt(TYPE_OFFSET)) {
+      case TYPE_DEPOSIT -> TransactionType.DEPOSIT;
+      case TYPE_WITHDRAWAL -> TransactionType.WITHDRAWAL;
+      default -> null;
+    };
+    if (type == null) {
+      return null;
+    }
+
+    return new JournalEntry(position, type, readBuffer.getLong(ACCOUNT_OFFSET),
+        Money.ofUnits(readBuffer.getLong(AMOUNT_OFFSET)),
+        LocalDateTime.ofEpochSecond(readBuffer.getLong(EXECUTED_AT_OFFSET), 0, ZoneOffset.UTC));
+  }
+
+  private int offsetOf(long position) {
+    return (int) (position % capacityBytes);
+  }
+
+  // Called holding this
+  private void timedWait(long nanos) throws InterruptedIOException {
+    try {
+      TimeUnit.NANOSECONDS.timedWait(this, nanos);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the journal.");
+    }
+  }
+}
@@ -0,0 +1,271 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.davidelatina.bankingdemo.dao.AccountDAO;
+import com.davidelatina.bankingdemo.model.entity.Transfer;
+import com.davidelatina.bankingdemo.model.util.LatencyHistogram;
+import com.davidelatina.bankingdemo.model.util.UnsignedIds;
+
+/**
+ * Group commit of transfers: transfers submitted concurrently are written to
+ * the database together, in one transaction, by a single committer thread.
+ * <p>
+ * A caller of {@link #commit(Transfer)} waits until its transfer is durable.
+ * Meanwhile the committer takes every transfer already queued, up to
+ * {@code maxBatchSize}, optionally waiting up to {@code maxWait} for more to
+ * arrive, and commits them at once. Under load, one commit therefore serves
+ * many transfers; with a single caller, each commit holds one transfer and
+ * costs no more than a direct write.
+ * <p>
+ * The transfers of a batch must touch disjoint accounts, which
+ * {@link BalanceEngine} guarantees by holding the accounts' locks until the
+ * commit returns. If some transfers of a batch cannot be applied, they fail
+ * alone and the rest of the batch is committed without them.
+ */
+public class TransferCommitter implements AutoCloseable {
+
+  // Static variables
+  public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+  private static final long POLL_INTERVAL_MS = 100;
+
+  // Instance variables
+  private final AccountDAO accountDAO;
+  private final int maxBatchSize;
+  private final long maxWaitNanos;
+  private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+  private final Thread committer;
+  private volatile boolean closed; // set, and checked before queueing, holding this
+
+  // --- Statistics
+  private final long startNanos = System.nanoTime();
+  private final LongAdder committed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder commits = new LongAdder();
+  private final LatencyHistogram batchSizes = new LatencyHistogram();
+  private final LatencyHistogram commitLatency = new LatencyHistogram();
+
+  // A transfer waiting for the committer
+  private record Pending(Transfer transfer, CompletableFuture<Void> done) {
+  }
+
+  /**
+   * Point-in-time snapshot of group commit statistics.
+   *
+   * @param committed          transfers committed
+   * @param failed             transfers that could not be committed
+   * @param commits            database commits
+   * @param transfersPerSecond transfers committed per second since start
+   * @param meanBatchSize      transfers per commit, on average
+   * @param p50BatchSize       median transfers per commit
+   * @param p99BatchSize       99th percentile of transfers per commit
+   * @param maxBatchSize       most transfers in one commit
+   * @param commitLatency      time taken by each commit
+   */
+  public record Stats(long committed, long failed, long commits, double transfersPerSecond,
+      double meanBatchSize, long p50BatchSize, long p99BatchSize, long maxBatchSize,
+      LatencyHistogram.Snapshot commitLatency) {
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "committed=%d failed=%d commits=%d transfers/s=%.1f batchSize(mean=%.1f p50=%d p99=%d max=%d) commitLatency(%s)",
+          committed, failed, commits, transfersPerSecond, meanBatchSize, p50BatchSize, p99BatchSize, maxBatchSize,
+          commitLatency);
+    }
+  }
+
+  // Constructors
+  public TransferCommitter(AccountDAO accountDAO) {
+    this(accountDAO, DEFAULT_MAX_BATCH_SIZE, 0);
+  }
+
+  /**
+   * @param accountDAO    where transfers are written
+   * @param maxBatchSize  most transfers in one commit
+   * @param maxWaitMicros how long a commit may wait for more transfers once
+   *                      it has one; {@code 0} commits whatever is queued
+   *                      right away
+   */
+  public TransferCommitter(AccountDAO accountDAO, int maxBatchSize, long maxWaitMicros) {
+    // --- Parameter validation
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("Maximum batch size must be positive.");
+    }
+    if (maxWaitMicros < 0) {
+      throw new IllegalArgumentException("Maximum wait cannot be negative.");
+    }
+
+    this.accountDAO = accountDAO;
+    this.maxBatchSize = maxBatchSize;
+    this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+
+    this.committer = new Thread(this::run, "transfer-commit");
+    committer.setDaemon(true);
+    committer.start();
+  }
+
+  // Methods
+  /**
+   * Writes a transfer and waits until it is committed.
+   * <p>
+   * The wait cannot be interrupted: once queued, the transfer may be
+   * committed at any moment, and the caller must not go on as if it had not
+   * been.
+   *
+   * @throws IllegalStateException if the transfer could not be applied to the
+   *                               stored balances, or the committer is closed
+   * @throws SQLException          if the commit failed; nothing is changed
+   */
+  public void commit(Transfer transfer) throws IllegalStateException, SQLException {
+    Pending pending = new Pending(transfer, new CompletableFuture<>());
+
+    // Once closed is set, nothing more is queued, so the committer can drain
+    // the queue and stop
+    synchronized (this) {
+      if (closed) {
+        throw new IllegalStateException("Transfers are no longer accepted.");
+      }
+      queue.add(pending);
+    }
+
+    try {
+      pending.done().join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof SQLException sqlException) {
+        throw sqlException;
+      }
+      if (ex.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw ex;
+    }
+  }
+
+  public Stats getStats() {
+    LatencyHistogram.Snapshot batches = batchSizes.snapshot();
+    double seconds = (System.nanoTime() - startNanos) / 1e9;
+    long committedCount = committed.sum();
+
+    return new Stats(committedCount, failed.sum(), commits.sum(),
+        seconds > 0 ? committedCount / seconds : 0.0,
+        batches.mean(), batches.p50(), batches.p99(), batches.max(),
+        commitLatency.snapshot());
+  }
+
+  /**
+   * Commits the transfers already queued, then stops the committer thread.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+    }
+    try {
+      committer.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // --- Subroutines
+
+  private void run() {
+    List<Pending> batch = new ArrayList<>(maxBatchSize);
+
+    while (!closed || !queue.isEmpty()) {
+      try {
+        Pending first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+
+        batch.add(first);
+        queue.drainTo(batch, maxBatchSize - 1);
+
+        // Optionally wait for stragglers
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxBatchSize && maxWaitNanos > 0) {
+          long remaining = deadline - System.nanoTime();
+          Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+          queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+
+        commitBatch(batch);
+
+      } catch (InterruptedException ex) {
+        // Only close() stops the committer
+      } catch (RuntimeException ex) {
+        // Must not kill the thread, or every later transfer would hang
+        ex.printStackTrace();
+        for (Pending pending : batch) {
+          pending.done().completeExceptionally(ex);
+        }
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void commitBatch(List<Pending> batch) {
+    List<Pending> remaining = new ArrayList<>(batch);
+
+    while (!remaining.isEmpty()) {
+      List<Transfer> transfers = new ArrayList<>(remaining.size());
+      for (Pending pending : remaining) {
+        transfers.add(pending.transfer());
+      }
+
+      long start = System.nanoTime();
+      List<Transfer> rejected;
+      try {
+        rejected = accountDAO.applyTransfers(transfers);
+      } catch (SQLException ex) {
+        failed.add(remaining.size());
+        for (Pending pending : remaining) {
+          pending.done().completeExceptionally(ex);
+        }
+        return;
+      }
+
+      if (rejected.isEmpty()) {
+        commitLatency.record(System.nanoTime() - start);
+        commits.increment();
+        batchSizes.record(remaining.size());
+        committed.add(remaining.size());
+        for (Pending pending : remaining) {
+          pending.done().complete(null);
+        }
+        return;
+      }
+
+      // Nothing was committed: fail the rejected transfers, retry the others.
+      // Transfers are records, so equal transfers are interchangeable.
+      List<Pending> retry = new ArrayList<>(remaining.size());
+      for (Pending pending : remaining) {
+        if (rejected.remove(pending.transfer())) {
+          failed.increment();
+          pending.done().completeExceptionally(new IllegalStateException(
+              "The stored balances of accounts " + UnsignedIds.toString(pending.transfer().fromAccountId())
+                  + " and " + UnsignedIds.toString(pending.transfer().toAccountId())
+                  + " do not allow this transfer."));
+        } else {
+          retry.add(pending);
+        }
+      }
+      remaining = retry;
+    }
+  }
+}
@@ -0,0 +1,228 @@
+package com.davidelatina.bankingdemo.model.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import com.davidelatina.bankingdemo.dao.CustomerDAO;
+
+/**
+ * Bloom filter over registered usernames.
+ * <p>
+ * A negative answer from {@link #mightContain(String)} means the username is
+ * definitely not taken, so no database query is needed. A positive answer may
+ * be a false positive, at roughly the configured rate, and must be confirmed
+ * against the database.
+ * <p>
+ * Usernames are compared case- and accent-insensitively, like the
+ * {@code utf8mb4_unicode_ci} collation of {@code customer.username}, so that
+ * names the database treats as equal always share their filter bits. The
+ * database's unique constraint remains the final arbiter.
+ * <p>
+ * The filter only grows: it must be built from every existing username
+ * before first use, and told about each new one.
+ *
+ * @see CustomerService#checkUsernameAvailable(String)
+ */
+public class UsernameFilter {
+
+  // Static variables
+  public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+  // Room for growth when sizing the filter from the current table
+  private static final int GROWTH_FACTOR = 2;
+  private static final int MIN_EXPECTED_INSERTIONS = 1_000;
+
+  // Instance variables
+  private final double falsePositiveRate;
+  private final long bitCount;
+  private final int hashCount;
+  private final AtomicLongArray bits;
+
+  // --- Statistics
+  private final LongAdder insertions = new LongAdder();
+  private final LongAdder definitelyAbsent = new LongAdder();
+  private final LongAdder confirmedPresent = new LongAdder();
+  private final LongAdder falsePositives = new LongAdder();
+
+  /**
+   * Point-in-time snapshot of filter statistics.
+   *
+   * @param configuredFalsePositiveRate target rate the filter was sized for
+   * @param estimatedFalsePositiveRate  expected rate at the current fill level
+   * @param bitCount                    size of the filter in bits
+   * @param hashCount                   bits set per username
+   * @param insertions                  usernames added
+   * @param definitelyAbsent            lookups answered without the database
+   * @param confirmedPresent            positives confirmed by the database
+   * @param falsePositives              positives the database did not confirm
+   */
+  public record Stats(
+      double configuredFalsePositiveRate,
+      double estimatedFalsePositiveRate,
+      long bitCount,
+      int hashCount,
+      long insertions,
+      long definitelyAbsent,
+      long confirmedPresent,
+      long falsePositives) {
+
+    /**
+     * Share of lookups for untaken usernames that still went to the database.
+     */
+    public double observedFalsePositiveRate() {
+      long untaken = definitelyAbsent + falsePositives;
+      return untaken == 0 ? 0.0 : (double) falsePositives / untaken;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "bits=%d hashes=%d insertions=%d fpp(configured)=%.4f fpp(estimated)=%.4f fpp(observed)=%.4f"
+              + " definitelyAbsent=%d confirmedPresent=%d falsePositives=%d",
+          bitCount, hashCount, insertions, configuredFalsePositiveRate, estimatedFalsePositiveRate,
+          observedFalsePositiveRate(), definitelyAbsent, confirmedPresent, falsePositives);
+    }
+  }
+
+  // Constructor
+  /**
+   * Creates an empty filter.
+   *
+   * @param expectedInsertions number of usernames the filter is sized for
+   * @param falsePositiveRate  target false positive rate at that size, between
+   *                           0 and 1 exclusive
+   */
+  public UsernameFilter(long expectedInsertions, double falsePositiveRate) {
+    // --- Parameter validation
+    if (expectedInsertions < 1) {
+      throw new IllegalArgumentException("Expected insertions must be positive.");
+    }
+
+    if (!(falsePositiveRate > 0.0 && falsePositiveRate < 1.0)) {
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1.");
+    }
+
+    this.falsePositiveRate = falsePositiveRate;
+
+    // Optimal sizing: m = -n ln p / (ln 2)^2, k = (m / n) ln 2
+    long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.min(Integer.MAX_VALUE, (optimalBits + 63) / 64);
+    this.bitCount = words * 64L;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    this.bits = new AtomicLongArray(words);
+  }
+
+  // Methods
+  /**
+   * Builds a filter holding every username currently in the database.
+   *
+   * @param customerDAO       source of the usernames
+   * @param falsePositiveRate target false positive rate
+   * @throws SQLException if the usernames could not be read
+   */
+  public static UsernameFilter load(CustomerDAO customerDAO, double falsePositiveRate) throws SQLException {
+    long existing = customerDAO.countCustomers();
+    UsernameFilter filter = new UsernameFilter(
+        Math.max(MIN_EXPECTED_INSERTIONS, existing * GROWTH_FACTOR), falsePositiveRate);
+
+    try (Stream<String> usernames = customerDAO.streamUsernames()) {
+      usernames.forEach(filter::put);
+    }
+    return filter;
+  }
+
+  public void put(String username) {
+    long hash = hash(username);
+    long h1 = hash;
+    long h2 = mix(hash) | 1; // odd, so probes cover every bit
+
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+
+      // Set the bit, unless it already is
+      long current = bits.get(word);
+      while ((current & mask) == 0) {
+        long witness = bits.compareAndExchange(word, current, current | mask);
+        if (witness == current) {
+          break;
+        }
+        current = witness;
+      }
+    }
+    insertions.increment();
+  }
+
+  /**
+   * @return {@code false} if the username is definitely not registered,
+   *         {@code true} if it may be
+   */
+  public boolean mightContain(String username) {
+    long hash = hash(username);
+    long h1 = hash;
+    long h2 = mix(hash) | 1;
+
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        definitelyAbsent.increment();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Records the database's answer for a username the filter reported as
+   * possibly present.
+   *
+   * @param present whether the database found the username
+   */
+  public void recordDatabaseCheck(boolean present) {
+    if (present) {
+      confirmedPresent.increment();
+    } else {
+      falsePositives.increment();
+    }
+  }
+
+  public Stats getStats() {
+    long inserted = insertions.sum();
+    double estimated = Math.pow(1 - Math.exp(-(double) hashCount * inserted / bitCount), hashCount);
+
+    return new Stats(falsePositiveRate, estimated, bitCount, hashCount, inserted,
+        definitelyAbsent.sum(), confirmedPresent.sum(), falsePositives.sum());
+  }
+
+  // --- Subroutines
+
+  // Folds case and accents the way the database collation does
+  static String normalize(String username) {
+    String decomposed = Normalizer.normalize(username, Normalizer.Form.NFKD);
+    String stripped = decomposed.replaceAll("\\p{M}", "").stripTrailing();
+    // Upper-casing first also folds characters such as the German sharp s
+    return stripped.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+  }
+
+  // 64-bit FNV-1a over the normalized UTF-8 bytes, finalized with mix()
+  private static long hash(String username) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : normalize(username).getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  // SplitMix64 finalizer
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,66 @@
+package com.davidelatina.bankingdemo.model.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 CSV support: comma separated fields, optionally enclosed
+ * in double quotes, with {@code ""} standing for a quote inside a quoted
+ * field. Fields spanning several lines are not supported.
+ */
+public final class Csv {
+
+  // Constructor
+  private Csv() {
+  }
+
+  // Methods
+  /**
+   * Splits one line of CSV into its fields.
+   *
+   * @throws IllegalArgumentException if a quoted field is not closed
+   */
+  public static List<String> parseLine(String line) throws IllegalArgumentException {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    int i = 0;
+
+    while (true) {
+      if (i < line.length() && line.charAt(i) == '"') {
+        // Quoted field
+        i++;
+        while (true) {
+          if (i >= line.length()) {
+            throw new IllegalArgumentException("Unterminated quoted field.");
+          }
+          char c = line.charAt(i++);
+          if (c != '"') {
+            field.append(c);
+          } else if (i < line.length() && line.charAt(i) == '"') {
+            field.append('"');
+            i++;
+          } else {
+            break;
+          }
+        }
+        // Anything up to the next separator is kept as is
+        while (i < line.length() && line.charAt(i) != ',') {
+          field.append(line.charAt(i++));
+        }
+
+      } else {
+        while (i < line.length() && line.charAt(i) != ',') {
+          field.append(line.charAt(i++));
+        }
+      }
+
+      fields.add(field.toString());
+      field.setLength(0);
+
+      if (i >= line.length()) {
+        return fields;
+      }
+      i++; // separator
+    }
+  }
+}
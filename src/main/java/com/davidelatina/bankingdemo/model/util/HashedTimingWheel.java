@@ -0,0 +1,134 @@
+package com.davidelatina.bankingdemo.model.util;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: a ring of slots, each holding the items due in the
+ * ticks that map onto it.
+ * <p>
+ * Scheduling an item is O(1) whatever the number of pending items, and a
+ * single call to {@link #advance(long, Consumer)} hands out every item whose
+ * tick has passed. Deadlines further away than one turn of the wheel stay in
+ * their slot until the right turn comes round.
+ * <p>
+ * Items are never delivered before their deadline, and normally within one
+ * tick after it; an item scheduled for the very next tick while that tick is
+ * being delivered waits for the following turn. Cancelling is left to the
+ * caller:
+ * an item that is no longer wanted is simply ignored when it is delivered.
+ * <p>
+ * {@link #schedule(Object, long)} may be called from any thread;
+ * {@link #advance(long, Consumer)} is meant to be driven by one thread.
+ *
+ * @param <T> type of the scheduled items
+ */
+public class HashedTimingWheel<T> {
+
+  // Instance variables
+  private final long tickNanos;
+  private final int mask;
+  private final Slot<T>[] slots;
+  private final long originNanos;
+  private volatile long currentTick; // last tick delivered
+
+  private record Entry<T>(T item, long tick) {
+  }
+
+  // One slot of the wheel. The deque being drained is swapped for an empty
+  // one, so scheduling never waits for delivery.
+  private static final class Slot<T> {
+    private ArrayDeque<Entry<T>> entries = new ArrayDeque<>();
+    private ArrayDeque<Entry<T>> spare = new ArrayDeque<>();
+
+    synchronized void add(Entry<T> entry) {
+      entries.addLast(entry);
+    }
+
+    synchronized ArrayDeque<Entry<T>> swap() {
+      ArrayDeque<Entry<T>> drained = entries;
+      entries = spare;
+      spare = drained;
+      return drained;
+    }
+  }
+
+  // Constructor
+  /**
+   * @param tickDuration resolution of the wheel
+   * @param wheelSize    number of slots, rounded up to a power of two
+   * @param originNanos  {@link System#nanoTime()} value of tick zero
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public HashedTimingWheel(Duration tickDuration, int wheelSize, long originNanos) {
+    // --- Parameter validation
+    if (tickDuration.isZero() || tickDuration.isNegative()) {
+      throw new IllegalArgumentException("Tick duration must be positive.");
+    }
+
+    if (wheelSize < 1 || wheelSize > 1 << 30) {
+      throw new IllegalArgumentException("Wheel size must be between 1 and 2^30.");
+    }
+
+    int size = Integer.highestOneBit(wheelSize);
+    if (size < wheelSize) {
+      size <<= 1;
+    }
+
+    this.tickNanos = tickDuration.toNanos();
+    this.mask = size - 1;
+    this.slots = new Slot[size];
+    for (int i = 0; i < size; i++) {
+      slots[i] = new Slot<>();
+    }
+    this.originNanos = originNanos;
+  }
+
+  // Methods
+  /**
+   * Schedules an item for delivery once {@code deadlineNanos} has passed.
+   *
+   * @param item          the item
+   * @param deadlineNanos {@link System#nanoTime()} value after which the item
+   *                      is due
+   */
+  public void schedule(T item, long deadlineNanos) {
+    // Round up, and never into a tick that has already been delivered
+    long tick = Math.floorDiv(deadlineNanos - originNanos + tickNanos - 1, tickNanos);
+    tick = Math.max(tick, currentTick + 1);
+
+    slots[(int) (tick & mask)].add(new Entry<>(item, tick));
+  }
+
+  /**
+   * Delivers every item due up to {@code nowNanos}, tick by tick. The consumer
+   * may schedule items again, including the one it was given.
+   *
+   * @param nowNanos current {@link System#nanoTime()} value
+   * @param onDue    receives each due item
+   */
+  public synchronized void advance(long nowNanos, Consumer<? super T> onDue) {
+    long targetTick = Math.floorDiv(nowNanos - originNanos, tickNanos);
+
+    while (currentTick < targetTick) {
+      long tick = currentTick + 1;
+      Slot<T> slot = slots[(int) (tick & mask)];
+      currentTick = tick; // items scheduled from here on go to later ticks
+
+      ArrayDeque<Entry<T>> drained = slot.swap();
+      Entry<T> entry;
+      while ((entry = drained.pollFirst()) != null) {
+        if (entry.tick() <= tick) {
+          onDue.accept(entry.item());
+        } else {
+          slot.add(entry); // due on a later turn of the wheel
+        }
+      }
+    }
+  }
+
+  public Duration getTickDuration() {
+    return Duration.ofNanos(tickNanos);
+  }
+}
@@ -0,0 +1,135 @@
+package com.davidelatina.bankingdemo.model.util;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of latencies in nanoseconds, with log-linear buckets.
+ * <p>
+ * Every power of two is split into {@value #SUB_BUCKETS} equal buckets, so
+ * percentiles are accurate to within about 6% across the whole {@code long}
+ * range. Recording a value is a handful of arithmetic operations plus one
+ * atomic increment and never allocates.
+ */
+public class LatencyHistogram {
+
+  // Static variables
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  // Instance variables
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  /**
+   * Point-in-time summary of a histogram. Times are in nanoseconds.
+   */
+  public record Snapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms p999=%.3fms max=%.3fms",
+          count, mean / 1e6, p50 / 1e6, p90 / 1e6, p99 / 1e6, p999 / 1e6, max / 1e6);
+    }
+  }
+
+  // Methods
+  /**
+   * Records one latency. Negative values are counted as zero.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucketOf(value));
+    totalNanos.add(value);
+
+    long max = maxNanos.get();
+    while (value > max && !maxNanos.compareAndSet(max, value)) {
+      max = maxNanos.get();
+    }
+  }
+
+  /**
+   * Returns the latency below which the given fraction of recorded values
+   * fall, or {@code 0} if nothing was recorded.
+   *
+   * @param quantile between 0 and 1
+   */
+  public long percentile(double quantile) {
+    long[] snapshot = copyCounts();
+    long count = 0;
+    for (long bucketCount : snapshot) {
+      count += bucketCount;
+    }
+    return percentile(snapshot, count, quantile);
+  }
+
+  public Snapshot snapshot() {
+    long[] snapshot = copyCounts();
+    long count = 0;
+    for (long bucketCount : snapshot) {
+      count += bucketCount;
+    }
+
+    return new Snapshot(
+        count,
+        count == 0 ? 0.0 : (double) totalNanos.sum() / count,
+        percentile(snapshot, count, 0.50),
+        percentile(snapshot, count, 0.90),
+        percentile(snapshot, count, 0.99),
+        percentile(snapshot, count, 0.999),
+        maxNanos.get());
+  }
+
+  // --- Subroutines
+
+  private long[] copyCounts() {
+    long[] copy = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+    }
+    return copy;
+  }
+
+  private long percentile(long[] snapshot, long count, double quantile) {
+    if (count == 0) {
+      return 0;
+    }
+
+    long rank = (long) Math.ceil(quantile * count);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= Math.max(1, rank)) {
+        return Math.min(upperBoundOf(i), maxNanos.get());
+      }
+    }
+    return maxNanos.get();
+  }
+
+  // Values below SUB_BUCKETS get one bucket each; above that, each power of
+  // two is split into SUB_BUCKETS linear buckets
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long upperBoundOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = bucket % SUB_BUCKETS;
+    long lowerBound = (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+    long width = 1L << (exponent - SUB_BUCKET_BITS);
+    return lowerBound + width - 1;
+  }
+}
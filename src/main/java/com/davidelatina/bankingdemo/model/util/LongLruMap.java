@@ -0,0 +1,272 @@
+package com.davidelatina.bankingdemo.model.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from primitive {@code long} keys to values, which also keeps its
+ * entries in least-recently-used order.
+ * <p>
+ * Serves the same purpose as an access-ordered
+ * {@link java.util.LinkedHashMap}, without boxing keys or allocating a node
+ * per entry: entries live in parallel arrays, chained per bucket and linked
+ * in access order by index. Removed entries are reused, and the arrays grow
+ * by doubling.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <V> type of the values
+ */
+public final class LongLruMap<V> {
+
+  // Static variables
+  private static final int NONE = -1;
+  private static final int MIN_CAPACITY = 16;
+
+  // Instance variables
+  // Entry i: keys[i], values[i], next entry of its bucket chain[i], and its
+  // neighbours in access order older[i] and newer[i]. Freed entries are
+  // chained through chain[].
+  private long[] keys;
+  private Object[] values;
+  private int[] chain;
+  private int[] older;
+  private int[] newer;
+
+  // First entry of each bucket; twice as many buckets as entries
+  private int[] buckets;
+
+  private int size;
+  private int used; // entries ever allocated, at most keys.length
+  private int free = NONE;
+  private int eldest = NONE;
+  private int youngest = NONE;
+
+  // Constructors
+  public LongLruMap() {
+    this(MIN_CAPACITY);
+  }
+
+  /**
+   * @param initialCapacity number of entries held before the first resize
+   */
+  public LongLruMap(int initialCapacity) {
+    // --- Parameter validation
+    if (initialCapacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative.");
+    }
+
+    allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, initialCapacity - 1)) << 1));
+  }
+
+  // Methods
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the value of a key, and makes it the most recently used.
+   *
+   * @return the value, or {@code null} if the key is absent
+   */
+  public V get(long key) {
+    int index = find(key);
+    if (index == NONE) {
+      return null;
+    }
+
+    moveToYoungest(index);
+    return valueAt(index);
+  }
+
+  public boolean containsKey(long key) {
+    return find(key) != NONE;
+  }
+
+  /**
+   * Associates a value with a key, and makes it the most recently used.
+   *
+   * @return the previous value, or {@code null} if the key was absent
+   */
+  public V put(long key, V value) {
+    int index = find(key);
+    if (index != NONE) {
+      V previous = valueAt(index);
+      values[index] = value;
+      moveToYoungest(index);
+      return previous;
+    }
+
+    if (free == NONE && used == keys.length) {
+      grow();
+    }
+
+    if (free != NONE) {
+      index = free;
+      free = chain[index];
+    } else {
+      index = used++;
+    }
+
+    keys[index] = key;
+    values[index] = value;
+    int bucket = bucketOf(key);
+    chain[index] = buckets[bucket];
+    buckets[bucket] = index;
+    linkYoungest(index);
+    size++;
+    return null;
+  }
+
+  /**
+   * @return the removed value, or {@code null} if the key was absent
+   */
+  public V remove(long key) {
+    int bucket = bucketOf(key);
+    int previous = NONE;
+
+    for (int index = buckets[bucket]; index != NONE; previous = index, index = chain[index]) {
+      if (keys[index] == key) {
+        if (previous == NONE) {
+          buckets[bucket] = chain[index];
+        } else {
+          chain[previous] = chain[index];
+        }
+        return release(index);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Key of the least recently used entry.
+   *
+   * @throws IllegalStateException if the map is empty
+   */
+  public long eldestKey() throws IllegalStateException {
+    if (eldest == NONE) {
+      throw new IllegalStateException("The map is empty.");
+    }
+    return keys[eldest];
+  }
+
+  /**
+   * Removes the least recently used entry.
+   *
+   * @return its value, or {@code null} if the map is empty
+   */
+  public V removeEldest() {
+    return eldest == NONE ? null : remove(keys[eldest]);
+  }
+
+  public void clear() {
+    Arrays.fill(buckets, NONE);
+    Arrays.fill(values, 0, used, null);
+    size = 0;
+    used = 0;
+    free = NONE;
+    eldest = NONE;
+    youngest = NONE;
+  }
+
+  // --- Subroutines
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    chain = new int[capacity];
+    older = new int[capacity];
+    newer = new int[capacity];
+    buckets = new int[capacity * 2];
+    Arrays.fill(buckets, NONE);
+  }
+
+  // Entries keep their index, so the access order carries over as is; only
+  // the buckets are rebuilt
+  private void grow() {
+    int capacity = keys.length * 2;
+    if (capacity < 0 || capacity > Integer.MAX_VALUE / 2) {
+      throw new IllegalStateException("Map too large.");
+    }
+
+    keys = Arrays.copyOf(keys, capacity);
+    values = Arrays.copyOf(values, capacity);
+    chain = Arrays.copyOf(chain, capacity);
+    older = Arrays.copyOf(older, capacity);
+    newer = Arrays.copyOf(newer, capacity);
+    buckets = new int[capacity * 2];
+    Arrays.fill(buckets, NONE);
+
+    // Full: every allocated entry is live
+    for (int index = 0; index < used; index++) {
+      int bucket = bucketOf(keys[index]);
+      chain[index] = buckets[bucket];
+      buckets[bucket] = index;
+    }
+  }
+
+  private int find(long key) {
+    for (int index = buckets[bucketOf(key)]; index != NONE; index = chain[index]) {
+      if (keys[index] == key) {
+        return index;
+      }
+    }
+    return NONE;
+  }
+
+  // Ids are mostly sequential: mix the bits so they spread over the buckets
+  private int bucketOf(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & (buckets.length - 1);
+  }
+
+  // Entry already unlinked from its bucket
+  private V release(int index) {
+    V value = valueAt(index);
+    unlink(index);
+    values[index] = null;
+    chain[index] = free;
+    free = index;
+    size--;
+    return value;
+  }
+
+  private void moveToYoungest(int index) {
+    if (index != youngest) {
+      unlink(index);
+      linkYoungest(index);
+    }
+  }
+
+  private void linkYoungest(int index) {
+    older[index] = youngest;
+    newer[index] = NONE;
+    if (youngest == NONE) {
+      eldest = index;
+    } else {
+      newer[youngest] = index;
+    }
+    youngest = index;
+  }
+
+  private void unlink(int index) {
+    if (older[index] == NONE) {
+      eldest = newer[index];
+    } else {
+      newer[older[index]] = newer[index];
+    }
+    if (newer[index] == NONE) {
+      youngest = older[index];
+    } else {
+      older[newer[index]] = older[index];
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private V valueAt(int index) {
+    return (V) values[index];
+  }
+}
@@ -0,0 +1,144 @@
+package com.davidelatina.bankingdemo.model.util;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the application's {@link OperationTimer}s.
+ * <p>
+ * Each timer is published over JMX as
+ * {@code com.davidelatina.bankingdemo:type=Operation,name=<operation>} when
+ * it is first asked for, so JConsole or any JMX client shows count, error
+ * rate and percentiles per operation. The same figures can be written to a
+ * plain-text file periodically.
+ * <p>
+ * Operations are named {@code <Class>.<method>}.
+ */
+public enum Metrics {
+
+  INSTANCE;
+
+  // Static variables
+  public static final String JMX_DOMAIN = "com.davidelatina.bankingdemo";
+
+  // Instance variables
+  private final ConcurrentMap<String, OperationTimer> timers = new ConcurrentHashMap<>();
+  private ScheduledExecutorService dumper; // null unless dumping
+  private Path dumpFile;
+
+  // Methods
+  /**
+   * Returns the timer of an operation, creating and publishing it on first
+   * use.
+   */
+  public OperationTimer timer(String name) {
+    return timers.computeIfAbsent(name, Metrics::register);
+  }
+
+  /**
+   * Snapshots of every timer, by operation name.
+   */
+  public List<OperationTimer.Stats> getStats() {
+    List<OperationTimer.Stats> stats = new ArrayList<>();
+    for (OperationTimer timer : timers.values()) {
+      stats.add(timer.getStats());
+    }
+    stats.sort(Comparator.comparing(OperationTimer.Stats::name));
+    return stats;
+  }
+
+  /**
+   * Plain-text report of every operation called at least once, one per line.
+   */
+  public String dump() {
+    StringBuilder report = new StringBuilder("# Operations at ").append(LocalDateTime.now()).append('\n');
+    for (OperationTimer.Stats stats : getStats()) {
+      if (stats.latency().count() > 0) {
+        report.append(stats).append('\n');
+      }
+    }
+    return report.toString();
+  }
+
+  /**
+   * Writes {@link #dump()} to a file periodically, replacing it each time,
+   * until {@link #stopDump()}. Replaces any dump already running.
+   *
+   * @throws IllegalArgumentException if the interval is not positive
+   */
+  public synchronized void startDump(Path file, Duration interval) throws IllegalArgumentException {
+    // --- Parameter validation
+    if (interval.isNegative() || interval.isZero()) {
+      throw new IllegalArgumentException("Metrics dump interval must be positive.");
+    }
+
+    stopDump();
+    dumpFile = file;
+    dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "metrics-dump");
+      thread.setDaemon(true);
+      return thread;
+    });
+    dumper.scheduleAtFixedRate(() -> write(file), interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Stops the periodic dump, writing a last one if it was running.
+   */
+  public synchronized void stopDump() {
+    if (dumper == null) {
+      return;
+    }
+    dumper.shutdownNow();
+    try {
+      dumper.awaitTermination(1, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    write(dumpFile);
+    dumper = null;
+  }
+
+  // --- Subroutines
+
+  private static OperationTimer register(String name) {
+    OperationTimer timer = new OperationTimer(name);
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(timer,
+          new ObjectName(JMX_DOMAIN + ":type=Operation,name=" + ObjectName.quote(name)));
+    } catch (JMException ex) {
+      // Still timed, only not visible over JMX
+      System.err.println("Could not publish metrics of " + name + " over JMX: " + ex.getMessage());
+    }
+    return timer;
+  }
+
+  // Writes next to the file and moves it in place, so readers never see a
+  // partial report
+  private void write(Path file) {
+    try {
+      Path partial = file.resolveSibling(file.getFileName() + ".tmp");
+      Files.writeString(partial, dump(), StandardCharsets.UTF_8);
+      Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      System.err.println("Could not write metrics to " + file + ": " + ex.getMessage());
+    }
+  }
+}
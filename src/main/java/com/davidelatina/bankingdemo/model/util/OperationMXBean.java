@@ -0,0 +1,28 @@
+package com.davidelatina.bankingdemo.model.util;
+
+/**
+ * JMX view of one {@link OperationTimer}. Times are in milliseconds.
+ */
+public interface OperationMXBean {
+
+  String getName();
+
+  long getCount();
+
+  long getErrors();
+
+  /**
+   * Share of calls that failed, between 0 and 1.
+   */
+  double getErrorRate();
+
+  double getMeanMillis();
+
+  double getP50Millis();
+
+  double getP99Millis();
+
+  double getP999Millis();
+
+  double getMaxMillis();
+}
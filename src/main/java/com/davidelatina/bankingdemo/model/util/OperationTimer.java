@@ -0,0 +1,136 @@
+package com.davidelatina.bankingdemo.model.util;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error count of one operation, such as a DAO method.
+ * <p>
+ * Calls are timed with {@link #time(Call)}, which counts the ones that fail
+ * as errors:
+ *
+ * <pre>{@code
+ * return TIMER.time(() -> dao.get(id));
+ * }</pre>
+ *
+ * A failure is a {@link SQLException} or an unchecked exception. Other
+ * checked exceptions, such as {@code InsufficientFundsException}, are
+ * expected outcomes and are passed on without counting.
+ *
+ * Recording costs two clock reads and a {@link LatencyHistogram} update.
+ * Timers are obtained from {@link Metrics}, which publishes them over JMX.
+ * <p>
+ * Thread-safe.
+ */
+public final class OperationTimer implements OperationMXBean {
+
+  // Instance variables
+  private final String name;
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private final LongAdder errors = new LongAdder();
+
+  /**
+   * Point-in-time snapshot of a timer.
+   *
+   * @param name    operation timed
+   * @param latency latency of every call, failed or not
+   * @param errors  calls that failed
+   */
+  public record Stats(String name, LatencyHistogram.Snapshot latency, long errors) {
+
+    public double errorRate() {
+      return latency.count() == 0 ? 0.0 : (double) errors / latency.count();
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "%s %s errors=%d (%.2f%%)",
+          name, latency, errors, 100 * errorRate());
+    }
+  }
+
+  /**
+   * A timed call, throwing up to two checked exception types. When it throws
+   * two, name them at the call site:
+   * {@code TIMER.<Money, InsufficientFundsException, SQLException>time(...)}.
+   */
+  @FunctionalInterface
+  public interface Call<T, X extends Exception, Y extends Exception> {
+    T call() throws X, Y;
+  }
+
+  // Constructor
+  OperationTimer(String name) {
+    this.name = name;
+  }
+
+  // Methods
+  /**
+   * Runs a call and records its latency, and an error if it fails.
+   */
+  public <T, X extends Exception, Y extends Exception> T time(Call<T, X, Y> call) throws X, Y {
+    long start = System.nanoTime();
+    try {
+      return call.call();
+    } catch (Exception ex) {
+      if (ex instanceof SQLException || ex instanceof RuntimeException) {
+        errors.increment();
+      }
+      throw ex;
+    } finally {
+      latency.record(System.nanoTime() - start);
+    }
+  }
+
+  public Stats getStats() {
+    return new Stats(name, latency.snapshot(), errors.sum());
+  }
+
+  // --- JMX
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public long getCount() {
+    return latency.snapshot().count();
+  }
+
+  @Override
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  @Override
+  public double getErrorRate() {
+    return getStats().errorRate();
+  }
+
+  @Override
+  public double getMeanMillis() {
+    return latency.snapshot().mean() / 1e6;
+  }
+
+  @Override
+  public double getP50Millis() {
+    return latency.percentile(0.50) / 1e6;
+  }
+
+  @Override
+  public double getP99Millis() {
+    return latency.percentile(0.99) / 1e6;
+  }
+
+  @Override
+  public double getP999Millis() {
+    return latency.percentile(0.999) / 1e6;
+  }
+
+  @Override
+  public double getMaxMillis() {
+    return latency.snapshot().max() / 1e6;
+  }
+}
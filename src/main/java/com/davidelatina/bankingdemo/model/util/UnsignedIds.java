@@ -0,0 +1,106 @@
+package com.davidelatina.bankingdemo.model.util;
+
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+
+/**
+ * Ids of {@code BIGINT UNSIGNED} columns held in a primitive {@code long}.
+ * <p>
+ * The 64 bits of the column are kept as they are, so ids above
+ * {@link Long#MAX_VALUE} show up as negative {@code long} values. They are
+ * ordered with {@link Long#compareUnsigned(long, long)} and printed with
+ * {@link Long#toUnsignedString(long)}; {@code 0} never names a row, because
+ * {@code SERIAL} columns start at 1.
+ */
+public final class UnsignedIds {
+
+  // Static variables
+  private static final BigInteger TWO_TO_64 = BigInteger.ONE.shiftLeft(64);
+
+  // Constructor
+  private UnsignedIds() {
+  }
+
+  // Methods
+  /**
+   * Whether an id can name a row: any id but {@code 0}, which is the only
+   * unsigned value that is not positive.
+   */
+  public static boolean isValid(long id) {
+    return Long.compareUnsigned(id, 0) > 0;
+  }
+
+  /**
+   * @throws NumberFormatException if the text is not an unsigned 64 bit
+   *                               integer
+   */
+  public static long parse(String text) throws NumberFormatException {
+    return Long.parseUnsignedLong(text.strip());
+  }
+
+  public static String toString(long id) {
+    return Long.toUnsignedString(id);
+  }
+
+  public static BigInteger toBigInteger(long id) {
+    BigInteger value = BigInteger.valueOf(id);
+    return id >= 0 ? value : value.add(TWO_TO_64);
+  }
+
+  /**
+   * @throws IllegalArgumentException if the value is null, negative or does
+   *                                  not fit in 64 bits
+   */
+  public static long fromBigInteger(BigInteger id) throws IllegalArgumentException {
+    if (id == null) {
+      throw new IllegalArgumentException("ID cannot be null");
+    }
+
+    if (id.signum() < 0 || id.bitLength() > Long.SIZE) {
+      throw new IllegalArgumentException("ID out of range: " + id);
+    }
+
+    return id.longValue();
+  }
+
+  /**
+   * Binds an id to a statement parameter: as a {@code long} where it fits,
+   * as its {@link BigInteger} value above {@link Long#MAX_VALUE}.
+   */
+  public static void bind(PreparedStatement stmt, int index, long id) throws SQLException {
+    if (id >= 0) {
+      stmt.setLong(index, id);
+    } else {
+      stmt.setObject(index, toBigInteger(id));
+    }
+  }
+
+  /**
+   * Reads an id column of the current row with {@link ResultSet#getLong},
+   * falling back to its {@link BigInteger} value when the driver refuses
+   * values above {@link Long#MAX_VALUE}.
+   */
+  public static long read(ResultSet rs, String column) throws SQLException {
+    try {
+      return rs.getLong(column);
+    } catch (SQLDataException ex) {
+      return fromBigInteger(rs.getObject(column, BigInteger.class));
+    }
+  }
+
+  /**
+   * Reads an id column of the current row by index.
+   *
+   * @see #read(ResultSet, String)
+   */
+  public static long read(ResultSet rs, int column) throws SQLException {
+    try {
+      return rs.getLong(column);
+    } catch (SQLDataException ex) {
+      return fromBigInteger(rs.getObject(column, BigInteger.class));
+    }
+  }
+}
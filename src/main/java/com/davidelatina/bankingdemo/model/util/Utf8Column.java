@@ -0,0 +1,150 @@
+package com.davidelatina.bankingdemo.model.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only column of strings, packed as UTF-8 in a single byte array.
+ * <p>
+ * Holding a million short strings as {@link String} objects costs two
+ * objects and some 50 bytes of headers and padding each; here each costs its
+ * UTF-8 bytes plus a four-byte offset. Values are decoded on each
+ * {@link #get(int)}. The packed bytes are limited to about 2 GiB.
+ * <p>
+ * Not thread-safe while being appended to; safe to read from any thread once
+ * filled and safely published.
+ */
+public final class Utf8Column {
+
+  // Static variables
+  private static final int MIN_CAPACITY = 16;
+  private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+  // Instance variables
+  // Value i is bytes[offsets[i], offsets[i + 1])
+  private byte[] bytes;
+  private int[] offsets;
+  private int size;
+
+  // Constructors
+  public Utf8Column() {
+    this(MIN_CAPACITY);
+  }
+
+  /**
+   * @param initialCapacity number of values held before the first resize
+   */
+  public Utf8Column(int initialCapacity) {
+    // --- Parameter validation
+    if (initialCapacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative.");
+    }
+
+    int capacity = Math.max(MIN_CAPACITY, initialCapacity);
+    this.offsets = new int[(int) Math.min(MAX_ARRAY_SIZE, capacity + 1L)];
+    this.bytes = new byte[(int) Math.min(MAX_ARRAY_SIZE, capacity * 8L)];
+  }
+
+  // Methods
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Appends a value.
+   *
+   * @return its index
+   * @throws IllegalArgumentException if the value is null
+   * @throws IllegalStateException    if the column is full
+   */
+  public int add(String value) throws IllegalArgumentException, IllegalStateException {
+    // --- Parameter validation
+    if (value == null) {
+      throw new IllegalArgumentException("Column values cannot be null.");
+    }
+
+    byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+    int start = offsets[size];
+    if (encoded.length > MAX_ARRAY_SIZE - start || size + 1 == MAX_ARRAY_SIZE) {
+      throw new IllegalStateException("Column too large.");
+    }
+
+    if (size + 1 == offsets.length) {
+      offsets = Arrays.copyOf(offsets, (int) Math.min(MAX_ARRAY_SIZE, 2L * offsets.length));
+    }
+    if (start + encoded.length > bytes.length) {
+      bytes = Arrays.copyOf(bytes, (int) Math.min(MAX_ARRAY_SIZE,
+          Math.max(2L * bytes.length, (long) start + encoded.length)));
+    }
+
+    System.arraycopy(encoded, 0, bytes, start, encoded.length);
+    offsets[size + 1] = start + encoded.length;
+    return size++;
+  }
+
+  /**
+   * Decodes a value.
+   *
+   * @throws IndexOutOfBoundsException if there is no value at this index
+   */
+  public String get(int index) throws IndexOutOfBoundsException {
+    checkIndex(index);
+    return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+  }
+
+  /**
+   * First character of a value, without decoding the rest of it.
+   *
+   * @return the first UTF-16 char, or {@code 0} if the value is empty
+   * @throws IndexOutOfBoundsException if there is no value at this index
+   */
+  public char firstChar(int index) throws IndexOutOfBoundsException {
+    checkIndex(index);
+    int start = offsets[index];
+    int end = offsets[index + 1];
+    if (start == end) {
+      return 0;
+    }
+    if (bytes[start] >= 0) {
+      return (char) bytes[start]; // ASCII
+    }
+
+    // At most four bytes encode one code point
+    String head = new String(bytes, start, Math.min(4, end - start), StandardCharsets.UTF_8);
+    return head.charAt(0);
+  }
+
+  /**
+   * Length of a value in UTF-8 bytes.
+   *
+   * @throws IndexOutOfBoundsException if there is no value at this index
+   */
+  public int byteLength(int index) throws IndexOutOfBoundsException {
+    checkIndex(index);
+    return offsets[index + 1] - offsets[index];
+  }
+
+  /**
+   * Releases the capacity reserved for further values.
+   */
+  public void trimToSize() {
+    offsets = Arrays.copyOf(offsets, size + 1);
+    bytes = Arrays.copyOf(bytes, offsets[size]);
+  }
+
+  /**
+   * Approximate heap footprint of the column, in bytes.
+   */
+  public long footprint() {
+    // Array headers of 16 bytes
+    return 16L + bytes.length + 16L + 4L * offsets.length;
+  }
+
+  // --- Subroutines
+
+  private void checkIndex(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+  }
+}
@@ -0,0 +1,425 @@
+package com.davidelatina.bankingdemo.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.davidelatina.bankingdemo.dao.dto.CustomerPage;
+import com.davidelatina.bankingdemo.exception.UncheckedSQLException;
+import com.davidelatina.bankingdemo.model.entity.Customer;
+import com.davidelatina.bankingdemo.model.service.CustomerService;
+import com.davidelatina.bankingdemo.model.service.Session;
+import com.davidelatina.bankingdemo.model.service.SessionManager;
+import com.davidelatina.bankingdemo.model.util.UnsignedIds;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP/JSON front-end to {@link CustomerService} and {@link SessionManager},
+ * serving many clients at once from the same service layer as the console.
+ * <p>
+ * Endpoints:
+ * <ul>
+ * <li>{@code POST /api/sessions} with {@code username} and {@code password}:
+ * logs in and returns a session token</li>
+ * <li>{@code DELETE /api/sessions}: logs out</li>
+ * <li>{@code POST /api/customers} with {@code username}, {@code password},
+ * {@code firstName}, {@code lastName} and {@code age}: registers a
+ * customer</li>
+ * <li>{@code GET /api/me}: the logged-in customer</li>
+ * <li>{@code GET /api/customers/{id}}: a single customer</li>
+ * <li>{@code GET /api/customers?after={id}&limit={n}}: a page of customers in
+ * id order</li>
+ * <li>{@code GET /api/stats}: cache, hashing, session and server
+ * statistics</li>
+ * </ul>
+ * Apart from logging in and registering, requests must carry the session
+ * token as {@code Authorization: Bearer <token>}.
+ * <p>
+ * Each request runs on its own virtual thread when the runtime supports them
+ * (Java 21 and later), and on a bounded pool of platform threads otherwise.
+ * At most {@link ServerConfig#maxConcurrentRequests()} requests are processed
+ * at once; the excess is answered with 503 rather than queued.
+ */
+public class BankHttpServer implements AutoCloseable {
+
+  // Static variables
+  private static final String BEARER_PREFIX = "Bearer ";
+  private static final int DEFAULT_PAGE_SIZE = 20;
+
+  // Instance variables
+  private final ServerConfig config;
+  private final CustomerService customerService;
+  private final SessionManager sessionManager;
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final boolean virtualThreads;
+  private final Semaphore requestPermits;
+
+  // --- Statistics
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+
+  // Response to a request: status and JSON body, or no body if null
+  private record Response(int status, String body) {
+  }
+
+  // Constructor
+  /**
+   * Binds the server socket. Requests are served once {@link #start()} is
+   * called.
+   *
+   * @throws IOException if the port could not be bound
+   */
+  public BankHttpServer(ServerConfig config, CustomerService customerService, SessionManager sessionManager)
+      throws IOException {
+    this.config = config;
+    this.customerService = customerService;
+    this.sessionManager = sessionManager;
+    this.requestPermits = new Semaphore(config.maxConcurrentRequests());
+
+    // Read once by the JDK's HTTP server implementation, on first use
+    System.setProperty("sun.net.httpserver.maxConnections", String.valueOf(config.maxConnections()));
+
+    ExecutorService virtualExecutor = newVirtualThreadExecutor();
+    this.virtualThreads = virtualExecutor != null;
+    this.executor = virtualThreads ? virtualExecutor : newPlatformThreadExecutor(config.fallbackThreads());
+
+    this.server = HttpServer.create(new InetSocketAddress(config.port()), config.backlog());
+    this.server.setExecutor(executor);
+    this.server.createContext("/api/", this::handle);
+  }
+
+  // Methods
+  public void start() {
+    server.start();
+  }
+
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  public boolean usesVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * Stops accepting requests, waits up to a second for those in progress and
+   * stops the worker threads.
+   */
+  @Override
+  public void close() {
+    server.stop(1);
+    executor.shutdownNow();
+  }
+
+  // --- Subroutines
+
+  // Executors.newVirtualThreadPerTaskExecutor(), looked up at run time so that
+  // the application still builds and runs on Java 17
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException | IllegalAccessException ex) {
+      return null; // before Java 19
+    } catch (InvocationTargetException ex) {
+      return null; // preview feature not enabled, Java 19 and 20
+    }
+  }
+
+  private static ExecutorService newPlatformThreadExecutor(int threads) {
+    AtomicInteger threadNumber = new AtomicInteger();
+    return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "http-worker-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requests.increment();
+
+    try (exchange) {
+      if (!requestPermits.tryAcquire()) {
+        rejected.increment();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        send(exchange, new Response(503, error("Server busy, try again later.")));
+        return;
+      }
+
+      try {
+        send(exchange, route(exchange));
+      } finally {
+        requestPermits.release();
+      }
+    }
+  }
+
+  private Response route(HttpExchange exchange) {
+    String method = exchange.getRequestMethod();
+    String path = exchange.getRequestURI().getPath();
+
+    try {
+      if (path.equals("/api/sessions")) {
+        return switch (method) {
+          case "POST" -> login(exchange);
+          case "DELETE" -> logout(exchange);
+          default -> methodNotAllowed();
+        };
+      }
+
+      if (path.equals("/api/customers")) {
+        return switch (method) {
+          case "POST" -> register(exchange);
+          case "GET" -> listCustomers(exchange);
+          default -> methodNotAllowed();
+        };
+      }
+
+      if (path.startsWith("/api/customers/")) {
+        return method.equals("GET") ? viewCustomer(exchange, path.substring("/api/customers/".length()))
+            : methodNotAllowed();
+      }
+
+      if (path.equals("/api/me")) {
+        return method.equals("GET") ? viewSelf(exchange) : methodNotAllowed();
+      }
+
+      if (path.equals("/api/stats")) {
+        return method.equals("GET") ? viewStatistics(exchange) : methodNotAllowed();
+      }
+
+      return new Response(404, error("Not found."));
+
+    } catch (RequestTooLargeException ex) {
+      return new Response(413, error(ex.getMessage()));
+
+    } catch (IllegalArgumentException ex) {
+      return new Response(400, error(ex.getMessage()));
+
+    } catch (RejectedExecutionException ex) {
+      // Password hashing saturated
+      rejected.increment();
+      return new Response(503, error("Server busy, try again later."));
+
+    } catch (SQLException | UncheckedSQLException | IOException ex) {
+      errors.increment();
+      ex.printStackTrace();
+      return new Response(500, error("Internal server error."));
+
+    } catch (RuntimeException ex) {
+      errors.increment();
+      ex.printStackTrace();
+      return new Response(500, error("Internal server error."));
+    }
+  }
+
+  // --- Endpoints
+
+  private Response login(HttpExchange exchange) throws IOException, SQLException {
+    Map<String, String> body = readBody(exchange);
+    String username = required(body, "username");
+    // The password passes through an immutable String while parsing
+    char[] password = required(body, "password").toCharArray();
+
+    // Clears password
+    Optional<Session> session = sessionManager.login(username, password);
+    if (session.isEmpty()) {
+      return new Response(401, error("Username and Password do not match."));
+    }
+
+    return new Response(201, "{\"token\":" + Json.quote(session.get().getToken())
+        + ",\"customer\":" + Json.customer(session.get().getCustomer()) + "}");
+  }
+
+  private Response logout(HttpExchange exchange) {
+    Optional<String> token = bearerToken(exchange);
+    if (token.isEmpty() || sessionManager.getSession(token.get()).isEmpty()) {
+      return unauthorized();
+    }
+    sessionManager.logout(token.get());
+    return new Response(204, null);
+  }
+
+  private Response register(HttpExchange exchange) throws IOException, SQLException {
+    Map<String, String> body = readBody(exchange);
+    String username = required(body, "username");
+    char[] password = required(body, "password").toCharArray();
+
+    int age;
+    try {
+      age = Integer.parseInt(required(body, "age"));
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Age must be a whole number.");
+    }
+
+    try {
+      customerService.createNewCustomer(username, password,
+          body.getOrDefault("firstName", ""), body.getOrDefault("lastName", ""), age);
+    } finally {
+      Arrays.fill(password, '\u0000');
+    }
+    return new Response(201, Json.object("username", username));
+  }
+
+  private Response viewSelf(HttpExchange exchange) {
+    Optional<Session> session = authenticate(exchange);
+    if (session.isEmpty()) {
+      return unauthorized();
+    }
+    return new Response(200, Json.customer(session.get().getCustomer()));
+  }
+
+  private Response viewCustomer(HttpExchange exchange, String id) throws SQLException {
+    if (authenticate(exchange).isEmpty()) {
+      return unauthorized();
+    }
+
+    long customerId;
+    try {
+      customerId = UnsignedIds.parse(id);
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Invalid Customer ID.");
+    }
+
+    Optional<Customer> customer = customerService.viewSingleCustomer(customerId);
+    return customer.map(found -> new Response(200, Json.customer(found)))
+        .orElseGet(() -> new Response(404, error("Customer not found.")));
+  }
+
+  private Response listCustomers(HttpExchange exchange) throws SQLException {
+    if (authenticate(exchange).isEmpty()) {
+      return unauthorized();
+    }
+
+    Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    long after;
+    int limit;
+    try {
+      after = UnsignedIds.parse(query.getOrDefault("after", "0"));
+      limit = Integer.parseInt(query.getOrDefault("limit", String.valueOf(DEFAULT_PAGE_SIZE)));
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Parameters after and limit must be whole numbers.");
+    }
+
+    CustomerPage page = customerService.getCustomerPageAfter(after, limit, null, null);
+    return new Response(200, Json.customerPage(page));
+  }
+
+  private Response viewStatistics(HttpExchange exchange) {
+    if (authenticate(exchange).isEmpty()) {
+      return unauthorized();
+    }
+
+    return new Response(200, Json.object(
+        "customerCache", customerService.getCacheStats().toString(),
+        "usernameFilter", customerService.getUsernameFilterStats().map(Object::toString).orElse("disabled"),
+        "searchIndex", customerService.getSearchIndexStats().map(Object::toString).orElse("disabled"),
+        "passwordHashing", customerService.getHashingStats().toString(),
+        "sessions", sessionManager.getStats().toString(),
+        "server", String.format(Locale.ROOT, "virtualThreads=%b requests=%d rejected=%d errors=%d inFlight=%d",
+            virtualThreads, requests.sum(), rejected.sum(), errors.sum(),
+            config.maxConcurrentRequests() - requestPermits.availablePermits())));
+  }
+
+  // --- Helpers
+
+  private Optional<Session> authenticate(HttpExchange exchange) {
+    return bearerToken(exchange).flatMap(sessionManager::getSession);
+  }
+
+  private static Optional<String> bearerToken(HttpExchange exchange) {
+    String header = exchange.getRequestHeaders().getFirst("Authorization");
+    if (header == null || !header.startsWith(BEARER_PREFIX)) {
+      return Optional.empty();
+    }
+    return Optional.of(header.substring(BEARER_PREFIX.length()).trim());
+  }
+
+  private Map<String, String> readBody(HttpExchange exchange) throws IOException {
+    try (InputStream in = exchange.getRequestBody()) {
+      byte[] body = in.readNBytes(config.maxRequestBytes() + 1);
+      if (body.length > config.maxRequestBytes()) {
+        throw new RequestTooLargeException("Request body exceeds " + config.maxRequestBytes() + " bytes.");
+      }
+      return Json.parseFlatObject(new String(body, StandardCharsets.UTF_8));
+    }
+  }
+
+  private static String required(Map<String, String> body, String key) {
+    String value = body.get(key);
+    if (value == null) {
+      throw new IllegalArgumentException("Missing field: " + key);
+    }
+    return value;
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) {
+    Map<String, String> parameters = new HashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return parameters;
+    }
+
+    for (String pair : rawQuery.split("&")) {
+      int separator = pair.indexOf('=');
+      String key = separator < 0 ? pair : pair.substring(0, separator);
+      String value = separator < 0 ? "" : pair.substring(separator + 1);
+      parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return parameters;
+  }
+
+  private static void send(HttpExchange exchange, Response response) throws IOException {
+    if (response.body() == null) {
+      exchange.sendResponseHeaders(response.status(), -1);
+      return;
+    }
+
+    byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(response.status(), body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static String error(String message) {
+    return Json.object("error", message);
+  }
+
+  private static Response unauthorized() {
+    return new Response(401, error("Missing or expired session token."));
+  }
+
+  private static Response methodNotAllowed() {
+    return new Response(405, error("Method not allowed."));
+  }
+
+  // Request body over the configured limit
+  private static class RequestTooLargeException extends IllegalArgumentException {
+    RequestTooLargeException(String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package com.davidelatina.bankingdemo.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.davidelatina.bankingdemo.dao.dto.CustomerPage;
+import com.davidelatina.bankingdemo.model.entity.Customer;
+import com.davidelatina.bankingdemo.model.util.UnsignedIds;
+
+/**
+ * Minimal JSON support for the HTTP API: flat request objects in, and the
+ * few response shapes the API produces out.
+ */
+public final class Json {
+
+  // Constructor
+  private Json() {
+  }
+
+  // Methods
+  /**
+   * Parses a JSON object whose values are all strings, numbers, booleans or
+   * null. Non-string values are returned as their literal text, and null as
+   * {@code null}.
+   *
+   * @throws IllegalArgumentException if the text is not such an object
+   */
+  public static Map<String, String> parseFlatObject(String text) throws IllegalArgumentException {
+    Parser parser = new Parser(text);
+    Map<String, String> values = new LinkedHashMap<>();
+
+    parser.expect('{');
+    if (!parser.tryConsume('}')) {
+      do {
+        String key = parser.readString();
+        parser.expect(':');
+        values.put(key, parser.readScalar());
+      } while (parser.tryConsume(','));
+      parser.expect('}');
+    }
+    parser.expectEnd();
+    return values;
+  }
+
+  public static String quote(String value) {
+    if (value == null) {
+      return "null";
+    }
+
+    StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"' -> quoted.append("\\\"");
+        case '\\' -> quoted.append("\\\\");
+        case '\n' -> quoted.append("\\n");
+        case '\r' -> quoted.append("\\r");
+        case '\t' -> quoted.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            quoted.append(String.format("\\u%04x", (int) c));
+          } else {
+            quoted.append(c);
+          }
+        }
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  public static String customer(Customer customer) {
+    return "{\"id\":" + UnsignedIds.toString(customer.id())
+        + ",\"username\":" + quote(customer.username())
+        + ",\"firstName\":" + quote(customer.firstName())
+        + ",\"lastName\":" + quote(customer.lastName())
+        + ",\"age\":" + customer.age()
+        + ",\"registeredAt\":" + quote(String.valueOf(customer.datetime())) + "}";
+  }
+
+  public static String customerPage(CustomerPage page) {
+    StringBuilder json = new StringBuilder("{\"customers\":[");
+    for (int i = 0; i < page.customers().size(); i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append(customer(page.customers().get(i)));
+    }
+    return json.append("],\"hasPrevious\":").append(page.hasPrevious())
+        .append(",\"hasNext\":").append(page.hasNext())
+        .append('}').toString();
+  }
+
+  /**
+   * Builds an object of string members, in the order given.
+   *
+   * @param keysAndValues alternating keys and values
+   */
+  public static String object(String... keysAndValues) {
+    StringBuilder json = new StringBuilder("{");
+    for (int i = 0; i + 1 < keysAndValues.length; i += 2) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append(quote(keysAndValues[i])).append(':').append(quote(keysAndValues[i + 1]));
+    }
+    return json.append('}').toString();
+  }
+
+  // --- Subroutines
+
+  private static final class Parser {
+    private final String text;
+    private int position;
+
+    Parser(String text) {
+      this.text = text;
+    }
+
+    void expect(char c) {
+      if (!tryConsume(c)) {
+        throw error("expected '" + c + "'");
+      }
+    }
+
+    boolean tryConsume(char c) {
+      skipWhitespace();
+      if (position < text.length() && text.charAt(position) == c) {
+        position++;
+        return true;
+      }
+      return false;
+    }
+
+    void expectEnd() {
+      skipWhitespace();
+      if (position != text.length()) {
+        throw error("unexpected trailing content");
+      }
+    }
+
+    String readScalar() {
+      skipWhitespace();
+      if (position < text.length() && text.charAt(position) == '"') {
+        return readString();
+      }
+
+      int start = position;
+      while (position < text.length() && "-+.eE0123456789abcdefghijklmnopqrstuvwxyz".indexOf(text.charAt(position)) >= 0) {
+        position++;
+      }
+      String literal = text.substring(start, position);
+
+      if (literal.equals("null")) {
+        return null;
+      }
+      if (literal.equals("true") || literal.equals("false") || literal.matches("-?\\d+(\\.\\d+)?([eE][-+]?\\d+)?")) {
+        return literal;
+      }
+      throw error("unsupported value");
+    }
+
+    String readString() {
+      expect('"');
+      StringBuilder value = new StringBuilder();
+
+      while (position < text.length()) {
+        char c = text.charAt(position++);
+        if (c == '"') {
+          return value.toString();
+        }
+        if (c != '\\') {
+          value.append(c);
+          continue;
+        }
+
+        if (position >= text.length()) {
+          break;
+        }
+        char escaped = text.charAt(position++);
+        switch (escaped) {
+          case '"', '\\', '/' -> value.append(escaped);
+          case 'b' -> value.append('\b');
+          case 'f' -> value.append('\f');
+          case 'n' -> value.append('\n');
+          case 'r' -> value.append('\r');
+          case 't' -> value.append('\t');
+          case 'u' -> {
+            if (position + 4 > text.length()) {
+              throw error("truncated unicode escape");
+            }
+            try {
+              value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+            } catch (NumberFormatException ex) {
+              throw error("invalid unicode escape");
+            }
+            position += 4;
+          }
+          default -> throw error("invalid escape");
+        }
+      }
+      throw error("unterminated string");
+    }
+
+    private void skipWhitespace() {
+      while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+        position++;
+      }
+    }
+
+    private IllegalArgumentException error(String reason) {
+      return new IllegalArgumentException("Malformed JSON at position " + position + ": " + reason);
+    }
+  }
+}
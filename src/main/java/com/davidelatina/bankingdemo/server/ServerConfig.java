@@ -0,0 +1,59 @@
+package com.davidelatina.bankingdemo.server;
+
+import com.davidelatina.bankingdemo.config.Settings;
+
+/**
+ * Network and concurrency limits of a {@link BankHttpServer}.
+ *
+ * @param port                  TCP port to listen on
+ * @param backlog               pending TCP connections queued by the operating
+ *                              system before new ones are refused
+ * @param maxConnections        open client connections the server accepts at
+ *                              once
+ * @param maxConcurrentRequests requests processed at once; further requests
+ *                              are answered with 503 straight away
+ * @param fallbackThreads       worker threads when virtual threads are not
+ *                              available
+ * @param maxRequestBytes       largest accepted request body
+ */
+public record ServerConfig(
+    int port,
+    int backlog,
+    int maxConnections,
+    int maxConcurrentRequests,
+    int fallbackThreads,
+    int maxRequestBytes) {
+
+  public ServerConfig {
+    // --- Parameter validation
+    if (port < 0 || port > 65_535) {
+      throw new IllegalArgumentException("Server port must be between 0 and 65535.");
+    }
+
+    if (backlog < 0) {
+      throw new IllegalArgumentException("Server backlog cannot be negative.");
+    }
+
+    if (maxConnections < 1 || maxConcurrentRequests < 1 || fallbackThreads < 1) {
+      throw new IllegalArgumentException("Server connection and thread limits must be positive.");
+    }
+
+    if (maxRequestBytes < 1) {
+      throw new IllegalArgumentException("Maximum request size must be positive.");
+    }
+  }
+
+  /**
+   * Reads the server configuration from the application settings, using the
+   * defaults for missing keys.
+   */
+  public static ServerConfig fromSettings(Settings settings) {
+    return new ServerConfig(
+        settings.getInt("SERVER_PORT", 8080),
+        settings.getInt("SERVER_BACKLOG", 128),
+        settings.getInt("SERVER_MAX_CONNECTIONS", 1_000),
+        settings.getInt("SERVER_MAX_CONCURRENT_REQUESTS", 256),
+        settings.getInt("SERVER_FALLBACK_THREADS", 64),
+        settings.getInt("SERVER_MAX_REQUEST_BYTES", 16_384));
+  }
+}